@@ -0,0 +1,143 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.bench;
+
+import org.openjdk.jmh.annotations.*;
+import sgl.buffer.Buffer2D;
+import sgl.buffer.Buffer3D;
+import sgl.opengl.texture.GLTexture.Target;
+import sgl.opengl.texture.GLTexture2D;
+import sgl.opengl.texture.GLTexture3D;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.*;
+import static org.lwjgl.opengl.GL30.GL_RGBA32F;
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * Typed region get/set through the {@link Buffer2D} and {@link Buffer3D}
+ * interfaces, backed by GL textures.
+ *
+ * @author link
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BufferBenchmark {
+
+	@Param({"64", "256", "1024"})
+	public int size;
+
+	@Param({"16"})
+	public int depth;
+
+	private Buffer2D bytes2D, floats2D;
+	private Buffer3D bytes3D;
+
+	private ByteBuffer byteData, byteData3D;
+	private IntBuffer intData;
+	private FloatBuffer floatData;
+
+	@Setup(Level.Trial)
+	public void setup(GLContext context) {
+		GLTexture2D bytes = new GLTexture2D(Target.TEXTURE_2D, GL_RGBA8, size, size, GL_RGBA, GL_UNSIGNED_BYTE);
+		bytes.bind();
+		glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA8, size, size, 0, GL_RGBA, GL_UNSIGNED_BYTE, NULL);
+		bytes2D = bytes;
+
+		GLTexture2D floats = new GLTexture2D(Target.TEXTURE_2D, GL_RGBA32F, size, size, GL_RGBA, GL_FLOAT);
+		floats.bind();
+		glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA32F, size, size, 0, GL_RGBA, GL_FLOAT, NULL);
+		floats2D = floats;
+
+		GLTexture3D volume = new GLTexture3D(Target.TEXTURE_3D, GL_RGBA8, size, size, depth, GL_RGBA, GL_UNSIGNED_BYTE);
+		volume.bind();
+		glTexImage3D(GL_TEXTURE_3D, 0, GL_RGBA8, size, size, depth, 0, GL_RGBA, GL_UNSIGNED_BYTE, NULL);
+		bytes3D = volume;
+
+		byteData = memAlloc(4 * size * size);
+		intData = memAllocInt(size * size);
+		floatData = memAllocFloat(4 * size * size);
+		byteData3D = memAlloc(4 * size * size * depth);
+	}
+
+	@TearDown(Level.Trial)
+	public void teardown() {
+		memFree(byteData);
+		memFree(intData);
+		memFree(floatData);
+		memFree(byteData3D);
+	}
+
+	@Benchmark
+	public void set2DByte() {
+		bytes2D.set(0, 0, size, size, byteData);
+		glFinish();
+	}
+
+	@Benchmark
+	public void set2DInt() {
+		bytes2D.set(0, 0, size, size, intData);
+		glFinish();
+	}
+
+	@Benchmark
+	public void set2DFloat() {
+		floats2D.set(0, 0, size, size, floatData);
+		glFinish();
+	}
+
+	@Benchmark
+	public ByteBuffer get2DByte() {
+		byteData.clear();
+		bytes2D.get(0, 0, size, size, byteData);
+		return byteData;
+	}
+
+	@Benchmark
+	public FloatBuffer get2DFloat() {
+		floatData.clear();
+		floats2D.get(0, 0, size, size, floatData);
+		return floatData;
+	}
+
+	@Benchmark
+	public void set3DByte() {
+		bytes3D.set(0, 0, 0, size, size, depth, byteData3D);
+		glFinish();
+	}
+
+}
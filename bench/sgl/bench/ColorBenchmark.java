@@ -0,0 +1,88 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import sgl.image.color.Color;
+import sgl.image.color.RGBAColor;
+import sgl.opengl.image.color.GLColor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Packing of {@link Color}s into {@code rgba()} and {@code argb()} ints.
+ *
+ * @author link
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColorBenchmark {
+
+	private static final int COUNT = 1024;
+
+	private final Color[] rgba = new Color[COUNT], gl = new Color[COUNT];
+
+	@Setup
+	public void setup() {
+		for (int i = 0; i < COUNT; i++) {
+			float f = i / (float) COUNT;
+			rgba[i] = new RGBAColor(f, 1 - f, f * 0.5f, 1);
+			gl[i] = new GLColor(f, 1 - f, f * 0.5f, 1);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public void rgbaColorRGBA(Blackhole blackhole) {
+		for (Color color : rgba) blackhole.consume(color.rgba());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public void rgbaColorARGB(Blackhole blackhole) {
+		for (Color color : rgba) blackhole.consume(color.argb());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public void glColorRGBA(Blackhole blackhole) {
+		for (Color color : gl) blackhole.consume(color.rgba());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public void glColorARGB(Blackhole blackhole) {
+		for (Color color : gl) blackhole.consume(color.argb());
+	}
+
+}
@@ -0,0 +1,69 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.bench;
+
+import org.openjdk.jmh.annotations.*;
+import sgl.opengl.OpenGL;
+
+import static org.lwjgl.glfw.GLFW.*;
+import static org.lwjgl.system.MemoryUtil.NULL;
+
+/**
+ * A hidden GLFW window whose OpenGL context is current on the benchmark
+ * Thread. GL-backed states take this as a {@link Setup} parameter so the
+ * context exists before they create GL objects.
+ *
+ * @author link
+ */
+@State(Scope.Thread)
+public class GLContext {
+
+	private long window;
+
+	@Setup(Level.Trial)
+	public void create() {
+		if (!glfwInit())
+			throw new IllegalStateException("Failed to initialize GLFW");
+
+		glfwDefaultWindowHints();
+		glfwWindowHint(GLFW_VISIBLE, GLFW_FALSE);
+		window = glfwCreateWindow(1, 1, "SGL Benchmark", NULL, NULL);
+		if (window == NULL)
+			throw new IllegalStateException("Failed to create an OpenGL context (is a display or xvfb-run available?)");
+
+		glfwMakeContextCurrent(window);
+		OpenGL.initialize();
+	}
+
+	@TearDown(Level.Trial)
+	public void destroy() {
+		glfwMakeContextCurrent(NULL);
+		glfwDestroyWindow(window);
+	}
+
+}
@@ -0,0 +1,115 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.bench;
+
+import org.openjdk.jmh.annotations.*;
+import sgl.util.log.Log;
+import sgl.util.log.Logger;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Logger} throughput with several Threads logging to the same
+ * {@link Log}.
+ * <p>
+ * GLFWLogger is not benchmarked here: its print queue is not yet safe for
+ * concurrent use (see the FIXME on that class).
+ * </p>
+ *
+ * @author link
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class LoggerBenchmark {
+
+	private static final PrintStream SINK = new PrintStream(new OutputStream() {
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	});
+
+	// entries a Thread logs before it swaps in a fresh Log
+	private static final int ROLLOVER = 1 << 14;
+
+	private volatile Log log;
+	private Logger logger;
+
+	/**
+	 * Counts the entries one benchmark Thread logged into the current Log.
+	 */
+	@State(Scope.Thread)
+	public static class Entries {
+
+		int count;
+
+	}
+
+	// a fresh Log per iteration, and a rollover within it, keep list growth and the GC it causes out of the measurement
+	@Setup(Level.Iteration)
+	public void setup() {
+		log = new Log();
+		logger = entry -> log.addEntry(entry);
+	}
+
+	private void log(Entries entries) {
+		logger.log(Log.Level.INFO, SINK, "benchmark entry");
+		if (++entries.count == ROLLOVER) {
+			entries.count = 0;
+			log = new Log();
+		}
+	}
+
+	@Benchmark
+	@Threads(1)
+	public void uncontended(Entries entries) {
+		log(entries);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public void contended4(Entries entries) {
+		log(entries);
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public void contendedMax(Entries entries) {
+		log(entries);
+	}
+
+}
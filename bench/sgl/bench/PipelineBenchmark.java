@@ -0,0 +1,74 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import sgl.canvas.Canvas;
+import sgl.pipeline.FIFOPipeline;
+import sgl.pipeline.Pipeline;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatch of N Renderables through a {@link Pipeline}.
+ *
+ * @author link
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineBenchmark {
+
+	@Param({"16", "1024", "65536"})
+	public int renderables;
+
+	private final Canvas canvas = new NullCanvas();
+	private Pipeline<Canvas> pipeline;
+	// the Blackhole of the running benchmark call, read by the Renderables
+	private Blackhole blackhole;
+
+	@Setup
+	public void setup() {
+		pipeline = new FIFOPipeline<>(renderables);
+		for (int i = 0; i < renderables; i++) {
+			final int id = i;
+			pipeline.add(canvas -> blackhole.consume(id));
+		}
+	}
+
+	@Benchmark
+	public void enter(Blackhole blackhole) {
+		this.blackhole = blackhole;
+		pipeline.enter(canvas);
+	}
+
+}
@@ -0,0 +1,86 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.bench;
+
+import org.openjdk.jmh.annotations.*;
+import sgl.image.color.Color;
+import sgl.image.raster.Raster2D;
+import sgl.opengl.image.color.GLColor;
+import sgl.opengl.texture.GLTexture.Target;
+import sgl.opengl.texture.GLTexture2D;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.system.MemoryUtil.NULL;
+
+/**
+ * {@code Color[]} conversion through {@link Raster2D}, backed by a GL texture.
+ *
+ * @author link
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RasterBenchmark {
+
+	@Param({"64", "256"})
+	public int size;
+
+	private Raster2D raster;
+	private Color[] colors, read;
+
+	@Setup(Level.Trial)
+	public void setup(GLContext context) {
+		GLTexture2D texture = new GLTexture2D(Target.TEXTURE_2D, GL_RGBA8, size, size, GL_RGBA, GL_UNSIGNED_BYTE);
+		texture.bind();
+		glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA8, size, size, 0, GL_RGBA, GL_UNSIGNED_BYTE, NULL);
+		raster = texture;
+
+		colors = new Color[size * size];
+		for (int i = 0; i < colors.length; i++)
+			colors[i] = new GLColor(i & 0xFF, (i >> 8) & 0xFF, (i >> 16) & 0xFF, 255);
+		read = new Color[size * size];
+	}
+
+	@Benchmark
+	public void setColors() {
+		raster.set(0, 0, size, size, colors);
+		glFinish();
+	}
+
+	@Benchmark
+	public Color[] getColors() {
+		raster.get(0, 0, size, size, read);
+		return read;
+	}
+
+}
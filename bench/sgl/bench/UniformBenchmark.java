@@ -0,0 +1,101 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.bench;
+
+import org.openjdk.jmh.annotations.*;
+import sgl.opengl.glsl.GLProgram;
+import sgl.opengl.glsl.GLShader;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.lwjgl.opengl.GL11.glGetInteger;
+import static org.lwjgl.opengl.GL20.*;
+
+/**
+ * Uniform updates on a {@link GLProgram} by name, which goes through the
+ * program's location cache, and by location.
+ *
+ * @author link
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UniformBenchmark {
+
+	private static final String VERTEX = "#version 110\n" + "uniform int offset;\n" + "void main()\n" + "{\n" + "    gl_Position = vec4(float(offset));\n" + "}";
+	private static final String FRAGMENT = "#version 110\n" + "uniform int tint;\n" + "void main()\n" + "{\n" + "    gl_FragColor = vec4(float(tint));\n" + "}";
+
+	private GLShader vertex, fragment;
+	private GLProgram program;
+	private int location;
+	private int value;
+
+	@Setup(Level.Trial)
+	public void setup(GLContext context) {
+		vertex = new GLShader(GL_VERTEX_SHADER);
+		vertex.setSource(VERTEX);
+		vertex.compile();
+		fragment = new GLShader(GL_FRAGMENT_SHADER);
+		fragment.setSource(FRAGMENT);
+		fragment.compile();
+
+		program = new GLProgram(vertex, fragment);
+		program.link();
+		program.use();
+		// warms the location cache so both paths update the same uniform
+		program.setUniformi("offset", 0);
+		location = glGetUniformLocation(glGetInteger(GL_CURRENT_PROGRAM), "offset");
+	}
+
+	@TearDown(Level.Trial)
+	public void teardown() {
+		program.discard();
+		vertex.discard();
+		fragment.discard();
+	}
+
+	@Benchmark
+	public void setByName() {
+		program.setUniformi("offset", value++);
+	}
+
+	@Benchmark
+	public void setByLocation() {
+		program.setUniformi(location, value++);
+	}
+
+	@Benchmark
+	public void setMissingByName() {
+		// unknown names are cached as -1 and ignored by GL
+		program.setUniformi("missing", value++);
+	}
+
+}
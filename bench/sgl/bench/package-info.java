@@ -0,0 +1,23 @@
+/**
+ * JMH benchmarks for SGL.
+ * <p>
+ * This source root is compiled against the main sources plus the JMH
+ * library (jmh-core and jmh-generator-annprocess, annotation processing
+ * enabled). Run every benchmark with {@link sgl.bench.Benchmarks}, which
+ * writes JMH's JSON results to the file given as its first argument so runs
+ * can be compared across builds:
+ * </p>
+ * <pre>
+ * LIBGL_ALWAYS_SOFTWARE=1 xvfb-run -a java -cp ... sgl.bench.Benchmarks jmh-result.json
+ * </pre>
+ * <p>
+ * Benchmarks that need OpenGL depend on {@link sgl.bench.GLContext}, which
+ * creates a hidden GLFW window. On build machines without a GPU the context
+ * comes from Mesa's software rasterizer ({@code LIBGL_ALWAYS_SOFTWARE=1})
+ * running on a virtual X server, as above. Numbers from a software context
+ * are only comparable with other software-context runs.
+ * </p>
+ *
+ * @author link
+ */
+package sgl.bench;
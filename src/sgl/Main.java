@@ -70,17 +70,17 @@ public class Main {
 		// the initial fragment shader
 		//int fsh = glCreateShader(GL_FRAGMENT_SHADER);
 		while (!glfwWindowShouldClose(((GLFWDisplay) display).ptr())) {
-			glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
 			glfwWaitEvents();
 
 			if (keyboard.isKeyTyped(GLFW_KEY_ESCAPE)) {
 				display.close();
 			} else if (keyboard.isKeyTyped(GLFW_KEY_R)) {
-				display.refresh();
+				display.damageAll();
 			} else if (keyboard.isKeyTyped(GLFW_KEY_F11)) {
 				display.setMode(Mode.FULLSCREEN);
 			}
-			display.refresh();
+			// only what changed is cleared and presented; an idle window just waits for events
+			display.redraw((x, y, width, height) -> glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT));
 		}
 	}
 
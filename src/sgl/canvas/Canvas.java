@@ -95,6 +95,19 @@ public interface Canvas {
 		offset(0.0d);
 	}
 
+	/**
+	 * Reports a region of this Canvas as changed. Draw operations don't
+	 * report the area they touch: damage is reported by the Renderables that
+	 * know what they changed, as a {@link sgl.ui.WidgetTree} reports its
+	 * widgets' to the Display. The default does nothing; a
+	 * {@link RecordingCanvas} records the report and passes it on when
+	 * replayed.
+	 *
+	 * @see sgl.display.Display#damage(int, int, int, int)
+	 */
+	default void damage(double x, double y, double width, double height) {
+	}
+
 	//--------------------drawing---------------------
 
 	/**
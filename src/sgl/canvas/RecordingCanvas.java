@@ -0,0 +1,571 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.canvas;
+
+import org.lwjgl.system.NativeResource;
+import sgl.image.Image;
+import sgl.image.color.Color;
+import sgl.image.color.RGBAColor;
+import sgl.shape.Shape;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * A Canvas that records the calls made on it into a compact off-heap
+ * command stream, to be replayed on any other Canvas as many times as
+ * needed.
+ * <p>
+ * Each command is an opcode followed by its arguments: coordinates as
+ * floats, colors as packed RGBA ints and images and shapes as indices into
+ * a table of references. Replay reads the stream straight from memory
+ * without allocating, apart from creating each distinct color once.
+ * </p>
+ * <p>
+ * That encoding rounds coordinates to float and colors to 8 bits per
+ * component. A {@link #RecordingCanvas(int, int, boolean) lossless}
+ * recording keeps coordinates as doubles and colors as references instead,
+ * so replaying it makes exactly the calls that were recorded. Recordings of
+ * either kind can be appended to each other.
+ * </p>
+ * <p>
+ * The stream is split into segments replayed in order, and a segment can be
+ * recorded again on its own when only its part of the drawing changes. The
+ * size, width, height and depth are those of this Canvas and aren't
+ * recorded. A RecordingCanvas isn't thread safe, but it may be recorded on
+ * one Thread and replayed on another once handed over.
+ * </p>
+ *
+ * @author link
+ */
+public final class RecordingCanvas implements Canvas, NativeResource {
+
+	private static final int OFFSET_1 = 0, OFFSET_2 = 1, OFFSET_3 = 2, DAMAGE = 3,
+			COLOR = 4, IMAGE = 5, SHAPE = 6,
+			COLOR_1 = 7, IMAGE_1 = 8, SHAPE_1 = 9,
+			COLOR_2 = 10, IMAGE_2 = 11, SHAPE_2 = 12,
+			COLOR_3 = 13, IMAGE_3 = 14, SHAPE_3 = 15,
+			FILL_1 = 16, FILL_2 = 17, FILL_3 = 18;
+
+	// added to the opcode of a command recorded losslessly
+	private static final int LOSSLESS = 19;
+
+	// coordinates of each command; commands from COLOR on end with a color or reference
+	private static final int[] COORDINATES = {1, 2, 3, 4, 0, 0, 0, 1, 1, 1, 2, 2, 2, 3, 3, 3, 2, 4, 6};
+
+	// bytes of each command, opcode included, compact then lossless
+	private static final int[] SIZES = new int[LOSSLESS << 1];
+
+	static {
+		for (int op = 0; op < LOSSLESS; op++) {
+			final int value = op >= COLOR ? 4 : 0;
+			SIZES[op] = 4 + 4 * COORDINATES[op] + value;
+			SIZES[op + LOSSLESS] = 4 + 8 * COORDINATES[op] + value;
+		}
+	}
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final List<Segment> segments = new ArrayList<>(1);
+	private Segment current;
+	private int size, width, height, depth;
+	private final boolean lossless;
+
+	// direct-mapped, so replaying the same few colors allocates nothing
+	private final int[] colorKeys = new int[256];
+	private final Color[] colors = new Color[256];
+
+	public RecordingCanvas() {
+		this(0, 0);
+	}
+
+	public RecordingCanvas(int width, int height) {
+		this(width, height, false);
+	}
+
+	/**
+	 * @param lossless whether to keep coordinates as doubles and colors as
+	 *                 references, at the cost of a larger stream
+	 */
+	public RecordingCanvas(int width, int height, boolean lossless) {
+		this.width = width;
+		this.height = height;
+		this.lossless = lossless;
+		this.current = new Segment(lossless);
+		segments.add(current);
+	}
+
+	/**
+	 * @return whether coordinates and colors are recorded exactly
+	 */
+	public boolean isLossless() {
+		return lossless;
+	}
+
+	//--------------------segments---------------------
+
+	/**
+	 * Starts recording into a new segment after every existing one.
+	 *
+	 * @return the index of the segment
+	 */
+	public int newSegment() {
+		current = new Segment(lossless);
+		segments.add(current);
+		return segments.size() - 1;
+	}
+
+	/**
+	 * Forgets the commands of a segment and records into it, leaving the
+	 * other segments and their order as they are.
+	 *
+	 * @param segment the index of the segment
+	 */
+	public void record(int segment) {
+		current = segments.get(segment);
+		current.clear();
+	}
+
+	/**
+	 * @return the index of the segment being recorded into
+	 */
+	public int getSegment() {
+		return segments.indexOf(current);
+	}
+
+	public int getSegmentCount() {
+		return segments.size();
+	}
+
+	/**
+	 * Forgets every command, leaving a single empty segment to record into.
+	 */
+	public void clear() {
+		for (int i = 1; i < segments.size(); i++) segments.get(i).free();
+		current = segments.get(0);
+		segments.clear();
+		segments.add(current);
+		current.clear();
+	}
+
+	/**
+	 * @return true if no commands have been recorded
+	 */
+	public boolean isEmpty() {
+		for (Segment segment : segments)
+			if (segment.position > 0) return false;
+		return true;
+	}
+
+	/**
+	 * @return the number of bytes the commands take up
+	 */
+	public long getStreamSize() {
+		long bytes = 0;
+		for (Segment segment : segments) bytes += segment.position;
+		return bytes;
+	}
+
+	/**
+	 * Copies the commands of another recording onto the end of the segment
+	 * being recorded into. The other recording is left as it is.
+	 *
+	 * @param other the recording to copy
+	 */
+	public void append(RecordingCanvas other) {
+		if (other == this) throw new IllegalArgumentException("can't append a recording to itself");
+		for (Segment segment : other.segments) current.append(segment);
+	}
+
+	//--------------------replay---------------------
+
+	/**
+	 * Replays every segment, in order, on the given Canvas.
+	 *
+	 * @param canvas the canvas to draw to
+	 */
+	public void replay(Canvas canvas) {
+		if (canvas == this) throw new IllegalArgumentException("can't replay into itself");
+		if (canvas instanceof RecordingCanvas) {
+			((RecordingCanvas) canvas).append(this);
+			return;
+		}
+		for (Segment segment : segments) replay(segment, canvas);
+	}
+
+	/**
+	 * Replays one segment on the given Canvas.
+	 *
+	 * @param canvas  the canvas to draw to
+	 * @param segment the index of the segment
+	 */
+	public void replay(Canvas canvas, int segment) {
+		if (canvas == this) throw new IllegalArgumentException("can't replay into itself");
+		final Segment source = segments.get(segment);
+		if (canvas instanceof RecordingCanvas) ((RecordingCanvas) canvas).current.append(source);
+		else replay(source, canvas);
+	}
+
+	private void replay(Segment segment, Canvas canvas) {
+		final Object[] references = segment.references;
+		for (long p = segment.address, end = p + segment.position; p < end; p += SIZES[memGetInt(p)]) {
+			final int code = memGetInt(p);
+			final boolean lossless = code >= LOSSLESS;
+			// the coordinates, each w bytes apart, then the color or reference at v
+			final long c = p + 4, w = lossless ? 8 : 4, v = p + SIZES[code] - 4;
+			switch (lossless ? code - LOSSLESS : code) {
+				case OFFSET_1:
+					canvas.offset(get(c, lossless));
+					break;
+				case OFFSET_2:
+					canvas.offset(get(c, lossless), get(c + w, lossless));
+					break;
+				case OFFSET_3:
+					canvas.offset(get(c, lossless), get(c + w, lossless), get(c + 2 * w, lossless));
+					break;
+				case DAMAGE:
+					canvas.damage(get(c, lossless), get(c + w, lossless), get(c + 2 * w, lossless), get(c + 3 * w, lossless));
+					break;
+				case COLOR:
+					canvas.draw(color(v, lossless, references));
+					break;
+				case IMAGE:
+					canvas.draw((Image) references[memGetInt(v)]);
+					break;
+				case SHAPE:
+					canvas.draw((Shape) references[memGetInt(v)]);
+					break;
+				case COLOR_1:
+					canvas.draw(get(c, lossless), color(v, lossless, references));
+					break;
+				case IMAGE_1:
+					canvas.draw(get(c, lossless), (Image) references[memGetInt(v)]);
+					break;
+				case SHAPE_1:
+					canvas.draw(get(c, lossless), (Shape) references[memGetInt(v)]);
+					break;
+				case COLOR_2:
+					canvas.draw(get(c, lossless), get(c + w, lossless), color(v, lossless, references));
+					break;
+				case IMAGE_2:
+					canvas.draw(get(c, lossless), get(c + w, lossless), (Image) references[memGetInt(v)]);
+					break;
+				case SHAPE_2:
+					canvas.draw(get(c, lossless), get(c + w, lossless), (Shape) references[memGetInt(v)]);
+					break;
+				case COLOR_3:
+					canvas.draw(get(c, lossless), get(c + w, lossless), get(c + 2 * w, lossless), color(v, lossless, references));
+					break;
+				case IMAGE_3:
+					canvas.draw(get(c, lossless), get(c + w, lossless), get(c + 2 * w, lossless), (Image) references[memGetInt(v)]);
+					break;
+				case SHAPE_3:
+					canvas.draw(get(c, lossless), get(c + w, lossless), get(c + 2 * w, lossless), (Shape) references[memGetInt(v)]);
+					break;
+				case FILL_1:
+					canvas.fill(get(c, lossless), get(c + w, lossless), color(v, lossless, references));
+					break;
+				case FILL_2:
+					canvas.fill(get(c, lossless), get(c + w, lossless), get(c + 2 * w, lossless), get(c + 3 * w, lossless), color(v, lossless, references));
+					break;
+				case FILL_3:
+					canvas.fill(get(c, lossless), get(c + w, lossless), get(c + 2 * w, lossless), get(c + 3 * w, lossless), get(c + 4 * w, lossless), get(c + 5 * w, lossless), color(v, lossless, references));
+					break;
+			}
+		}
+	}
+
+	private static double get(long address, boolean lossless) {
+		return lossless ? memGetDouble(address) : memGetFloat(address);
+	}
+
+	private Color color(long address, boolean lossless, Object[] references) {
+		return lossless ? (Color) references[memGetInt(address)] : color(memGetInt(address));
+	}
+
+	private Color color(int rgba) {
+		final int slot = (rgba * 0x9E3779B9) >>> 24;
+		Color color = colors[slot];
+		if (color == null || colorKeys[slot] != rgba) {
+			color = new RGBAColor((rgba >>> 24) / 255f, (rgba >>> 16 & 0xFF) / 255f, (rgba >>> 8 & 0xFF) / 255f, (rgba & 0xFF) / 255f);
+			colors[slot] = color;
+			colorKeys[slot] = rgba;
+		}
+		return color;
+	}
+
+	/**
+	 * Frees the command streams. This can't be recorded into afterwards.
+	 */
+	@Override
+	public void free() {
+		for (Segment segment : segments) segment.free();
+		segments.clear();
+		current = null;
+	}
+
+	//--------------------recording---------------------
+
+	@Override
+	public int getSize() {
+		return size;
+	}
+
+	@Override
+	public void setSize(int size) {
+		this.size = size;
+	}
+
+	@Override
+	public int getWidth() {
+		return width;
+	}
+
+	@Override
+	public void setWidth(int width) {
+		this.width = width;
+	}
+
+	@Override
+	public int getHeight() {
+		return height;
+	}
+
+	@Override
+	public void setHeight(int height) {
+		this.height = height;
+	}
+
+	@Override
+	public int getDepth() {
+		return depth;
+	}
+
+	@Override
+	public void setDepth(int depth) {
+		this.depth = depth;
+	}
+
+	@Override
+	public void offset(double offset) {
+		current.op(OFFSET_1).coord(offset);
+	}
+
+	@Override
+	public void offset(double x, double y) {
+		current.op(OFFSET_2).coord(x).coord(y);
+	}
+
+	@Override
+	public void offset(double x, double y, double z) {
+		current.op(OFFSET_3).coord(x).coord(y).coord(z);
+	}
+
+	@Override
+	public void damage(double x, double y, double width, double height) {
+		current.op(DAMAGE).coord(x).coord(y).coord(width).coord(height);
+	}
+
+	@Override
+	public void draw(Color color) {
+		current.op(COLOR).color(color);
+	}
+
+	@Override
+	public void draw(Image image) {
+		current.op(IMAGE).reference(image);
+	}
+
+	@Override
+	public void draw(Shape shape) {
+		current.op(SHAPE).reference(shape);
+	}
+
+	@Override
+	public void draw(double offset, Color color) {
+		current.op(COLOR_1).coord(offset).color(color);
+	}
+
+	@Override
+	public void draw(double offset, Image image) {
+		current.op(IMAGE_1).coord(offset).reference(image);
+	}
+
+	@Override
+	public void draw(double offset, Shape shape) {
+		current.op(SHAPE_1).coord(offset).reference(shape);
+	}
+
+	@Override
+	public void draw(double x, double y, Color color) {
+		current.op(COLOR_2).coord(x).coord(y).color(color);
+	}
+
+	@Override
+	public void draw(double x, double y, Image image) {
+		current.op(IMAGE_2).coord(x).coord(y).reference(image);
+	}
+
+	@Override
+	public void draw(double x, double y, Shape shape) {
+		current.op(SHAPE_2).coord(x).coord(y).reference(shape);
+	}
+
+	@Override
+	public void draw(double x, double y, double z, Color color) {
+		current.op(COLOR_3).coord(x).coord(y).coord(z).color(color);
+	}
+
+	@Override
+	public void draw(double x, double y, double z, Image image) {
+		current.op(IMAGE_3).coord(x).coord(y).coord(z).reference(image);
+	}
+
+	@Override
+	public void draw(double x, double y, double z, Shape shape) {
+		current.op(SHAPE_3).coord(x).coord(y).coord(z).reference(shape);
+	}
+
+	@Override
+	public void fill(double offset, double size, Color color) {
+		current.op(FILL_1).coord(offset).coord(size).color(color);
+	}
+
+	@Override
+	public void fill(double x, double y, double width, double height, Color color) {
+		current.op(FILL_2).coord(x).coord(y).coord(width).coord(height).color(color);
+	}
+
+	@Override
+	public void fill(double startX, double startY, double startZ, double endX, double endY, double endZ, Color color) {
+		current.op(FILL_3).coord(startX).coord(startY).coord(startZ).coord(endX).coord(endY).coord(endZ).color(color);
+	}
+
+	/**
+	 * A growable off-heap run of commands and the references they index.
+	 */
+	private static final class Segment {
+
+		private final boolean lossless;
+		private ByteBuffer buffer = memAlloc(INITIAL_CAPACITY);
+		private long address = memAddress(buffer);
+		private int position, referenceCount;
+		private Object[] references = new Object[8];
+
+		Segment(boolean lossless) {
+			this.lossless = lossless;
+		}
+
+		private void ensure(int bytes) {
+			if (position + bytes <= buffer.capacity()) return;
+			buffer = memRealloc(buffer, Math.max(position + bytes, buffer.capacity() * 2));
+			address = memAddress(buffer);
+		}
+
+		Segment put(int value) {
+			ensure(4);
+			memPutInt(address + position, value);
+			position += 4;
+			return this;
+		}
+
+		Segment op(int op) {
+			return put(lossless ? op + LOSSLESS : op);
+		}
+
+		Segment coord(double value) {
+			if (!lossless) {
+				ensure(4);
+				memPutFloat(address + position, (float) value);
+				position += 4;
+				return this;
+			}
+			ensure(8);
+			memPutDouble(address + position, value);
+			position += 8;
+			return this;
+		}
+
+		void color(Color color) {
+			if (lossless) reference(color);
+			else put(color.rgba());
+		}
+
+		void reference(Object value) {
+			put(referenceCount);
+			if (referenceCount == references.length) references = Arrays.copyOf(references, referenceCount * 2);
+			references[referenceCount++] = value;
+		}
+
+		/**
+		 * Copies another segment's commands onto the end of this one, with
+		 * the references they index.
+		 */
+		void append(Segment other) {
+			if (other.position == 0) return;
+			ensure(other.position);
+			final long start = address + position;
+			memCopy(other.address, start, other.position);
+			position += other.position;
+			if (other.referenceCount == 0) return;
+
+			// shift the copied reference indices past this segment's own
+			final int base = referenceCount;
+			if (base + other.referenceCount > references.length)
+				references = Arrays.copyOf(references, Math.max(references.length * 2, base + other.referenceCount));
+			System.arraycopy(other.references, 0, references, base, other.referenceCount);
+			referenceCount += other.referenceCount;
+			if (base == 0) return;
+			for (long p = start, end = address + position; p < end; p += SIZES[memGetInt(p)]) {
+				final int code = memGetInt(p);
+				// lossless commands reference their colors too
+				if (code >= LOSSLESS ? code - LOSSLESS >= COLOR : code >= IMAGE && code <= SHAPE_3 && (code - COLOR) % 3 != 0) {
+					final long index = p + SIZES[code] - 4;
+					memPutInt(index, memGetInt(index) + base);
+				}
+			}
+		}
+
+		void clear() {
+			Arrays.fill(references, 0, referenceCount, null);
+			position = 0;
+			referenceCount = 0;
+		}
+
+		void free() {
+			memFree(buffer);
+			clear();
+		}
+
+	}
+
+}
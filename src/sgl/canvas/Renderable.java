@@ -40,6 +40,20 @@ public interface Renderable<C extends Canvas> extends Consumer<C> {
 
 	void render(C canvas);
 
+	/**
+	 * Stores the axis-aligned bounds this draws within, every minimum
+	 * coordinate followed by every maximum: 4 floats when culled by a 2D
+	 * viewport and 6 by a 3D frustum. Culling may ask from several Threads
+	 * at once, so this should only read.
+	 *
+	 * @param dest the array to store the bounds in
+	 * @return false if the bounds are unknown, and this is never culled
+	 * @see sgl.pipeline.Culler
+	 */
+	default boolean getBounds(float[] dest) {
+		return false;
+	}
+
 	@Override
 	default void accept(C c) {
 		render(c);
@@ -27,6 +27,7 @@
  */
 package sgl.display;
 
+import sgl.canvas.Renderable;
 import sgl.canvas.Renderer;
 
 /**
@@ -42,6 +43,10 @@ public abstract class AbstractDisplay implements Display {
 	 * The Renderer for this Display
 	 */
 	protected Renderer renderer;
+	/**
+	 * What changed since this Display was last redrawn
+	 */
+	protected final DamageRegion damage = new DamageRegion();
 
 	/**
 	 * Creates a new AbstractDisplay with the specified location, size, and
@@ -107,4 +112,39 @@ public abstract class AbstractDisplay implements Display {
 		this.title = title;
 	}
 
+	@Override
+	public void damage(int x, int y, int width, int height) {
+		damage.add(x, y, width, height);
+		damage.clip(0, 0, this.width, this.height);
+	}
+
+	/**
+	 * Marks the 2D bounds of the given Renderable as changed, or the whole
+	 * Display if it doesn't know its bounds. Call this both before and after
+	 * moving it, so the area it left is repainted too.
+	 *
+	 * @param renderable the changed Renderable
+	 * @see Renderable#getBounds(float[])
+	 */
+	public void damage(Renderable<?> renderable) {
+		final float[] bounds = new float[4];
+		if (!renderable.getBounds(bounds)) {
+			damageAll();
+			return;
+		}
+		final int x0 = (int) Math.floor(bounds[0]), y0 = (int) Math.floor(bounds[1]);
+		damage(x0, y0, (int) Math.ceil(bounds[2]) - x0, (int) Math.ceil(bounds[3]) - y0);
+	}
+
+	@Override
+	public void damageAll() {
+		damage.clear();
+		damage.add(0, 0, width, height);
+	}
+
+	@Override
+	public boolean isDamaged() {
+		return !damage.isEmpty();
+	}
+
 }
@@ -0,0 +1,195 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.display;
+
+import java.util.Arrays;
+
+/**
+ * The parts of a Display that changed since it was last presented, as a
+ * short list of rectangles in window coordinates with the origin at the
+ * top left.
+ * <p>
+ * Rectangles that overlap or touch are merged into their bounds as they're
+ * added, and once there are more than {@link #MAX_RECTS} the two whose
+ * bounds waste the least area are merged, since each rectangle costs a
+ * scissored pass over the scene.
+ * </p>
+ *
+ * @author link
+ */
+public final class DamageRegion {
+
+	public static final int MAX_RECTS = 8;
+
+	// x0, y0, x1, y1 of each rectangle, the maximums exclusive
+	private final int[] rects = new int[(MAX_RECTS + 1) << 2];
+	private int count;
+
+	/**
+	 * Adds a rectangle.
+	 */
+	public void add(int x, int y, int width, int height) {
+		if (width <= 0 || height <= 0) return;
+		int x0 = x, y0 = y, x1 = x + width, y1 = y + height;
+		for (int i = 0; i < count; i++) {
+			final int o = i << 2;
+			if (rects[o] <= x1 && rects[o + 2] >= x0 && rects[o + 1] <= y1 && rects[o + 3] >= y0) {
+				x0 = Math.min(x0, rects[o]);
+				y0 = Math.min(y0, rects[o + 1]);
+				x1 = Math.max(x1, rects[o + 2]);
+				y1 = Math.max(y1, rects[o + 3]);
+				remove(i);
+				// the grown rectangle may reach ones already passed
+				i = -1;
+			}
+		}
+		final int o = count++ << 2;
+		rects[o] = x0;
+		rects[o + 1] = y0;
+		rects[o + 2] = x1;
+		rects[o + 3] = y1;
+		if (count > MAX_RECTS) mergeCheapest();
+	}
+
+	/**
+	 * Adds every rectangle of another region.
+	 */
+	public void add(DamageRegion region) {
+		final int[] rects = region.rects;
+		for (int i = 0, n = region.count; i < n; i++) {
+			final int o = i << 2;
+			add(rects[o], rects[o + 1], rects[o + 2] - rects[o], rects[o + 3] - rects[o + 1]);
+		}
+	}
+
+	private void mergeCheapest() {
+		int a = 0, b = 1;
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < count; i++) {
+			for (int j = i + 1; j < count; j++) {
+				final int p = i << 2, q = j << 2;
+				final long union = (long) (Math.max(rects[p + 2], rects[q + 2]) - Math.min(rects[p], rects[q]))
+					* (Math.max(rects[p + 3], rects[q + 3]) - Math.min(rects[p + 1], rects[q + 1]));
+				final long waste = union - area(i) - area(j);
+				if (waste < best) {
+					best = waste;
+					a = i;
+					b = j;
+				}
+			}
+		}
+		final int p = a << 2, q = b << 2;
+		final int x0 = Math.min(rects[p], rects[q]), y0 = Math.min(rects[p + 1], rects[q + 1]);
+		final int x1 = Math.max(rects[p + 2], rects[q + 2]), y1 = Math.max(rects[p + 3], rects[q + 3]);
+		// b is after a, so removing it first leaves a where it was
+		remove(b);
+		remove(a);
+		add(x0, y0, x1 - x0, y1 - y0);
+	}
+
+	private void remove(int i) {
+		System.arraycopy(rects, --count << 2, rects, i << 2, 4);
+	}
+
+	private long area(int i) {
+		final int o = i << 2;
+		return (long) (rects[o + 2] - rects[o]) * (rects[o + 3] - rects[o + 1]);
+	}
+
+	/**
+	 * Cuts every rectangle down to the given one, dropping those outside it.
+	 */
+	public void clip(int x, int y, int width, int height) {
+		for (int i = 0; i < count; i++) {
+			final int o = i << 2;
+			rects[o] = Math.max(rects[o], x);
+			rects[o + 1] = Math.max(rects[o + 1], y);
+			rects[o + 2] = Math.min(rects[o + 2], x + width);
+			rects[o + 3] = Math.min(rects[o + 3], y + height);
+			if (rects[o] >= rects[o + 2] || rects[o + 1] >= rects[o + 3]) remove(i--);
+		}
+	}
+
+	/**
+	 * Makes this a copy of another region.
+	 */
+	public void set(DamageRegion region) {
+		System.arraycopy(region.rects, 0, rects, 0, region.count << 2);
+		count = region.count;
+	}
+
+	public void clear() {
+		count = 0;
+	}
+
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	/**
+	 * @return the number of rectangles
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Stores the x, y, width and height of a rectangle.
+	 *
+	 * @return dest
+	 */
+	public int[] get(int index, int[] dest) {
+		if (index < 0 || index >= count) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+		final int o = index << 2;
+		dest[0] = rects[o];
+		dest[1] = rects[o + 1];
+		dest[2] = rects[o + 2] - rects[o];
+		dest[3] = rects[o + 3] - rects[o + 1];
+		return dest;
+	}
+
+	/**
+	 * @return the total area of the rectangles, which don't overlap
+	 */
+	public long getArea() {
+		long area = 0;
+		for (int i = 0; i < count; i++) area += area(i);
+		return area;
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder("DamageRegion[");
+		for (int i = 0; i < count; i++) {
+			if (i > 0) builder.append(", ");
+			builder.append(Arrays.toString(get(i, new int[4])));
+		}
+		return builder.append(']').toString();
+	}
+
+}
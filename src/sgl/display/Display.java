@@ -148,6 +148,34 @@ public interface Display {
 	 */
 	void refresh();
 
+	/**
+	 * Marks a region, in window coordinates with the origin at the top left,
+	 * as changed, so the next {@link #redraw(Painter)} repaints it.
+	 */
+	void damage(int x, int y, int width, int height);
+
+	/**
+	 * Marks the whole Display as changed.
+	 */
+	void damageAll();
+
+	/**
+	 * @return whether anything changed since the last redraw
+	 */
+	boolean isDamaged();
+
+	/**
+	 * Repaints what changed since the last redraw and presents it. Each
+	 * rectangle to repaint is handed to the painter with drawing clipped to
+	 * it; where the platform keeps the previous frames, only the damaged
+	 * rectangles are repainted. Nothing is drawn or presented if nothing
+	 * changed, so an idle Display costs next to nothing.
+	 *
+	 * @param painter draws the scene within a rectangle
+	 * @return whether a frame was presented
+	 */
+	boolean redraw(Painter painter);
+
 	/**
 	 * Gets the FrameBuffer for this Display.
 	 * <p>
@@ -187,6 +215,21 @@ public interface Display {
 	 */
 	Keyboard getKeyboard();
 
+	/**
+	 * Draws the scene within a rectangle of a Display.
+	 */
+	@FunctionalInterface
+	interface Painter {
+
+		/**
+		 * Draws everything that overlaps the given rectangle, in window
+		 * coordinates with the origin at the top left. Drawing outside it
+		 * is clipped.
+		 */
+		void paint(int x, int y, int width, int height);
+
+	}
+
 	// Mouse getMouse();
 
 }
@@ -27,9 +27,13 @@
  */
 package sgl.glfw.display;
 
+import org.lwjgl.opengl.GL;
+import org.lwjgl.system.MemoryStack;
 import org.lwjgl.system.NativeResource;
+import org.lwjgl.system.Platform;
 import sgl.canvas.Renderer;
 import sgl.display.AbstractDisplay;
+import sgl.display.DamageRegion;
 import sgl.display.Display;
 import sgl.display.Mode;
 import sgl.glfw.io.GLFWKeyboard;
@@ -40,8 +44,16 @@ import sgl.opengl.OpenGL;
 import sgl.util.jni.NativeAccessible;
 import sgl.util.log.Logger;
 
+import java.nio.IntBuffer;
+
 import static org.lwjgl.glfw.GLFW.*;
+import static org.lwjgl.glfw.GLFWNativeGLX.glfwGetGLXWindow;
+import static org.lwjgl.glfw.GLFWNativeX11.glfwGetX11Display;
+import static org.lwjgl.opengl.GL11.*;
 import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GLXEXTBufferAge.GLX_BACK_BUFFER_AGE_EXT;
+import static org.lwjgl.opengl.GLX13.glXQueryDrawable;
+import static org.lwjgl.system.MemoryStack.stackPush;
 import static org.lwjgl.system.MemoryUtil.NULL;
 
 /**
@@ -85,11 +97,25 @@ public final class GLFWDisplay extends AbstractDisplay implements NativeAccessib
 		glEnableVertexAttribArray(pos);
 	}
 
+	/**
+	 * The fraction of the window past which damage is repainted in one pass
+	 * over the whole window rather than one per rectangle.
+	 */
+	private static final float FULL_REPAINT = 0.6f;
+
 	private final long window;
 	private final GLFWKeyboard keyboard;
 	private final Logger logger;
 	private Mode mode;
 
+	// whether the back buffer's age can be queried, from GLX_EXT_buffer_age
+	private final boolean bufferAge;
+	// the damage of the last frames presented, the most recent at frame - 1
+	private final DamageRegion[] history = {new DamageRegion(), new DamageRegion(), new DamageRegion()};
+	private final DamageRegion repaint = new DamageRegion();
+	private final int[] rect = new int[4];
+	private int frame;
+
 	public GLFWDisplay(int x, int y, int width, int height, String title, Renderer renderer) {
 		this(x, y, width, height, title, renderer, NULL, NULL);
 	}
@@ -113,8 +139,16 @@ public final class GLFWDisplay extends AbstractDisplay implements NativeAccessib
 		glfwSetKeyCallback(window, keyboard);
 		// set window size
 		glfwSetWindowSize(window, width, height);
-		// set the window refresh callback (to handle syscalls and refresh callbacks)
-		glfwSetWindowRefreshCallback(window, (_this_window_) -> refresh());
+		// repaint everything when the system asks, or when the window is resized
+		glfwSetWindowRefreshCallback(window, (_this_window_) -> damageAll());
+		glfwSetWindowSizeCallback(window, (_this_window_, w, h) -> {
+			this.width = w;
+			this.height = h;
+			damageAll();
+		});
+		glfwSetFramebufferSizeCallback(window, (_this_window_, w, h) -> damageAll());
+		bufferAge = Platform.get() == Platform.LINUX && hasBufferAge();
+		damageAll();
 		logger.log("GLFWDisplay initialized.");
 
 	}
@@ -189,6 +223,58 @@ public final class GLFWDisplay extends AbstractDisplay implements NativeAccessib
 		glfwSwapBuffers(window);
 	}
 
+	@Override
+	public boolean redraw(Painter painter) {
+		if (damage.isEmpty()) return false;
+
+		// the back buffer still shows the frame from age swaps ago, so it lacks the damage since
+		final int age = bufferAge ? glXQueryDrawable(glfwGetX11Display(), glfwGetGLXWindow(window), GLX_BACK_BUFFER_AGE_EXT) : 0;
+		repaint.set(damage);
+		if (age == 0 || age > history.length + 1) {
+			repaint.clear();
+			repaint.add(0, 0, width, height);
+		} else {
+			for (int i = 1; i < age; i++)
+				repaint.add(history[Math.floorMod(frame - i, history.length)]);
+		}
+		repaint.clip(0, 0, width, height);
+		if (repaint.getArea() > FULL_REPAINT * width * height) {
+			repaint.clear();
+			repaint.add(0, 0, width, height);
+		}
+
+		try (MemoryStack stack = stackPush()) {
+			final IntBuffer fbWidth = stack.mallocInt(1), fbHeight = stack.mallocInt(1);
+			glfwGetFramebufferSize(window, fbWidth, fbHeight);
+			final float scaleX = (float) fbWidth.get(0) / width, scaleY = (float) fbHeight.get(0) / height;
+
+			glEnable(GL_SCISSOR_TEST);
+			for (int i = 0; i < repaint.size(); i++) {
+				final int[] r = repaint.get(i, rect);
+				final int x0 = (int) Math.floor(r[0] * scaleX), x1 = (int) Math.ceil((r[0] + r[2]) * scaleX);
+				// GL's origin is the bottom left
+				final int y0 = (int) Math.floor((height - r[1] - r[3]) * scaleY), y1 = (int) Math.ceil((height - r[1]) * scaleY);
+				glScissor(x0, y0, x1 - x0, y1 - y0);
+				painter.paint(r[0], r[1], r[2], r[3]);
+			}
+			glDisable(GL_SCISSOR_TEST);
+		}
+
+		history[Math.floorMod(frame++, history.length)].set(damage);
+		damage.clear();
+		glfwSwapBuffers(window);
+		return true;
+	}
+
+	private static boolean hasBufferAge() {
+		try {
+			return GL.createCapabilitiesGLX(glfwGetX11Display()).GLX_EXT_buffer_age;
+		} catch (RuntimeException e) {
+			// not running on X11 after all
+			return false;
+		}
+	}
+
 	@Override
 	public Display createChild(int x, int y, int width, int height, String title) {
 		return new GLFWDisplay(x, y, width, height, title, super.renderer, NULL, NULL);
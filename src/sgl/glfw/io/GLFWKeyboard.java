@@ -34,6 +34,7 @@ import sgl.glfw.log.GLFWLogger;
 import sgl.io.KeyMap;
 import sgl.io.KeyMaps;
 import sgl.io.Keyboard;
+import sgl.io.record.InputRecorder;
 import sgl.util.log.Logger;
 
 import java.awt.event.KeyEvent;
@@ -84,6 +85,11 @@ public final class GLFWKeyboard extends GLFWKeyCallback implements Keyboard {
 
 	private final List<Runnable> invoke = new ArrayList<>();
 
+	/**
+	 * Records key events for later replay, if set
+	 */
+	private volatile InputRecorder recorder;
+
 	/**
 	 * Creates a new Keyboard with the specified display as its parent.
 	 *
@@ -101,6 +107,9 @@ public final class GLFWKeyboard extends GLFWKeyCallback implements Keyboard {
 	@Override
 	public void invoke(long display, int key, int scancode, int action,
 	                   int mods) {
+		final InputRecorder recorder = this.recorder;
+		if (recorder != null) recorder.key(key, scancode, action, mods);
+
 		synchronized (keyLock) {
 			keyState[key] = (byte) action;
 			previous = current;
@@ -193,6 +202,25 @@ public final class GLFWKeyboard extends GLFWKeyCallback implements Keyboard {
 	}
 
 
+	/**
+	 * Gets the InputRecorder that key events are recorded to.
+	 *
+	 * @return the InputRecorder, or null if key events are not recorded
+	 */
+	public InputRecorder getRecorder() {
+		return recorder;
+	}
+
+	/**
+	 * Sets the InputRecorder that key events are recorded to. Events are
+	 * recorded before they update the key states.
+	 *
+	 * @param recorder the InputRecorder, or null to stop recording
+	 */
+	public void setRecorder(InputRecorder recorder) {
+		this.recorder = recorder;
+	}
+
 	/**
 	 * Gets the previously invoked key
 	 *
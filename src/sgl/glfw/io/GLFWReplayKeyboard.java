@@ -0,0 +1,155 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.glfw.io;
+
+import sgl.io.KeyMap;
+import sgl.io.KeyMaps;
+import sgl.io.Keyboard;
+import sgl.io.record.InputRecorder;
+import sgl.io.record.InputRecording;
+
+import static org.lwjgl.glfw.GLFW.*;
+
+/**
+ * A Keyboard that replays an {@link InputRecording} instead of listening to a
+ * window.
+ * <p>
+ * Key states follow the same rules as {@link GLFWKeyboard}, so code driven by
+ * a recording sees exactly what it saw when the session was recorded. Call
+ * {@link #frame()} once per frame, at the same point in the loop where the
+ * recording called {@link InputRecorder#frame()}.
+ * </p>
+ *
+ * @author link
+ */
+public final class GLFWReplayKeyboard implements Keyboard {
+
+	private static final KeyMap GLFW_KEYMAP = KeyMaps.getMap(GLFWKeyMap.GLFW_GENERIC);
+
+	private final InputRecording recording;
+	private final int[] keyState = new int[GLFW_KEY_LAST + 1];
+
+	// next event to replay
+	private int event;
+	private long frame;
+
+	private int previous, current;
+
+	/**
+	 * Creates a new GLFWReplayKeyboard for the given recording. Events on
+	 * frame 0 are delivered immediately.
+	 *
+	 * @param recording the recording to replay
+	 */
+	public GLFWReplayKeyboard(InputRecording recording) {
+		this.recording = recording;
+		deliver();
+	}
+
+	/**
+	 * Advances to the next frame and delivers all events recorded on it.
+	 */
+	public void frame() {
+		frame++;
+		deliver();
+	}
+
+	/**
+	 * Gets the current frame number.
+	 *
+	 * @return the current frame number
+	 */
+	public long getFrame() {
+		return frame;
+	}
+
+	/**
+	 * Checks whether every event in the recording has been delivered.
+	 *
+	 * @return true if the recording has been fully replayed
+	 */
+	public boolean isFinished() {
+		return event >= recording.size();
+	}
+
+	private void deliver() {
+		for (; event < recording.size() && recording.getFrame(event) <= frame; event++) {
+			if (recording.getType(event) != InputRecorder.KEY) continue;
+
+			final int key = recording.getKey(event);
+			if (key < 0 || key >= keyState.length) continue;
+
+			keyState[key] = recording.getAction(event);
+			previous = current;
+			current = key;
+		}
+	}
+
+	@Override
+	public boolean isKeyDown(int glfwKey) {
+		return glfwKey == current && keyState[current] == GLFW_PRESS;
+	}
+
+	@Override
+	public boolean isKeyUp(int glfwKey) {
+		return glfwKey == current && keyState[current] == GLFW_RELEASE;
+	}
+
+	@Override
+	public boolean isKeyTyped(int glfwKey) {
+		return previous == glfwKey && current == glfwKey && keyState[glfwKey] == GLFW_RELEASE;
+	}
+
+	public boolean isKeyRepeating(int glfwKey) {
+		return keyState[glfwKey] == GLFW_REPEAT;
+	}
+
+	@Override
+	public int getKeyCount() {
+		return keyState.length;
+	}
+
+	@Override
+	public int getKeyState(int glfwKey) {
+		return keyState[glfwKey];
+	}
+
+	@Override
+	public KeyMap getKeyMap() {
+		return GLFW_KEYMAP;
+	}
+
+	public int getPreviousKey() {
+		return previous;
+	}
+
+	public int getLastKey() {
+		return current;
+	}
+
+}
@@ -0,0 +1,399 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.image.io;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.stream.IntStream;
+
+import static org.lwjgl.system.MemoryUtil.memAlloc;
+
+/**
+ * Compresses 8 bit pixels into the BC1, BC3, BC4 and BC5 block formats that
+ * GPUs sample directly, at a quarter to an eighth of the memory.
+ * <p>
+ * Each 4x4 block is encoded on its own: colors are fitted along the
+ * principal axis of the block's colors, then refined once by least squares;
+ * single channels take the better of the two BC4 palettes. Blocks on the
+ * right and bottom edges repeat the image's last column and row. Rows of
+ * blocks are encoded in parallel for images of at least
+ * {@link #getParallelThreshold()} blocks.
+ * </p>
+ *
+ * @author link
+ */
+public enum BlockEncoder {
+	;
+
+	private static volatile int parallelThreshold = 1 << 10;
+
+	/**
+	 * The block formats this encoder writes.
+	 */
+	public enum Block {
+		/**
+		 * RGB in 8 bytes, also known as DXT1.
+		 */
+		BC1(8, 3), /**
+		 * RGBA in 16 bytes: a BC4 block of alpha, then a BC1 block of color;
+		 * also known as DXT5.
+		 */
+		BC3(16, 4), /**
+		 * The first channel in 8 bytes, also known as RGTC1.
+		 */
+		BC4(8, 1), /**
+		 * The first two channels as two BC4 blocks, also known as RGTC2.
+		 */
+		BC5(16, 2);
+
+		private final int bytes, channels;
+
+		Block(int bytes, int channels) {
+			this.bytes = bytes;
+			this.channels = channels;
+		}
+
+		public final int getBlockBytes() {
+			return bytes;
+		}
+
+		/**
+		 * @return the channels of the pixels this format encodes
+		 */
+		public final int getChannels() {
+			return channels;
+		}
+
+		/**
+		 * @return the bytes an image of the given size encodes to
+		 */
+		public final long size(int width, int height) {
+			return (long) ((width + 3) >> 2) * ((height + 3) >> 2) * bytes;
+		}
+	}
+
+	/**
+	 * Encodes pixels into a new buffer, to be freed with
+	 * {@link org.lwjgl.system.MemoryUtil#memFree(java.nio.Buffer)}.
+	 *
+	 * @see #encode(ByteBuffer, int, int, int, Block, ByteBuffer)
+	 */
+	public static ByteBuffer encode(ByteBuffer pixels, int width, int height, int channels, Block block) {
+		final long size = block.size(width, height);
+		if (size > Integer.MAX_VALUE) throw new IllegalArgumentException("Image is too large: " + width + "x" + height);
+		final ByteBuffer dest = memAlloc((int) size);
+		encode(pixels, width, height, channels, block, dest);
+		dest.flip();
+		return dest;
+	}
+
+	/**
+	 * Encodes pixels into blocks, left to right and top to bottom.
+	 *
+	 * @param pixels   the rows of pixels from their position, top to bottom
+	 *                 with no padding
+	 * @param width    the width in pixels
+	 * @param height   the height in pixels
+	 * @param channels the bytes per pixel, 1 to 4; RGB pixels encode to BC3
+	 *                 as opaque
+	 * @param block    the block format
+	 * @param dest     the buffer to write blocks to at its position, which is
+	 *                 moved past them
+	 */
+	public static void encode(ByteBuffer pixels, int width, int height, int channels, Block block, ByteBuffer dest) {
+		if (width <= 0 || height <= 0) throw new IllegalArgumentException("Bad image size: " + width + "x" + height);
+		if (channels < 1 || channels > 4 || channels < Math.min(3, block.channels))
+			throw new IllegalArgumentException(block + " can't encode pixels of " + channels + " channels");
+		if (pixels.remaining() < (long) width * height * channels)
+			throw new IllegalArgumentException("Not enough pixels for " + width + "x" + height);
+		final long size = block.size(width, height);
+		if (dest.remaining() < size) throw new IllegalArgumentException("Not enough room for " + size + " bytes of blocks");
+
+		final ByteBuffer src = pixels.slice();
+		final ByteBuffer out = dest.slice().order(ByteOrder.LITTLE_ENDIAN);
+		final int columns = (width + 3) >> 2, rows = (height + 3) >> 2;
+		IntStream range = IntStream.range(0, rows);
+		if ((long) columns * rows >= parallelThreshold) range = range.parallel();
+		range.forEach(row -> encodeRow(src, width, height, channels, block, out, row, columns));
+		dest.position(dest.position() + (int) size);
+	}
+
+	private static void encodeRow(ByteBuffer src, int width, int height, int channels, Block block, ByteBuffer out, int row, int columns) {
+		// the block's pixels, one array per channel
+		final int[][] texels = new int[4][16];
+		final int[] indices = new int[16], candidate = new int[16];
+		final int stride = width * channels;
+		int offset = row * columns * block.bytes;
+
+		for (int column = 0; column < columns; column++, offset += block.bytes) {
+			for (int i = 0; i < 16; i++) {
+				final int x = Math.min(width - 1, (column << 2) + (i & 3)), y = Math.min(height - 1, (row << 2) + (i >> 2));
+				final int p = y * stride + x * channels;
+				for (int c = 0; c < 4; c++)
+					texels[c][i] = c < channels ? src.get(p + c) & 0xFF : c == 3 ? 255 : 0;
+			}
+			switch (block) {
+				case BC1:
+					color(texels, out, offset, indices, candidate);
+					break;
+				case BC3:
+					single(texels[3], out, offset, indices, candidate);
+					color(texels, out, offset + 8, indices, candidate);
+					break;
+				case BC4:
+					single(texels[0], out, offset, indices, candidate);
+					break;
+				case BC5:
+					single(texels[0], out, offset, indices, candidate);
+					single(texels[1], out, offset + 8, indices, candidate);
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Encodes a BC1 color block.
+	 */
+	private static void color(int[][] texels, ByteBuffer out, int offset, int[] indices, int[] candidate) {
+		final int[] r = texels[0], g = texels[1], b = texels[2];
+		float mr = 0, mg = 0, mb = 0;
+		for (int i = 0; i < 16; i++) {
+			mr += r[i];
+			mg += g[i];
+			mb += b[i];
+		}
+		mr /= 16;
+		mg /= 16;
+		mb /= 16;
+
+		float rr = 0, rg = 0, rb = 0, gg = 0, gb = 0, bb = 0;
+		for (int i = 0; i < 16; i++) {
+			final float dr = r[i] - mr, dg = g[i] - mg, db = b[i] - mb;
+			rr += dr * dr;
+			rg += dr * dg;
+			rb += dr * db;
+			gg += dg * dg;
+			gb += dg * db;
+			bb += db * db;
+		}
+
+		// the principal axis by power iteration
+		float ar = 1, ag = 1, ab = 1;
+		for (int k = 0; k < 4; k++) {
+			final float nr = rr * ar + rg * ag + rb * ab, ng = rg * ar + gg * ag + gb * ab, nb = rb * ar + gb * ag + bb * ab;
+			final float length = Math.max(Math.abs(nr), Math.max(Math.abs(ng), Math.abs(nb)));
+			if (length == 0) break;
+			ar = nr / length;
+			ag = ng / length;
+			ab = nb / length;
+		}
+
+		int min = 0, max = 0;
+		float low = Float.POSITIVE_INFINITY, high = Float.NEGATIVE_INFINITY;
+		for (int i = 0; i < 16; i++) {
+			final float t = r[i] * ar + g[i] * ag + b[i] * ab;
+			if (t < low) {
+				low = t;
+				min = i;
+			}
+			if (t > high) {
+				high = t;
+				max = i;
+			}
+		}
+
+		int c0 = rgb565(r[max], g[max], b[max]), c1 = rgb565(r[min], g[min], b[min]);
+		int error = indices(texels, c0, c1, indices);
+
+		// solve for the endpoints that best fit the chosen indices
+		if (error > 0 && c0 != c1) {
+			float aa = 0, ab2 = 0, bb2 = 0, ax = 0, ay = 0, az = 0, bx = 0, by = 0, bz = 0;
+			for (int i = 0; i < 16; i++) {
+				final float w = WEIGHTS[indices[i]], v = 1 - w;
+				aa += w * w;
+				ab2 += w * v;
+				bb2 += v * v;
+				ax += w * r[i];
+				ay += w * g[i];
+				az += w * b[i];
+				bx += v * r[i];
+				by += v * g[i];
+				bz += v * b[i];
+			}
+			final float det = aa * bb2 - ab2 * ab2;
+			if (Math.abs(det) > 1e-6f) {
+				final float f = 1 / det;
+				final int r0 = clamp((ax * bb2 - bx * ab2) * f), g0 = clamp((ay * bb2 - by * ab2) * f), b0 = clamp((az * bb2 - bz * ab2) * f);
+				final int r1 = clamp((bx * aa - ax * ab2) * f), g1 = clamp((by * aa - ay * ab2) * f), b1 = clamp((bz * aa - az * ab2) * f);
+				final int d0 = rgb565(r0, g0, b0), d1 = rgb565(r1, g1, b1);
+				final int refined = indices(texels, d0, d1, candidate);
+				if (refined < error) {
+					c0 = d0;
+					c1 = d1;
+					error = refined;
+					System.arraycopy(candidate, 0, indices, 0, 16);
+				}
+			}
+		}
+
+		// four color mode needs the first endpoint greater
+		if (c0 < c1) {
+			final int swap = c0;
+			c0 = c1;
+			c1 = swap;
+			for (int i = 0; i < 16; i++) indices[i] ^= 1;
+		}
+		int bits = 0;
+		if (c0 != c1) for (int i = 0; i < 16; i++) bits |= indices[i] << (i << 1);
+		out.putShort(offset, (short) c0);
+		out.putShort(offset + 2, (short) c1);
+		out.putInt(offset + 4, bits);
+	}
+
+	// the weight of the first endpoint for each index
+	private static final float[] WEIGHTS = {1, 0, 2f / 3, 1f / 3};
+
+	/**
+	 * Picks the nearest of the four colors between two endpoints for each
+	 * pixel.
+	 *
+	 * @return the squared error
+	 */
+	private static int indices(int[][] texels, int c0, int c1, int[] indices) {
+		final int r0 = (c0 >> 11) << 3 | (c0 >> 13), g0 = ((c0 >> 5) & 0x3F) << 2 | ((c0 >> 9) & 3), b0 = (c0 & 0x1F) << 3 | ((c0 >> 2) & 7);
+		final int r1 = (c1 >> 11) << 3 | (c1 >> 13), g1 = ((c1 >> 5) & 0x3F) << 2 | ((c1 >> 9) & 3), b1 = (c1 & 0x1F) << 3 | ((c1 >> 2) & 7);
+		final int[] pr = {r0, r1, (2 * r0 + r1) / 3, (r0 + 2 * r1) / 3};
+		final int[] pg = {g0, g1, (2 * g0 + g1) / 3, (g0 + 2 * g1) / 3};
+		final int[] pb = {b0, b1, (2 * b0 + b1) / 3, (b0 + 2 * b1) / 3};
+		int error = 0;
+		for (int i = 0; i < 16; i++) {
+			int best = 0, nearest = Integer.MAX_VALUE;
+			for (int k = 0; k < 4; k++) {
+				final int dr = texels[0][i] - pr[k], dg = texels[1][i] - pg[k], db = texels[2][i] - pb[k];
+				final int d = dr * dr + dg * dg + db * db;
+				if (d < nearest) {
+					nearest = d;
+					best = k;
+				}
+			}
+			indices[i] = best;
+			error += nearest;
+		}
+		return error;
+	}
+
+	/**
+	 * Encodes a BC4 block of one channel, trying both the eight value palette
+	 * between the extremes and the six value palette with 0 and 255 spare.
+	 */
+	private static void single(int[] values, ByteBuffer out, int offset, int[] indices, int[] candidate) {
+		int min = 255, max = 0, innerMin = 255, innerMax = 0;
+		for (int v : values) {
+			min = Math.min(min, v);
+			max = Math.max(max, v);
+			if (v != 0 && v != 255) {
+				innerMin = Math.min(innerMin, v);
+				innerMax = Math.max(innerMax, v);
+			}
+		}
+
+		int a0 = max, a1 = min;
+		int error = max == min ? 0 : palette(values, a0, a1, indices);
+		if (max == min) java.util.Arrays.fill(indices, 0);
+		else if (error > 0 && (min == 0 || max == 255)) {
+			if (innerMin > innerMax) innerMin = innerMax = 0;
+			final int six = palette(values, innerMin, innerMax, candidate);
+			if (six < error) {
+				a0 = innerMin;
+				a1 = innerMax;
+				System.arraycopy(candidate, 0, indices, 0, 16);
+			}
+		}
+
+		long bits = 0;
+		for (int i = 0; i < 16; i++) bits |= (long) indices[i] << (3 * i);
+		out.put(offset, (byte) a0);
+		out.put(offset + 1, (byte) a1);
+		for (int i = 0; i < 6; i++) out.put(offset + 2 + i, (byte) (bits >>> (i << 3)));
+	}
+
+	/**
+	 * Picks the nearest value of the BC4 palette of two endpoints for each
+	 * value, eight values if the first endpoint is greater, else six.
+	 *
+	 * @return the squared error, scaled by 35 squared
+	 */
+	private static int palette(int[] values, int a0, int a1, int[] indices) {
+		// the palette scaled by 35 so both modes divide exactly
+		final int[] palette = new int[8];
+		palette[0] = 35 * a0;
+		palette[1] = 35 * a1;
+		if (a0 > a1) {
+			for (int i = 2; i < 8; i++) palette[i] = 5 * ((8 - i) * a0 + (i - 1) * a1);
+		} else {
+			for (int i = 2; i < 6; i++) palette[i] = 7 * ((6 - i) * a0 + (i - 1) * a1);
+			palette[6] = 0;
+			palette[7] = 35 * 255;
+		}
+		int error = 0;
+		for (int i = 0; i < 16; i++) {
+			final int v = 35 * values[i];
+			int best = 0, nearest = Integer.MAX_VALUE;
+			for (int k = 0; k < 8; k++) {
+				final int d = Math.abs(v - palette[k]);
+				if (d < nearest) {
+					nearest = d;
+					best = k;
+				}
+			}
+			indices[i] = best;
+			error += nearest * nearest;
+		}
+		return error;
+	}
+
+	private static int rgb565(int r, int g, int b) {
+		return ((r * 31 + 127) / 255) << 11 | ((g * 63 + 127) / 255) << 5 | (b * 31 + 127) / 255;
+	}
+
+	private static int clamp(float v) {
+		return Math.max(0, Math.min(255, Math.round(v)));
+	}
+
+	/**
+	 * @return the number of blocks from which images are encoded in parallel
+	 */
+	public static int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	public static void setParallelThreshold(int parallelThreshold) {
+		BlockEncoder.parallelThreshold = parallelThreshold;
+	}
+
+}
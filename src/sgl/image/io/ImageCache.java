@@ -0,0 +1,551 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.image.io;
+
+import sgl.image.color.space.ColorSpace;
+import sgl.image.raster.Raster2D;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * Caches decoded images by the content of their file, in memory and on
+ * disk, so an image seen before is never decoded again.
+ * <p>
+ * Images are keyed by a SHA-256 of the file, the format decoded to and the
+ * {@link BlockEncoder.Block} encoded to, if any. The memory tier holds the
+ * pixels off-heap, evicting the least recently used images beyond its byte
+ * budget; acquired images are only evicted once closed, so the tier may go
+ * over budget while they are held. The disk tier keeps the pixels as they are uploaded, optionally
+ * deflated, and maps them back on a hit: uncompressed blobs are used
+ * straight from the mapping, without a copy, and deflated ones are inflated
+ * off-heap. Either way a disk hit skips decoding, conversion and block
+ * encoding. Acquiring the images of an application ahead of time, such as in
+ * a build step, precompresses them into the disk tier. Failing to write the
+ * disk tier only costs a decode next time and isn't reported; a blob that
+ * can't be read back is deleted.
+ * </p>
+ * <p>
+ * The hash of a file is remembered for as long as its size and modification
+ * time stay the same. Safe to use from several Threads; an image missed by
+ * two at once is decoded by both.
+ * </p>
+ *
+ * @author link
+ */
+public final class ImageCache implements AutoCloseable {
+
+	public static final long DEFAULT_BUDGET = 64L << 20;
+
+	// 'SGLC', bumped with the layout of blobs or the output of decoders
+	private static final int MAGIC = 0x53474C43, VERSION = 1;
+	private static final int HEADER = 32, CHUNK = 1 << 15;
+	private static final BlockEncoder.Block[] BLOCKS = BlockEncoder.Block.values();
+
+	private final Path directory;
+	private final long budget;
+	private final boolean compress;
+
+	private final LinkedHashMap<String, Pixels> memory = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<Path, Source> sources = new HashMap<>();
+	private long size;
+
+	private long memoryHits, diskHits, misses;
+
+	/**
+	 * @param directory the directory to store blobs in, or null to only
+	 *                  cache in memory
+	 * @param budget    the most bytes of pixels to keep in memory
+	 * @param compress  whether to deflate blobs, trading load time for disk
+	 *                  space
+	 */
+	public ImageCache(Path directory, long budget, boolean compress) {
+		this.directory = directory;
+		this.budget = budget;
+		this.compress = compress;
+	}
+
+	/**
+	 * Reads an image file into the top left of a raster, from the cache if
+	 * it's there.
+	 *
+	 * @param file   the PNG or QOI file
+	 * @param raster the raster, at least as large as the image
+	 * @param format the format to decode to, 8 bit RGB or RGBA
+	 * @throws IOException if the file can't be read or decoded
+	 */
+	public void read(Path file, Raster2D raster, ColorSpace.Format format) throws IOException {
+		try (Pixels pixels = acquire(file, format)) {
+			raster.set(0, 0, pixels.width, pixels.height, pixels.getData());
+		}
+	}
+
+	/**
+	 * Gets the pixels of an image file, from memory, from disk or decoded.
+	 * The pixels stay valid until closed, even if evicted meanwhile.
+	 *
+	 * @param file   the PNG or QOI file
+	 * @param format the format to decode to, 8 bit RGB or RGBA
+	 * @return the pixels, to be closed once uploaded
+	 * @throws IOException if the file can't be read or decoded
+	 */
+	public Pixels acquire(Path file, ColorSpace.Format format) throws IOException {
+		return acquire(file, format, null);
+	}
+
+	/**
+	 * Gets the pixels of an image file encoded into blocks, from memory, from
+	 * disk or decoded and encoded. The pixels stay valid until closed, even
+	 * if evicted meanwhile.
+	 *
+	 * @param file   the PNG or QOI file
+	 * @param format the format to decode to, 8 bit RGB or RGBA
+	 * @param block  the block encoding, or null to keep the pixels as decoded
+	 * @return the pixels, to be closed once uploaded
+	 * @throws IOException if the file can't be read or decoded
+	 */
+	public Pixels acquire(Path file, ColorSpace.Format format, BlockEncoder.Block block) throws IOException {
+		final int channels = ImageReader.channels(format);
+		final Source source = source(file);
+		final String key = source.hash + '-' + channels + (block != null ? "-" + block.name().toLowerCase() : "");
+
+		synchronized (this) {
+			final Pixels cached = memory.get(key);
+			if (cached != null) {
+				cached.pins++;
+				memoryHits++;
+				return cached;
+			}
+		}
+
+		Pixels pixels = directory != null ? load(key) : null;
+		if (pixels != null) {
+			synchronized (this) {
+				diskHits++;
+			}
+		} else {
+			pixels = decode(file, key, format, block);
+			synchronized (this) {
+				misses++;
+			}
+			if (directory != null) store(pixels);
+		}
+		admit(pixels);
+		return pixels;
+	}
+
+	/**
+	 * Hashes a file, or recalls its hash if it hasn't changed.
+	 */
+	private Source source(Path file) throws IOException {
+		file = file.toAbsolutePath().normalize();
+		final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		final long size = attributes.size(), modified = attributes.lastModifiedTime().toMillis();
+		synchronized (this) {
+			final Source source = sources.get(file);
+			if (source != null && source.size == size && source.modified == modified) return source;
+		}
+
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform is required to provide SHA-256
+			throw new IllegalStateException(e);
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			for (long position = 0, length = channel.size(); position < length; position += Integer.MAX_VALUE)
+				digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(Integer.MAX_VALUE, length - position)));
+		}
+		final StringBuilder hex = new StringBuilder(64);
+		for (byte b : digest.digest())
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+
+		final Source source = new Source(hex.toString(), size, modified);
+		synchronized (this) {
+			sources.put(file, source);
+		}
+		return source;
+	}
+
+	private Pixels decode(Path file, String key, ColorSpace.Format format, BlockEncoder.Block block) throws IOException {
+		try (ImageDecoder decoder = ImageReader.open(file, format)) {
+			final Pixels pixels = new Pixels(key, decoder.getWidth(), decoder.getHeight(), decoder.getChannels(), null);
+			try {
+				while (decoder.decode(pixels.data, decoder.getHeight()) > 0) ;
+				if (pixels.data.hasRemaining()) throw new IOException("Image data ends early: " + file);
+				pixels.data.flip();
+			} catch (IOException | RuntimeException e) {
+				pixels.free();
+				throw e;
+			}
+			if (block == null) return pixels;
+
+			try {
+				final Pixels blocks = new Pixels(key, pixels.width, pixels.height, pixels.channels, block);
+				BlockEncoder.encode(pixels.data, pixels.width, pixels.height, pixels.channels, block, blocks.data);
+				blocks.data.flip();
+				return blocks;
+			} finally {
+				pixels.free();
+			}
+		}
+	}
+
+	/**
+	 * Maps a blob back, or returns null if it's missing or unreadable.
+	 */
+	private Pixels load(String key) {
+		final Path file = directory.resolve(key + ".px");
+		if (!Files.isRegularFile(file)) return null;
+
+		Pixels pixels = null;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final long length = channel.size();
+			if (length < HEADER || length > Integer.MAX_VALUE) throw new IOException("Bad blob size");
+			final MappedByteBuffer blob = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+			blob.order(ByteOrder.LITTLE_ENDIAN);
+			final int width = blob.getInt(8), height = blob.getInt(12), channels = blob.get(16), encoding = blob.get(18);
+			final boolean compressed = blob.get(17) != 0;
+			if (blob.getInt(0) != MAGIC || blob.getInt(4) != VERSION || width <= 0 || height <= 0 || (channels != 3 && channels != 4) || encoding < 0 || encoding > BLOCKS.length)
+				throw new IOException("Bad blob header");
+
+			final BlockEncoder.Block block = encoding != 0 ? BLOCKS[encoding - 1] : null;
+			blob.position(HEADER);
+			if (!compressed) {
+				if (blob.remaining() != bytes(width, height, channels, block)) throw new IOException("Bad blob size");
+				// the mapping outlives the channel, and keeps its contents if the blob is replaced
+				return new Pixels(key, width, height, channels, block, blob.slice().order(ByteOrder.nativeOrder()));
+			}
+			pixels = new Pixels(key, width, height, channels, block);
+			inflate(blob, pixels.data);
+			pixels.data.flip();
+			return pixels;
+		} catch (IOException | RuntimeException e) {
+			if (pixels != null) pixels.free();
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException ignored) {
+				// the next store replaces it
+			}
+			return null;
+		}
+	}
+
+	private void store(Pixels pixels) {
+		ByteBuffer blob = null;
+		try {
+			final ByteBuffer data = pixels.data.duplicate();
+			blob = compress ? deflate(data.duplicate()) : null;
+			final ByteBuffer header = memCalloc(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+			try {
+				header.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, pixels.width).putInt(12, pixels.height);
+				header.put(16, (byte) pixels.channels).put(17, (byte) (blob != null ? 1 : 0));
+				header.put(18, (byte) (pixels.block != null ? pixels.block.ordinal() + 1 : 0));
+
+				Files.createDirectories(directory);
+				final Path temp = Files.createTempFile(directory, pixels.key, ".tmp");
+				try {
+					try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+						final ByteBuffer payload = blob != null ? blob : data;
+						while (header.hasRemaining()) channel.write(header);
+						while (payload.hasRemaining()) channel.write(payload);
+					}
+					Files.move(temp, directory.resolve(pixels.key + ".px"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				} finally {
+					// only left behind if writing or moving failed
+					Files.deleteIfExists(temp);
+				}
+			} finally {
+				memFree(header);
+			}
+		} catch (IOException e) {
+			// the cache is only an optimization; the next run decodes again
+		} finally {
+			if (blob != null) memFree(blob);
+		}
+	}
+
+	/**
+	 * Deflates pixels into a new buffer, or returns null if they don't
+	 * compress.
+	 */
+	private static ByteBuffer deflate(ByteBuffer data) {
+		final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		final byte[] input = new byte[CHUNK], output = new byte[CHUNK];
+		ByteBuffer blob = memAlloc(Math.max(CHUNK, data.remaining() - (data.remaining() >> 2)));
+		try {
+			while (!deflater.finished()) {
+				if (deflater.needsInput()) {
+					final int n = Math.min(CHUNK, data.remaining());
+					data.get(input, 0, n);
+					deflater.setInput(input, 0, n);
+					if (!data.hasRemaining()) deflater.finish();
+				}
+				for (int n; (n = deflater.deflate(output)) > 0; ) {
+					// give up on pixels that don't shrink by a quarter
+					if (blob.remaining() < n) {
+						memFree(blob);
+						return null;
+					}
+					blob.put(output, 0, n);
+				}
+			}
+			blob.flip();
+			return blob;
+		} catch (RuntimeException e) {
+			memFree(blob);
+			throw e;
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private static void inflate(ByteBuffer blob, ByteBuffer dest) throws IOException {
+		final Inflater inflater = new Inflater();
+		final byte[] input = new byte[CHUNK], output = new byte[CHUNK];
+		try {
+			while (!inflater.finished()) {
+				if (inflater.needsInput()) {
+					if (!blob.hasRemaining()) throw new IOException("Blob ends early");
+					final int n = Math.min(CHUNK, blob.remaining());
+					blob.get(input, 0, n);
+					inflater.setInput(input, 0, n);
+				}
+				final int n = inflater.inflate(output);
+				if (n > dest.remaining()) throw new IOException("Blob is too large");
+				dest.put(output, 0, n);
+			}
+			if (dest.hasRemaining()) throw new IOException("Blob ends early");
+		} catch (DataFormatException e) {
+			throw new IOException("Bad blob data", e);
+		} finally {
+			inflater.end();
+		}
+	}
+
+	/**
+	 * Pins pixels and keeps them in memory if they fit, evicting the least
+	 * recently used unpinned images.
+	 */
+	private synchronized void admit(Pixels pixels) {
+		pixels.pins++;
+		final long bytes = pixels.data.capacity();
+		if (bytes > budget) return;
+		final Pixels previous = memory.get(pixels.key);
+		if (previous != null) {
+			// another Thread missed it too; keep the one already shared
+			return;
+		}
+		memory.put(pixels.key, pixels);
+		pixels.cached = true;
+		size += bytes;
+		evict(budget, false);
+	}
+
+	// evicts least recently used images, acquired ones too only if pinned is set
+	private void evict(long limit, boolean pinned) {
+		for (Iterator<Pixels> it = memory.values().iterator(); size > limit && it.hasNext(); ) {
+			final Pixels pixels = it.next();
+			if (pixels.pins > 0 && !pinned) continue;
+			it.remove();
+			pixels.cached = false;
+			size -= pixels.data.capacity();
+			if (pixels.pins == 0) pixels.free();
+		}
+	}
+
+	synchronized void release(Pixels pixels) {
+		if (pixels.pins <= 0) throw new IllegalStateException("Pixels were already closed");
+		if (--pixels.pins > 0) return;
+		if (!pixels.cached) pixels.free();
+		// may have been kept over budget while acquired
+		else if (size > budget) evict(budget, false);
+	}
+
+	/**
+	 * Frees every image held in memory that isn't acquired. Blobs on disk
+	 * are kept.
+	 */
+	public synchronized void trim() {
+		evict(0, false);
+	}
+
+	public Path getDirectory() {
+		return directory;
+	}
+
+	public long getBudget() {
+		return budget;
+	}
+
+	/**
+	 * @return the bytes of pixels held in memory, which may exceed the budget
+	 * while images are acquired
+	 */
+	public synchronized long getSize() {
+		return size;
+	}
+
+	public synchronized long getMemoryHits() {
+		return memoryHits;
+	}
+
+	/**
+	 * @return the number of images mapped back from disk
+	 */
+	public synchronized long getDiskHits() {
+		return diskHits;
+	}
+
+	/**
+	 * @return the number of images decoded
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Frees the memory tier. Pixels still acquired are freed once closed.
+	 */
+	@Override
+	public synchronized void close() {
+		evict(0, true);
+		sources.clear();
+	}
+
+	/**
+	 * The decoded pixels of an image, rows top to bottom with no padding, or
+	 * its blocks if it was encoded. Close once done with them.
+	 */
+	public final class Pixels implements AutoCloseable {
+
+		private final String key;
+		private final int width, height, channels;
+		private final BlockEncoder.Block block;
+		private final ByteBuffer data;
+		// whether data is a mapped blob rather than off-heap memory of our own
+		private final boolean mapped;
+		// guarded by the cache
+		private int pins;
+		private boolean cached;
+
+		private Pixels(String key, int width, int height, int channels, BlockEncoder.Block block) throws IOException {
+			this(key, width, height, channels, block, null);
+		}
+
+		private Pixels(String key, int width, int height, int channels, BlockEncoder.Block block, ByteBuffer mapped) throws IOException {
+			final long bytes = bytes(width, height, channels, block);
+			if (bytes > Integer.MAX_VALUE) throw new IOException("Image is too large: " + width + "x" + height);
+			this.key = key;
+			this.width = width;
+			this.height = height;
+			this.channels = channels;
+			this.block = block;
+			this.mapped = mapped != null;
+			this.data = mapped != null ? mapped : memAlloc((int) bytes);
+		}
+
+		public int getWidth() {
+			return width;
+		}
+
+		public int getHeight() {
+			return height;
+		}
+
+		/**
+		 * @return the bytes per pixel, 3 for RGB or 4 for RGBA
+		 */
+		public int getChannels() {
+			return channels;
+		}
+
+		/**
+		 * @return the block encoding of the data, or null if it holds pixels
+		 */
+		public BlockEncoder.Block getBlock() {
+			return block;
+		}
+
+		/**
+		 * @return a view of the pixels or blocks, not to be written to
+		 */
+		public ByteBuffer getData() {
+			return data.duplicate();
+		}
+
+		private void free() {
+			// a mapping is released once it's garbage collected
+			if (!mapped) memFree(data);
+		}
+
+		@Override
+		public void close() {
+			release(this);
+		}
+
+	}
+
+	private static long bytes(int width, int height, int channels, BlockEncoder.Block block) {
+		return block != null ? block.size(width, height) : (long) width * height * channels;
+	}
+
+	private static final class Source {
+
+		final String hash;
+		final long size, modified;
+
+		Source(String hash, long size, long modified) {
+			this.hash = hash;
+			this.size = size;
+			this.modified = modified;
+		}
+
+	}
+
+}
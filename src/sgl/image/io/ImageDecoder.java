@@ -0,0 +1,73 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.image.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes an image a strip of rows at a time, top to bottom, into 8 bit RGB
+ * or RGBA pixels, so no more than a strip of it is ever decoded in memory.
+ *
+ * @author link
+ * @see ImageReader
+ */
+public interface ImageDecoder extends AutoCloseable {
+
+	int getWidth();
+
+	int getHeight();
+
+	/**
+	 * @return the bytes per decoded pixel, 3 for RGB or 4 for RGBA
+	 */
+	int getChannels();
+
+	/**
+	 * @return the number of rows decoded so far
+	 */
+	int getRow();
+
+	/**
+	 * Decodes the next rows into the given buffer at its position, which is
+	 * moved past them.
+	 *
+	 * @param dest the buffer, with room for the rows
+	 * @param rows the most rows to decode
+	 * @return the number of rows decoded, 0 once every row has been
+	 * @throws IOException if the image is malformed
+	 */
+	int decode(ByteBuffer dest, int rows) throws IOException;
+
+	/**
+	 * Releases the decoder's state. The image data isn't freed.
+	 */
+	@Override
+	void close();
+
+}
@@ -0,0 +1,225 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.image.io;
+
+import sgl.image.color.space.ColorSpace;
+import sgl.image.raster.Raster2D;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.lwjgl.system.MemoryUtil.memAlloc;
+import static org.lwjgl.system.MemoryUtil.memFree;
+
+/**
+ * Reads PNG and QOI images from memory-mapped files into any
+ * {@link Raster2D}, a strip of rows at a time.
+ * <p>
+ * One Thread decodes strips into a direct buffer while the calling Thread
+ * hands the previous strip to {@link Raster2D#set(int, int, int, int,
+ * ByteBuffer)}, so decoding overlaps the upload and no more than two strips
+ * of pixels are ever held. With a {@link sgl.opengl.texture.GLTexture2D},
+ * call from the GL Thread with the texture bound; RGB strips need
+ * {@code GL_UNPACK_ALIGNMENT} of 1 unless their rows are a multiple of 4
+ * bytes.
+ * </p>
+ *
+ * @author link
+ */
+public enum ImageReader {
+	;
+
+	/**
+	 * The bytes of pixels decoded per strip.
+	 */
+	public static final int STRIP_BYTES = 256 << 10;
+
+	// marks the end of the strips, whether decoding finished or failed
+	private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+	/**
+	 * Opens a decoder for an image file, recognized by its signature.
+	 *
+	 * @param file   the PNG or QOI file
+	 * @param format the format to decode to, 8 bit RGB or RGBA
+	 * @return the decoder
+	 * @throws IOException if the file can't be read or isn't a PNG or QOI
+	 *                     image
+	 */
+	public static ImageDecoder open(Path file, ColorSpace.Format format) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final long size = channel.size();
+			if (size > Integer.MAX_VALUE) throw new IOException("Image file is too large: " + file);
+			// the mapping outlives the channel
+			return open(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), format);
+		}
+	}
+
+	/**
+	 * Opens a decoder for an image in memory, recognized by its signature.
+	 *
+	 * @param data   the PNG or QOI file, from its position
+	 * @param format the format to decode to, 8 bit RGB or RGBA
+	 * @return the decoder
+	 * @throws IOException if the data isn't a PNG or QOI image
+	 */
+	public static ImageDecoder open(ByteBuffer data, ColorSpace.Format format) throws IOException {
+		final int channels = channels(format);
+		final ByteBuffer header = data.duplicate().order(ByteOrder.BIG_ENDIAN);
+		if (header.remaining() >= 8 && header.getLong(header.position()) == PNGDecoder.SIGNATURE)
+			return new PNGDecoder(data, channels);
+		if (header.remaining() >= 4 && header.getInt(header.position()) == QOIDecoder.MAGIC)
+			return new QOIDecoder(data, channels);
+		throw new IOException("Not a PNG or QOI image");
+	}
+
+	/**
+	 * @return the bytes per pixel of a format decoders can write
+	 */
+	public static int channels(ColorSpace.Format format) {
+		if (format.getBitWidth() != 1 || !format.hasRed() || !format.hasGreen() || !format.hasBlue())
+			throw new IllegalArgumentException("Images decode to 8 bit RGB or RGBA only");
+		return format.hasAlpha() ? 4 : 3;
+	}
+
+	/**
+	 * Reads an image file into the top left of a raster, decoding on the
+	 * common ForkJoinPool.
+	 *
+	 * @throws IOException if the file can't be read or decoded
+	 */
+	public static void read(Path file, Raster2D raster, ColorSpace.Format format) throws IOException {
+		try (ImageDecoder decoder = open(file, format)) {
+			read(decoder, raster, 0, 0, ForkJoinPool.commonPool());
+		}
+	}
+
+	/**
+	 * Reads the remaining rows of an image into a raster. Strips are decoded
+	 * by a task on the executor and set in the raster on the calling Thread.
+	 *
+	 * @param decoder  the decoder, used by the executor until this returns
+	 * @param raster   the raster
+	 * @param x        the x coordinate in the raster of the image's left
+	 * @param y        the y coordinate in the raster of the next row
+	 * @param executor runs the decoding
+	 * @throws IOException if the image can't be decoded
+	 */
+	public static void read(ImageDecoder decoder, Raster2D raster, int x, int y, Executor executor) throws IOException {
+		final int width = decoder.getWidth(), stride = width * decoder.getChannels();
+		final int rows = Math.max(1, Math.min(decoder.getHeight(), STRIP_BYTES / stride));
+		final ByteBuffer first = memAlloc(rows * stride), second = memAlloc(rows * stride);
+		final BlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<>(2), full = new ArrayBlockingQueue<>(3);
+		free.add(first);
+		free.add(second);
+		final AtomicReference<Exception> failure = new AtomicReference<>();
+		final AtomicBoolean cancelled = new AtomicBoolean();
+
+		try {
+			executor.execute(() -> {
+				try {
+					while (!cancelled.get()) {
+						final ByteBuffer strip = free.take();
+						strip.clear();
+						if (decoder.decode(strip, rows) == 0) break;
+						strip.flip();
+						full.add(strip);
+					}
+				} catch (IOException | InterruptedException | RuntimeException e) {
+					failure.set(e);
+				} finally {
+					full.add(END);
+				}
+			});
+		} catch (RuntimeException e) {
+			memFree(first);
+			memFree(second);
+			throw e;
+		}
+
+		boolean ended = false;
+		try {
+			for (int row = y; ; ) {
+				final ByteBuffer strip = full.take();
+				if (strip == END) {
+					ended = true;
+					break;
+				}
+				final int count = strip.remaining() / stride;
+				try {
+					raster.set(x, row, width, count, strip);
+				} finally {
+					free.add(strip);
+				}
+				row += count;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while reading an image");
+		} finally {
+			if (!ended) {
+				// let the decoder see it's cancelled, then wait for it to let go of the strips
+				cancelled.set(true);
+				awaitEnd(free, full);
+			}
+			memFree(first);
+			memFree(second);
+		}
+
+		final Exception e = failure.get();
+		if (e instanceof IOException) throw (IOException) e;
+		if (e instanceof RuntimeException) throw (RuntimeException) e;
+		if (e != null) throw new InterruptedIOException("Interrupted while decoding an image");
+	}
+
+	private static void awaitEnd(BlockingQueue<ByteBuffer> free, BlockingQueue<ByteBuffer> full) {
+		boolean interrupted = false;
+		for (; ; ) {
+			try {
+				final ByteBuffer strip = full.take();
+				if (strip == END) break;
+				free.add(strip);
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) Thread.currentThread().interrupt();
+	}
+
+}
@@ -0,0 +1,400 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.image.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * A streaming PNG decoder: the compressed data is inflated a row at a time
+ * straight out of the file's IDAT chunks, so decoding needs two rows and a
+ * small input window beyond the output strip.
+ * <p>
+ * Every color type and bit depth is read, with palettes and tRNS
+ * transparency expanded; 16 bit samples are cut to their high byte. Adam7
+ * interlaced images are rejected, as their passes each cover the whole
+ * image and can't be streamed by rows.
+ * </p>
+ *
+ * @author link
+ */
+public final class PNGDecoder implements ImageDecoder {
+
+	public static final long SIGNATURE = 0x89504E470D0A1A0AL;
+
+	private static final int IHDR = 0x49484452, PLTE = 0x504C5445, TRNS = 0x74524E53, IDAT = 0x49444154;
+	private static final int GRAY = 0, RGB = 2, PALETTE = 3, GRAY_ALPHA = 4, RGBA = 6;
+
+	private final ByteBuffer data;
+	private final int width, height, channels;
+	private final int bitDepth, colorType;
+	// bytes per row in the file, and per pixel for filtering, at least 1
+	private final int stride, bpp;
+
+	// RGBA of each palette entry
+	private final byte[] palette = new byte[256 << 2];
+	// the gray or RGB samples of the transparent color, -1 if there is none
+	private int keyR = -1, keyG = -1, keyB = -1;
+
+	private final Inflater inflater = new Inflater();
+	private final CRC32 crc = new CRC32();
+	private final byte[] input = new byte[1 << 15];
+	// the filter byte then the bytes of the current and previous rows
+	private byte[] current, previous;
+	// where the data of the current chunk starts, and how much of it is left
+	private int chunkStart, chunkRemaining;
+	private int row;
+
+	/**
+	 * Reads the header of a PNG.
+	 *
+	 * @param data     the whole file, from its position
+	 * @param channels 3 to decode to RGB, 4 to RGBA
+	 * @throws IOException if it isn't a PNG this can decode
+	 */
+	public PNGDecoder(ByteBuffer data, int channels) throws IOException {
+		if (channels != 3 && channels != 4) throw new IllegalArgumentException("channels must be 3 or 4: " + channels);
+		this.data = data.slice().order(ByteOrder.BIG_ENDIAN);
+		this.channels = channels;
+		if (this.data.remaining() < 8 || this.data.getLong() != SIGNATURE) throw new IOException("Not a PNG");
+
+		if (nextChunk() != IHDR || chunkRemaining != 13) throw new IOException("PNG doesn't start with IHDR");
+		width = this.data.getInt();
+		height = this.data.getInt();
+		bitDepth = this.data.get() & 0xFF;
+		colorType = this.data.get() & 0xFF;
+		final int compression = this.data.get(), filter = this.data.get(), interlace = this.data.get();
+		endChunk();
+		if (width <= 0 || height <= 0) throw new IOException("Invalid PNG size: " + width + "x" + height);
+		if (compression != 0 || filter != 0) throw new IOException("Unknown PNG compression or filter method");
+		if (interlace != 0) throw new IOException("Interlaced PNGs can't be streamed");
+
+		final int samples;
+		switch (colorType) {
+			case GRAY:
+				samples = 1;
+				break;
+			case RGB:
+				samples = 3;
+				break;
+			case PALETTE:
+				samples = 1;
+				break;
+			case GRAY_ALPHA:
+				samples = 2;
+				break;
+			case RGBA:
+				samples = 4;
+				break;
+			default:
+				throw new IOException("Unknown PNG color type: " + colorType);
+		}
+		final boolean valid = bitDepth == 8 || bitDepth == 16 && colorType != PALETTE
+			|| (bitDepth == 1 || bitDepth == 2 || bitDepth == 4) && (colorType == GRAY || colorType == PALETTE);
+		if (!valid) throw new IOException("Invalid PNG bit depth " + bitDepth + " for color type " + colorType);
+
+		final long bits = (long) width * samples * bitDepth;
+		if ((bits + 7 >> 3) > Integer.MAX_VALUE - 1) throw new IOException("PNG rows are too long");
+		stride = (int) (bits + 7 >> 3);
+		bpp = Math.max(1, samples * bitDepth >> 3);
+		current = new byte[stride + 1];
+		previous = new byte[stride + 1];
+
+		for (int i = 0; i < 256; i++) palette[(i << 2) + 3] = (byte) 0xFF;
+		for (int type; (type = nextChunk()) != IDAT; endChunk()) {
+			if (type == PLTE) {
+				if (chunkRemaining % 3 != 0 || chunkRemaining > 768) throw new IOException("Invalid PNG palette");
+				for (int i = 0, n = chunkRemaining / 3; i < n; i++) {
+					palette[i << 2] = this.data.get();
+					palette[(i << 2) + 1] = this.data.get();
+					palette[(i << 2) + 2] = this.data.get();
+				}
+				chunkRemaining = 0;
+			} else if (type == TRNS) {
+				if (colorType == PALETTE) {
+					for (int i = 0, n = Math.min(chunkRemaining, 256); i < n; i++)
+						palette[(i << 2) + 3] = this.data.get();
+				} else if (colorType == GRAY && chunkRemaining >= 2) {
+					keyR = keyG = keyB = this.data.getShort() & 0xFFFF;
+				} else if (colorType == RGB && chunkRemaining >= 6) {
+					keyR = this.data.getShort() & 0xFFFF;
+					keyG = this.data.getShort() & 0xFFFF;
+					keyB = this.data.getShort() & 0xFFFF;
+				}
+				this.data.position(chunkStart + chunkRemaining);
+				chunkRemaining = 0;
+			} else if ((type & 0x20000000) == 0) {
+				// the first letter is upper case, so a decoder must understand it
+				throw new IOException("Unknown critical PNG chunk: " + name(type));
+			} else {
+				// ancillary chunks aren't needed for the pixels
+				this.data.position(chunkStart + chunkRemaining);
+				chunkRemaining = 0;
+			}
+		}
+	}
+
+	/**
+	 * Reads the length and type of the next chunk.
+	 *
+	 * @return its type
+	 */
+	private int nextChunk() throws IOException {
+		if (data.remaining() < 8) throw new IOException("PNG is truncated");
+		chunkRemaining = data.getInt();
+		final int type = data.getInt();
+		if (chunkRemaining < 0 || chunkRemaining > data.remaining() - 4) throw new IOException("PNG is truncated");
+		chunkStart = data.position();
+		crc.reset();
+		crc.update(type >>> 24);
+		crc.update(type >>> 16);
+		crc.update(type >>> 8);
+		crc.update(type);
+		return type;
+	}
+
+	/**
+	 * Checks the CRC of the chunk read up to here and moves past it.
+	 */
+	private void endChunk() throws IOException {
+		final int end = data.position();
+		final ByteBuffer chunk = data.duplicate();
+		chunk.position(chunkStart).limit(end);
+		crc.update(chunk);
+		if ((int) crc.getValue() != data.getInt(end)) throw new IOException("PNG chunk is corrupt");
+		data.position(end + 4);
+	}
+
+	private static String name(int type) {
+		return new String(new char[]{(char) (type >>> 24), (char) (type >>> 16 & 0xFF), (char) (type >>> 8 & 0xFF), (char) (type & 0xFF)});
+	}
+
+	@Override
+	public int decode(ByteBuffer dest, int rows) throws IOException {
+		final int count = Math.min(rows, height - row);
+		for (int i = 0; i < count; i++) {
+			final byte[] swap = previous;
+			previous = current;
+			current = swap;
+			inflate(current);
+			unfilter(current, previous);
+			convert(current, dest);
+			row++;
+		}
+		return count;
+	}
+
+	private void inflate(byte[] dest) throws IOException {
+		try {
+			for (int offset = 0; offset < dest.length; ) {
+				final int n = inflater.inflate(dest, offset, dest.length - offset);
+				offset += n;
+				if (n == 0) {
+					if (inflater.finished() || inflater.needsDictionary()) throw new IOException("PNG data ends early");
+					if (inflater.needsInput()) feed();
+				}
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("PNG data is corrupt", e);
+		}
+	}
+
+	/**
+	 * Hands the inflater the next bytes of IDAT data.
+	 */
+	private void feed() throws IOException {
+		while (chunkRemaining == 0) {
+			endChunk();
+			if (nextChunk() != IDAT) throw new IOException("PNG data ends early");
+		}
+		final int n = Math.min(chunkRemaining, input.length);
+		data.get(input, 0, n);
+		chunkRemaining -= n;
+		inflater.setInput(input, 0, n);
+	}
+
+	private void unfilter(byte[] row, byte[] above) throws IOException {
+		final int bpp = this.bpp, n = row.length;
+		switch (row[0]) {
+			case 0:
+				break;
+			case 1:
+				for (int i = 1 + bpp; i < n; i++) row[i] += row[i - bpp];
+				break;
+			case 2:
+				for (int i = 1; i < n; i++) row[i] += above[i];
+				break;
+			case 3:
+				for (int i = 1; i <= bpp && i < n; i++) row[i] += (above[i] & 0xFF) >>> 1;
+				for (int i = 1 + bpp; i < n; i++) row[i] += ((row[i - bpp] & 0xFF) + (above[i] & 0xFF)) >>> 1;
+				break;
+			case 4:
+				for (int i = 1; i <= bpp && i < n; i++) row[i] += above[i];
+				for (int i = 1 + bpp; i < n; i++) {
+					final int a = row[i - bpp] & 0xFF, b = above[i] & 0xFF, c = above[i - bpp] & 0xFF;
+					final int p = a + b - c, pa = Math.abs(p - a), pb = Math.abs(p - b), pc = Math.abs(p - c);
+					row[i] += pa <= pb && pa <= pc ? a : pb <= pc ? b : c;
+				}
+				break;
+			default:
+				throw new IOException("Unknown PNG filter: " + row[0]);
+		}
+	}
+
+	/**
+	 * Writes a row of pixels to the buffer.
+	 */
+	private void convert(byte[] row, ByteBuffer dest) {
+		final int width = this.width, channels = this.channels;
+		int o = dest.position();
+		if (bitDepth == 8 && (colorType == RGBA && channels == 4 || colorType == RGB && channels == 3 && keyR < 0)) {
+			dest.put(row, 1, stride);
+			return;
+		}
+
+		for (int x = 0; x < width; x++, o += channels) {
+			int r, g, b, a;
+			switch (colorType) {
+				case GRAY: {
+					final int v = sample(row, x);
+					r = g = b = scale(v);
+					a = v == keyR ? 0 : 255;
+					break;
+				}
+				case RGB: {
+					final int i = 1 + x * bpp;
+					if (bitDepth == 8) {
+						r = row[i] & 0xFF;
+						g = row[i + 1] & 0xFF;
+						b = row[i + 2] & 0xFF;
+						a = r == keyR && g == keyG && b == keyB ? 0 : 255;
+					} else {
+						final int r16 = short16(row, i), g16 = short16(row, i + 2), b16 = short16(row, i + 4);
+						r = r16 >>> 8;
+						g = g16 >>> 8;
+						b = b16 >>> 8;
+						a = r16 == keyR && g16 == keyG && b16 == keyB ? 0 : 255;
+					}
+					break;
+				}
+				case PALETTE: {
+					final int p = sample(row, x) << 2;
+					r = palette[p] & 0xFF;
+					g = palette[p + 1] & 0xFF;
+					b = palette[p + 2] & 0xFF;
+					a = palette[p + 3] & 0xFF;
+					break;
+				}
+				case GRAY_ALPHA: {
+					final int i = 1 + x * bpp, step = bitDepth >> 3;
+					r = g = b = row[i] & 0xFF;
+					a = row[i + step] & 0xFF;
+					break;
+				}
+				default: {
+					final int i = 1 + x * bpp, step = bitDepth >> 3;
+					r = row[i] & 0xFF;
+					g = row[i + step] & 0xFF;
+					b = row[i + 2 * step] & 0xFF;
+					a = row[i + 3 * step] & 0xFF;
+				}
+			}
+			dest.put(o, (byte) r).put(o + 1, (byte) g).put(o + 2, (byte) b);
+			if (channels == 4) dest.put(o + 3, (byte) a);
+		}
+		dest.position(o);
+	}
+
+	/**
+	 * @return the x'th gray or palette sample of a row at its full depth
+	 */
+	private int sample(byte[] row, int x) {
+		switch (bitDepth) {
+			case 8:
+				return row[1 + x] & 0xFF;
+			case 16:
+				return short16(row, 1 + (x << 1));
+			default: {
+				final int bit = x * bitDepth;
+				return (row[1 + (bit >> 3)] & 0xFF) >>> (8 - bitDepth - (bit & 7)) & (1 << bitDepth) - 1;
+			}
+		}
+	}
+
+	/**
+	 * Scales a gray sample to 8 bits.
+	 */
+	private int scale(int v) {
+		switch (bitDepth) {
+			case 1:
+				return v * 0xFF;
+			case 2:
+				return v * 0x55;
+			case 4:
+				return v * 0x11;
+			case 16:
+				return v >>> 8;
+			default:
+				return v;
+		}
+	}
+
+	private static int short16(byte[] row, int i) {
+		return (row[i] & 0xFF) << 8 | row[i + 1] & 0xFF;
+	}
+
+	@Override
+	public int getWidth() {
+		return width;
+	}
+
+	@Override
+	public int getHeight() {
+		return height;
+	}
+
+	@Override
+	public int getChannels() {
+		return channels;
+	}
+
+	@Override
+	public int getRow() {
+		return row;
+	}
+
+	@Override
+	public void close() {
+		inflater.end();
+	}
+
+}
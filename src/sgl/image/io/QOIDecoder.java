@@ -0,0 +1,156 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.image.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A streaming decoder of the Quite OK Image format, which needs nothing
+ * beyond its 64 entry color index to pick up where the last strip ended.
+ *
+ * @author link
+ */
+public final class QOIDecoder implements ImageDecoder {
+
+	public static final int MAGIC = 0x716F6966;
+
+	private static final int HEADER = 14;
+	private static final int OP_RGB = 0xFE, OP_RGBA = 0xFF;
+
+	private final ByteBuffer data;
+	private final int width, height, channels;
+
+	// colors seen before, as RGBA, at (r * 3 + g * 5 + b * 7 + a * 11) % 64
+	private final int[] index = new int[64];
+	private int pixel = 0xFF, run;
+	private int row;
+
+	/**
+	 * Reads the header of a QOI image.
+	 *
+	 * @param data     the whole file, from its position
+	 * @param channels 3 to decode to RGB, 4 to RGBA
+	 * @throws IOException if it isn't a QOI image
+	 */
+	public QOIDecoder(ByteBuffer data, int channels) throws IOException {
+		if (channels != 3 && channels != 4) throw new IllegalArgumentException("channels must be 3 or 4: " + channels);
+		this.data = data.slice().order(ByteOrder.BIG_ENDIAN);
+		this.channels = channels;
+		if (this.data.remaining() < HEADER || this.data.getInt() != MAGIC) throw new IOException("Not a QOI image");
+		width = this.data.getInt();
+		height = this.data.getInt();
+		// the channels and colorspace bytes only describe the pixels, which always decode the same
+		this.data.position(HEADER);
+		if (width <= 0 || height <= 0 || (long) width * channels > Integer.MAX_VALUE)
+			throw new IOException("Invalid QOI size: " + Integer.toUnsignedString(width) + "x" + Integer.toUnsignedString(height));
+	}
+
+	@Override
+	public int decode(ByteBuffer dest, int rows) throws IOException {
+		final int count = Math.min(rows, height - row);
+		final ByteBuffer data = this.data;
+		final int[] index = this.index;
+		final int channels = this.channels, end = data.limit();
+		int pixel = this.pixel, run = this.run, o = dest.position(), p = data.position();
+
+		for (long n = (long) count * width; n > 0; n--, o += channels) {
+			if (run > 0) {
+				run--;
+			} else {
+				if (p >= end) throw new IOException("QOI image is truncated");
+				final int op = data.get(p++) & 0xFF;
+				if (op == OP_RGB || op == OP_RGBA) {
+					if (p + (op & 1) + 3 > end) throw new IOException("QOI image is truncated");
+					pixel = (data.get(p) & 0xFF) << 24 | (data.get(p + 1) & 0xFF) << 16 | (data.get(p + 2) & 0xFF) << 8
+						| (op == OP_RGBA ? data.get(p + 3) & 0xFF : pixel & 0xFF);
+					p += op == OP_RGBA ? 4 : 3;
+				} else {
+					switch (op >>> 6) {
+						case 0:
+							pixel = index[op];
+							break;
+						case 1: {
+							// each channel differs by -2..1
+							final int r = (pixel >>> 24) + (op >> 4 & 3) - 2, g = (pixel >>> 16 & 0xFF) + (op >> 2 & 3) - 2, b = (pixel >>> 8 & 0xFF) + (op & 3) - 2;
+							pixel = (r & 0xFF) << 24 | (g & 0xFF) << 16 | (b & 0xFF) << 8 | pixel & 0xFF;
+							break;
+						}
+						case 2: {
+							// green differs by -32..31, red and blue by -8..7 more than green
+							if (p >= end) throw new IOException("QOI image is truncated");
+							final int next = data.get(p++) & 0xFF, dg = (op & 0x3F) - 32;
+							final int r = (pixel >>> 24) + dg + (next >> 4) - 8, g = (pixel >>> 16 & 0xFF) + dg, b = (pixel >>> 8 & 0xFF) + dg + (next & 0xF) - 8;
+							pixel = (r & 0xFF) << 24 | (g & 0xFF) << 16 | (b & 0xFF) << 8 | pixel & 0xFF;
+							break;
+						}
+						default:
+							// the previous pixel, this one and op & 0x3F more
+							run = op & 0x3F;
+					}
+				}
+				index[((pixel >>> 24) * 3 + (pixel >>> 16 & 0xFF) * 5 + (pixel >>> 8 & 0xFF) * 7 + (pixel & 0xFF) * 11) & 63] = pixel;
+			}
+			if (channels == 4) dest.putInt(o, dest.order() == ByteOrder.BIG_ENDIAN ? pixel : Integer.reverseBytes(pixel));
+			else dest.put(o, (byte) (pixel >>> 24)).put(o + 1, (byte) (pixel >>> 16)).put(o + 2, (byte) (pixel >>> 8));
+		}
+
+		data.position(p);
+		dest.position(o);
+		this.pixel = pixel;
+		this.run = run;
+		row += count;
+		return count;
+	}
+
+	@Override
+	public int getWidth() {
+		return width;
+	}
+
+	@Override
+	public int getHeight() {
+		return height;
+	}
+
+	@Override
+	public int getChannels() {
+		return channels;
+	}
+
+	@Override
+	public int getRow() {
+		return row;
+	}
+
+	@Override
+	public void close() {
+	}
+
+}
@@ -0,0 +1,182 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.io.record;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Records input events into a compact binary file so that a session can be
+ * replayed deterministically.
+ * <p>
+ * Every event is stamped with the frame it occurred in. The frame counter is
+ * owned by the application: call {@link #frame()} once per frame (usually
+ * right after polling events) so that replaying the file delivers each event
+ * on the same frame it was recorded on.
+ * </p>
+ * <p>
+ * The file starts with the {@link #MAGIC} int and the {@link #VERSION} byte,
+ * followed by one record per event:
+ * </p>
+ * <pre>
+ * [type:byte][frame delta:varint][payload]
+ * </pre>
+ * <p>
+ * A {@link #KEY} payload is {@code [key:varint][scancode:varint][action:byte][mods:byte]}.
+ * Signed values are zig-zag encoded so negative key codes stay small.
+ * </p>
+ *
+ * @author link
+ * @see InputRecording
+ */
+public final class InputRecorder implements AutoCloseable {
+
+	/** "SGLI" */
+	public static final int MAGIC = 0x53474C49;
+	public static final byte VERSION = 1;
+
+	/** Event types */
+	public static final byte KEY = 0, MOUSE_BUTTON = 1, CURSOR = 2, SCROLL = 3;
+
+	private final DataOutputStream out;
+	private final Object writeLock = new Object();
+
+	// frame of the last written event, used for delta encoding
+	private long lastFrame;
+	private volatile long frame;
+
+	/**
+	 * Creates a new InputRecorder that writes to the given file, replacing
+	 * any existing file.
+	 *
+	 * @param file the file to record to
+	 * @throws IOException if the file could not be opened
+	 */
+	public InputRecorder(Path file) throws IOException {
+		this(Files.newOutputStream(file));
+	}
+
+	/**
+	 * Creates a new InputRecorder that writes to the given stream.
+	 *
+	 * @param stream the stream to record to
+	 * @throws IOException if the header could not be written
+	 */
+	public InputRecorder(OutputStream stream) throws IOException {
+		out = new DataOutputStream(new BufferedOutputStream(stream));
+		out.writeInt(MAGIC);
+		out.writeByte(VERSION);
+	}
+
+	/**
+	 * Advances the frame counter. Events recorded after this call are stamped
+	 * with the next frame.
+	 */
+	public void frame() {
+		frame++;
+	}
+
+	/**
+	 * Gets the current frame number.
+	 *
+	 * @return the current frame number
+	 */
+	public long getFrame() {
+		return frame;
+	}
+
+	/**
+	 * Records a key event on the current frame. The arguments are the same as
+	 * {@link sgl.glfw.io.GLFWKeyboard#invoke(long, int, int, int, int)}.
+	 *
+	 * @param key      the key
+	 * @param scancode the platform-specific scancode
+	 * @param action   the key action
+	 * @param mods     the modifier bits
+	 */
+	public void key(int key, int scancode, int action, int mods) {
+		synchronized (writeLock) {
+			try {
+				header(KEY);
+				writeVarInt(zigzag(key));
+				writeVarInt(zigzag(scancode));
+				out.writeByte(action);
+				out.writeByte(mods);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to record key event", e);
+			}
+		}
+	}
+
+	/**
+	 * Flushes all buffered events to the underlying stream.
+	 *
+	 * @throws IOException if the stream could not be flushed
+	 */
+	public void flush() throws IOException {
+		synchronized (writeLock) {
+			out.flush();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized (writeLock) {
+			out.close();
+		}
+	}
+
+	private void header(byte type) throws IOException {
+		final long current = frame;
+		out.writeByte(type);
+		writeVarLong(current - lastFrame);
+		lastFrame = current;
+	}
+
+	private void writeVarInt(int value) throws IOException {
+		writeVarLong(value & 0xFFFF_FFFFL);
+	}
+
+	private void writeVarLong(long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.writeByte((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	static int zigzag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	static int unzigzag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+}
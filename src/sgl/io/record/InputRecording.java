@@ -0,0 +1,180 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.io.record;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static sgl.io.record.InputRecorder.*;
+
+/**
+ * An immutable, in-memory copy of a file written by an {@link InputRecorder}.
+ * <p>
+ * Events are kept in parallel primitive arrays ordered by frame, so replaying
+ * a recording does not allocate.
+ * </p>
+ *
+ * @author link
+ * @see InputRecorder
+ */
+public final class InputRecording {
+
+	private final int size;
+	private final long[] frames;
+	private final byte[] types;
+	private final int[] keys, scancodes;
+	private final byte[] actions, mods;
+
+	private InputRecording(int size, long[] frames, byte[] types, int[] keys, int[] scancodes, byte[] actions, byte[] mods) {
+		this.size = size;
+		this.frames = frames;
+		this.types = types;
+		this.keys = keys;
+		this.scancodes = scancodes;
+		this.actions = actions;
+		this.mods = mods;
+	}
+
+	/**
+	 * Reads a recording from the given file.
+	 *
+	 * @param file the file to read
+	 * @return the recording
+	 * @throws IOException if the file could not be read or is not a recording
+	 */
+	public static InputRecording read(Path file) throws IOException {
+		try (InputStream in = Files.newInputStream(file)) {
+			return read(in);
+		}
+	}
+
+	/**
+	 * Reads a recording from the given stream. The stream is not closed.
+	 *
+	 * @param stream the stream to read
+	 * @return the recording
+	 * @throws IOException if the stream could not be read or is not a recording
+	 */
+	public static InputRecording read(InputStream stream) throws IOException {
+		final DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+		if (in.readInt() != MAGIC)
+			throw new IOException("Not an SGL input recording");
+		final byte version = in.readByte();
+		if (version != VERSION)
+			throw new IOException("Unsupported input recording version: " + version);
+
+		int size = 0, capacity = 64;
+		long[] frames = new long[capacity];
+		byte[] types = new byte[capacity];
+		int[] keys = new int[capacity], scancodes = new int[capacity];
+		byte[] actions = new byte[capacity], mods = new byte[capacity];
+
+		long frame = 0;
+		for (int type; (type = in.read()) != -1; size++) {
+			if (size == capacity) {
+				capacity <<= 1;
+				frames = Arrays.copyOf(frames, capacity);
+				types = Arrays.copyOf(types, capacity);
+				keys = Arrays.copyOf(keys, capacity);
+				scancodes = Arrays.copyOf(scancodes, capacity);
+				actions = Arrays.copyOf(actions, capacity);
+				mods = Arrays.copyOf(mods, capacity);
+			}
+			frame += readVarLong(in);
+			frames[size] = frame;
+			types[size] = (byte) type;
+			switch (type) {
+				case KEY:
+					keys[size] = unzigzag((int) readVarLong(in));
+					scancodes[size] = unzigzag((int) readVarLong(in));
+					actions[size] = in.readByte();
+					mods[size] = in.readByte();
+					break;
+				default:
+					throw new IOException("Unknown input event type: " + type);
+			}
+		}
+
+		return new InputRecording(size, frames, types, keys, scancodes, actions, mods);
+	}
+
+	private static long readVarLong(DataInputStream in) throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			final byte b = in.readByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) return value;
+		}
+		throw new IOException("Malformed varint in input recording");
+	}
+
+	/**
+	 * Gets the number of events in this recording.
+	 *
+	 * @return the number of events
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the frame of the last event, or 0 if this recording is empty.
+	 *
+	 * @return the frame of the last event
+	 */
+	public long getLastFrame() {
+		return size == 0 ? 0 : frames[size - 1];
+	}
+
+	public long getFrame(int event) {
+		return frames[event];
+	}
+
+	public byte getType(int event) {
+		return types[event];
+	}
+
+	public int getKey(int event) {
+		return keys[event];
+	}
+
+	public int getScancode(int event) {
+		return scancodes[event];
+	}
+
+	public int getAction(int event) {
+		return actions[event];
+	}
+
+	public int getMods(int event) {
+		return mods[event];
+	}
+
+}
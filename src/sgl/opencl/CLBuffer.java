@@ -0,0 +1,61 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.opencl;
+
+/**
+ * A cl_mem buffer handed out by a {@link CLBufferPool}. Its capacity is the
+ * size class it was allocated for, which may be larger than requested.
+ *
+ * @author link
+ */
+public final class CLBuffer {
+
+	private final long mem, capacity, flags;
+
+	CLBuffer(long mem, long capacity, long flags) {
+		this.mem = mem;
+		this.capacity = capacity;
+		this.flags = flags;
+	}
+
+	/**
+	 * @return the cl_mem handle
+	 */
+	public long getMem() {
+		return mem;
+	}
+
+	public long getCapacity() {
+		return capacity;
+	}
+
+	public long getFlags() {
+		return flags;
+	}
+
+}
@@ -0,0 +1,166 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.opencl;
+
+import org.lwjgl.system.MemoryStack;
+
+import java.nio.IntBuffer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.lwjgl.opencl.CL10.*;
+import static org.lwjgl.system.MemoryStack.stackPush;
+
+/**
+ * Reuses cl_mem buffers of a context by size class, so that repeated
+ * kernels with similarly sized inputs don't allocate device memory every
+ * time.
+ * <p>
+ * Sizes are rounded up to a power of two, and above 1 MiB to a quarter of
+ * an octave, which wastes at most a quarter of a large buffer. Buffers
+ * created from host pointers can't be pooled.
+ * </p>
+ *
+ * @author link
+ */
+public final class CLBufferPool {
+
+	private static final long MIN_CAPACITY = 1L << 12;
+	private static final long FINE_CLASSES = 1L << 20;
+	private static final long FLAG_MASK = CL_MEM_READ_WRITE | CL_MEM_WRITE_ONLY | CL_MEM_READ_ONLY | CL_MEM_ALLOC_HOST_PTR;
+
+	private final long context;
+	private final Map<Long, ArrayDeque<CLBuffer>> free = new HashMap<>();
+
+	private long maxPooledBytes;
+	private long pooledBytes, allocations, reuses;
+
+	/**
+	 * @param context        the cl_context to allocate buffers in
+	 * @param maxPooledBytes the most memory idle buffers may hold before
+	 *                       released buffers are freed instead
+	 */
+	public CLBufferPool(long context, long maxPooledBytes) {
+		this.context = context;
+		this.maxPooledBytes = maxPooledBytes;
+	}
+
+	/**
+	 * Gets an idle buffer of at least the given size, allocating one if none
+	 * of its size class is pooled.
+	 *
+	 * @param size  the size in bytes
+	 * @param flags the cl_mem_flags; host pointer flags aren't allowed
+	 * @return the buffer
+	 */
+	public synchronized CLBuffer acquire(long size, long flags) {
+		if ((flags & ~FLAG_MASK) != 0)
+			throw new IllegalArgumentException("Host pointer buffers can't be pooled");
+
+		final long capacity = getCapacity(size);
+		final ArrayDeque<CLBuffer> idle = free.get(key(capacity, flags));
+		if (idle != null && !idle.isEmpty()) {
+			pooledBytes -= capacity;
+			reuses++;
+			return idle.pop();
+		}
+
+		final long mem;
+		try (MemoryStack stack = stackPush()) {
+			final IntBuffer error = stack.mallocInt(1);
+			mem = CLException.check(clCreateBuffer(context, flags, capacity, error), error.get(0));
+		}
+		allocations++;
+		return new CLBuffer(mem, capacity, flags);
+	}
+
+	/**
+	 * Returns a buffer to the pool. The buffer must not be used afterwards.
+	 *
+	 * @param buffer the buffer
+	 */
+	public synchronized void release(CLBuffer buffer) {
+		if (pooledBytes + buffer.getCapacity() > maxPooledBytes) {
+			clReleaseMemObject(buffer.getMem());
+			return;
+		}
+		free.computeIfAbsent(key(buffer.getCapacity(), buffer.getFlags()), k -> new ArrayDeque<>()).push(buffer);
+		pooledBytes += buffer.getCapacity();
+	}
+
+	/**
+	 * Frees every idle buffer.
+	 */
+	public synchronized void trim() {
+		for (ArrayDeque<CLBuffer> idle : free.values())
+			for (CLBuffer buffer : idle)
+				clReleaseMemObject(buffer.getMem());
+		free.clear();
+		pooledBytes = 0;
+	}
+
+	/**
+	 * Rounds a size up to its size class.
+	 *
+	 * @param size the size in bytes
+	 * @return the capacity of buffers in its class
+	 */
+	public static long getCapacity(long size) {
+		if (size <= MIN_CAPACITY) return MIN_CAPACITY;
+		final long octave = Long.highestOneBit(size - 1) << 1;
+		if (octave <= FINE_CLASSES) return octave;
+		final long step = octave >> 3;
+		return (size + step - 1) / step * step;
+	}
+
+	private static long key(long capacity, long flags) {
+		return capacity << 6 | flags & FLAG_MASK;
+	}
+
+	public synchronized long getPooledBytes() {
+		return pooledBytes;
+	}
+
+	public synchronized long getMaxPooledBytes() {
+		return maxPooledBytes;
+	}
+
+	public synchronized void setMaxPooledBytes(long maxPooledBytes) {
+		this.maxPooledBytes = maxPooledBytes;
+	}
+
+	public synchronized long getAllocations() {
+		return allocations;
+	}
+
+	public synchronized long getReuses() {
+		return reuses;
+	}
+
+}
@@ -0,0 +1,136 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.opencl;
+
+import static org.lwjgl.opencl.CL10.*;
+
+/**
+ * A snapshot of the properties of an OpenCL device, read once when the
+ * device is added to the {@link DeviceTracker}.
+ *
+ * @author link
+ */
+public final class CLDevice {
+
+	private final long id, platform, type;
+	private final String name, vendor, version, driverVersion, extensions;
+	private final int computeUnits;
+	private final long globalMemSize, maxAllocSize, queueProperties;
+
+	CLDevice(long id) {
+		this.id = id;
+		this.platform = OpenCL.getDeviceInfoPointer(id, CL_DEVICE_PLATFORM);
+		this.type = OpenCL.getDeviceInfoLong(id, CL_DEVICE_TYPE);
+		this.name = OpenCL.getDeviceInfoString(id, CL_DEVICE_NAME).trim();
+		this.vendor = OpenCL.getDeviceInfoString(id, CL_DEVICE_VENDOR).trim();
+		this.version = OpenCL.getDeviceInfoString(id, CL_DEVICE_VERSION).trim();
+		this.driverVersion = OpenCL.getDeviceInfoString(id, CL_DRIVER_VERSION).trim();
+		this.extensions = ' ' + OpenCL.getDeviceInfoString(id, CL_DEVICE_EXTENSIONS).trim() + ' ';
+		this.computeUnits = OpenCL.getDeviceInfoInt(id, CL_DEVICE_MAX_COMPUTE_UNITS);
+		this.globalMemSize = OpenCL.getDeviceInfoLong(id, CL_DEVICE_GLOBAL_MEM_SIZE);
+		this.maxAllocSize = OpenCL.getDeviceInfoLong(id, CL_DEVICE_MAX_MEM_ALLOC_SIZE);
+		this.queueProperties = OpenCL.getDeviceInfoLong(id, CL_DEVICE_QUEUE_PROPERTIES);
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public long getPlatform() {
+		return platform;
+	}
+
+	/**
+	 * @return the cl_device_type bitfield of this device
+	 */
+	public long getType() {
+		return type;
+	}
+
+	public boolean isGPU() {
+		return (type & CL_DEVICE_TYPE_GPU) != 0;
+	}
+
+	public boolean isCPU() {
+		return (type & CL_DEVICE_TYPE_CPU) != 0;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getVendor() {
+		return vendor;
+	}
+
+	public String getVersion() {
+		return version;
+	}
+
+	public String getDriverVersion() {
+		return driverVersion;
+	}
+
+	/**
+	 * Checks whether this device supports the given extension.
+	 *
+	 * @param extension the extension name, such as {@code cl_khr_fp64}
+	 * @return true if the device reports the extension
+	 */
+	public boolean hasExtension(String extension) {
+		return extensions.contains(' ' + extension + ' ');
+	}
+
+	public int getComputeUnits() {
+		return computeUnits;
+	}
+
+	public long getGlobalMemSize() {
+		return globalMemSize;
+	}
+
+	public long getMaxAllocSize() {
+		return maxAllocSize;
+	}
+
+	/**
+	 * Checks whether command queues on this device may execute commands out
+	 * of order.
+	 *
+	 * @return true if out-of-order queues are supported
+	 */
+	public boolean supportsOutOfOrder() {
+		return (queueProperties & CL_QUEUE_OUT_OF_ORDER_EXEC_MODE_ENABLE) != 0;
+	}
+
+	@Override
+	public String toString() {
+		return name + " (" + vendor + ", " + version + ")";
+	}
+
+}
@@ -0,0 +1,148 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.opencl;
+
+import static org.lwjgl.opencl.CL10.*;
+
+/**
+ * Thrown when an OpenCL call returns an error code.
+ *
+ * @author link
+ */
+public class CLException extends RuntimeException {
+
+	private final int error;
+
+	public CLException(int error) {
+		super("A CL error occured: " + getName(error));
+		this.error = error;
+	}
+
+	public CLException(int error, String message) {
+		super("A CL error occured: " + getName(error) + ": " + message);
+		this.error = error;
+	}
+
+	/**
+	 * Throws a CLException if the given error code isn't {@code CL_SUCCESS}.
+	 *
+	 * @param error the error code returned by an OpenCL call
+	 */
+	public static void check(int error) {
+		if (error != CL_SUCCESS) throw new CLException(error);
+	}
+
+	/**
+	 * Throws a CLException if the given {@code errcode_ret} isn't
+	 * {@code CL_SUCCESS}, and otherwise returns the created object.
+	 *
+	 * @param object the object returned by an OpenCL create call
+	 * @param error  the error code it wrote
+	 * @return the object
+	 */
+	public static long check(long object, int error) {
+		if (error != CL_SUCCESS) throw new CLException(error);
+		return object;
+	}
+
+	public int getError() {
+		return error;
+	}
+
+	public static String getName(int error) {
+		switch (error) {
+			case CL_SUCCESS:
+				return "CL_SUCCESS";
+			case CL_DEVICE_NOT_FOUND:
+				return "CL_DEVICE_NOT_FOUND";
+			case CL_DEVICE_NOT_AVAILABLE:
+				return "CL_DEVICE_NOT_AVAILABLE";
+			case CL_COMPILER_NOT_AVAILABLE:
+				return "CL_COMPILER_NOT_AVAILABLE";
+			case CL_MEM_OBJECT_ALLOCATION_FAILURE:
+				return "CL_MEM_OBJECT_ALLOCATION_FAILURE";
+			case CL_OUT_OF_RESOURCES:
+				return "CL_OUT_OF_RESOURCES";
+			case CL_OUT_OF_HOST_MEMORY:
+				return "CL_OUT_OF_HOST_MEMORY";
+			case CL_BUILD_PROGRAM_FAILURE:
+				return "CL_BUILD_PROGRAM_FAILURE";
+			case CL_INVALID_VALUE:
+				return "CL_INVALID_VALUE";
+			case CL_INVALID_DEVICE:
+				return "CL_INVALID_DEVICE";
+			case CL_INVALID_CONTEXT:
+				return "CL_INVALID_CONTEXT";
+			case CL_INVALID_COMMAND_QUEUE:
+				return "CL_INVALID_COMMAND_QUEUE";
+			case CL_INVALID_MEM_OBJECT:
+				return "CL_INVALID_MEM_OBJECT";
+			case CL_INVALID_BINARY:
+				return "CL_INVALID_BINARY";
+			case CL_INVALID_BUILD_OPTIONS:
+				return "CL_INVALID_BUILD_OPTIONS";
+			case CL_INVALID_PROGRAM:
+				return "CL_INVALID_PROGRAM";
+			case CL_INVALID_PROGRAM_EXECUTABLE:
+				return "CL_INVALID_PROGRAM_EXECUTABLE";
+			case CL_INVALID_KERNEL_NAME:
+				return "CL_INVALID_KERNEL_NAME";
+			case CL_INVALID_KERNEL:
+				return "CL_INVALID_KERNEL";
+			case CL_INVALID_ARG_INDEX:
+				return "CL_INVALID_ARG_INDEX";
+			case CL_INVALID_ARG_VALUE:
+				return "CL_INVALID_ARG_VALUE";
+			case CL_INVALID_ARG_SIZE:
+				return "CL_INVALID_ARG_SIZE";
+			case CL_INVALID_KERNEL_ARGS:
+				return "CL_INVALID_KERNEL_ARGS";
+			case CL_INVALID_WORK_DIMENSION:
+				return "CL_INVALID_WORK_DIMENSION";
+			case CL_INVALID_WORK_GROUP_SIZE:
+				return "CL_INVALID_WORK_GROUP_SIZE";
+			case CL_INVALID_GLOBAL_OFFSET:
+				return "CL_INVALID_GLOBAL_OFFSET";
+			case CL_INVALID_EVENT_WAIT_LIST:
+				return "CL_INVALID_EVENT_WAIT_LIST";
+			case CL_INVALID_EVENT:
+				return "CL_INVALID_EVENT";
+			case CL_INVALID_OPERATION:
+				return "CL_INVALID_OPERATION";
+			case CL_INVALID_BUFFER_SIZE:
+				return "CL_INVALID_BUFFER_SIZE";
+			case CL_INVALID_PLATFORM:
+				return "CL_INVALID_PLATFORM";
+			case CL_INVALID_QUEUE_PROPERTIES:
+				return "CL_INVALID_QUEUE_PROPERTIES";
+			default:
+				return "error " + error;
+		}
+	}
+
+}
@@ -0,0 +1,271 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.opencl;
+
+import org.lwjgl.PointerBuffer;
+import org.lwjgl.system.MemoryStack;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.lwjgl.opencl.CL10.*;
+import static org.lwjgl.system.MemoryStack.stackPush;
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * Builds cl_programs for one device of a context and caches them, along with
+ * their kernels, in memory and as binaries on disk.
+ * <p>
+ * Binaries are keyed by a SHA-256 of the source, the build options and the
+ * device's name, vendor, version and driver version, so a driver update
+ * never loads a stale binary. A binary the driver rejects is deleted and
+ * rebuilt from source. Failing to write the cache only costs a rebuild next
+ * time and isn't reported.
+ * </p>
+ * <p>
+ * Kernels are shared: callers using one from several Threads must
+ * synchronize on it while setting arguments and enqueueing.
+ * </p>
+ *
+ * @author link
+ */
+public final class CLProgramCache {
+
+	private final long context;
+	private final CLDevice device;
+	private final Path directory;
+
+	private final Map<String, Long> programs = new HashMap<>();
+	private final Map<String, Long> kernels = new HashMap<>();
+
+	private long diskHits, builds;
+
+	/**
+	 * @param context   the cl_context to build programs in
+	 * @param device    the device to build programs for
+	 * @param directory the directory to store binaries in, or null to only
+	 *                  cache in memory
+	 */
+	public CLProgramCache(long context, CLDevice device, Path directory) {
+		this.context = context;
+		this.device = device;
+		this.directory = directory;
+	}
+
+	/**
+	 * Gets the program built from the given source and options, building it
+	 * or loading its binary if it isn't cached yet.
+	 *
+	 * @param source  the OpenCL C source
+	 * @param options the build options, may be empty
+	 * @return the built cl_program
+	 * @throws CLException with the build log if the source fails to build
+	 */
+	public synchronized long getProgram(String source, String options) {
+		final String key = key(source, options);
+		Long program = programs.get(key);
+		if (program == null) {
+			long built = directory != null ? load(key, options) : NULL;
+			if (built == NULL) {
+				built = build(source, options);
+				if (directory != null) store(key, built);
+			}
+			programs.put(key, program = built);
+		}
+		return program;
+	}
+
+	/**
+	 * Gets a kernel of the program built from the given source and options.
+	 *
+	 * @param source  the OpenCL C source
+	 * @param options the build options, may be empty
+	 * @param name    the name of the kernel function
+	 * @return the cl_kernel
+	 */
+	public synchronized long getKernel(String source, String options, String name) {
+		final long program = getProgram(source, options);
+		final String key = key(source, options) + '#' + name;
+		Long kernel = kernels.get(key);
+		if (kernel == null) {
+			try (MemoryStack stack = stackPush()) {
+				final IntBuffer error = stack.mallocInt(1);
+				kernel = CLException.check(clCreateKernel(program, name, error), error.get(0));
+			}
+			kernels.put(key, kernel);
+		}
+		return kernel;
+	}
+
+	private long load(String key, String options) {
+		final Path file = directory.resolve(key + ".bin");
+		if (!Files.isRegularFile(file)) return NULL;
+
+		ByteBuffer binary = null;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ); MemoryStack stack = stackPush()) {
+			binary = memAlloc((int) channel.size());
+			while (binary.hasRemaining() && channel.read(binary) >= 0) ;
+			binary.flip();
+
+			final IntBuffer status = stack.mallocInt(1), error = stack.mallocInt(1);
+			final long program = clCreateProgramWithBinary(context, stack.pointers(device.getId()), binary, status, error);
+			if (error.get(0) != CL_SUCCESS || status.get(0) != CL_SUCCESS) {
+				if (program != NULL) clReleaseProgram(program);
+				Files.deleteIfExists(file);
+				return NULL;
+			}
+			if (clBuildProgram(program, device.getId(), options, null, NULL) != CL_SUCCESS) {
+				clReleaseProgram(program);
+				Files.deleteIfExists(file);
+				return NULL;
+			}
+			diskHits++;
+			return program;
+		} catch (IOException e) {
+			return NULL;
+		} finally {
+			if (binary != null) memFree(binary);
+		}
+	}
+
+	private long build(String source, String options) {
+		final long program;
+		try (MemoryStack stack = stackPush()) {
+			final IntBuffer error = stack.mallocInt(1);
+			program = CLException.check(clCreateProgramWithSource(context, source, error), error.get(0));
+		}
+		final int result = clBuildProgram(program, device.getId(), options, null, NULL);
+		if (result != CL_SUCCESS) {
+			final String log = getBuildLog(program);
+			clReleaseProgram(program);
+			throw new CLException(result, log);
+		}
+		builds++;
+		return program;
+	}
+
+	private void store(String key, long program) {
+		ByteBuffer binary = null;
+		try (MemoryStack stack = stackPush()) {
+			final PointerBuffer size = stack.mallocPointer(1);
+			if (clGetProgramInfo(program, CL_PROGRAM_BINARY_SIZES, size, null) != CL_SUCCESS || size.get(0) == 0)
+				return;
+			binary = memAlloc((int) size.get(0));
+			if (clGetProgramInfo(program, CL_PROGRAM_BINARIES, stack.pointers(memAddress(binary)), null) != CL_SUCCESS)
+				return;
+
+			Files.createDirectories(directory);
+			final Path temp = Files.createTempFile(directory, key, ".tmp");
+			try {
+				try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+					while (binary.hasRemaining()) channel.write(binary);
+				}
+				Files.move(temp, directory.resolve(key + ".bin"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				// only left behind if writing or moving failed
+				Files.deleteIfExists(temp);
+			}
+		} catch (IOException e) {
+			// the cache is only an optimization; the next run rebuilds from source
+		} finally {
+			if (binary != null) memFree(binary);
+		}
+	}
+
+	private String getBuildLog(long program) {
+		try (MemoryStack stack = stackPush()) {
+			final PointerBuffer size = stack.mallocPointer(1);
+			if (clGetProgramBuildInfo(program, device.getId(), CL_PROGRAM_BUILD_LOG, (ByteBuffer) null, size) != CL_SUCCESS)
+				return "";
+			final ByteBuffer log = memAlloc((int) size.get(0));
+			try {
+				clGetProgramBuildInfo(program, device.getId(), CL_PROGRAM_BUILD_LOG, log, null);
+				return memUTF8(log, Math.max(0, log.remaining() - 1)).trim();
+			} finally {
+				memFree(log);
+			}
+		}
+	}
+
+	private String key(String source, String options) {
+		try {
+			final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			for (String part : new String[]{device.getName(), device.getVendor(), device.getVersion(), device.getDriverVersion(), options, source}) {
+				digest.update(part.getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) 0);
+			}
+			final StringBuilder hex = new StringBuilder(64);
+			for (byte b : digest.digest())
+				hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform is required to provide SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Releases every cached kernel and program. Binaries on disk are kept.
+	 */
+	public synchronized void release() {
+		for (long kernel : kernels.values()) clReleaseKernel(kernel);
+		for (long program : programs.values()) clReleaseProgram(program);
+		kernels.clear();
+		programs.clear();
+	}
+
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * @return the number of programs loaded from a binary on disk
+	 */
+	public synchronized long getDiskHits() {
+		return diskHits;
+	}
+
+	/**
+	 * @return the number of programs built from source
+	 */
+	public synchronized long getBuilds() {
+		return builds;
+	}
+
+}
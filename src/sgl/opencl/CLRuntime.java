@@ -0,0 +1,222 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.opencl;
+
+import org.lwjgl.PointerBuffer;
+import org.lwjgl.system.MemoryStack;
+
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.lwjgl.opencl.CL10.*;
+import static org.lwjgl.system.MemoryStack.stackPush;
+import static org.lwjgl.system.MemoryUtil.NULL;
+
+/**
+ * The OpenCL context of one device, with its command queues, program cache
+ * and buffer pool; the one place heavy image math is offloaded to.
+ * <p>
+ * Runtimes are shared per device through {@link #get(CLDevice)}. Binaries
+ * are cached in the directory named by the {@code sgl.cl.cache} system
+ * property, or {@code sgl-clcache} under the temporary directory.
+ * </p>
+ *
+ * @author link
+ */
+public class CLRuntime implements AutoCloseable {
+
+	public static final long DEFAULT_POOL_SIZE = 64L << 20;
+
+	private static final Map<Long, CLRuntime> RUNTIMES = new HashMap<>(2);
+
+	private final CLDevice device;
+	private final long context, queue;
+	private final CLProgramCache programs;
+	private final CLBufferPool buffers;
+	private long outOfOrderQueue = NULL;
+
+	/**
+	 * Creates a runtime for the given device.
+	 *
+	 * @param device         the device
+	 * @param cacheDirectory the directory to cache program binaries in, or
+	 *                       null to only cache in memory
+	 * @param poolSize       the most memory idle pooled buffers may hold
+	 */
+	public CLRuntime(CLDevice device, Path cacheDirectory, long poolSize) {
+		this(device, null, cacheDirectory, poolSize);
+	}
+
+	/**
+	 * Creates a runtime for the given device with extra context properties.
+	 *
+	 * @param device         the device
+	 * @param properties     the null terminated cl_context_properties, or
+	 *                       null for just the device's platform
+	 * @param cacheDirectory the directory to cache program binaries in, or
+	 *                       null to only cache in memory
+	 * @param poolSize       the most memory idle pooled buffers may hold
+	 */
+	protected CLRuntime(CLDevice device, PointerBuffer properties, Path cacheDirectory, long poolSize) {
+		this.device = device;
+		OpenCL.initDevice(device.getType(), device.getId(), OpenCL.initPlatform(device.getPlatform()));
+
+		try (MemoryStack stack = stackPush()) {
+			final IntBuffer error = stack.mallocInt(1);
+			if (properties == null) properties = stack.pointers(CL_CONTEXT_PLATFORM, device.getPlatform(), NULL);
+			this.context = clCreateContext(properties, device.getId(), null, NULL, error);
+			CLException.check(error.get(0));
+
+			final long queue = clCreateCommandQueue(context, device.getId(), 0, error);
+			if (error.get(0) != CL_SUCCESS) {
+				clReleaseContext(context);
+				throw new CLException(error.get(0));
+			}
+			this.queue = queue;
+		}
+
+		this.programs = new CLProgramCache(context, device, cacheDirectory);
+		this.buffers = new CLBufferPool(context, poolSize);
+	}
+
+	/**
+	 * Gets the shared runtime of the given device, creating it on first use.
+	 *
+	 * @param device the device
+	 * @return the runtime
+	 */
+	public static synchronized CLRuntime get(CLDevice device) {
+		return RUNTIMES.computeIfAbsent(device.getId(), k -> new CLRuntime(device, getDefaultCacheDirectory(), DEFAULT_POOL_SIZE));
+	}
+
+	/**
+	 * Gets the shared runtime of the {@link DeviceTracker#getPreferredDevice()
+	 * preferred device}, scanning for devices if none are tracked yet.
+	 *
+	 * @return the runtime
+	 * @throws CLException if there are no OpenCL devices
+	 */
+	public static synchronized CLRuntime get() {
+		CLDevice device = DeviceTracker.getPreferredDevice();
+		if (device == null) {
+			DeviceTracker.scan();
+			device = DeviceTracker.getPreferredDevice();
+		}
+		if (device == null) throw new CLException(CL_DEVICE_NOT_FOUND);
+		return get(device);
+	}
+
+	public static Path getDefaultCacheDirectory() {
+		final String path = System.getProperty("sgl.cl.cache");
+		return path != null ? Paths.get(path) : Paths.get(System.getProperty("java.io.tmpdir"), "sgl-clcache");
+	}
+
+	/**
+	 * @return the in-order cl_command_queue of this runtime
+	 */
+	public long getQueue() {
+		return queue;
+	}
+
+	/**
+	 * Gets an out-of-order cl_command_queue, created on first use. Devices
+	 * without out-of-order execution get a second in-order queue, which still
+	 * runs independently of {@link #getQueue()}.
+	 *
+	 * @return the out-of-order cl_command_queue
+	 */
+	public synchronized long getOutOfOrderQueue() {
+		if (outOfOrderQueue == NULL) {
+			final long properties = device.supportsOutOfOrder() ? CL_QUEUE_OUT_OF_ORDER_EXEC_MODE_ENABLE : 0;
+			try (MemoryStack stack = stackPush()) {
+				final IntBuffer error = stack.mallocInt(1);
+				outOfOrderQueue = CLException.check(clCreateCommandQueue(context, device.getId(), properties, error), error.get(0));
+			}
+		}
+		return outOfOrderQueue;
+	}
+
+	public long getProgram(String source) {
+		return programs.getProgram(source, "");
+	}
+
+	public long getKernel(String source, String name) {
+		return programs.getKernel(source, "", name);
+	}
+
+	public CLBuffer acquire(long size, long flags) {
+		return buffers.acquire(size, flags);
+	}
+
+	public void release(CLBuffer buffer) {
+		buffers.release(buffer);
+	}
+
+	public CLDevice getDevice() {
+		return device;
+	}
+
+	/**
+	 * @return the cl_context of this runtime
+	 */
+	public long getContext() {
+		return context;
+	}
+
+	public CLProgramCache getPrograms() {
+		return programs;
+	}
+
+	public CLBufferPool getBuffers() {
+		return buffers;
+	}
+
+	/**
+	 * Waits for all queued work, then releases the queues, cached programs,
+	 * idle buffers and the context. Buffers still acquired must have been
+	 * released to the OpenCL implementation beforehand.
+	 */
+	@Override
+	public void close() {
+		synchronized (CLRuntime.class) {
+			RUNTIMES.remove(device.getId(), this);
+		}
+		clFinish(queue);
+		if (outOfOrderQueue != NULL) clFinish(outOfOrderQueue);
+
+		buffers.trim();
+		programs.release();
+		if (outOfOrderQueue != NULL) clReleaseCommandQueue(outOfOrderQueue);
+		clReleaseCommandQueue(queue);
+		clReleaseContext(context);
+	}
+
+}
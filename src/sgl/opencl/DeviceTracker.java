@@ -25,16 +25,97 @@
  *
  * This file is part of SGL
  */
-
 package sgl.opencl;
 
+import org.lwjgl.PointerBuffer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.lwjgl.opencl.CL10.CL_DEVICE_TYPE_ALL;
+
 /**
+ * Keeps track of the OpenCL devices known to this process.
+ *
  * @author link
  */
 public enum DeviceTracker {
 	;
 
-	public static void addDevice(long device) {
+	private static final Map<Long, CLDevice> DEVICES = new LinkedHashMap<>(4);
+
+	/**
+	 * Adds a device, reading its properties if it isn't tracked yet.
+	 *
+	 * @param device the cl_device_id
+	 * @return the tracked device
+	 */
+	public static synchronized CLDevice addDevice(long device) {
+		return DEVICES.computeIfAbsent(device, CLDevice::new);
+	}
+
+	public static synchronized CLDevice getDevice(long device) {
+		return DEVICES.get(device);
+	}
+
+	public static synchronized void removeDevice(long device) {
+		DEVICES.remove(device);
+	}
 
+	public static synchronized Collection<CLDevice> getDevices() {
+		return Collections.unmodifiableList(new ArrayList<>(DEVICES.values()));
 	}
+
+	/**
+	 * Adds every device of every platform on this system.
+	 *
+	 * @return the tracked devices
+	 */
+	public static synchronized Collection<CLDevice> scan() {
+		PointerBuffer platforms = OpenCL.getAvailablePlatforms();
+		try {
+			for (int i = 0; i < platforms.remaining(); i++) {
+				final long platform = platforms.get(i);
+				OpenCL.initPlatform(platform);
+				PointerBuffer devices = OpenCL.getAvailableDevices(platform, CL_DEVICE_TYPE_ALL);
+				try {
+					for (int j = 0; j < devices.remaining(); j++)
+						addDevice(devices.get(j));
+				} finally {
+					devices.free();
+				}
+			}
+		} finally {
+			platforms.free();
+		}
+		return getDevices();
+	}
+
+	/**
+	 * Picks the tracked device best suited to heavy compute: GPUs before
+	 * anything else, then the one with the most compute units.
+	 *
+	 * @return the device, or null if none is tracked
+	 */
+	public static synchronized CLDevice getPreferredDevice() {
+		CLDevice best = null;
+		for (CLDevice device : DEVICES.values()) {
+			if (best == null || (device.isGPU() && !best.isGPU())
+				|| (device.isGPU() == best.isGPU() && device.getComputeUnits() > best.getComputeUnits()))
+				best = device;
+		}
+		return best;
+	}
+
+	public static synchronized List<CLDevice> getDevices(long type) {
+		List<CLDevice> devices = new ArrayList<>();
+		for (CLDevice device : DEVICES.values())
+			if ((device.getType() & type) != 0) devices.add(device);
+		return devices;
+	}
+
 }
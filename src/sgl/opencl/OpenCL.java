@@ -25,19 +25,25 @@
  *
  * This file is part of SGL
  */
-
 package sgl.opencl;
 
 import org.lwjgl.PointerBuffer;
 import org.lwjgl.opencl.CL;
 import org.lwjgl.opencl.CLCapabilities;
+import org.lwjgl.system.MemoryStack;
 
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
 import java.util.HashMap;
 import java.util.Map;
 
 import static org.lwjgl.opencl.CL10.*;
-import static org.lwjgl.system.MemoryUtil.memAllocInt;
+import static org.lwjgl.system.MemoryStack.stackPush;
+import static org.lwjgl.system.MemoryUtil.memAlloc;
 import static org.lwjgl.system.MemoryUtil.memAllocPointer;
+import static org.lwjgl.system.MemoryUtil.memFree;
+import static org.lwjgl.system.MemoryUtil.memUTF8;
 
 /**
  * @author link
@@ -46,7 +52,7 @@ public enum OpenCL {
 	;
 
 	private static final Map<Long, CLCapabilities> PLATFORM_CACHE = new HashMap<>(1);
-	private static final Map<Integer, Map<Long, CLCapabilities>> DEVICE_CACHE = new HashMap<>(2);
+	private static final Map<Long, Map<Long, CLCapabilities>> DEVICE_CACHE = new HashMap<>(2);
 
 	/**
 	 * Gets the available cl_platform_id's for this system.
@@ -54,14 +60,21 @@ public enum OpenCL {
 	 * <em>You must call {@link PointerBuffer#free()} on the returned buffer after usage; failure to do so will result
 	 * in memory leaks.</em>
 	 *
-	 * @return a PointerBuffer of the specified size containing one or more cl_platform_id pointers
+	 * @return a PointerBuffer containing every cl_platform_id pointer
 	 */
-	public PointerBuffer getAvailablePlatforms() {
-		PointerBuffer ptr = memAllocPointer(8);
-		int result = clGetPlatformIDs(ptr, memAllocInt(1).put(1));
-		if (result != CL_SUCCESS)
-			throw new RuntimeException("A CL error occured: " + (result == CL_INVALID_VALUE ? "CL_INVALID_VALUE" : "CL_OUT_OF_HOST_MEMORY"));
-		return ptr;
+	public static PointerBuffer getAvailablePlatforms() {
+		try (MemoryStack stack = stackPush()) {
+			IntBuffer count = stack.mallocInt(1);
+			CLException.check(clGetPlatformIDs(null, count));
+
+			PointerBuffer ptr = memAllocPointer(count.get(0));
+			int result = clGetPlatformIDs(ptr, (IntBuffer) null);
+			if (result != CL_SUCCESS) {
+				ptr.free();
+				throw new CLException(result);
+			}
+			return ptr;
+		}
 	}
 
 	/**
@@ -70,14 +83,24 @@ public enum OpenCL {
 	 * <em>You must call {@link PointerBuffer#free()} on the returned buffer after usage; failure to do so will result
 	 * in memory leaks.</em>
 	 *
-	 * @return a PointerBuffer of the specified size containing one or more cl_platform_id pointers
+	 * @return a PointerBuffer containing every matching cl_device_id pointer; empty if there are none
 	 */
-	public PointerBuffer getAvailableDevices(long platform, long device_type) {
-		PointerBuffer ptr = memAllocPointer(8);
-		int result = clGetDeviceIDs(platform, device_type, ptr, memAllocInt(1).put(1));
-		if (result != CL_SUCCESS)
-			throw new RuntimeException("A CL error occured: " + (result == CL_INVALID_VALUE ? "CL_INVALID_VALUE" : "CL_OUT_OF_HOST_MEMORY"));
-		return ptr;
+	public static PointerBuffer getAvailableDevices(long platform, long device_type) {
+		try (MemoryStack stack = stackPush()) {
+			IntBuffer count = stack.mallocInt(1);
+			int result = clGetDeviceIDs(platform, device_type, null, count);
+			if (result == CL_DEVICE_NOT_FOUND)
+				return memAllocPointer(0);
+			CLException.check(result);
+
+			PointerBuffer ptr = memAllocPointer(count.get(0));
+			result = clGetDeviceIDs(platform, device_type, ptr, (IntBuffer) null);
+			if (result != CL_SUCCESS) {
+				ptr.free();
+				throw new CLException(result);
+			}
+			return ptr;
+		}
 	}
 
 	/**
@@ -86,29 +109,86 @@ public enum OpenCL {
 	 *
 	 * @param cl_platform_id
 	 */
-	public void initPlatform(long cl_platform_id) {
-		if (!PLATFORM_CACHE.containsKey(Long.valueOf(cl_platform_id)))
-			PLATFORM_CACHE.put(Long.valueOf(cl_platform_id), CL.createPlatformCapabilities(cl_platform_id));
+	public static synchronized CLCapabilities initPlatform(long cl_platform_id) {
+		return PLATFORM_CACHE.computeIfAbsent(cl_platform_id, CL::createPlatformCapabilities);
 	}
 
 	/**
-	 * Creates a CLCapabilities instance for the given platform_id if it does not already exist, and then caches it.
-	 * <em>This method is expensive for new platform IDs, so use at initialization or sparsely during runtime.</em>
+	 * Creates a CLCapabilities instance for the given device_id if it does not already exist, and then caches it.
+	 * <em>This method is expensive for new device IDs, so use at initialization or sparsely during runtime.</em>
 	 *
 	 * @param cl_device_id
 	 * @param cl_device_type the cl_device_type; one of {@link org.lwjgl.opencl.CL10#CL_DEVICE_TYPE_CPU DEVICE_TYPE_CPU}, {@link org.lwjgl.opencl.CL10#CL_DEVICE_TYPE_GPU DEVICE_TYPE_GPU}, or {@link org.lwjgl.opencl.CL10#CL_DEVICE_TYPE_ACCELERATOR DEVICE_TYPE_ACCELERATOR}
 	 */
-	public void initDevice(int cl_device_type, long cl_device_id, CLCapabilities platformCaps) {
-		Map<Long, CLCapabilities> devices = DEVICE_CACHE.get(Integer.valueOf(cl_device_type));
-		Long ptr = Long.valueOf(cl_device_id);
-		if (cl_device_type == CL_DEVICE_TYPE_CPU || cl_device_type == CL_DEVICE_TYPE_GPU || cl_device_type == CL_DEVICE_TYPE_ACCELERATOR) {
-			if (devices != null) {
-				devices.computeIfAbsent(ptr, k -> CL.createDeviceCapabilities(cl_device_id, platformCaps));
+	public static synchronized CLCapabilities initDevice(long cl_device_type, long cl_device_id, CLCapabilities platformCaps) {
+		return DEVICE_CACHE.computeIfAbsent(cl_device_type, k -> new HashMap<>(1))
+			.computeIfAbsent(cl_device_id, k -> CL.createDeviceCapabilities(cl_device_id, platformCaps));
+	}
+
+	/**
+	 * Gets a string parameter of a platform, such as {@code CL_PLATFORM_NAME}.
+	 */
+	public static String getPlatformInfoString(long platform, int param) {
+		try (MemoryStack stack = stackPush()) {
+			PointerBuffer size = stack.mallocPointer(1);
+			CLException.check(clGetPlatformInfo(platform, param, (ByteBuffer) null, size));
+			ByteBuffer value = memAlloc((int) size.get(0));
+			try {
+				CLException.check(clGetPlatformInfo(platform, param, value, null));
+				return memUTF8(value, Math.max(0, value.remaining() - 1));
+			} finally {
+				memFree(value);
+			}
+		}
+	}
+
+	/**
+	 * Gets a string parameter of a device, such as {@code CL_DEVICE_NAME}.
+	 */
+	public static String getDeviceInfoString(long device, int param) {
+		try (MemoryStack stack = stackPush()) {
+			PointerBuffer size = stack.mallocPointer(1);
+			CLException.check(clGetDeviceInfo(device, param, (ByteBuffer) null, size));
+			ByteBuffer value = memAlloc((int) size.get(0));
+			try {
+				CLException.check(clGetDeviceInfo(device, param, value, null));
+				return memUTF8(value, Math.max(0, value.remaining() - 1));
+			} finally {
+				memFree(value);
 			}
-		} else {
-			devices = new HashMap<>(1);
-			devices.put(ptr, CL.createDeviceCapabilities(cl_device_id, platformCaps));
-			DEVICE_CACHE.put(Integer.valueOf(cl_device_type), devices);
+		}
+	}
+
+	/**
+	 * Gets a cl_uint parameter of a device, such as {@code CL_DEVICE_MAX_COMPUTE_UNITS}.
+	 */
+	public static int getDeviceInfoInt(long device, int param) {
+		try (MemoryStack stack = stackPush()) {
+			IntBuffer value = stack.mallocInt(1);
+			CLException.check(clGetDeviceInfo(device, param, value, null));
+			return value.get(0);
+		}
+	}
+
+	/**
+	 * Gets a cl_ulong or bitfield parameter of a device, such as {@code CL_DEVICE_GLOBAL_MEM_SIZE}.
+	 */
+	public static long getDeviceInfoLong(long device, int param) {
+		try (MemoryStack stack = stackPush()) {
+			LongBuffer value = stack.mallocLong(1);
+			CLException.check(clGetDeviceInfo(device, param, value, null));
+			return value.get(0);
+		}
+	}
+
+	/**
+	 * Gets a pointer-sized parameter of a device, such as {@code CL_DEVICE_PLATFORM}.
+	 */
+	public static long getDeviceInfoPointer(long device, int param) {
+		try (MemoryStack stack = stackPush()) {
+			PointerBuffer value = stack.mallocPointer(1);
+			CLException.check(clGetDeviceInfo(device, param, value, null));
+			return value.get(0);
 		}
 	}
 
@@ -0,0 +1,78 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.opencl.gl;
+
+import sgl.opengl.GLObject;
+
+/**
+ * A cl_mem created from an OpenGL buffer or texture by a
+ * {@link CLGLRuntime}. OpenCL may only use it between
+ * {@link CLGLRuntime#acquire(CLGLObject...)} and
+ * {@link CLGLRuntime#release(CLGLObject...)}; OpenGL only outside of them.
+ *
+ * @author link
+ */
+public final class CLGLObject {
+
+	private final long mem;
+	private final GLObject source;
+	private final long flags;
+	boolean acquired;
+
+	CLGLObject(long mem, GLObject source, long flags) {
+		this.mem = mem;
+		this.source = source;
+		this.flags = flags;
+	}
+
+	/**
+	 * @return the cl_mem handle
+	 */
+	public long getMem() {
+		return mem;
+	}
+
+	/**
+	 * @return the OpenGL object this shares storage with
+	 */
+	public GLObject getSource() {
+		return source;
+	}
+
+	public long getFlags() {
+		return flags;
+	}
+
+	/**
+	 * @return whether OpenCL currently owns this object
+	 */
+	public boolean isAcquired() {
+		return acquired;
+	}
+
+}
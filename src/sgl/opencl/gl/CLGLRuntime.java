@@ -0,0 +1,332 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.opencl.gl;
+
+import org.lwjgl.PointerBuffer;
+import org.lwjgl.opencl.CLCapabilities;
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.Platform;
+import sgl.opencl.CLDevice;
+import sgl.opencl.CLException;
+import sgl.opencl.CLRuntime;
+import sgl.opencl.DeviceTracker;
+import sgl.opencl.OpenCL;
+import sgl.opengl.OpenGL;
+import sgl.opengl.OpenGL.Feature;
+import sgl.opengl.buffer.GLVertexBuffer;
+import sgl.opengl.texture.GLTexture2D;
+
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+
+import static org.lwjgl.glfw.GLFWNativeX11.glfwGetX11Display;
+import static org.lwjgl.opencl.APPLEGLSharing.CL_CONTEXT_PROPERTY_USE_CGL_SHAREGROUP_APPLE;
+import static org.lwjgl.opencl.CL10.*;
+import static org.lwjgl.opencl.CL10GL.*;
+import static org.lwjgl.opencl.CL12GL.clCreateFromGLTexture;
+import static org.lwjgl.opencl.KHRGLEvent.clCreateEventFromGLsyncKHR;
+import static org.lwjgl.opencl.KHRGLSharing.*;
+import static org.lwjgl.opengl.ARBCLEvent.glCreateSyncFromCLeventARB;
+import static org.lwjgl.opengl.CGL.CGLGetCurrentContext;
+import static org.lwjgl.opengl.CGL.CGLGetShareGroup;
+import static org.lwjgl.opengl.GL11.glFinish;
+import static org.lwjgl.opengl.GL11.glFlush;
+import static org.lwjgl.opengl.GL32.*;
+import static org.lwjgl.opengl.GLX.glXGetCurrentContext;
+import static org.lwjgl.opengl.WGL.wglGetCurrentContext;
+import static org.lwjgl.opengl.WGL.wglGetCurrentDC;
+import static org.lwjgl.system.MemoryStack.stackPush;
+import static org.lwjgl.system.MemoryUtil.NULL;
+
+/**
+ * A {@link CLRuntime} whose context shares objects with the OpenGL context
+ * current on the calling Thread, so kernels can read and write
+ * {@link GLVertexBuffer}s and {@link GLTexture2D}s without a round trip
+ * through host memory.
+ * <p>
+ * Shared objects are handed back and forth with {@link #acquire(CLGLObject...)}
+ * and {@link #release(CLGLObject...)}, which must be called on the GL
+ * Thread. Where the driver supports {@code cl_khr_gl_event} and
+ * {@code GL_ARB_cl_event} the hand-over is a GL sync object or cl_event the
+ * other API waits on; otherwise the releasing API is finished outright.
+ * </p>
+ *
+ * @author link
+ */
+public class CLGLRuntime extends CLRuntime {
+
+	private final boolean glEvents, clEvents, textures12;
+
+	private long fence = NULL, fenceEvent = NULL;
+
+	private CLGLRuntime(CLDevice device, PointerBuffer properties, Path cacheDirectory, long poolSize) {
+		super(device, properties, cacheDirectory, poolSize);
+		this.glEvents = device.hasExtension("cl_khr_gl_event");
+		this.clEvents = OpenGL.supports(Feature.ARB_CL_EVENT);
+		this.textures12 = OpenCL.initPlatform(device.getPlatform()).OpenCL12GL;
+	}
+
+	/**
+	 * Creates a runtime sharing objects with the current OpenGL context.
+	 *
+	 * @return the runtime
+	 * @throws CLException if no OpenCL device can share the context
+	 */
+	public static CLGLRuntime create() {
+		return create(getDefaultCacheDirectory(), DEFAULT_POOL_SIZE);
+	}
+
+	/**
+	 * Creates a runtime sharing objects with the current OpenGL context.
+	 *
+	 * @param cacheDirectory the directory to cache program binaries in, or
+	 *                       null to only cache in memory
+	 * @param poolSize       the most memory idle pooled buffers may hold
+	 * @return the runtime
+	 * @throws CLException if no OpenCL device can share the context
+	 */
+	public static CLGLRuntime create(Path cacheDirectory, long poolSize) {
+		final PointerBuffer platforms = OpenCL.getAvailablePlatforms();
+		try (MemoryStack stack = stackPush()) {
+			for (int i = 0; i < platforms.remaining(); i++) {
+				final long platform = platforms.get(i);
+				final PointerBuffer properties = getProperties(stack, platform, OpenCL.initPlatform(platform));
+				if (properties == null) continue;
+
+				final long device = getDevice(stack, platform, properties);
+				if (device != NULL)
+					return new CLGLRuntime(DeviceTracker.addDevice(device), properties, cacheDirectory, poolSize);
+			}
+		} finally {
+			platforms.free();
+		}
+		throw new CLException(CL_DEVICE_NOT_FOUND, "No OpenCL device can share the current OpenGL context");
+	}
+
+	private static PointerBuffer getProperties(MemoryStack stack, long platform, CLCapabilities caps) {
+		switch (Platform.get()) {
+			case LINUX:
+				if (!caps.cl_khr_gl_sharing) return null;
+				return stack.pointers(CL_GL_CONTEXT_KHR, requireContext(glXGetCurrentContext()), CL_GLX_DISPLAY_KHR, glfwGetX11Display(), CL_CONTEXT_PLATFORM, platform, NULL);
+			case WINDOWS:
+				if (!caps.cl_khr_gl_sharing) return null;
+				return stack.pointers(CL_GL_CONTEXT_KHR, requireContext(wglGetCurrentContext()), CL_WGL_HDC_KHR, wglGetCurrentDC(), CL_CONTEXT_PLATFORM, platform, NULL);
+			case MACOSX:
+				if (!caps.cl_APPLE_gl_sharing) return null;
+				return stack.pointers(CL_CONTEXT_PROPERTY_USE_CGL_SHAREGROUP_APPLE, CGLGetShareGroup(requireContext(CGLGetCurrentContext())), NULL);
+			default:
+				return null;
+		}
+	}
+
+	private static long requireContext(long context) {
+		if (context == NULL) throw new IllegalStateException("No OpenGL context is current on this Thread");
+		return context;
+	}
+
+	private static long getDevice(MemoryStack stack, long platform, PointerBuffer properties) {
+		if (Platform.get() == Platform.MACOSX) {
+			// the share group spans every GPU of the platform
+			final PointerBuffer devices = OpenCL.getAvailableDevices(platform, CL_DEVICE_TYPE_GPU);
+			try {
+				return devices.remaining() > 0 ? devices.get(0) : NULL;
+			} finally {
+				devices.free();
+			}
+		}
+		final PointerBuffer device = stack.mallocPointer(1);
+		return clGetGLContextInfoKHR(properties, CL_CURRENT_DEVICE_FOR_GL_CONTEXT_KHR, device, null) == CL_SUCCESS ? device.get(0) : NULL;
+	}
+
+	/**
+	 * Shares a buffer with OpenCL. The buffer must not be resized while
+	 * shared.
+	 *
+	 * @param buffer the buffer
+	 * @param flags  CL_MEM_READ_ONLY, CL_MEM_WRITE_ONLY or CL_MEM_READ_WRITE
+	 * @return the shared object
+	 */
+	public CLGLObject share(GLVertexBuffer buffer, long flags) {
+		try (MemoryStack stack = stackPush()) {
+			final IntBuffer error = stack.mallocInt(1);
+			final long mem = CLException.check(clCreateFromGLBuffer(getContext(), flags, buffer.glName(), error), error.get(0));
+			return new CLGLObject(mem, buffer, flags);
+		}
+	}
+
+	/**
+	 * Shares one mipmap level of a texture with OpenCL as an image2d_t. The
+	 * texture must be complete and have an internal format OpenCL has an
+	 * image format for, such as GL_RGBA8 or GL_RGBA32F.
+	 *
+	 * @param texture the texture
+	 * @param level   the mipmap level
+	 * @param flags   CL_MEM_READ_ONLY, CL_MEM_WRITE_ONLY or CL_MEM_READ_WRITE
+	 * @return the shared object
+	 */
+	public CLGLObject share(GLTexture2D texture, int level, long flags) {
+		try (MemoryStack stack = stackPush()) {
+			final IntBuffer error = stack.mallocInt(1);
+			final long mem = textures12
+				? clCreateFromGLTexture(getContext(), flags, texture.getTarget(), level, texture.glName(), error)
+				: clCreateFromGLTexture2D(getContext(), flags, texture.getTarget(), level, texture.glName(), error);
+			return new CLGLObject(CLException.check(mem, error.get(0)), texture, flags);
+		}
+	}
+
+	/**
+	 * Hands the given objects to OpenCL once every GL command issued so far
+	 * has completed. Kernels using them may be enqueued on
+	 * {@link #getQueue()} until they are {@link #release(CLGLObject...)
+	 * released}.
+	 *
+	 * @param objects the objects to acquire
+	 */
+	public synchronized void acquire(CLGLObject... objects) {
+		try (MemoryStack stack = stackPush()) {
+			final PointerBuffer mems = stack.mallocPointer(objects.length);
+			for (CLGLObject object : objects) {
+				if (object.acquired) throw new IllegalStateException("Object is already acquired by OpenCL");
+				mems.put(object.getMem());
+			}
+			mems.flip();
+
+			PointerBuffer wait = null;
+			deleteFence();
+			if (glEvents) {
+				fence = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+				glFlush();
+				final IntBuffer error = stack.mallocInt(1);
+				final long event = clCreateEventFromGLsyncKHR(getContext(), fence, error);
+				if (error.get(0) == CL_SUCCESS) {
+					fenceEvent = event;
+					wait = stack.pointers(event);
+				} else {
+					glFinish();
+				}
+			} else {
+				glFinish();
+			}
+
+			CLException.check(clEnqueueAcquireGLObjects(getQueue(), mems, wait, null));
+			for (CLGLObject object : objects) object.acquired = true;
+		}
+	}
+
+	/**
+	 * Hands the given objects back to OpenGL. GL commands issued after this
+	 * wait for every OpenCL command enqueued on {@link #getQueue()} so far.
+	 *
+	 * @param objects the objects to release
+	 */
+	public synchronized void release(CLGLObject... objects) {
+		try (MemoryStack stack = stackPush()) {
+			final PointerBuffer mems = stack.mallocPointer(objects.length);
+			for (CLGLObject object : objects) {
+				if (!object.acquired) throw new IllegalStateException("Object is not acquired by OpenCL");
+				mems.put(object.getMem());
+			}
+			mems.flip();
+
+			final PointerBuffer event = clEvents ? stack.mallocPointer(1) : null;
+			CLException.check(clEnqueueReleaseGLObjects(getQueue(), mems, null, event));
+			for (CLGLObject object : objects) object.acquired = false;
+
+			if (clEvents) {
+				// GL waits on the GPU; the queue must be flushed or it never would finish
+				clFlush(getQueue());
+				final long sync = glCreateSyncFromCLeventARB(getContext(), event.get(0), 0);
+				glWaitSync(sync, 0, GL_TIMEOUT_IGNORED);
+				glDeleteSync(sync);
+				clReleaseEvent(event.get(0));
+			} else {
+				clFinish(getQueue());
+			}
+		}
+	}
+
+	/**
+	 * Acquires the given objects, runs the given work, which should enqueue
+	 * kernels using them, and releases them again.
+	 *
+	 * @param work    the work
+	 * @param objects the objects the work uses
+	 */
+	public void execute(Runnable work, CLGLObject... objects) {
+		acquire(objects);
+		try {
+			work.run();
+		} finally {
+			release(objects);
+		}
+	}
+
+	/**
+	 * Releases the cl_mem of a shared object. The OpenGL object is untouched.
+	 *
+	 * @param object the shared object
+	 */
+	public void discard(CLGLObject object) {
+		if (object.acquired) throw new IllegalStateException("Object is still acquired by OpenCL");
+		clReleaseMemObject(object.getMem());
+	}
+
+	private void deleteFence() {
+		if (fenceEvent != NULL) {
+			// OpenCL mustn't be left waiting on a deleted sync; by the next acquire it has long completed
+			clWaitForEvents(fenceEvent);
+			clReleaseEvent(fenceEvent);
+			fenceEvent = NULL;
+		}
+		if (fence != NULL) {
+			glDeleteSync(fence);
+			fence = NULL;
+		}
+	}
+
+	/**
+	 * Closes this runtime. Must be called on the GL Thread, with every
+	 * shared object released.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			deleteFence();
+		}
+		super.close();
+	}
+
+	public boolean hasGLEvents() {
+		return glEvents;
+	}
+
+	public boolean hasCLEvents() {
+		return clEvents;
+	}
+
+}
@@ -0,0 +1,185 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.opencl.math;
+
+/**
+ * Polynomial approximations of the inverse trigonometric functions, evaluated
+ * on the CPU for arrays too small to be worth sending to OpenCL.
+ * <p>
+ * The arc tangent is fdlibm's: the argument is reduced to one of five
+ * intervals and evaluated with an odd minimax polynomial of degree 23. The
+ * other inverse functions are rewritten in terms of it, apart from the arc
+ * sine of small arguments, which uses fdlibm's rational approximation. This
+ * is several times faster than {@link Math#asin(double)} and
+ * {@link Math#acos(double)} at the cost of up to 2 ulp of error. The arc
+ * cosecant corrects for the rounding of {@code 1 / x}, which would
+ * otherwise add up to an ulp, and far more near |x| = 1.
+ * </p>
+ *
+ * @author link
+ */
+enum Approximations {
+	;
+
+	private static final double[] ATAN_HI = {4.63647609000806093515e-01, 7.85398163397448278999e-01, 9.82793723247329054082e-01, 1.57079632679489655800e+00};
+	private static final double[] ATAN_LO = {2.26987774529616870924e-17, 3.06161699786838301793e-17, 1.39033110312309984516e-17, 6.12323399573676603587e-17};
+
+	private static final double T0 = 3.33333333333329318027e-01, T1 = -1.99999999998764832476e-01,
+		T2 = 1.42857142725034663711e-01, T3 = -1.11111104054623557880e-01,
+		T4 = 9.09088713343650656196e-02, T5 = -7.69187620504482999495e-02,
+		T6 = 6.66107313738753120669e-02, T7 = -5.83357013379057348645e-02,
+		T8 = 4.97687799461593236017e-02, T9 = -3.65315727442169155270e-02,
+		T10 = 1.62858201153657823623e-02;
+
+	private static final double S0 = 1.66666666666666657415e-01, S1 = -3.25565818622400915405e-01,
+		S2 = 2.01212532134862925881e-01, S3 = -4.00555345006794114027e-02,
+		S4 = 7.91534994289814532176e-04, S5 = 3.47933107596021167570e-05,
+		Q1 = -2.40339491173441421878e+00, Q2 = 2.02094576023350569471e+00,
+		Q3 = -6.88283971605453293030e-01, Q4 = 7.70381505559019352791e-02;
+
+	private static final double PIO2_HI = 1.57079632679489655800e+00, PIO2_LO = 6.12323399573676603587e-17;
+
+	private static final double SPLIT = 0x1p27 + 1;
+
+	/**
+	 * The arc tangent of x, as in fdlibm.
+	 */
+	static double atan(double x) {
+		double ax = Math.abs(x);
+		if (ax >= 0x1p66) {
+			if (Double.isNaN(x)) return x;
+			return x > 0 ? PIO2_HI + PIO2_LO : -PIO2_HI - PIO2_LO;
+		}
+
+		final int id;
+		if (ax < 0.4375) {
+			if (ax < 0x1p-27) return x;
+			id = -1;
+		} else if (ax < 1.1875) {
+			if (ax < 0.6875) {
+				id = 0;
+				ax = (2 * ax - 1) / (2 + ax);
+			} else {
+				id = 1;
+				ax = (ax - 1) / (ax + 1);
+			}
+		} else if (ax < 2.4375) {
+			id = 2;
+			ax = (ax - 1.5) / (1 + 1.5 * ax);
+		} else {
+			id = 3;
+			ax = -1 / ax;
+		}
+
+		final double z = ax * ax;
+		final double w = z * z;
+		final double s1 = z * (T0 + w * (T2 + w * (T4 + w * (T6 + w * (T8 + w * T10)))));
+		final double s2 = w * (T1 + w * (T3 + w * (T5 + w * (T7 + w * T9))));
+		if (id < 0) return x - x * (s1 + s2);
+
+		final double result = ATAN_HI[id] - ((ax * (s1 + s2) - ATAN_LO[id]) - ax);
+		return x < 0 ? -result : result;
+	}
+
+	/**
+	 * The arc sine of x, as fdlibm's rational approximation for |x| < 0.5
+	 * and as {@code atan(x / sqrt(1 - x^2))} otherwise.
+	 */
+	static double asin(double x) {
+		if (Math.abs(x) < 0.5) {
+			// forming the atan argument costs more than an ulp here, where atan passes it through
+			if (Math.abs(x) < 0x1p-27) return x;
+			final double t = x * x;
+			final double p = t * (S0 + t * (S1 + t * (S2 + t * (S3 + t * (S4 + t * S5)))));
+			final double q = 1 + t * (Q1 + t * (Q2 + t * (Q3 + t * Q4)));
+			return x + x * (p / q);
+		}
+		return atan(x / Math.sqrt((1 - x) * (1 + x)));
+	}
+
+	/**
+	 * The arc cosine of x, as {@code 2 atan(sqrt((1 - x) / (1 + x)))}.
+	 */
+	static double acos(double x) {
+		if (x == -1) return 2 * (PIO2_HI + PIO2_LO);
+		return 2 * atan(Math.sqrt((1 - x) / (1 + x)));
+	}
+
+	/**
+	 * The arc cotangent of x, in (0, pi).
+	 */
+	static double acot(double x) {
+		// atan(1 / x) away from zero keeps the result accurate to 1 ulp for large |x|
+		if (x > 1) return atan(1 / x);
+		if (x < -1) return (2 * PIO2_HI + atan(1 / x)) + 2 * PIO2_LO;
+		return (PIO2_HI - atan(x)) + PIO2_LO;
+	}
+
+	/**
+	 * The arc secant of x, as {@code acos(1 / x)} corrected for the
+	 * rounding of {@code 1 / x}.
+	 */
+	static double asec(double x) {
+		final double r = 1 / x;
+		return acos(r) - acscCorrection(x, r);
+	}
+
+	/**
+	 * The arc cosecant of x, as {@code asin(1 / x)} corrected for the
+	 * rounding of {@code 1 / x}.
+	 */
+	static double acsc(double x) {
+		final double r = 1 / x;
+		return asin(r) + acscCorrection(x, r);
+	}
+
+	/**
+	 * The first-order change in {@code asin(1 / x)} from rounding
+	 * {@code r = 1 / x}. The slope of asin grows without bound towards
+	 * |x| = 1, so uncorrected the rounding alone costs several ulp there.
+	 * The slope of acos is the opposite, so {@code acos(1 / x)} subtracts
+	 * the same correction.
+	 */
+	static double acscCorrection(double x, double r) {
+		// also excludes NaN and infinities; the correction underflows past 2^500 anyway
+		if (!(Math.abs(x) < 0x1p500)) return 0;
+		final double p = r * x;
+		// 1 - p is exact as p is within an ulp of 1
+		final double residual = (1 - p) - productError(r, x, p);
+		if (residual == 0) return 0;
+		return residual / x / Math.sqrt((1 - r) * (1 + r));
+	}
+
+	// the rounding error of p = a * b, by Dekker's splitting
+	private static double productError(double a, double b, double p) {
+		final double ta = SPLIT * a, aHi = ta - (ta - a), aLo = a - aHi;
+		final double tb = SPLIT * b, bHi = tb - (tb - b), bLo = b - bHi;
+		return ((aHi * bHi - p) + aHi * bLo + aLo * bHi) + aLo * bLo;
+	}
+
+}
@@ -25,65 +25,362 @@
  *
  * This file is part of SGL
  */
-
 package sgl.opencl.math;
 
+import sgl.opencl.CLException;
+import sgl.opencl.CLRuntime;
+
+import java.nio.DoubleBuffer;
+import java.util.stream.IntStream;
+
+import static org.lwjgl.system.MemoryUtil.memAllocDouble;
+import static org.lwjgl.system.MemoryUtil.memFree;
+
 /**
+ * Trigonometric functions evaluated over whole arrays at a time.
+ * <p>
+ * Each batched function reads every element of {@code in} (or every
+ * remaining element of a buffer) and writes the results to the same
+ * positions of {@code out}, which may be the same array. Buffer positions
+ * and limits are left unchanged. Depending on the number of elements, a
+ * batch is evaluated:
+ * </p>
+ * <ul>
+ * <li>on the calling Thread, below {@link #getParallelThreshold()};</li>
+ * <li>in parallel on the common ForkJoinPool, below
+ * {@link #getOffloadThreshold()} or when OpenCL is unavailable;</li>
+ * <li>by an OpenCL kernel on the preferred device otherwise, when that
+ * device supports double precision.</li>
+ * </ul>
+ * <p>
+ * On the CPU, {@code sin}, {@code cos} and {@code tan} use the
+ * {@link Math} intrinsics (within 1 ulp) and their reciprocals add a
+ * division (within 2 ulp). The inverse functions use fdlibm's arc tangent
+ * polynomial: {@code arctan} and {@code arccot} are within 1 ulp and
+ * {@code arcsin}, {@code arccos}, {@code arcsec} and {@code arccsc} within
+ * 2 ulp. OpenCL kernels use the device's built-ins, which the OpenCL
+ * specification bounds at 4 ulp for double precision.
+ * </p>
+ * <p>
+ * {@code arccot} is taken in (0, pi) everywhere, scalar and batched.
+ * </p>
+ *
  * @author link
  */
 public enum CLMath {
 	;
 
+	// elements per ForkJoin task; large enough to hide the task overhead
+	private static final int CHUNK = 1 << 12;
+
+	private static volatile int parallelThreshold = 1 << 14;
+	private static volatile int offloadThreshold = 1 << 20;
+
+	private static volatile CLRuntime runtime;
+	private static volatile boolean offload = true;
+
+	private static final ThreadLocal<double[][]> SCRATCH = ThreadLocal.withInitial(() -> new double[][]{new double[CHUNK], new double[CHUNK]});
+
 
 	public static strictfp double sin(double radians) {
-		return 0;
+		return StrictMath.sin(radians);
 	}
 
 	public static strictfp double cos(double radians) {
-		return 0;
+		return StrictMath.cos(radians);
 	}
 
 	public static strictfp double tan(double radians) {
-		return 0;
+		return StrictMath.tan(radians);
 	}
 
 
 	public static strictfp double sec(double radians) {
-		return 0;
+		return 1 / StrictMath.cos(radians);
 	}
 
 	public static strictfp double csc(double radians) {
-		return 0;
+		return 1 / StrictMath.sin(radians);
 	}
 
 	public static strictfp double cot(double radians) {
-		return 0;
+		return 1 / StrictMath.tan(radians);
 	}
 
 
 	public static strictfp double arcsin(double value) {
-		return 0;
+		return StrictMath.asin(value);
 	}
 
 	public static strictfp double arccos(double value) {
-		return 0;
+		return StrictMath.acos(value);
 	}
 
 	public static strictfp double arctan(double value) {
-		return 0;
+		return StrictMath.atan(value);
 	}
 
 
 	public static strictfp double arcsec(double value) {
-		return 0;
+		final double r = 1 / value;
+		return StrictMath.acos(r) - Approximations.acscCorrection(value, r);
 	}
 
 	public static strictfp double arccsc(double value) {
-		return 0;
+		final double r = 1 / value;
+		return StrictMath.asin(r) + Approximations.acscCorrection(value, r);
 	}
 
 	public static strictfp double arccot(double value) {
-		return 0;
+		if (value > 1) return StrictMath.atan(1 / value);
+		if (value < -1) return Math.PI + StrictMath.atan(1 / value);
+		return Math.PI / 2 - StrictMath.atan(value);
+	}
+
+
+	public static void sin(double[] in, double[] out) {
+		apply(Trig.SIN, in, out);
+	}
+
+	public static void sin(DoubleBuffer in, DoubleBuffer out) {
+		apply(Trig.SIN, in, out);
+	}
+
+	public static void cos(double[] in, double[] out) {
+		apply(Trig.COS, in, out);
+	}
+
+	public static void cos(DoubleBuffer in, DoubleBuffer out) {
+		apply(Trig.COS, in, out);
+	}
+
+	public static void tan(double[] in, double[] out) {
+		apply(Trig.TAN, in, out);
+	}
+
+	public static void tan(DoubleBuffer in, DoubleBuffer out) {
+		apply(Trig.TAN, in, out);
+	}
+
+
+	public static void sec(double[] in, double[] out) {
+		apply(Trig.SEC, in, out);
+	}
+
+	public static void sec(DoubleBuffer in, DoubleBuffer out) {
+		apply(Trig.SEC, in, out);
+	}
+
+	public static void csc(double[] in, double[] out) {
+		apply(Trig.CSC, in, out);
+	}
+
+	public static void csc(DoubleBuffer in, DoubleBuffer out) {
+		apply(Trig.CSC, in, out);
+	}
+
+	public static void cot(double[] in, double[] out) {
+		apply(Trig.COT, in, out);
+	}
+
+	public static void cot(DoubleBuffer in, DoubleBuffer out) {
+		apply(Trig.COT, in, out);
+	}
+
+
+	public static void arcsin(double[] in, double[] out) {
+		apply(Trig.ARCSIN, in, out);
+	}
+
+	public static void arcsin(DoubleBuffer in, DoubleBuffer out) {
+		apply(Trig.ARCSIN, in, out);
+	}
+
+	public static void arccos(double[] in, double[] out) {
+		apply(Trig.ARCCOS, in, out);
+	}
+
+	public static void arccos(DoubleBuffer in, DoubleBuffer out) {
+		apply(Trig.ARCCOS, in, out);
+	}
+
+	public static void arctan(double[] in, double[] out) {
+		apply(Trig.ARCTAN, in, out);
+	}
+
+	public static void arctan(DoubleBuffer in, DoubleBuffer out) {
+		apply(Trig.ARCTAN, in, out);
+	}
+
+
+	public static void arcsec(double[] in, double[] out) {
+		apply(Trig.ARCSEC, in, out);
+	}
+
+	public static void arcsec(DoubleBuffer in, DoubleBuffer out) {
+		apply(Trig.ARCSEC, in, out);
+	}
+
+	public static void arccsc(double[] in, double[] out) {
+		apply(Trig.ARCCSC, in, out);
+	}
+
+	public static void arccsc(DoubleBuffer in, DoubleBuffer out) {
+		apply(Trig.ARCCSC, in, out);
+	}
+
+	public static void arccot(double[] in, double[] out) {
+		apply(Trig.ARCCOT, in, out);
+	}
+
+	public static void arccot(DoubleBuffer in, DoubleBuffer out) {
+		apply(Trig.ARCCOT, in, out);
+	}
+
+
+	private static void apply(Trig function, double[] in, double[] out) {
+		final int length = in.length;
+		if (out.length < length)
+			throw new IllegalArgumentException("out is shorter than in: " + out.length + " < " + length);
+
+		if (length >= offloadThreshold) {
+			final CLRuntime runtime = getRuntime();
+			if (runtime != null) {
+				final DoubleBuffer staging = memAllocDouble(length);
+				try {
+					staging.put(in).flip();
+					if (offload(runtime, function, staging, staging)) {
+						staging.get(out, 0, length);
+						return;
+					}
+				} finally {
+					memFree(staging);
+				}
+			}
+		}
+
+		if (length < parallelThreshold) {
+			function.evaluate(in, 0, out, 0, length);
+		} else {
+			IntStream.range(0, (length + CHUNK - 1) / CHUNK).parallel().forEach(chunk -> {
+				final int offset = chunk * CHUNK;
+				function.evaluate(in, offset, out, offset, Math.min(CHUNK, length - offset));
+			});
+		}
+	}
+
+	private static void apply(Trig function, DoubleBuffer in, DoubleBuffer out) {
+		final int length = in.remaining();
+		if (out.remaining() < length)
+			throw new IllegalArgumentException("out has fewer remaining elements than in: " + out.remaining() + " < " + length);
+
+		if (in.hasArray() && out.hasArray()) {
+			final double[] src = in.array(), dst = out.array();
+			final int inOffset = in.arrayOffset() + in.position(), outOffset = out.arrayOffset() + out.position();
+			if (length < parallelThreshold) {
+				function.evaluate(src, inOffset, dst, outOffset, length);
+			} else {
+				IntStream.range(0, (length + CHUNK - 1) / CHUNK).parallel().forEach(chunk -> {
+					final int offset = chunk * CHUNK;
+					function.evaluate(src, inOffset + offset, dst, outOffset + offset, Math.min(CHUNK, length - offset));
+				});
+			}
+			return;
+		}
+
+		if (length >= offloadThreshold && in.isDirect() && out.isDirect()) {
+			final CLRuntime runtime = getRuntime();
+			if (runtime != null && offload(runtime, function, in, out)) return;
+		}
+
+		if (length < parallelThreshold) {
+			for (int offset = 0; offset < length; offset += CHUNK)
+				evaluate(function, in, out, offset, Math.min(CHUNK, length - offset));
+		} else {
+			IntStream.range(0, (length + CHUNK - 1) / CHUNK).parallel().forEach(chunk -> {
+				final int offset = chunk * CHUNK;
+				evaluate(function, in, out, offset, Math.min(CHUNK, length - offset));
+			});
+		}
+	}
+
+	// copies a chunk of a direct buffer through scratch arrays, which is faster than element-wise access
+	private static void evaluate(Trig function, DoubleBuffer in, DoubleBuffer out, int offset, int length) {
+		final double[][] scratch = SCRATCH.get();
+		final DoubleBuffer src = in.duplicate(), dst = out.duplicate();
+		src.position(in.position() + offset);
+		dst.position(out.position() + offset);
+		src.get(scratch[0], 0, length);
+		function.evaluate(scratch[0], 0, scratch[1], 0, length);
+		dst.put(scratch[1], 0, length);
+	}
+
+	private static boolean offload(CLRuntime runtime, Trig function, DoubleBuffer in, DoubleBuffer out) {
+		try {
+			CLMathKernels.run(runtime, function, in, out);
+			return true;
+		} catch (CLException e) {
+			// the device can't run the kernels after all; stay on the CPU from now on
+			offload = false;
+			return false;
+		}
+	}
+
+	/**
+	 * Gets the OpenCL runtime that large batches are offloaded to, looking up
+	 * the preferred device on first use.
+	 *
+	 * @return the runtime, or null if batches stay on the CPU
+	 */
+	public static CLRuntime getRuntime() {
+		if (!offload) return null;
+		CLRuntime current = runtime;
+		if (current == null) {
+			synchronized (CLMath.class) {
+				if (runtime == null && offload) {
+					try {
+						final CLRuntime candidate = CLRuntime.get();
+						if (CLMathKernels.supports(candidate)) runtime = candidate;
+						else offload = false;
+					} catch (RuntimeException | LinkageError e) {
+						// no OpenCL implementation is installed
+						offload = false;
+					}
+				}
+				current = runtime;
+			}
+		}
+		return offload ? current : null;
+	}
+
+	/**
+	 * Sets the OpenCL runtime that large batches are offloaded to.
+	 *
+	 * @param runtime the runtime, whose device must support
+	 *                {@code cl_khr_fp64}, or null to keep every batch on the
+	 *                CPU
+	 */
+	public static synchronized void setRuntime(CLRuntime runtime) {
+		if (runtime != null && !CLMathKernels.supports(runtime))
+			throw new IllegalArgumentException(runtime.getDevice() + " doesn't support double precision");
+		CLMath.runtime = runtime;
+		CLMath.offload = runtime != null;
+	}
+
+	public static int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	public static void setParallelThreshold(int parallelThreshold) {
+		CLMath.parallelThreshold = parallelThreshold;
+	}
+
+	public static int getOffloadThreshold() {
+		return offloadThreshold;
+	}
+
+	public static void setOffloadThreshold(int offloadThreshold) {
+		CLMath.offloadThreshold = offloadThreshold;
 	}
 
 }
@@ -0,0 +1,108 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.opencl.math;
+
+import org.lwjgl.PointerBuffer;
+import org.lwjgl.system.MemoryStack;
+import sgl.opencl.CLBuffer;
+import sgl.opencl.CLException;
+import sgl.opencl.CLRuntime;
+
+import java.nio.DoubleBuffer;
+
+import static org.lwjgl.opencl.CL10.*;
+import static org.lwjgl.system.MemoryStack.stackPush;
+
+/**
+ * Runs {@link Trig} functions as OpenCL kernels, one work item per element.
+ *
+ * @author link
+ */
+enum CLMathKernels {
+	;
+
+	static final String SOURCE;
+
+	static {
+		StringBuilder source = new StringBuilder("#pragma OPENCL EXTENSION cl_khr_fp64 : enable\n");
+		for (Trig function : Trig.values()) {
+			source.append("__kernel void ").append(function.getKernel())
+				.append("(__global const double *in, __global double *out) {\n")
+				.append("\tsize_t i = get_global_id(0);\n")
+				.append("\tdouble x = in[i];\n")
+				.append("\tout[i] = ").append(function.expression).append(";\n")
+				.append("}\n");
+		}
+		SOURCE = source.toString();
+	}
+
+	/**
+	 * Checks whether the runtime's device can run the kernels, which need
+	 * double precision.
+	 */
+	static boolean supports(CLRuntime runtime) {
+		return runtime.getDevice().hasExtension("cl_khr_fp64");
+	}
+
+	/**
+	 * Evaluates a function over the remaining elements of {@code in} into
+	 * {@code out}, both of which must be direct. Blocks until the results are
+	 * read back.
+	 */
+	static void run(CLRuntime runtime, Trig function, DoubleBuffer in, DoubleBuffer out) {
+		final int length = in.remaining();
+		final long kernel = runtime.getKernel(SOURCE, function.getKernel());
+		final long queue = runtime.getQueue();
+		final int chunk = (int) Math.min(length, Math.min(Integer.MAX_VALUE, runtime.getDevice().getMaxAllocSize() / Double.BYTES));
+
+		final CLBuffer src = runtime.acquire((long) chunk * Double.BYTES, CL_MEM_READ_ONLY);
+		final CLBuffer dst = runtime.acquire((long) chunk * Double.BYTES, CL_MEM_WRITE_ONLY);
+		try (MemoryStack stack = stackPush()) {
+			final PointerBuffer global = stack.mallocPointer(1);
+			for (int offset = 0; offset < length; offset += chunk) {
+				final int count = Math.min(chunk, length - offset);
+				final DoubleBuffer input = (DoubleBuffer) in.duplicate().position(in.position() + offset).limit(in.position() + offset + count);
+				final DoubleBuffer output = (DoubleBuffer) out.duplicate().position(out.position() + offset).limit(out.position() + offset + count);
+
+				CLException.check(clEnqueueWriteBuffer(queue, src.getMem(), false, 0, input, null, null));
+				// the kernel is shared by every caller of this runtime
+				synchronized (CLMathKernels.class) {
+					CLException.check(clSetKernelArg1p(kernel, 0, src.getMem()));
+					CLException.check(clSetKernelArg1p(kernel, 1, dst.getMem()));
+					global.put(0, count);
+					CLException.check(clEnqueueNDRangeKernel(queue, kernel, 1, null, global, null, null, null));
+				}
+				CLException.check(clEnqueueReadBuffer(queue, dst.getMem(), true, 0, output, null, null));
+			}
+		} finally {
+			runtime.release(src);
+			runtime.release(dst);
+		}
+	}
+
+}
@@ -0,0 +1,108 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.opencl.math;
+
+/**
+ * The functions {@link CLMath} evaluates in batches, with the OpenCL C
+ * expression of each.
+ *
+ * @author link
+ */
+enum Trig {
+
+	SIN("sin(x)"),
+	COS("cos(x)"),
+	TAN("tan(x)"),
+	SEC("1.0 / cos(x)"),
+	CSC("1.0 / sin(x)"),
+	COT("1.0 / tan(x)"),
+	ARCSIN("asin(x)"),
+	ARCCOS("acos(x)"),
+	ARCTAN("atan(x)"),
+	// both correct for the rounding of 1 / x, as Approximations.asec and acsc do
+	ARCSEC("acos(1.0 / x) - (fabs(x) > 1.0 && isfinite(x) ? fma(-(1.0 / x), x, 1.0) / (x * sqrt((1.0 - 1.0 / x) * (1.0 + 1.0 / x))) : 0.0)"),
+	ARCCSC("asin(1.0 / x) + (fabs(x) > 1.0 && isfinite(x) ? fma(-(1.0 / x), x, 1.0) / (x * sqrt((1.0 - 1.0 / x) * (1.0 + 1.0 / x))) : 0.0)"),
+	ARCCOT("x > 1.0 ? atan(1.0 / x) : x < -1.0 ? M_PI + atan(1.0 / x) : M_PI_2 - atan(x)");
+
+	final String expression;
+
+	Trig(String expression) {
+		this.expression = expression;
+	}
+
+	String getKernel() {
+		return "sgl_" + name().toLowerCase();
+	}
+
+	/**
+	 * Evaluates this function over a range of an array. Each function gets its
+	 * own loop so that the JIT compiles every loop for a single function.
+	 */
+	void evaluate(double[] in, int inOffset, double[] out, int outOffset, int length) {
+		final int end = inOffset + length;
+		switch (this) {
+			case SIN:
+				for (int i = inOffset, j = outOffset; i < end; i++, j++) out[j] = Math.sin(in[i]);
+				break;
+			case COS:
+				for (int i = inOffset, j = outOffset; i < end; i++, j++) out[j] = Math.cos(in[i]);
+				break;
+			case TAN:
+				for (int i = inOffset, j = outOffset; i < end; i++, j++) out[j] = Math.tan(in[i]);
+				break;
+			case SEC:
+				for (int i = inOffset, j = outOffset; i < end; i++, j++) out[j] = 1 / Math.cos(in[i]);
+				break;
+			case CSC:
+				for (int i = inOffset, j = outOffset; i < end; i++, j++) out[j] = 1 / Math.sin(in[i]);
+				break;
+			case COT:
+				for (int i = inOffset, j = outOffset; i < end; i++, j++) out[j] = 1 / Math.tan(in[i]);
+				break;
+			case ARCSIN:
+				for (int i = inOffset, j = outOffset; i < end; i++, j++) out[j] = Approximations.asin(in[i]);
+				break;
+			case ARCCOS:
+				for (int i = inOffset, j = outOffset; i < end; i++, j++) out[j] = Approximations.acos(in[i]);
+				break;
+			case ARCTAN:
+				for (int i = inOffset, j = outOffset; i < end; i++, j++) out[j] = Approximations.atan(in[i]);
+				break;
+			case ARCSEC:
+				for (int i = inOffset, j = outOffset; i < end; i++, j++) out[j] = Approximations.asec(in[i]);
+				break;
+			case ARCCSC:
+				for (int i = inOffset, j = outOffset; i < end; i++, j++) out[j] = Approximations.acsc(in[i]);
+				break;
+			case ARCCOT:
+				for (int i = inOffset, j = outOffset; i < end; i++, j++) out[j] = Approximations.acot(in[i]);
+				break;
+		}
+	}
+
+}
@@ -510,6 +510,14 @@ public enum OpenGL {
 		if (caps.GL_AMD_vertex_shader_viewport_index)
 			FEATURES.add(AMD_VERTEX_SHADER_VIEWPORT_INDEX);
 
+		// "ARB" extensions outside of a core version
+		if (caps.GL_ARB_cl_event)
+			FEATURES.add(ARB_CL_EVENT);
+		if (caps.GL_ARB_sparse_texture)
+			FEATURES.add(ARB_SPARSE_TEXTURE);
+		if (caps.GL_ARB_texture_storage)
+			FEATURES.add(ARB_TEXTURE_STORAGE);
+
 		// "NVidia" extensions
 		if (caps.GL_NV_bindless_multi_draw_indirect)
 			FEATURES.add(NV_BINDLESS_MULTI_DRAW_INDIRECT);
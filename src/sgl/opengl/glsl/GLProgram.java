@@ -107,6 +107,14 @@ public final class GLProgram implements AutoCloseable {
 	}
 
 
+	/**
+	 * Links the attached shaders into an executable program. Shaders must be
+	 * compiled before linking.
+	 */
+	public void link() {
+		glLinkProgram(program);
+	}
+
 	public void discard() {
 		glDeleteProgram(program);
 	}
@@ -223,5 +231,9 @@ public final class GLProgram implements AutoCloseable {
 		}
 	}
 
+	public void setUniformf(String name, float[] value) {
+		setUniformf(getLocation(name), value);
+	}
+
 
 }
@@ -0,0 +1,400 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.opengl.text;
+
+import sgl.opengl.texture.GLTexture;
+import sgl.opengl.texture.GLTexture2D;
+import sgl.text.GlyphRasterizer;
+
+import java.awt.Font;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.GL_CLAMP_TO_EDGE;
+import static org.lwjgl.opengl.GL30.GL_R8;
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * Packs rasterized glyphs into pages of single channel textures, shared by
+ * all text drawn with it.
+ * <p>
+ * Glyphs are packed onto shelves as they are first drawn. Once every page
+ * is full, the page used least recently is cleared and reused, though never
+ * one used in the current frame; if every page is, another is added beyond
+ * the limit. In distance field mode glyphs are rasterized once at
+ * {@link #getFieldSize()} and scaled to any size.
+ * </p>
+ * <p>
+ * Each glyph is uploaded with a border of {@link #GUTTER} zero texels, which
+ * keeps linear sampling at its edges from blending in its neighbours or
+ * whatever an evicted page left behind.
+ * </p>
+ * <p>
+ * All methods must be called on the GL Thread.
+ * </p>
+ *
+ * @author link
+ */
+public final class GlyphAtlas {
+
+	public static final int DEFAULT_PAGE_SIZE = 1024, DEFAULT_MAX_PAGES = 4;
+	public static final int FIELD_SIZE = 32, FIELD_SPREAD = 4;
+	public static final int GUTTER = 1;
+
+	private final int pageSize, maxPages;
+	private final boolean distanceField;
+
+	private final List<Page> pages = new ArrayList<>();
+	private final Map<Key, Glyph> glyphs = new HashMap<>();
+	// the font at the field size, by font, in distance field mode
+	private final Map<Font, Font> fieldFonts = new HashMap<>();
+	private final Key probe = new Key();
+	private int frame;
+	private long rasterized, evictions;
+
+	public GlyphAtlas(boolean distanceField) {
+		this(DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES, distanceField);
+	}
+
+	/**
+	 * @param pageSize      the width and height of each page in texels
+	 * @param maxPages      the number of pages to fill before evicting
+	 * @param distanceField whether to rasterize glyphs as signed distance
+	 *                      fields
+	 */
+	public GlyphAtlas(int pageSize, int maxPages, boolean distanceField) {
+		if (pageSize < 64) throw new IllegalArgumentException("pageSize must be at least 64: " + pageSize);
+		if (maxPages < 1) throw new IllegalArgumentException("maxPages must be positive: " + maxPages);
+		this.pageSize = pageSize;
+		this.maxPages = maxPages;
+		this.distanceField = distanceField;
+	}
+
+	/**
+	 * Gets a glyph, rasterizing and packing it if it isn't in the atlas, and
+	 * marks its page used this frame.
+	 *
+	 * @param font  the font, at the size drawn
+	 * @param glyph the font's code of the glyph
+	 * @return the glyph
+	 */
+	public Glyph get(Font font, int glyph) {
+		if (distanceField) font = fieldFonts.computeIfAbsent(font, f -> f.deriveFont((float) FIELD_SIZE));
+		probe.font = font;
+		probe.glyph = glyph;
+		Glyph cached = glyphs.get(probe);
+		if (cached == null) {
+			final Key key = new Key(font, glyph);
+			glyphs.put(key, cached = add(key));
+		}
+		if (cached.page >= 0) pages.get(cached.page).used = frame;
+		return cached;
+	}
+
+	private Glyph add(Key key) {
+		final GlyphRasterizer.Bitmap bitmap = distanceField ? GlyphRasterizer.distanceField(key.font, key.glyph, FIELD_SPREAD) : GlyphRasterizer.rasterize(key.font, key.glyph, 1);
+		rasterized++;
+		final float scale = distanceField ? 1f / FIELD_SIZE : 1;
+		if (bitmap.isEmpty()) return new Glyph(-1, 0, 0, 0, 0, 0, 0, 0, 0, scale);
+		// the cell holding the glyph and its gutter
+		final int width = bitmap.width + 2 * GUTTER, height = bitmap.height + 2 * GUTTER;
+		if (width > pageSize || height > pageSize)
+			throw new IllegalArgumentException("Glyph is larger than a page: " + bitmap.width + "x" + bitmap.height);
+
+		int page = -1, x = 0, y = 0;
+		for (int i = 0; i < pages.size() && page < 0; i++) {
+			final long spot = pages.get(i).allocate(width, height);
+			if (spot >= 0) {
+				page = i;
+				x = (int) (spot >>> 32);
+				y = (int) spot;
+			}
+		}
+		if (page < 0) {
+			page = pages.size() < maxPages ? -1 : evict();
+			if (page < 0) {
+				page = pages.size();
+				pages.add(new Page(pageSize));
+			}
+			final long spot = pages.get(page).allocate(width, height);
+			x = (int) (spot >>> 32);
+			y = (int) spot;
+		}
+
+		final Page target = pages.get(page);
+		target.keys.add(key);
+		// the whole cell is uploaded, clearing the gutter of whatever was there before
+		final ByteBuffer pixels = memCalloc(width * height);
+		try {
+			for (int row = 0; row < bitmap.height; row++) {
+				pixels.position((row + GUTTER) * width + GUTTER);
+				pixels.put(bitmap.pixels, row * bitmap.width, bitmap.width);
+			}
+			pixels.clear();
+			target.texture.bind();
+			glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
+			target.texture.set(x, y, width, height, pixels);
+			glPixelStorei(GL_UNPACK_ALIGNMENT, 4);
+		} finally {
+			memFree(pixels);
+		}
+
+		x += GUTTER;
+		y += GUTTER;
+		final float texel = 1f / pageSize;
+		return new Glyph(page, x * texel, y * texel, (x + bitmap.width) * texel, (y + bitmap.height) * texel,
+			bitmap.left, bitmap.top, bitmap.width, bitmap.height, scale);
+	}
+
+	/**
+	 * Clears the least recently used page not used this frame.
+	 *
+	 * @return the page, or -1 if every page was used this frame
+	 */
+	private int evict() {
+		int oldest = -1;
+		for (int i = 0; i < pages.size(); i++) {
+			final Page page = pages.get(i);
+			if (page.used != frame && (oldest < 0 || page.used < pages.get(oldest).used)) oldest = i;
+		}
+		if (oldest < 0) return -1;
+
+		final Page page = pages.get(oldest);
+		for (Key key : page.keys) glyphs.remove(key);
+		page.clear();
+		evictions++;
+		return oldest;
+	}
+
+	/**
+	 * Starts a new frame. Pages used before it may be evicted.
+	 */
+	public void nextFrame() {
+		frame++;
+	}
+
+	public boolean isDistanceField() {
+		return distanceField;
+	}
+
+	/**
+	 * @return the size glyphs are rasterized at in distance field mode
+	 */
+	public int getFieldSize() {
+		return FIELD_SIZE;
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	public int getPageCount() {
+		return pages.size();
+	}
+
+	public GLTexture2D getTexture(int page) {
+		return pages.get(page).texture;
+	}
+
+	/**
+	 * @return the number of glyphs in the atlas
+	 */
+	public int size() {
+		return glyphs.size();
+	}
+
+	/**
+	 * @return the number of glyphs rasterized, including those rasterized
+	 * again after their page was evicted
+	 */
+	public long getRasterized() {
+		return rasterized;
+	}
+
+	/**
+	 * @return the number of pages evicted
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Destroys every page. The atlas may be used again afterwards.
+	 */
+	public void discard() {
+		for (Page page : pages) page.texture.discard();
+		pages.clear();
+		glyphs.clear();
+	}
+
+	/**
+	 * A glyph packed in the atlas, with its texture coordinates and where to
+	 * draw it relative to the pen position.
+	 */
+	public static final class Glyph {
+
+		/**
+		 * The page holding the glyph, or -1 if it has no texels.
+		 */
+		public final int page;
+		public final float u0, v0, u1, v1;
+		private final float left, top, width, height;
+
+		Glyph(int page, float u0, float v0, float u1, float v1, float left, float top, float width, float height, float scale) {
+			this.page = page;
+			this.u0 = u0;
+			this.v0 = v0;
+			this.u1 = u1;
+			this.v1 = v1;
+			this.left = left * scale;
+			this.top = top * scale;
+			this.width = width * scale;
+			this.height = height * scale;
+		}
+
+		/**
+		 * Offsets from the pen position to the glyph's quad, y pointing down.
+		 * In distance field mode the offsets are per pixel of font size, to be
+		 * multiplied by the size drawn.
+		 */
+		public float getLeft() {
+			return left;
+		}
+
+		public float getTop() {
+			return top;
+		}
+
+		public float getWidth() {
+			return width;
+		}
+
+		public float getHeight() {
+			return height;
+		}
+
+	}
+
+	private static final class Page {
+
+		final GLTexture2D texture;
+		final int size;
+		final List<Key> keys = new ArrayList<>();
+		// shelves as y, height and the x of their free space
+		int[] shelves = new int[3 * 16];
+		int shelfCount, bottom, used;
+
+		Page(int size) {
+			this.size = size;
+			texture = new GLTexture2D(GLTexture.Target.TEXTURE_2D, GL_R8, size, size, GL_RED, GL_UNSIGNED_BYTE);
+			texture.bind();
+			final ByteBuffer zero = memCalloc(size * size);
+			try {
+				glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
+				texture.allocate(zero);
+				glPixelStorei(GL_UNPACK_ALIGNMENT, 4);
+			} finally {
+				memFree(zero);
+			}
+			texture.setMinFilter(GL_LINEAR);
+			texture.setMagFilter(GL_LINEAR);
+			texture.setWrapS(GL_CLAMP_TO_EDGE);
+			texture.setWrapT(GL_CLAMP_TO_EDGE);
+		}
+
+		/**
+		 * Finds room on the best fitting shelf, opening a new one if none has
+		 * room.
+		 *
+		 * @return the x in the high and the y in the low 32 bits, or -1 if the
+		 * page is full
+		 */
+		long allocate(int width, int height) {
+			int best = -1;
+			for (int i = 0; i < shelfCount; i++) {
+				final int shelf = 3 * i, shelfHeight = shelves[shelf + 1];
+				// skip shelves much taller than the glyph, which would waste their height
+				if (shelfHeight < height || shelfHeight > height + (height >> 1) + 2 || shelves[shelf + 2] + width > size)
+					continue;
+				if (best < 0 || shelfHeight < shelves[3 * best + 1]) best = i;
+			}
+			if (best < 0) {
+				if (bottom + height > size) return -1;
+				if (3 * shelfCount == shelves.length) shelves = Arrays.copyOf(shelves, shelves.length * 2);
+				best = shelfCount++;
+				shelves[3 * best] = bottom;
+				shelves[3 * best + 1] = height;
+				shelves[3 * best + 2] = 0;
+				bottom += height;
+			}
+			final int shelf = 3 * best, x = shelves[shelf + 2];
+			shelves[shelf + 2] += width;
+			return (long) x << 32 | shelves[shelf];
+		}
+
+		void clear() {
+			keys.clear();
+			shelfCount = 0;
+			bottom = 0;
+		}
+
+	}
+
+	private static final class Key {
+
+		Font font;
+		int glyph;
+
+		Key() {
+		}
+
+		Key(Font font, int glyph) {
+			this.font = font;
+			this.glyph = glyph;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) return false;
+			final Key key = (Key) o;
+			return glyph == key.glyph && font.equals(key.font);
+		}
+
+		@Override
+		public int hashCode() {
+			return font.hashCode() * 31 + glyph;
+		}
+
+	}
+
+}
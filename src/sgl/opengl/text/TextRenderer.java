@@ -0,0 +1,356 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.opengl.text;
+
+import sgl.image.color.Color;
+import sgl.opengl.glsl.GLProgram;
+import sgl.opengl.glsl.GLShader;
+import sgl.text.RunCache;
+import sgl.text.ShapedRun;
+
+import java.awt.Font;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL13.GL_TEXTURE0;
+import static org.lwjgl.opengl.GL13.glActiveTexture;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL32.glDrawElementsBaseVertex;
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * Draws text from a {@link GlyphAtlas} as a stream of textured quads, with
+ * one draw call per atlas page each frame.
+ * <p>
+ * Between {@link #begin(int, int)} and {@link #end()}, each string is
+ * shaped through the {@link RunCache}, so unchanged labels cost no shaping,
+ * and its glyphs are appended to the quads of their page. {@link #end()}
+ * uploads every page's quads into one buffer and draws them. Coordinates
+ * are in pixels from the top left of the viewport, y pointing down; text is
+ * placed by the start of its baseline. Colors are packed 0xRRGGBBAA.
+ * </p>
+ * <p>
+ * Bitmap glyphs are snapped to whole pixels to stay sharp; distance field
+ * glyphs are placed exactly and scaled to the size drawn. All methods must
+ * be called on the GL Thread.
+ * </p>
+ *
+ * @author link
+ */
+public final class TextRenderer {
+
+	// x, y, u, v as floats and r, g, b, a as normalized bytes
+	private static final int VERTEX_BYTES = 20, QUAD_BYTES = 4 * VERTEX_BYTES;
+
+	private static final String VERTEX = "#version 330 core\n" +
+		"layout(location = 0) in vec2 position;\n" +
+		"layout(location = 1) in vec2 texcoord;\n" +
+		"layout(location = 2) in vec4 color;\n" +
+		"uniform vec2 scale;\n" +
+		"out vec2 uv;\n" +
+		"out vec4 tint;\n" +
+		"void main() {\n" +
+		"\tuv = texcoord;\n" +
+		"\ttint = color;\n" +
+		"\tgl_Position = vec4(position * scale + vec2(-1.0, 1.0), 0.0, 1.0);\n" +
+		"}\n";
+
+	private static final String COVERAGE = "#version 330 core\n" +
+		"uniform sampler2D atlas;\n" +
+		"in vec2 uv;\n" +
+		"in vec4 tint;\n" +
+		"out vec4 fragment;\n" +
+		"void main() {\n" +
+		"\tfragment = vec4(tint.rgb, tint.a * texture(atlas, uv).r);\n" +
+		"}\n";
+
+	private static final String DISTANCE_FIELD = "#version 330 core\n" +
+		"uniform sampler2D atlas;\n" +
+		"in vec2 uv;\n" +
+		"in vec4 tint;\n" +
+		"out vec4 fragment;\n" +
+		"void main() {\n" +
+		"\tfloat distance = texture(atlas, uv).r;\n" +
+		"\tfloat width = max(0.7 * fwidth(distance), 1e-4);\n" +
+		"\tfragment = vec4(tint.rgb, tint.a * smoothstep(0.5 - width, 0.5 + width, distance));\n" +
+		"}\n";
+
+	private final GlyphAtlas atlas;
+	private final RunCache runs;
+	private final GLProgram program;
+	private final GLShader vertex, fragment;
+	private final int array, vertices, indices;
+
+	// the quads of each page this frame
+	private ByteBuffer[] streams = new ByteBuffer[0];
+	private int[] quads = new int[0];
+	private int indexCapacity;
+	private float width, height;
+	private boolean drawing;
+	private int drawCalls, quadCount;
+
+	public TextRenderer(GlyphAtlas atlas) {
+		this(atlas, new RunCache());
+	}
+
+	/**
+	 * @param atlas the atlas to draw glyphs from
+	 * @param runs  the cache to shape strings through
+	 */
+	public TextRenderer(GlyphAtlas atlas, RunCache runs) {
+		this.atlas = atlas;
+		this.runs = runs;
+
+		vertex = shader(GL_VERTEX_SHADER, VERTEX);
+		fragment = shader(GL_FRAGMENT_SHADER, atlas.isDistanceField() ? DISTANCE_FIELD : COVERAGE);
+		program = new GLProgram(vertex, fragment);
+		program.link();
+
+		array = glGenVertexArrays();
+		vertices = glGenBuffers();
+		indices = glGenBuffers();
+		glBindVertexArray(array);
+		glBindBuffer(GL_ARRAY_BUFFER, vertices);
+		glVertexAttribPointer(0, 2, GL_FLOAT, false, VERTEX_BYTES, 0);
+		glVertexAttribPointer(1, 2, GL_FLOAT, false, VERTEX_BYTES, 8);
+		glVertexAttribPointer(2, 4, GL_UNSIGNED_BYTE, true, VERTEX_BYTES, 16);
+		glEnableVertexAttribArray(0);
+		glEnableVertexAttribArray(1);
+		glEnableVertexAttribArray(2);
+		glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, indices);
+		glBindVertexArray(0);
+	}
+
+	private static GLShader shader(int type, String source) {
+		final GLShader shader = new GLShader(type);
+		shader.setSource(source);
+		shader.compile();
+		return shader;
+	}
+
+	/**
+	 * Starts a frame of text and the atlas's next frame.
+	 *
+	 * @param width  the width of the viewport in pixels
+	 * @param height the height of the viewport in pixels
+	 */
+	public void begin(int width, int height) {
+		if (drawing) throw new IllegalStateException("TextRenderer is already drawing");
+		this.width = width;
+		this.height = height;
+		drawing = true;
+		drawCalls = 0;
+		quadCount = 0;
+		atlas.nextFrame();
+	}
+
+	/**
+	 * Draws a string.
+	 *
+	 * @param text the string
+	 * @param font the font, at any size
+	 * @param size the size in pixels
+	 * @param x    the x of the start of the baseline
+	 * @param y    the y of the baseline
+	 * @param rgba the color, packed 0xRRGGBBAA
+	 * @return the advance of the string
+	 */
+	public float draw(String text, Font font, float size, float x, float y, int rgba) {
+		final ShapedRun run = runs.get(text, font, size);
+		draw(run, x, y, rgba);
+		return run.getAdvance();
+	}
+
+	public float draw(String text, Font font, float size, float x, float y, Color color) {
+		return draw(text, font, size, x, y, color.rgba());
+	}
+
+	/**
+	 * Draws a run shaped beforehand.
+	 *
+	 * @param run  the run
+	 * @param x    the x of the start of the baseline
+	 * @param y    the y of the baseline
+	 * @param rgba the color, packed 0xRRGGBBAA
+	 */
+	public void draw(ShapedRun run, float x, float y, int rgba) {
+		if (!drawing) throw new IllegalStateException("TextRenderer.begin() wasn't called");
+		final Font font = run.getFont();
+		final boolean field = atlas.isDistanceField();
+		final float scale = field ? run.getSize() : 1;
+		final byte r = (byte) (rgba >>> 24), g = (byte) (rgba >>> 16), b = (byte) (rgba >>> 8), a = (byte) rgba;
+
+		for (int i = 0, n = run.size(); i < n; i++) {
+			final GlyphAtlas.Glyph glyph = atlas.get(font, run.getGlyph(i));
+			if (glyph.page < 0) continue;
+
+			float gx = x + run.getX(i), gy = y + run.getY(i);
+			if (!field) {
+				gx = Math.round(gx);
+				gy = Math.round(gy);
+			}
+			final float x0 = gx + glyph.getLeft() * scale, y0 = gy + glyph.getTop() * scale;
+			final float x1 = x0 + glyph.getWidth() * scale, y1 = y0 + glyph.getHeight() * scale;
+
+			final ByteBuffer stream = reserve(glyph.page);
+			int p = quads[glyph.page]++ * QUAD_BYTES;
+			p = vertex(stream, p, x0, y0, glyph.u0, glyph.v0, r, g, b, a);
+			p = vertex(stream, p, x1, y0, glyph.u1, glyph.v0, r, g, b, a);
+			p = vertex(stream, p, x1, y1, glyph.u1, glyph.v1, r, g, b, a);
+			vertex(stream, p, x0, y1, glyph.u0, glyph.v1, r, g, b, a);
+		}
+	}
+
+	private static int vertex(ByteBuffer stream, int p, float x, float y, float u, float v, byte r, byte g, byte b, byte a) {
+		stream.putFloat(p, x).putFloat(p + 4, y).putFloat(p + 8, u).putFloat(p + 12, v);
+		stream.put(p + 16, r).put(p + 17, g).put(p + 18, b).put(p + 19, a);
+		return p + VERTEX_BYTES;
+	}
+
+	// makes room for another quad on a page
+	private ByteBuffer reserve(int page) {
+		if (page >= streams.length) {
+			final int length = streams.length;
+			streams = Arrays.copyOf(streams, page + 1);
+			quads = Arrays.copyOf(quads, page + 1);
+			for (int i = length; i <= page; i++) streams[i] = memAlloc(256 * QUAD_BYTES);
+		}
+		ByteBuffer stream = streams[page];
+		if ((quads[page] + 1) * QUAD_BYTES > stream.capacity())
+			streams[page] = stream = memRealloc(stream, stream.capacity() * 2);
+		return stream;
+	}
+
+	/**
+	 * Draws every quad of the frame, one draw call per page.
+	 */
+	public void end() {
+		if (!drawing) throw new IllegalStateException("TextRenderer.begin() wasn't called");
+		drawing = false;
+
+		int total = 0, most = 0;
+		for (int page = 0; page < quads.length; page++) {
+			total += quads[page];
+			most = Math.max(most, quads[page]);
+		}
+		if (total == 0) return;
+
+		glBindVertexArray(array);
+		if (most > indexCapacity) growIndices(most);
+
+		glBindBuffer(GL_ARRAY_BUFFER, vertices);
+		// orphan last frame's quads rather than wait for them to be drawn
+		glBufferData(GL_ARRAY_BUFFER, (long) total * QUAD_BYTES, GL_STREAM_DRAW);
+		long offset = 0;
+		for (int page = 0; page < quads.length; page++) {
+			if (quads[page] == 0) continue;
+			final ByteBuffer stream = streams[page];
+			stream.limit(quads[page] * QUAD_BYTES);
+			glBufferSubData(GL_ARRAY_BUFFER, offset, stream);
+			stream.clear();
+			offset += (long) quads[page] * QUAD_BYTES;
+		}
+
+		program.use();
+		program.setUniformf("scale", new float[]{2 / width, -2 / height});
+		program.setUniformi("atlas", 0);
+		glActiveTexture(GL_TEXTURE0);
+		glEnable(GL_BLEND);
+		glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+
+		int base = 0;
+		for (int page = 0; page < quads.length; page++) {
+			if (quads[page] == 0) continue;
+			atlas.getTexture(page).bind();
+			glDrawElementsBaseVertex(GL_TRIANGLES, 6 * quads[page], GL_UNSIGNED_INT, 0, base);
+			base += 4 * quads[page];
+			quadCount += quads[page];
+			quads[page] = 0;
+			drawCalls++;
+		}
+		glBindVertexArray(0);
+	}
+
+	// two triangles per quad, shared by every page through the base vertex
+	private void growIndices(int count) {
+		indexCapacity = Math.max(count, indexCapacity * 2);
+		final IntBuffer data = memAllocInt(6 * indexCapacity);
+		try {
+			for (int quad = 0, v = 0; quad < indexCapacity; quad++, v += 4)
+				data.put(v).put(v + 1).put(v + 2).put(v + 2).put(v + 3).put(v);
+			data.flip();
+			glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, indices);
+			glBufferData(GL_ELEMENT_ARRAY_BUFFER, data, GL_STATIC_DRAW);
+		} finally {
+			memFree(data);
+		}
+	}
+
+	public GlyphAtlas getAtlas() {
+		return atlas;
+	}
+
+	public RunCache getRuns() {
+		return runs;
+	}
+
+	/**
+	 * @return the draw calls the last frame took
+	 */
+	public int getDrawCalls() {
+		return drawCalls;
+	}
+
+	/**
+	 * @return the glyphs the last frame drew
+	 */
+	public int getQuadCount() {
+		return quadCount;
+	}
+
+	/**
+	 * Destroys the buffers and shaders of this renderer. The atlas is left to
+	 * its owner.
+	 */
+	public void discard() {
+		for (ByteBuffer stream : streams) memFree(stream);
+		streams = new ByteBuffer[0];
+		quads = new int[0];
+		glDeleteVertexArrays(array);
+		glDeleteBuffers(vertices);
+		glDeleteBuffers(indices);
+		program.discard();
+		vertex.discard();
+		fragment.discard();
+	}
+
+}
@@ -28,6 +28,7 @@
 package sgl.opengl.texture;
 
 import sgl.image.color.Color;
+import sgl.image.io.BlockEncoder;
 import sgl.image.raster.Raster;
 import sgl.opengl.GLObject;
 import sgl.opengl.OpenGL;
@@ -37,7 +38,10 @@ import sgl.opengl.error.UnsupportedProfileException;
 import sgl.opengl.image.color.GLColor;
 
 import java.nio.*;
+import java.util.HashMap;
+import java.util.Map;
 
+import static org.lwjgl.opengl.EXTTextureCompressionS3TC.*;
 import static org.lwjgl.opengl.GL11.*;
 import static org.lwjgl.opengl.GL12.*;
 import static org.lwjgl.opengl.GL13.*;
@@ -64,7 +68,7 @@ public class GLTexture implements GLObject, Raster {
 			throw new UnsupportedProfileException(GLTexture.class, "Unsupported feature", new UnsupportedFeatureException(GLTexture.class, Feature.EXT_TEXTURE));
 	}
 
-	protected int texture, size;
+	protected int texture, size, levels = 1;
 	protected final int target, level, internalFormat, border, format, type;
 
 	public GLTexture() {
@@ -132,6 +136,88 @@ public class GLTexture implements GLObject, Raster {
 		glBindTexture(target, texture);
 	}
 
+	/**
+	 * Specifies the storage for this texture's level and uploads the given
+	 * data into it. This texture must be bound.
+	 *
+	 * @param data the texel data in this texture's format and type, or null
+	 *             to leave the storage uninitialized
+	 */
+	public void allocate(ByteBuffer data) {
+		glTexImage1D(target, level, internalFormat, size, border, format, type, data);
+	}
+
+	/**
+	 * Destroys this texture to free up its video memory. Don't forget to call
+	 * this when the texture is no longer needed!
+	 */
+	public void discard() {
+		glDeleteTextures(texture);
+		texture = 0;
+	}
+
+	/**
+	 * Checks whether this texture has been discarded.
+	 *
+	 * @return true if this texture has no GL name
+	 */
+	public final boolean isDiscarded() {
+		return texture == 0;
+	}
+
+	// gives a discarded texture a new GL name so it can be allocated again
+	final void generate() {
+		if (texture == 0) texture = glGenTextures();
+	}
+
+	/**
+	 * Gets the number of mipmap levels, starting at this texture's level,
+	 * that have storage.
+	 *
+	 * @return the number of levels, at least 1
+	 */
+	public final int getLevels() {
+		return levels;
+	}
+
+	/**
+	 * Records how many mipmap levels, starting at this texture's level, have
+	 * storage. This doesn't allocate anything; it is set by whatever
+	 * specifies the extra levels, such as {@link sgl.opengl.texture.mip.GLMipmaps}.
+	 *
+	 * @param levels the number of levels, at least 1
+	 */
+	public void setLevels(int levels) {
+		if (levels < 1) throw new IllegalArgumentException("levels < 1: " + levels);
+		this.levels = levels;
+	}
+
+	/**
+	 * Gets the number of bytes this texture's levels occupy in video memory,
+	 * computed from its {@link InternalFormat} and dimensions. Unsized
+	 * internal formats are assumed to take 4 bytes per texel.
+	 *
+	 * @return the size of this texture's levels in bytes
+	 * @see #getLevels()
+	 */
+	public long getFootprint() {
+		return footprint(size, 1, 1);
+	}
+
+	// sums every level, halving the dimensions that aren't array layers
+	protected final long footprint(int width, int height, int depth) {
+		final InternalFormat format = InternalFormat.get(internalFormat);
+		final boolean layeredHeight = target == GL_TEXTURE_1D_ARRAY, layeredDepth = target != GL_TEXTURE_3D;
+		long footprint = 0;
+		for (int i = 0; i < levels; i++) {
+			footprint += format != null ? format.footprint(width, height, depth) : 4L * width * height * depth;
+			width = Math.max(1, width >> 1);
+			if (!layeredHeight) height = Math.max(1, height >> 1);
+			if (!layeredDepth) depth = Math.max(1, depth >> 1);
+		}
+		return footprint;
+	}
+
 	public final int getTarget() {
 		return target;
 	}
@@ -287,6 +373,7 @@ public class GLTexture implements GLObject, Raster {
 			colors[pos] = new GLColor(r, g, b, a);
 			pos++;
 		}
+		memFree(data);
 	}
 
 	private void getShort(int offset, int size, Color[] colors) {
@@ -301,6 +388,7 @@ public class GLTexture implements GLObject, Raster {
 			colors[pos] = new GLColor(r, g, b, a);
 			pos++;
 		}
+		memFree(data);
 	}
 
 	private void getInt(int offset, int size, Color[] colors) {
@@ -315,6 +403,7 @@ public class GLTexture implements GLObject, Raster {
 			colors[pos] = new GLColor(r, g, b, a);
 			pos++;
 		}
+		memFree(data);
 	}
 
 	private void getLong(int offset, int size, Color[] colors) {
@@ -329,6 +418,7 @@ public class GLTexture implements GLObject, Raster {
 			colors[pos] = new GLColor(r, g, b, a);
 			pos++;
 		}
+		memFree(data);
 	}
 
 	private void getFloat(int offset, int size, Color[] colors) {
@@ -343,6 +433,7 @@ public class GLTexture implements GLObject, Raster {
 			colors[pos] = new GLColor(r, g, b, a);
 			pos++;
 		}
+		memFree(data);
 	}
 
 	private void getDouble(int offset, int size, Color[] colors) {
@@ -357,6 +448,7 @@ public class GLTexture implements GLObject, Raster {
 			colors[pos] = new GLColor(r, g, b, a);
 			pos++;
 		}
+		memFree(data);
 	}
 
 
@@ -365,14 +457,19 @@ public class GLTexture implements GLObject, Raster {
 		if (colors.length >= size) switch (type) {
 			case GL_UNSIGNED_INT:
 				setInt(offset, size, colors);
+				return;
 			case GL_UNSIGNED_BYTE:
 				setByte(offset, size, colors);
+				return;
 			case GL_UNSIGNED_SHORT:
 				setShort(offset, size, colors);
+				return;
 			case GL_FLOAT:
 				setFloat(offset, size, colors);
+				return;
 			case GL_DOUBLE:
 				setDouble(offset, size, colors);
+				return;
 			default:
 				if (format == GL_RGBA16) setLong(offset, size, colors);
 
@@ -392,6 +489,7 @@ public class GLTexture implements GLObject, Raster {
 		}
 
 		glTexSubImage1D(target, level, offset, this.size, format, type, data);
+		memFree(data);
 	}
 
 	private void setShort(int offset, int size, Color[] colors) {
@@ -406,6 +504,7 @@ public class GLTexture implements GLObject, Raster {
 		}
 
 		glTexSubImage1D(target, level, offset, this.size, format, type, data);
+		memFree(data);
 	}
 
 	private void setInt(int offset, int size, Color[] colors) {
@@ -417,6 +516,7 @@ public class GLTexture implements GLObject, Raster {
 		}
 
 		glTexSubImage1D(target, level, offset, this.size, format, type, data);
+		memFree(data);
 	}
 
 	private void setLong(int offset, int size, Color[] colors) {
@@ -428,6 +528,7 @@ public class GLTexture implements GLObject, Raster {
 		}
 
 		glTexSubImage1D(target, level, offset, this.size, format, type, memAddress(data));
+		memFree(data);
 	}
 
 	private void setFloat(int offset, int size, Color[] colors) {
@@ -442,6 +543,7 @@ public class GLTexture implements GLObject, Raster {
 		}
 
 		glTexSubImage1D(target, level, offset, this.size, format, type, data);
+		memFree(data);
 	}
 
 	private void setDouble(int offset, int size, Color[] colors) {
@@ -456,6 +558,7 @@ public class GLTexture implements GLObject, Raster {
 		}
 
 		glTexSubImage1D(target, level, offset, this.size, format, type, data);
+		memFree(data);
 	}
 
 	// [/type-specific methods]
@@ -667,122 +770,122 @@ public class GLTexture implements GLObject, Raster {
 		/**
 		 * defines as R
 		 */
-		RED(GL_RED), /**
+		RED(GL_RED, 8), /**
 		 * defines as RG
 		 */
-		RG(GL_RG), /**
+		RG(GL_RG, 16), /**
 		 * defines as RGB
 		 */
-		RGB(GL_RGB), /**
+		RGB(GL_RGB, 24), /**
 		 * defines as R 8-bit
 		 */
-		R8(GL_R8), /**
+		R8(GL_R8, 8), /**
 		 * defines as R 8-bit with s-norm format
 		 */
-		R8_SNORM(GL_R8_SNORM), /**
+		R8_SNORM(GL_R8_SNORM, 8), /**
 		 * defines as R 16-bit
 		 */
-		R16(GL_R16), /**
+		R16(GL_R16, 16), /**
 		 * defines as RG 16-bits (8-bits per color) with s-norm format
 		 */
-		RG16(GL_RG16), /**
+		RG16(GL_RG16, 32), /**
 		 * defines as RG 16-bits (8-bits per color) with s-norm format
 		 */
-		RG16_SNORM(GL_RG16_SNORM), /**
+		RG16_SNORM(GL_RG16_SNORM, 32), /**
 		 * defines as byte with red 3-bit, green 3-bit, and blue 2-bit
 		 */
-		R3_G3_B2(GL_R3_G3_B2), /**
+		R3_G3_B2(GL_R3_G3_B2, 8), /**
 		 * defines as RGB 8-bits per color
 		 */
-		RGB8(GL_RGB8), /**
+		RGB8(GL_RGB8, 24), /**
 		 * defines as RGB 8-bits per color with s-norm format
 		 */
-		RGB8_SNORM(GL_RGB8_SNORM), /**
+		RGB8_SNORM(GL_RGB8_SNORM, 24), /**
 		 * defines as RGB 10-bit
 		 */
-		RGB10(GL_RGB10), /**
+		RGB10(GL_RGB10, 32), /**
 		 * defines as RGBA 32-bit (8-bits per color, 2-bit alpha)
 		 */
-		RGBA2(GL_RGBA2), /**
+		RGBA2(GL_RGBA2, 8), /**
 		 * defines as RGBA 32-bit (8-bits per color, 4-bit alpha)
 		 */
-		RGBA4(GL_RGBA4), /**
+		RGBA4(GL_RGBA4, 16), /**
 		 * defines as RGBA 16-bit (5-bits per color, 1-bit alpha)
 		 */
-		RGB5_A1(GL_RGB5_A1), /**
+		RGB5_A1(GL_RGB5_A1, 16), /**
 		 * defines as RGBA 32-bit, unsigned (10-bits per color, 2-bit alpha)
 		 */
-		RGB10_A2UI(GL_RGB10_A2), /**
+		RGB10_A2UI(GL_RGB10_A2, 32), /**
 		 * defines as RGBA 64-bit (12-bits per color, 12-bit alpha)
 		 */
-		RGBA12(GL_RGBA12), /**
+		RGBA12(GL_RGBA12, 48), /**
 		 * defines as RGBA 64-bit (16-bits per color, 16-bit alpha)
 		 */
-		RGBA16(GL_RGBA16), /**
+		RGBA16(GL_RGBA16, 64), /**
 		 * defines as R 16-bit floating-point
 		 */
-		R16F(GL_R16F), /**
+		R16F(GL_R16F, 16), /**
 		 * defines as RG 16-bit floating-point
 		 */
-		RG16F(GL_RG16F), /**
+		RG16F(GL_RG16F, 32), /**
 		 * defines as RGB 16-bit floating-point
 		 */
-		RGB16F(GL_RGB16F), /**
+		RGB16F(GL_RGB16F, 48), /**
 		 * defines as RGB 32-bit floating-point
 		 */
-		RGB32F(GL_RGB32F), /**
+		RGB32F(GL_RGB32F, 96), /**
 		 * defines as RGBA 32-bit floating-point
 		 */
-		RGBA32F(GL_RGBA32F), /**
+		RGBA32F(GL_RGBA32F, 128), /**
 		 * defines as RGB 32-bit (11-bit red, 11-bit green, 10-bit blue)
 		 * floating-point
 		 */
-		R11F_G11F_B10F(GL_R11F_G11F_B10F), /**
+		R11F_G11F_B10F(GL_R11F_G11F_B10F, 32), /**
 		 * defines as R 16-bit integer
 		 */
-		R16I(GL_R16I), /**
+		R16I(GL_R16I, 16), /**
 		 * defines as R 16-bit unsigned integer
 		 */
-		R16UI(GL_R16UI), /**
+		R16UI(GL_R16UI, 16), /**
 		 * defines as R 32-bit integer
 		 */
-		R32I(GL_R32I), /**
+		R32I(GL_R32I, 32), /**
 		 * defines as RG 16-bit integer
 		 */
-		RG16I(GL_RG16I), /**
+		RG16I(GL_RG16I, 32), /**
 		 * defines as RG 16-bit unsigned integer
 		 */
-		RG16UI(GL_RG16UI), /**
+		RG16UI(GL_RG16UI, 32), /**
 		 * defines as RG 32-bit integer
 		 */
-		RG32I(GL_RG32I), /**
+		RG32I(GL_RG32I, 64), /**
 		 * defines as RGB 16-bit integer
 		 */
-		RGB16I(GL_RGB16I), /**
+		RGB16I(GL_RGB16I, 48), /**
 		 * defines as RGB 16-bit unsigned integer
 		 */
-		RGB16UI(GL_RGB16UI), /**
+		RGB16UI(GL_RGB16UI, 48), /**
 		 * defines as RGB 32-bit integer
 		 */
-		RGB32I(GL_RGB32I), /**
+		RGB32I(GL_RGB32I, 96), /**
 		 * defines as RGBA 16-bit integer
 		 */
-		RGBA16I(GL_RGBA16I), /**
+		RGBA16I(GL_RGBA16I, 64), /**
 		 * defines as RGBA 16-bit unsigned integer
 		 */
-		RGBA16UI(GL_RGBA16UI), /**
+		RGBA16UI(GL_RGBA16UI, 64), /**
 		 * defines as RGBA 32-bit integer
 		 */
-		RGBA32I(GL_RGBA32I), /**
+		RGBA32I(GL_RGBA32I, 128), /**
 		 * defines as gl_depth_component 32-bit
 		 */
-		DEPTH_COMPONENT32(GL_DEPTH_COMPONENT32), /**
+		DEPTH_COMPONENT32(GL_DEPTH_COMPONENT32, 32), /**
 		 * defines as gl_depth24_stencil8 32-bit (24-bit depth, 8-bit stencil)
 		 */
-		DEPTH24_STENCIL8(GL_DEPTH24_STENCIL8), /**
+		DEPTH24_STENCIL8(GL_DEPTH24_STENCIL8, 32), /**
 		 * defines as gl_depth_component32f (32-bit float)
 		 */
-		DEPTH_COMPONENT32F(GL_DEPTH_COMPONENT32F), /**
+		DEPTH_COMPONENT32F(GL_DEPTH_COMPONENT32F, 32), /**
 		 * defines as compressed RGB
 		 *
 		 * @see org.lwjgl.opengl.EXTTextureCompressionLATC
@@ -790,7 +893,7 @@ public class GLTexture implements GLObject, Raster {
 		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
 		 * @see org.lwjgl.opengl.ATITextureCompression3DC
 		 */
-		COMPRESSED_RGB(GL_COMPRESSED_RGB), /**
+		COMPRESSED_RGB(GL_COMPRESSED_RGB, 24), /**
 		 * defines as compressed RGBA
 		 *
 		 * @see org.lwjgl.opengl.EXTTextureCompressionLATC
@@ -798,7 +901,7 @@ public class GLTexture implements GLObject, Raster {
 		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
 		 * @see org.lwjgl.opengl.ATITextureCompression3DC
 		 */
-		COMPRESSED_RGBA(GL_COMPRESSED_RGBA), /**
+		COMPRESSED_RGBA(GL_COMPRESSED_RGBA, 32), /**
 		 * defines as compressed sRGB
 		 *
 		 * @see org.lwjgl.opengl.EXTTextureCompressionLATC
@@ -806,7 +909,7 @@ public class GLTexture implements GLObject, Raster {
 		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
 		 * @see org.lwjgl.opengl.ATITextureCompression3DC
 		 */
-		COMPRESSED_SRGB(GL_COMPRESSED_SRGB), /**
+		COMPRESSED_SRGB(GL_COMPRESSED_SRGB, 24), /**
 		 * defines as compressed RG-RGTC2
 		 *
 		 * @see org.lwjgl.opengl.EXTTextureCompressionLATC
@@ -814,7 +917,7 @@ public class GLTexture implements GLObject, Raster {
 		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
 		 * @see org.lwjgl.opengl.ATITextureCompression3DC
 		 */
-		COMPRESSED_RG_RGTC2(GL_COMPRESSED_RG_RGTC2), /**
+		COMPRESSED_RG_RGTC2(GL_COMPRESSED_RG_RGTC2, 8, 16), /**
 		 * defines as compressed signed RG-RGTC2
 		 *
 		 * @see org.lwjgl.opengl.EXTTextureCompressionLATC
@@ -822,7 +925,7 @@ public class GLTexture implements GLObject, Raster {
 		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
 		 * @see org.lwjgl.opengl.ATITextureCompression3DC
 		 */
-		COMPRESSED_SIGNED_RG_RGTC2(GL_COMPRESSED_SIGNED_RG_RGTC2), /**
+		COMPRESSED_SIGNED_RG_RGTC2(GL_COMPRESSED_SIGNED_RG_RGTC2, 8, 16), /**
 		 * defines as compressed RGBA-BPTC-UNORM
 		 *
 		 * @see org.lwjgl.opengl.EXTTextureCompressionLATC
@@ -830,7 +933,27 @@ public class GLTexture implements GLObject, Raster {
 		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
 		 * @see org.lwjgl.opengl.ATITextureCompression3DC
 		 */
-		COMPRESSED_RGBA_BPTC_UNORM(GL_COMPRESSED_RGBA_BPTC_UNORM), /**
+		COMPRESSED_RGBA_BPTC_UNORM(GL_COMPRESSED_RGBA_BPTC_UNORM, 8, 16), /**
+		 * defines as compressed RGB-S3TC-DXT1 (BC1)
+		 *
+		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
+		 */
+		COMPRESSED_RGB_S3TC_DXT1(GL_COMPRESSED_RGB_S3TC_DXT1_EXT, 4, 8), /**
+		 * defines as compressed RGBA-S3TC-DXT1 (BC1 with 1-bit alpha)
+		 *
+		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
+		 */
+		COMPRESSED_RGBA_S3TC_DXT1(GL_COMPRESSED_RGBA_S3TC_DXT1_EXT, 4, 8), /**
+		 * defines as compressed RGBA-S3TC-DXT3 (BC2)
+		 *
+		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
+		 */
+		COMPRESSED_RGBA_S3TC_DXT3(GL_COMPRESSED_RGBA_S3TC_DXT3_EXT, 8, 16), /**
+		 * defines as compressed RGBA-S3TC-DXT5 (BC3)
+		 *
+		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
+		 */
+		COMPRESSED_RGBA_S3TC_DXT5(GL_COMPRESSED_RGBA_S3TC_DXT5_EXT, 8, 16), /**
 		 * defines as compressed RGB-ETC2 (8-bits per color)
 		 *
 		 * @see org.lwjgl.opengl.EXTTextureCompressionLATC
@@ -838,7 +961,7 @@ public class GLTexture implements GLObject, Raster {
 		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
 		 * @see org.lwjgl.opengl.ATITextureCompression3DC
 		 */
-		COMPRESSED_RGB8_ETC2(GL_COMPRESSED_RGB8_ETC2), /**
+		COMPRESSED_RGB8_ETC2(GL_COMPRESSED_RGB8_ETC2, 4, 8), /**
 		 * defines as compressed SRGB-ETC2 (8-bits per color)
 		 *
 		 * @see org.lwjgl.opengl.EXTTextureCompressionLATC
@@ -846,7 +969,7 @@ public class GLTexture implements GLObject, Raster {
 		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
 		 * @see org.lwjgl.opengl.ATITextureCompression3DC
 		 */
-		COMPRESSED_SRGB8_ETC2(GL_COMPRESSED_SRGB8_ETC2), /**
+		COMPRESSED_SRGB8_ETC2(GL_COMPRESSED_SRGB8_ETC2, 4, 8), /**
 		 * defines as compressed RGB-PUNCHTHROUGH-ALPHA-ETC2 (8-bits per color,
 		 * 1-bit alpha)
 		 *
@@ -855,7 +978,7 @@ public class GLTexture implements GLObject, Raster {
 		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
 		 * @see org.lwjgl.opengl.ATITextureCompression3DC
 		 */
-		COMPRESSED_RGB8_PUNCHTRHOUGH_ALPHA1_ETC2(GL_COMPRESSED_RGB8_PUNCHTHROUGH_ALPHA1_ETC2), /**
+		COMPRESSED_RGB8_PUNCHTRHOUGH_ALPHA1_ETC2(GL_COMPRESSED_RGB8_PUNCHTHROUGH_ALPHA1_ETC2, 4, 8), /**
 		 * defines as compressed R-EAC (11-bits red)
 		 *
 		 * @see org.lwjgl.opengl.EXTTextureCompressionLATC
@@ -863,7 +986,7 @@ public class GLTexture implements GLObject, Raster {
 		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
 		 * @see org.lwjgl.opengl.ATITextureCompression3DC
 		 */
-		COMPRESSED_R11_EAC(GL_COMPRESSED_R11_EAC), /**
+		COMPRESSED_R11_EAC(GL_COMPRESSED_R11_EAC, 4, 8), /**
 		 * defines as compressed signed R-EAC (11-bits red)
 		 *
 		 * @see org.lwjgl.opengl.EXTTextureCompressionLATC
@@ -871,7 +994,7 @@ public class GLTexture implements GLObject, Raster {
 		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
 		 * @see org.lwjgl.opengl.ATITextureCompression3DC
 		 */
-		COMPRESSED_SIGNED_R11_EAC(GL_COMPRESSED_SIGNED_R11_EAC), /**
+		COMPRESSED_SIGNED_R11_EAC(GL_COMPRESSED_SIGNED_R11_EAC, 4, 8), /**
 		 * defines as compressed RG-EAC (11-bits per color)
 		 *
 		 * @see org.lwjgl.opengl.EXTTextureCompressionLATC
@@ -879,114 +1002,114 @@ public class GLTexture implements GLObject, Raster {
 		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
 		 * @see org.lwjgl.opengl.ATITextureCompression3DC
 		 */
-		COMPRESSED_RG11_EAC(GL_COMPRESSED_RG11_EAC), /**
+		COMPRESSED_RG11_EAC(GL_COMPRESSED_RG11_EAC, 8, 16), /**
 		 * defines as R 16-bit with s-norm format
 		 */
-		R16_SNORM(GL_R16_SNORM), /**
+		R16_SNORM(GL_R16_SNORM, 16), /**
 		 * defines as RG 16-bit (8-bits per color)
 		 */
-		RG8(GL_RG8), /**
+		RG8(GL_RG8, 16), /**
 		 * defines as RG 16-bit (8-bits per color) with s-norm format
 		 */
-		RG8_SNORM(GL_RG8_SNORM), /**
+		RG8_SNORM(GL_RG8_SNORM, 16), /**
 		 * defines as RGB 16-bit (4-bits per color)
 		 */
-		RGB4(GL_RGB4), /**
+		RGB4(GL_RGB4, 16), /**
 		 * defines as RGB 16-bit (5-bits per color)
 		 */
-		RGB5(GL_RGB5), /**
+		RGB5(GL_RGB5, 16), /**
 		 * defines as RGB 16-bit (5-bits red, 6-bits green, 5-bits blue)
 		 */
-		RGB565(GL_RGB565), /**
+		RGB565(GL_RGB565, 16), /**
 		 * defines as RGB 16-bit (4-bits per color)
 		 */
-		RGB12(GL_RGB12), /**
+		RGB12(GL_RGB12, 48), /**
 		 * defines as RGB 16-bit (5-bits per color)
 		 */
-		RGB16(GL_RGB16), /**
+		RGB16(GL_RGB16, 48), /**
 		 * defines as RGB 16-bit (5-bits per color) with s-norm format
 		 */
-		RGB16_SNORM(GL_RGB16_SNORM), /**
+		RGB16_SNORM(GL_RGB16_SNORM, 48), /**
 		 * defines as RGBA 32-bit (8-bits per color, 8-bit alpha)
 		 */
-		RGBA8(GL_RGBA8), /**
+		RGBA8(GL_RGBA8, 32), /**
 		 * defines as RGBA 32-bit (8-bits per color, 8-bit alpha) with s-norm
 		 * format
 		 */
-		RGBA8_SNORM(GL_RGBA8_SNORM), /**
+		RGBA8_SNORM(GL_RGBA8_SNORM, 32), /**
 		 * defines as RGB 32-bit (10-bits per color, 2-bit alpha)
 		 */
-		RGB10_A2(GL_RGB10_A2), /**
+		RGB10_A2(GL_RGB10_A2, 32), /**
 		 * defines as RGBA 16-bit (4-bits per color, 4-bit alpha) with s-norm
 		 * format
 		 */
-		RGBA16_SNORM(GL_RGBA16_SNORM), /**
+		RGBA16_SNORM(GL_RGBA16_SNORM, 64), /**
 		 * defines as SRGB 32-bit (8-bits per color)
 		 */
-		SRGB8(GL_SRGB8), /**
+		SRGB8(GL_SRGB8, 24), /**
 		 * defines as SRGB 32-bit (8-bits per color, 8-bit alpha)
 		 */
-		SRGB8_ALPHA8(GL_SRGB8_ALPHA8), /**
+		SRGB8_ALPHA8(GL_SRGB8_ALPHA8, 32), /**
 		 * defines as RGBA 16-bit floating-point
 		 */
-		RGBA16F(GL_RGBA16F), /**
+		RGBA16F(GL_RGBA16F, 64), /**
 		 * defines as R 32-bit floating-point
 		 */
-		R32F(GL_R32F), /**
+		R32F(GL_R32F, 32), /**
 		 * defines as RG 32-bit floating-point
 		 */
-		RG32F(GL_RG32F), /**
+		RG32F(GL_RG32F, 64), /**
 		 * defines as RGBE 32-bit (9-bits per color, 5-bits E component)
 		 * FIXME what is E component?
 		 */
-		RGB9_E5(GL_RGB9_E5), /**
+		RGB9_E5(GL_RGB9_E5, 32), /**
 		 * defines as R 8-bit integer
 		 */
-		R8I(GL_R8I), /**
+		R8I(GL_R8I, 8), /**
 		 * defines as R 8-bit unsigned integer
 		 */
-		R8UI(GL_R8UI), /**
+		R8UI(GL_R8UI, 8), /**
 		 * defines as R 32-bit unsigned integer
 		 */
-		R32UI(GL_R32UI), /**
+		R32UI(GL_R32UI, 32), /**
 		 * defines as RG 16-bit integer (8-bits per color)
 		 */
-		RG8I(GL_RG8I), /**
+		RG8I(GL_RG8I, 16), /**
 		 * defines as RG 16-bit unsigned integer (8-bits per color)
 		 */
-		RG8UI(GL_RG8UI), /**
+		RG8UI(GL_RG8UI, 16), /**
 		 * defines as RG 32-bit unsigned integer (16-bits per color)
 		 */
-		RG32UI(GL_RG32UI), /**
+		RG32UI(GL_RG32UI, 64), /**
 		 * defines as RGB 32-bit integer (8-bits per color)
 		 */
-		RGB8I(GL_RGB8I), /**
+		RGB8I(GL_RGB8I, 24), /**
 		 * defines as RGB
 		 */
-		RGB8UI(GL_RGB8UI), /**
+		RGB8UI(GL_RGB8UI, 24), /**
 		 * defines as RGB 32-bit unsigned integer (8-bits per color)
 		 */
-		RGB32UI(GL_RGB32UI), /**
+		RGB32UI(GL_RGB32UI, 96), /**
 		 * defines as RGBA 32-bit integer (8-bits per color, 8-bit alpha)
 		 */
-		RGBA8I(GL_RGBA8I), /**
+		RGBA8I(GL_RGBA8I, 32), /**
 		 * defines as RGBA 32-bit unsigned integer (8-bits per color, 8-bit
 		 * alpha)
 		 */
-		RGBA8UI(GL_RGBA8UI), /**
+		RGBA8UI(GL_RGBA8UI, 32), /**
 		 * defines as RGBA 32-bit unsigned integer
 		 */
-		RGBA32UI(GL_RGBA32UI), /**
+		RGBA32UI(GL_RGBA32UI, 128), /**
 		 * defines as gl_depth_component (16-bit)
 		 */
-		DEPTH_COMPONENT16(GL_DEPTH_COMPONENT16), /**
+		DEPTH_COMPONENT16(GL_DEPTH_COMPONENT16, 16), /**
 		 * defines as gl_depth_component (24-bit)
 		 */
-		DEPTH_COMPONENT24(GL_DEPTH_COMPONENT24), /**
+		DEPTH_COMPONENT24(GL_DEPTH_COMPONENT24, 32), /**
 		 * defines as gl_depth32f_stencil8 (32-bit floating-point depth, 8-bit
 		 * stencil)
 		 */
-		DEPTH32F_STENCIL8(GL_DEPTH32F_STENCIL8), /**
+		DEPTH32F_STENCIL8(GL_DEPTH32F_STENCIL8, 64), /**
 		 * defines as compressed RED
 		 *
 		 * @see org.lwjgl.opengl.EXTTextureCompressionLATC
@@ -994,7 +1117,7 @@ public class GLTexture implements GLObject, Raster {
 		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
 		 * @see org.lwjgl.opengl.ATITextureCompression3DC
 		 */
-		COMPRESSED_RED(GL_COMPRESSED_RED), /**
+		COMPRESSED_RED(GL_COMPRESSED_RED, 8), /**
 		 * defines as compressed RG
 		 *
 		 * @see org.lwjgl.opengl.EXTTextureCompressionLATC
@@ -1002,7 +1125,7 @@ public class GLTexture implements GLObject, Raster {
 		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
 		 * @see org.lwjgl.opengl.ATITextureCompression3DC
 		 */
-		COMPRESSED_RG(GL_COMPRESSED_RG), /**
+		COMPRESSED_RG(GL_COMPRESSED_RG, 16), /**
 		 * defines as compressed SRGB with alpha
 		 *
 		 * @see org.lwjgl.opengl.EXTTextureCompressionLATC
@@ -1010,7 +1133,7 @@ public class GLTexture implements GLObject, Raster {
 		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
 		 * @see org.lwjgl.opengl.ATITextureCompression3DC
 		 */
-		COMPRESSED_SRGB_ALPHA(GL_COMPRESSED_SRGB_ALPHA), /**
+		COMPRESSED_SRGB_ALPHA(GL_COMPRESSED_SRGB_ALPHA, 32), /**
 		 * defines as compressed RED-RGTC1
 		 *
 		 * @see org.lwjgl.opengl.EXTTextureCompressionLATC
@@ -1018,7 +1141,7 @@ public class GLTexture implements GLObject, Raster {
 		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
 		 * @see org.lwjgl.opengl.ATITextureCompression3DC
 		 */
-		COMPRESSED_RED_RGTC1(GL_COMPRESSED_RED_RGTC1), /**
+		COMPRESSED_RED_RGTC1(GL_COMPRESSED_RED_RGTC1, 4, 8), /**
 		 * defines as compressed signed RED-RGTC1
 		 *
 		 * @see org.lwjgl.opengl.EXTTextureCompressionLATC
@@ -1026,7 +1149,7 @@ public class GLTexture implements GLObject, Raster {
 		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
 		 * @see org.lwjgl.opengl.ATITextureCompression3DC
 		 */
-		COMPRESSED_SIGNED_RED_RGTC1(GL_COMPRESSED_SIGNED_RED_RGTC1), /**
+		COMPRESSED_SIGNED_RED_RGTC1(GL_COMPRESSED_SIGNED_RED_RGTC1, 4, 8), /**
 		 * defines as compressed SRGB-BPTC-UNORM with alpha
 		 *
 		 * @see org.lwjgl.opengl.EXTTextureCompressionLATC
@@ -1034,7 +1157,7 @@ public class GLTexture implements GLObject, Raster {
 		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
 		 * @see org.lwjgl.opengl.ATITextureCompression3DC
 		 */
-		COMPRESSED_SRGB_ALPHA_BPTC_UNORM(GL_COMPRESSED_SRGB_ALPHA_BPTC_UNORM), /**
+		COMPRESSED_SRGB_ALPHA_BPTC_UNORM(GL_COMPRESSED_SRGB_ALPHA_BPTC_UNORM, 8, 16), /**
 		 * defines as compressed RGB-BPTC (signed float)
 		 *
 		 * @see org.lwjgl.opengl.EXTTextureCompressionLATC
@@ -1042,7 +1165,7 @@ public class GLTexture implements GLObject, Raster {
 		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
 		 * @see org.lwjgl.opengl.ATITextureCompression3DC
 		 */
-		COMPRESSED_RGB_BPTC_SIGNED_FLOAT(GL_COMPRESSED_RGB_BPTC_SIGNED_FLOAT), /**
+		COMPRESSED_RGB_BPTC_SIGNED_FLOAT(GL_COMPRESSED_RGB_BPTC_SIGNED_FLOAT, 8, 16), /**
 		 * defines as compressed RGB-BPTC (unsigned float)
 		 *
 		 * @see org.lwjgl.opengl.EXTTextureCompressionLATC
@@ -1050,7 +1173,7 @@ public class GLTexture implements GLObject, Raster {
 		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
 		 * @see org.lwjgl.opengl.ATITextureCompression3DC
 		 */
-		COMPRESSED_RGB_BPTC_UNSIGNED_FLOAT(GL_COMPRESSED_RGB_BPTC_UNSIGNED_FLOAT), /**
+		COMPRESSED_RGB_BPTC_UNSIGNED_FLOAT(GL_COMPRESSED_RGB_BPTC_UNSIGNED_FLOAT, 8, 16), /**
 		 * defines as compressed SRGB8-PUNCHTHROUGH-ALPHA1-ETC2
 		 *
 		 * @see org.lwjgl.opengl.EXTTextureCompressionLATC
@@ -1058,7 +1181,7 @@ public class GLTexture implements GLObject, Raster {
 		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
 		 * @see org.lwjgl.opengl.ATITextureCompression3DC
 		 */
-		COMPRESSED_SRGB8_PUNCHTHROUGH_ALPHA1_ETC2(GL_COMPRESSED_SRGB8_PUNCHTHROUGH_ALPHA1_ETC2), /**
+		COMPRESSED_SRGB8_PUNCHTHROUGH_ALPHA1_ETC2(GL_COMPRESSED_SRGB8_PUNCHTHROUGH_ALPHA1_ETC2, 4, 8), /**
 		 * defines as compressed RGBA8-ETC2-EAC
 		 *
 		 * @see org.lwjgl.opengl.EXTTextureCompressionLATC
@@ -1066,7 +1189,7 @@ public class GLTexture implements GLObject, Raster {
 		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
 		 * @see org.lwjgl.opengl.ATITextureCompression3DC
 		 */
-		COMPRESSED_RGBA8_ETC2_EAC(GL_COMPRESSED_RGBA8_ETC2_EAC), /**
+		COMPRESSED_RGBA8_ETC2_EAC(GL_COMPRESSED_RGBA8_ETC2_EAC, 8, 16), /**
 		 * defines as compressed SRGB8-ALPHA8-ETC2-EAC
 		 *
 		 * @see org.lwjgl.opengl.EXTTextureCompressionLATC
@@ -1074,7 +1197,7 @@ public class GLTexture implements GLObject, Raster {
 		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
 		 * @see org.lwjgl.opengl.ATITextureCompression3DC
 		 */
-		COMPRESSED_SRGB8_ALPHA8_ETC2_EAC(GL_COMPRESSED_SRGB8_ALPHA8_ETC2_EAC), /**
+		COMPRESSED_SRGB8_ALPHA8_ETC2_EAC(GL_COMPRESSED_SRGB8_ALPHA8_ETC2_EAC, 8, 16), /**
 		 * defines as compressed signed RG11-EAC
 		 *
 		 * @see org.lwjgl.opengl.EXTTextureCompressionLATC
@@ -1082,17 +1205,139 @@ public class GLTexture implements GLObject, Raster {
 		 * @see org.lwjgl.opengl.EXTTextureCompressionS3TC
 		 * @see org.lwjgl.opengl.ATITextureCompression3DC
 		 */
-		COMPRESSED_SIGNED_RG11_EAC(GL_COMPRESSED_SIGNED_RG11_EAC);
+		COMPRESSED_SIGNED_RG11_EAC(GL_COMPRESSED_SIGNED_RG11_EAC, 8, 16);
+
+		private static final Map<Integer, InternalFormat> FORMATS = new HashMap<>();
+
+		static {
+			for (InternalFormat format : values())
+				FORMATS.putIfAbsent(format.glEnumConstant, format);
+		}
 
 		private final int glEnumConstant;
+		// bits per texel; for block-compressed formats, the average over a block
+		private final int bits;
+		// bytes per 4x4 block, or 0 if this format is not block-compressed
+		private final int blockBytes;
 
-		InternalFormat(int internalFormat) {
+		InternalFormat(int internalFormat, int bits) {
+			this(internalFormat, bits, 0);
+		}
+
+		InternalFormat(int internalFormat, int bits, int blockBytes) {
 			glEnumConstant = internalFormat;
+			this.bits = bits;
+			this.blockBytes = blockBytes;
+		}
+
+		/**
+		 * Gets the InternalFormat for the given GL enum constant.
+		 *
+		 * @param internalFormat the GL enum constant
+		 * @return the InternalFormat, or null if the constant is not an
+		 * InternalFormat
+		 */
+		public static InternalFormat get(int internalFormat) {
+			return FORMATS.get(internalFormat);
+		}
+
+		/**
+		 * Gets the format GL samples blocks of the given encoding as.
+		 *
+		 * @param block the block encoding
+		 * @return the block-compressed internal format
+		 */
+		public static InternalFormat get(BlockEncoder.Block block) {
+			switch (block) {
+				case BC1:
+					return COMPRESSED_RGB_S3TC_DXT1;
+				case BC3:
+					return COMPRESSED_RGBA_S3TC_DXT5;
+				case BC4:
+					return COMPRESSED_RED_RGTC1;
+				case BC5:
+					return COMPRESSED_RG_RGTC2;
+				default:
+					throw new IllegalArgumentException("Unknown block encoding: " + block);
+			}
 		}
 
 		public final int getGLEnumConstant() {
 			return glEnumConstant;
 		}
+
+		/**
+		 * Gets the number of bits a single texel occupies in video memory.
+		 * Generic compressed formats report their uncompressed size since the
+		 * driver chooses the actual encoding.
+		 *
+		 * @return the number of bits per texel
+		 */
+		public final int getBitsPerTexel() {
+			return bits;
+		}
+
+		/**
+		 * Checks whether this format is stored in fixed-size 4x4 blocks.
+		 *
+		 * @return true if this format is block-compressed
+		 */
+		public final boolean isBlockCompressed() {
+			return blockBytes != 0;
+		}
+
+		/**
+		 * @return the bytes per 4x4 block, or 0 if this format is not
+		 * block-compressed
+		 */
+		public final int getBlockBytes() {
+			return blockBytes;
+		}
+
+		/**
+		 * Checks whether the context can sample this format. Only the
+		 * S3TC, RGTC and BPTC families are checked; every other format is
+		 * assumed supported.
+		 *
+		 * @return true if textures of this format can be created
+		 */
+		public final boolean isSupported() {
+			switch (this) {
+				case COMPRESSED_RGB_S3TC_DXT1:
+				case COMPRESSED_RGBA_S3TC_DXT1:
+				case COMPRESSED_RGBA_S3TC_DXT3:
+				case COMPRESSED_RGBA_S3TC_DXT5:
+					return OpenGL.supports(Feature.EXT_TEXTURE_COMPRESSION_S3TC);
+				case COMPRESSED_RED_RGTC1:
+				case COMPRESSED_SIGNED_RED_RGTC1:
+				case COMPRESSED_RG_RGTC2:
+				case COMPRESSED_SIGNED_RG_RGTC2:
+					return OpenGL.supports(Feature.EXT_TEXTURE_COMPRESSION_RGTC) || OpenGL.supports(Feature.ARB_TEXTURE_COMPRESSION_RGTC);
+				case COMPRESSED_RGBA_BPTC_UNORM:
+				case COMPRESSED_SRGB_ALPHA_BPTC_UNORM:
+				case COMPRESSED_RGB_BPTC_SIGNED_FLOAT:
+				case COMPRESSED_RGB_BPTC_UNSIGNED_FLOAT:
+					return OpenGL.supports(Feature.ARB_TEXTURE_COMPRESSION_BPTC);
+				default:
+					return true;
+			}
+		}
+
+		/**
+		 * Computes the number of bytes an image of the given dimensions
+		 * occupies in this format. Block-compressed images are rounded up to
+		 * whole blocks.
+		 *
+		 * @param width  the width of the image
+		 * @param height the height of the image
+		 * @param depth  the depth of the image
+		 * @return the size of the image in bytes
+		 */
+		public final long footprint(int width, int height, int depth) {
+			if (blockBytes != 0)
+				return (long) ((width + 3) >> 2) * ((height + 3) >> 2) * depth * blockBytes;
+			return ((long) width * height * depth * bits + 7) >> 3;
+		}
 	}
 
 	public enum Format {
@@ -37,6 +37,9 @@ import sgl.opengl.error.UnsupportedProfileException;
 import java.nio.*;
 
 import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL13.GL_TEXTURE_CUBE_MAP;
+import static org.lwjgl.opengl.GL13.glCompressedTexImage2D;
+import static org.lwjgl.opengl.GL13.glCompressedTexSubImage2D;
 import static org.lwjgl.system.MemoryUtil.memAddress;
 
 /**
@@ -85,6 +88,8 @@ public class GLTexture2D extends GLTexture implements Raster2D {
 
 	protected GLTexture2D(int texture, int target, int level, int internalFormat, int width, int height, int border, int format, int type) {
 		super(texture, target, level, internalFormat, width * height, border, format, type);
+		this.width = width;
+		this.height = height;
 	}
 
 	@Override
@@ -107,6 +112,57 @@ public class GLTexture2D extends GLTexture implements Raster2D {
 		this.height = height;
 	}
 
+	@Override
+	public void allocate(ByteBuffer data) {
+		glTexImage2D(target, level, internalFormat, width, height, border, format, type, data);
+	}
+
+	/**
+	 * Specifies the storage for this texture's level from blocks of its
+	 * block-compressed internal format, such as those written by
+	 * {@link sgl.image.io.BlockEncoder}. This texture must be bound.
+	 *
+	 * @param data the blocks, left to right and top to bottom
+	 * @throws IllegalStateException    if the internal format isn't
+	 *                                  block-compressed
+	 * @throws IllegalArgumentException if the data isn't the size of the
+	 *                                  level
+	 */
+	public void allocateCompressed(ByteBuffer data) {
+		checkCompressed(data, width, height);
+		glCompressedTexImage2D(target, level, internalFormat, width, height, border, data);
+	}
+
+	/**
+	 * Replaces a region of this texture's level with blocks of its
+	 * block-compressed internal format. The region must be aligned to blocks,
+	 * except where it meets the right or bottom edge. This texture must be
+	 * bound.
+	 *
+	 * @param data the blocks, left to right and top to bottom
+	 */
+	public void setCompressed(int x, int y, int width, int height, ByteBuffer data) {
+		if ((x & 3) != 0 || (y & 3) != 0 || ((width & 3) != 0 && x + width != this.width) || ((height & 3) != 0 && y + height != this.height))
+			throw new IllegalArgumentException("Region isn't aligned to blocks: " + x + ", " + y + ", " + width + "x" + height);
+		checkCompressed(data, width, height);
+		glCompressedTexSubImage2D(target, level, x, y, width, height, internalFormat, data);
+	}
+
+	private void checkCompressed(ByteBuffer data, int width, int height) {
+		final InternalFormat format = InternalFormat.get(internalFormat);
+		if (format == null || !format.isBlockCompressed())
+			throw new IllegalStateException("Texture isn't block-compressed: 0x" + Integer.toHexString(internalFormat));
+		final long size = format.footprint(width, height, 1);
+		if (data.remaining() != size)
+			throw new IllegalArgumentException("Expected " + size + " bytes of blocks, got " + data.remaining());
+	}
+
+	@Override
+	public long getFootprint() {
+		// a cube map stores every level once per face
+		return footprint(width, height, 1) * (target == GL_TEXTURE_CUBE_MAP ? 6 : 1);
+	}
+
 	@Override
 	public void set(int x, int y, int width, int height, ByteBuffer data) {
 		glTexSubImage2D(target, level, x, y, width, height, format, type, data);
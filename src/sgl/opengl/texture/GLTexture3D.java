@@ -33,6 +33,7 @@ import sgl.buffer.Buffer3D;
 import java.nio.*;
 
 import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.glTexImage3D;
 import static org.lwjgl.opengl.GL12.glTexSubImage3D;
 import static org.lwjgl.system.MemoryUtil.memAddress;
 
@@ -90,6 +91,16 @@ public class GLTexture3D extends GLTexture2D implements Buffer3D {
 		this.depth = depth;
 	}
 
+	@Override
+	public void allocate(ByteBuffer data) {
+		glTexImage3D(target, level, internalFormat, width, height, depth, border, format, type, data);
+	}
+
+	@Override
+	public long getFootprint() {
+		return footprint(width, height, depth);
+	}
+
 	@Override
 	public void set(int x, int y, int z, int width, int height, int depth, ByteBuffer read) {
 		glTexSubImage3D(target, level, x, y, z, width, height, depth, format, type, read);
@@ -0,0 +1,371 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.opengl.texture;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.*;
+import static org.lwjgl.opengl.GL13.*;
+import static org.lwjgl.opengl.GL14.*;
+import static org.lwjgl.opengl.GL30.glGenerateMipmap;
+import static org.lwjgl.opengl.GL33.*;
+
+/**
+ * Keeps the video memory used by a set of GLTextures under a budget.
+ * <p>
+ * Each managed texture's footprint is computed from its
+ * {@link GLTexture.InternalFormat InternalFormat}, dimensions and
+ * {@link GLTexture#getLevels() levels}, and computed again whenever it is
+ * bound, so levels specified after {@link #manage(GLTexture, Source)} are
+ * counted from the next bind on. Binding a
+ * texture through {@link #bind(GLTexture)} marks it as most recently used;
+ * whenever the resident footprint exceeds the budget, the least recently
+ * bound textures are discarded until it fits again. A discarded texture is
+ * restored from its {@link Source} the next time it is bound, so callers
+ * never observe an evicted texture. Textures managed without a Source are
+ * never evicted.
+ * </p>
+ * <p>
+ * Before a texture is discarded its parameters (filters, wrap modes, level
+ * range, LOD, compare mode, swizzle and border color) and its number of
+ * {@link GLTexture#getLevels() levels} are recorded. After the Source has
+ * restored it, mipmap levels the Source didn't specify are regenerated from
+ * level 0 and the recorded parameters are applied again. Evicting binds the
+ * evicted textures, so the texture bound afterwards is only guaranteed for
+ * {@link #bind(GLTexture)} and {@link #manage(GLTexture, Source)}.
+ * </p>
+ * <p>
+ * <em>A GLTextureManager is not thread-safe and must only be used on the
+ * Thread that owns the OpenGL context.</em>
+ * </p>
+ *
+ * @author link
+ */
+public final class GLTextureManager {
+
+	// access-ordered, so iteration starts at the least recently bound texture
+	private final Map<GLTexture, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long budget;
+	private long residentBytes, evictedBytes;
+	private int evictions, restores;
+
+	/**
+	 * Creates a new GLTextureManager with the given budget.
+	 *
+	 * @param budget the maximum number of bytes of resident textures
+	 */
+	public GLTextureManager(long budget) {
+		this.budget = budget;
+	}
+
+	/**
+	 * Starts tracking the given texture. The texture is expected to be
+	 * resident (not discarded).
+	 *
+	 * @param texture the texture to manage
+	 * @param source  restores the texture's contents after eviction, or null
+	 *                if the texture must stay resident
+	 */
+	public void manage(GLTexture texture, Source source) {
+		final Entry entry = new Entry(texture.getFootprint(), source);
+		final Entry previous = entries.put(texture, entry);
+		if (previous != null) remove(previous);
+		residentBytes += entry.footprint;
+		trim(texture);
+		texture.bind();
+	}
+
+	/**
+	 * Binds the given texture, restoring it first if it was evicted, and
+	 * marks it as the most recently used texture. Unmanaged textures are bound
+	 * without tracking.
+	 *
+	 * @param texture the texture to bind
+	 */
+	public void bind(GLTexture texture) {
+		final Entry entry = entries.get(texture);
+		if (entry != null && !entry.resident) {
+			texture.generate();
+			texture.bind();
+			entry.source.restore(texture);
+			entry.reapply(texture);
+			entry.resident = true;
+			evictedBytes -= entry.footprint;
+			residentBytes += entry.footprint;
+			update(texture, entry);
+			restores++;
+			trim(texture);
+			texture.bind();
+		} else {
+			texture.bind();
+			// levels may have been added since the footprint was last computed
+			if (entry != null && update(texture, entry)) trim(texture);
+		}
+	}
+
+	/**
+	 * Stops tracking the given texture and discards it.
+	 *
+	 * @param texture the texture to release
+	 */
+	public void release(GLTexture texture) {
+		final Entry entry = entries.remove(texture);
+		if (entry == null) return;
+		remove(entry);
+		if (!texture.isDiscarded()) texture.discard();
+	}
+
+	/**
+	 * Releases every managed texture.
+	 */
+	public void releaseAll() {
+		for (GLTexture texture : entries.keySet())
+			if (!texture.isDiscarded()) texture.discard();
+		entries.clear();
+		residentBytes = evictedBytes = 0;
+	}
+
+	/**
+	 * Checks whether the given texture is currently in video memory. Unlike
+	 * {@link #bind(GLTexture)}, this does not count as a use.
+	 *
+	 * @param texture the texture to check
+	 * @return false if the texture has been evicted or discarded
+	 */
+	public boolean isResident(GLTexture texture) {
+		return !texture.isDiscarded();
+	}
+
+	public long getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Sets the budget, evicting textures immediately if the resident
+	 * footprint exceeds it.
+	 *
+	 * @param budget the maximum number of bytes of resident textures
+	 */
+	public void setBudget(long budget) {
+		this.budget = budget;
+		trim(null);
+	}
+
+	/**
+	 * Gets the number of bytes of managed textures in video memory.
+	 *
+	 * @return the resident footprint in bytes
+	 */
+	public long getResidentBytes() {
+		return residentBytes;
+	}
+
+	/**
+	 * Gets the number of bytes of managed textures that are currently
+	 * evicted.
+	 *
+	 * @return the evicted footprint in bytes
+	 */
+	public long getEvictedBytes() {
+		return evictedBytes;
+	}
+
+	public int getManagedCount() {
+		return entries.size();
+	}
+
+	/**
+	 * Gets the total number of evictions since this manager was created.
+	 *
+	 * @return the number of evictions
+	 */
+	public int getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Gets the total number of restores since this manager was created.
+	 *
+	 * @return the number of restores
+	 */
+	public int getRestores() {
+		return restores;
+	}
+
+	// evicts least recently bound textures, except keep, until under budget
+	private void trim(GLTexture keep) {
+		final Iterator<Map.Entry<GLTexture, Entry>> lru = entries.entrySet().iterator();
+		while (residentBytes > budget && lru.hasNext()) {
+			final Map.Entry<GLTexture, Entry> next = lru.next();
+			final GLTexture texture = next.getKey();
+			final Entry entry = next.getValue();
+			if (texture == keep || !entry.resident || entry.source == null) continue;
+
+			update(texture, entry);
+			texture.bind();
+			entry.record(texture);
+			texture.discard();
+			entry.resident = false;
+			residentBytes -= entry.footprint;
+			evictedBytes += entry.footprint;
+			evictions++;
+		}
+	}
+
+	// recomputes a resident texture's footprint, returning whether it grew
+	private boolean update(GLTexture texture, Entry entry) {
+		final long footprint = texture.getFootprint();
+		final long growth = footprint - entry.footprint;
+		if (growth == 0) return false;
+		entry.footprint = footprint;
+		residentBytes += growth;
+		return growth > 0;
+	}
+
+	private void remove(Entry entry) {
+		if (entry.resident) residentBytes -= entry.footprint;
+		else evictedBytes -= entry.footprint;
+	}
+
+	private static final class Entry {
+
+		// integer parameters, then float parameters, restored in this order
+		private static final int[] PARAMETERS = {
+				GL_TEXTURE_BASE_LEVEL, GL_TEXTURE_MAX_LEVEL, GL_TEXTURE_MIN_FILTER, GL_TEXTURE_MAG_FILTER,
+				GL_TEXTURE_WRAP_S, GL_TEXTURE_WRAP_T, GL_TEXTURE_WRAP_R, GL_TEXTURE_COMPARE_MODE, GL_TEXTURE_COMPARE_FUNC,
+				GL_TEXTURE_SWIZZLE_R, GL_TEXTURE_SWIZZLE_G, GL_TEXTURE_SWIZZLE_B, GL_TEXTURE_SWIZZLE_A
+		};
+		private static final int[] FLOAT_PARAMETERS = {GL_TEXTURE_MIN_LOD, GL_TEXTURE_MAX_LOD, GL_TEXTURE_LOD_BIAS};
+
+		private long footprint;
+		private final Source source;
+		private boolean resident = true;
+
+		// recorded on eviction, null until then
+		private int[] parameters;
+		private float[] floatParameters, borderColor;
+		private int levels = 1;
+
+		private Entry(long footprint, Source source) {
+			this.footprint = footprint;
+			this.source = source;
+		}
+
+		// reads the bound texture's state before it is discarded
+		private void record(GLTexture texture) {
+			final int target = texture.getTarget();
+			parameters = new int[PARAMETERS.length];
+			for (int i = 0; i < PARAMETERS.length; i++)
+				parameters[i] = glGetTexParameteri(target, PARAMETERS[i]);
+			floatParameters = new float[FLOAT_PARAMETERS.length];
+			for (int i = 0; i < FLOAT_PARAMETERS.length; i++)
+				floatParameters[i] = glGetTexParameterf(target, FLOAT_PARAMETERS[i]);
+			borderColor = new float[4];
+			glGetTexParameterfv(target, GL_TEXTURE_BORDER_COLOR, borderColor);
+			levels = texture.getLevels();
+		}
+
+		// fills in missing levels and applies the recorded state to the bound texture
+		private void reapply(GLTexture texture) {
+			final int target = texture.getTarget();
+			if (levels > 1 && isMissing(target, texture.getLevel() + 1)) glGenerateMipmap(target);
+			texture.setLevels(levels);
+			if (parameters == null) return;
+			for (int i = 0; i < PARAMETERS.length; i++)
+				glTexParameteri(target, PARAMETERS[i], parameters[i]);
+			for (int i = 0; i < FLOAT_PARAMETERS.length; i++)
+				glTexParameterf(target, FLOAT_PARAMETERS[i], floatParameters[i]);
+			glTexParameterfv(target, GL_TEXTURE_BORDER_COLOR, borderColor);
+		}
+
+		private static boolean isMissing(int target, int level) {
+			// a cube map's levels are queried per face
+			final int face = target == GL_TEXTURE_CUBE_MAP ? GL_TEXTURE_CUBE_MAP_POSITIVE_X : target;
+			return glGetTexLevelParameteri(face, level, GL_TEXTURE_WIDTH) == 0;
+		}
+	}
+
+	/**
+	 * Restores the contents of an evicted texture.
+	 */
+	@FunctionalInterface
+	public interface Source {
+
+		/**
+		 * Restores the given texture, which has a new GL name and is bound,
+		 * but has no storage yet. Specifying the texture's level is enough:
+		 * the manager regenerates any further mipmap levels from it and
+		 * re-applies the texture's parameters afterwards. A Source may
+		 * specify every level itself to keep levels that weren't generated.
+		 *
+		 * @param texture the texture to restore
+		 */
+		void restore(GLTexture texture);
+
+		/**
+		 * Creates a Source that restores from texel data kept in memory. The
+		 * buffer must stay valid for as long as the texture is managed.
+		 *
+		 * @param texels the texel data in the texture's format and type
+		 * @return a Source that uploads the given data
+		 */
+		static Source of(ByteBuffer texels) {
+			return texture -> texture.allocate(texels.duplicate());
+		}
+
+		/**
+		 * Creates a Source that restores from raw texel data in a file. The
+		 * file is memory-mapped for each restore, so nothing is kept in the
+		 * Java heap while the texture is evicted.
+		 *
+		 * @param file a file containing the texel data in the texture's format
+		 *             and type
+		 * @return a Source that uploads the contents of the file
+		 */
+		static Source file(Path file) {
+			return texture -> {
+				try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+					texture.allocate(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+				} catch (IOException e) {
+					throw new UncheckedIOException("Failed to restore texture from " + file, e);
+				}
+			};
+		}
+	}
+
+}
@@ -0,0 +1,323 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.opengl.texture;
+
+import sgl.image.color.space.ColorSpace;
+import sgl.image.io.ImageDecoder;
+import sgl.image.io.ImageReader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.system.MemoryUtil.memAlloc;
+import static org.lwjgl.system.MemoryUtil.memFree;
+
+/**
+ * Loads image files into RGBA8 {@link GLTexture2D}s, decoding many at once
+ * on a fixed pool of worker Threads and uploading them on the GL Thread a
+ * bounded number of bytes per frame.
+ * <p>
+ * Workers decode images a strip of rows at a time and queue each strip for
+ * upload, waiting while more than the pending limit of decoded bytes is
+ * queued, so memory stays bounded however many images are requested. Each
+ * {@link #update()} on the GL Thread uploads queued strips until the
+ * frame's budget is spent, creating a texture before its first strip.
+ * Requests for a file already being loaded share its future.
+ * </p>
+ * <p>
+ * Futures complete on the GL Thread during {@link #update()}, so their
+ * callbacks may use the texture straight away. Loaded textures filter
+ * linearly without mipmaps.
+ * </p>
+ *
+ * @author link
+ */
+public final class TextureLoader implements AutoCloseable {
+
+	public static final long DEFAULT_BUDGET = 8L << 20, DEFAULT_PENDING = 64L << 20;
+
+	private static final ColorSpace.Format RGBA = new ColorSpace.Format(ColorSpace.Format.RGBA_BYTE_2);
+	private static final AtomicInteger THREADS = new AtomicInteger();
+
+	private final ExecutorService workers;
+	// KiB of decoded strips that may wait for upload
+	private final Semaphore pending;
+	private final int pendingKiB;
+	private final Queue<Upload> uploads = new ConcurrentLinkedQueue<>();
+	// assets being loaded, by absolute path
+	private final Map<Path, Asset> loading = new ConcurrentHashMap<>();
+	private final AtomicInteger requested = new AtomicInteger(), loaded = new AtomicInteger(), failed = new AtomicInteger();
+
+	private volatile long budget;
+	private volatile boolean closed;
+
+	/**
+	 * Creates a loader with a worker per core but one, left for the GL
+	 * Thread.
+	 */
+	public TextureLoader() {
+		this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), DEFAULT_BUDGET, DEFAULT_PENDING);
+	}
+
+	/**
+	 * @param threads the number of decoding Threads
+	 * @param budget  the bytes to upload per {@link #update()}; at least one
+	 *                strip is uploaded regardless
+	 * @param pending the most bytes of decoded strips to queue for upload
+	 */
+	public TextureLoader(int threads, long budget, long pending) {
+		if (threads < 1) throw new IllegalArgumentException("threads must be positive: " + threads);
+		this.budget = budget;
+		this.pendingKiB = (int) Math.min(Integer.MAX_VALUE, Math.max(1, pending >> 10));
+		this.pending = new Semaphore(pendingKiB);
+		this.workers = Executors.newFixedThreadPool(threads, r -> {
+			final Thread thread = new Thread(r, "TextureLoader-" + THREADS.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Starts loading a PNG or QOI file, or joins the load already under way.
+	 * Safe to call from any Thread.
+	 *
+	 * @param file the image file
+	 * @return the future of the texture, completed on the GL Thread
+	 */
+	public CompletableFuture<GLTexture2D> load(Path file) {
+		final Path key = file.toAbsolutePath().normalize();
+		final Asset[] created = new Asset[1];
+		final Asset asset = loading.computeIfAbsent(key, k -> created[0] = new Asset(k));
+		if (asset == created[0]) {
+			requested.incrementAndGet();
+			try {
+				if (closed) throw new RejectedExecutionException("TextureLoader is closed");
+				workers.execute(() -> decode(asset));
+			} catch (RejectedExecutionException e) {
+				loading.remove(key, asset);
+				failed.incrementAndGet();
+				asset.future.completeExceptionally(new CancellationException("TextureLoader is closed"));
+			}
+		}
+		return asset.future;
+	}
+
+	/**
+	 * Decodes an image into strips and queues them. Runs on a worker.
+	 */
+	private void decode(Asset asset) {
+		try (ImageDecoder decoder = ImageReader.open(asset.path, RGBA)) {
+			final int width = decoder.getWidth(), height = decoder.getHeight(), stride = width << 2;
+			final int rows = Math.max(1, Math.min(height, ImageReader.STRIP_BYTES / stride));
+			asset.width = width;
+			asset.height = height;
+			while (decoder.getRow() < height && !closed) {
+				final int row = decoder.getRow(), count = Math.min(rows, height - row);
+				final int permits = (int) Math.min(pendingKiB, Math.max(1, (long) count * stride >> 10));
+				pending.acquire(permits);
+				ByteBuffer strip = null;
+				try {
+					strip = memAlloc(count * stride);
+					decoder.decode(strip, count);
+				} catch (IOException | RuntimeException e) {
+					// the strip is only handed over once it is queued
+					if (strip != null) memFree(strip);
+					pending.release(permits);
+					throw e;
+				}
+				strip.flip();
+				uploads.add(new Upload(asset, row, count, strip, permits, null));
+			}
+		} catch (IOException | RuntimeException e) {
+			uploads.add(new Upload(asset, 0, 0, null, 0, e));
+		} catch (InterruptedException e) {
+			// closing; close() cancels the asset
+		}
+	}
+
+	/**
+	 * Uploads queued strips until the budget is spent, and completes the
+	 * futures of the textures finished. Must be called on the GL Thread,
+	 * such as once per frame.
+	 *
+	 * @return the number of bytes uploaded
+	 */
+	public long update() {
+		final long budget = this.budget;
+		long spent = 0;
+		GLTexture2D bound = null;
+		for (Upload upload; (spent == 0 || spent < budget) && (upload = uploads.poll()) != null; ) {
+			final Asset asset = upload.asset;
+			if (upload.error != null) {
+				fail(asset, upload.error);
+				continue;
+			}
+
+			if (asset.texture == null) {
+				asset.texture = new GLTexture2D(GLTexture.Target.TEXTURE_2D, GL_RGBA8, asset.width, asset.height, GL_RGBA, GL_UNSIGNED_BYTE);
+				asset.texture.bind();
+				asset.texture.allocate(null);
+				asset.texture.setMinFilter(GL_LINEAR);
+				bound = asset.texture;
+			} else if (bound != asset.texture) {
+				asset.texture.bind();
+				bound = asset.texture;
+			}
+			asset.texture.set(0, upload.row, asset.width, upload.rows, upload.strip);
+			spent += upload.strip.remaining();
+			memFree(upload.strip);
+			pending.release(upload.permits);
+
+			if (upload.row + upload.rows == asset.height) {
+				loading.remove(asset.path, asset);
+				loaded.incrementAndGet();
+				asset.future.complete(asset.texture);
+			}
+		}
+		return spent;
+	}
+
+	private void fail(Asset asset, Exception error) {
+		if (asset.texture != null) asset.texture.discard();
+		loading.remove(asset.path, asset);
+		failed.incrementAndGet();
+		asset.future.completeExceptionally(error);
+	}
+
+	/**
+	 * @return the fraction of requested textures loaded or failed
+	 */
+	public float getProgress() {
+		final int requested = this.requested.get();
+		return requested == 0 ? 1 : (float) (loaded.get() + failed.get()) / requested;
+	}
+
+	/**
+	 * @return the number of textures requested, not counting requests that
+	 * joined a load under way
+	 */
+	public int getRequested() {
+		return requested.get();
+	}
+
+	public int getLoaded() {
+		return loaded.get();
+	}
+
+	public int getFailed() {
+		return failed.get();
+	}
+
+	/**
+	 * @return whether every requested texture is loaded or failed
+	 */
+	public boolean isIdle() {
+		return loading.isEmpty();
+	}
+
+	public long getBudget() {
+		return budget;
+	}
+
+	public void setBudget(long budget) {
+		this.budget = budget;
+	}
+
+	/**
+	 * Stops the workers, frees queued strips, discards partly uploaded
+	 * textures and cancels the futures of unfinished loads. Must be called
+	 * on the GL Thread.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		workers.shutdownNow();
+		boolean interrupted = false;
+		while (true) {
+			try {
+				if (workers.awaitTermination(1, TimeUnit.SECONDS)) break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		for (Upload upload; (upload = uploads.poll()) != null; ) {
+			if (upload.strip != null) memFree(upload.strip);
+			pending.release(upload.permits);
+		}
+		for (Asset asset : loading.values()) fail(asset, new CancellationException("TextureLoader is closed"));
+		if (interrupted) Thread.currentThread().interrupt();
+	}
+
+	private static final class Asset {
+
+		final Path path;
+		final CompletableFuture<GLTexture2D> future = new CompletableFuture<>();
+		// written by the worker before queueing the first strip
+		int width, height;
+		// only used on the GL Thread
+		GLTexture2D texture;
+
+		Asset(Path path) {
+			this.path = path;
+		}
+
+	}
+
+	private static final class Upload {
+
+		final Asset asset;
+		final int row, rows, permits;
+		final ByteBuffer strip;
+		final Exception error;
+
+		Upload(Asset asset, int row, int rows, ByteBuffer strip, int permits, Exception error) {
+			this.asset = asset;
+			this.row = row;
+			this.rows = rows;
+			this.strip = strip;
+			this.permits = permits;
+			this.error = error;
+		}
+
+	}
+
+}
@@ -0,0 +1,99 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.opengl.texture.mip;
+
+import sgl.opengl.OpenGL;
+import sgl.opengl.OpenGL.Feature;
+import sgl.opengl.error.UnsupportedFeatureException;
+import sgl.opengl.texture.GLTexture2D;
+
+import java.nio.ByteBuffer;
+
+import static org.lwjgl.opengl.GL11.GL_UNPACK_ALIGNMENT;
+import static org.lwjgl.opengl.GL11.glGetInteger;
+import static org.lwjgl.opengl.GL11.glPixelStorei;
+import static org.lwjgl.opengl.GL11.glTexImage2D;
+import static org.lwjgl.opengl.GL30.glGenerateMipmap;
+
+/**
+ * Builds the mipmap levels of a {@link GLTexture2D}, either on the GPU or
+ * from a {@link MipChain} generated on the CPU.
+ *
+ * @author link
+ */
+public enum GLMipmaps {
+	;
+
+	/**
+	 * Generates every level of the given texture from its level 0 on the GPU.
+	 * The texture must be allocated and its level 0 filled.
+	 *
+	 * @param texture the texture
+	 */
+	public static void generate(GLTexture2D texture) {
+		if (!OpenGL.supports(Feature.EXT_FRAMEBUFFER_OBJECT))
+			throw new UnsupportedFeatureException(GLMipmaps.class, Feature.EXT_FRAMEBUFFER_OBJECT);
+
+		texture.bind();
+		glGenerateMipmap(texture.getTarget());
+		texture.setBaseLevel(0);
+		texture.setMaxLevel(MipChain.levels(texture.getWidth(), texture.getHeight()) - 1);
+		texture.setLevels(MipChain.levels(texture.getWidth(), texture.getHeight()));
+	}
+
+	/**
+	 * Uploads every level of the given chain into the texture at once. The
+	 * texture's format and type must describe the chain's texels, which is
+	 * normally {@code GL_UNSIGNED_BYTE} with a format matching
+	 * {@link MipChain#getComponents()}.
+	 *
+	 * @param texture the texture
+	 * @param chain   the chain
+	 */
+	public static void upload(GLTexture2D texture, MipChain chain) {
+		texture.bind();
+		for (int i = 0; i < chain.getLevels(); i++)
+			upload(texture, i, chain.getWidth(i), chain.getHeight(i), chain.getLevel(i));
+		texture.setBaseLevel(0);
+		texture.setMaxLevel(chain.getLevels() - 1);
+		texture.setLevels(chain.getLevels());
+	}
+
+	/**
+	 * Uploads a single level into the bound texture. Rows are read tightly
+	 * packed, whatever their width; a {@code null} buffer only allocates the
+	 * level.
+	 */
+	static void upload(GLTexture2D texture, int level, int width, int height, ByteBuffer data) {
+		final int alignment = glGetInteger(GL_UNPACK_ALIGNMENT);
+		glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
+		glTexImage2D(texture.getTarget(), level, texture.getInternalFormat(), width, height, 0, texture.getFormat(), texture.getType(), data);
+		glPixelStorei(GL_UNPACK_ALIGNMENT, alignment);
+	}
+
+}
@@ -0,0 +1,148 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.opengl.texture.mip;
+
+import org.lwjgl.system.NativeResource;
+
+import java.nio.ByteBuffer;
+
+import static org.lwjgl.system.MemoryUtil.memAlloc;
+import static org.lwjgl.system.MemoryUtil.memFree;
+
+/**
+ * A complete mipmap chain built on the CPU, with every level stored off-heap.
+ * <p>
+ * Level 0 is the caller's buffer and is never copied or freed by the chain;
+ * {@link #free()} releases only the generated levels.
+ * </p>
+ *
+ * @author link
+ */
+public final class MipChain implements NativeResource {
+
+	private final int components;
+	private final int[] widths, heights;
+	private final ByteBuffer[] levels;
+
+	private MipChain(int components, int[] widths, int[] heights, ByteBuffer[] levels) {
+		this.components = components;
+		this.widths = widths;
+		this.heights = heights;
+		this.levels = levels;
+	}
+
+	/**
+	 * Generates a full mipmap chain for the given image.
+	 *
+	 * @param base       the level 0 texels, tightly packed rows of 8-bit
+	 *                   components
+	 * @param width      the width of level 0
+	 * @param height     the height of level 0
+	 * @param components the number of components per texel (1 to 4)
+	 * @param filter     the filter used to halve each level
+	 * @return the generated chain
+	 */
+	public static MipChain generate(ByteBuffer base, int width, int height, int components, MipFilter filter) {
+		if (components < 1 || components > 4)
+			throw new IllegalArgumentException("components must be between 1 and 4: " + components);
+		if (base.remaining() < bytes(width, height, components))
+			throw new IllegalArgumentException("base level is smaller than " + width + "x" + height + "x" + components);
+
+		final int count = levels(width, height);
+		final int[] widths = new int[count], heights = new int[count];
+		final ByteBuffer[] levels = new ByteBuffer[count];
+
+		widths[0] = width;
+		heights[0] = height;
+		levels[0] = base.slice();
+
+		for (int i = 1; i < count; i++) {
+			widths[i] = Math.max(1, widths[i - 1] >> 1);
+			heights[i] = Math.max(1, heights[i - 1] >> 1);
+			levels[i] = memAlloc((int) bytes(widths[i], heights[i], components));
+			filter.downsample(levels[i - 1], widths[i - 1], heights[i - 1], levels[i], widths[i], heights[i], components);
+		}
+
+		return new MipChain(components, widths, heights, levels);
+	}
+
+	// a level must fit in a single buffer; larger images are streamed through a TileFile
+	private static long bytes(int width, int height, int components) {
+		final long bytes = (long) width * height * components;
+		if (bytes > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Image is too large for a MipChain: " + width + "x" + height + "x" + components);
+		return bytes;
+	}
+
+	/**
+	 * Gets the number of levels in a full mipmap chain for the given size.
+	 *
+	 * @param width  the width of level 0
+	 * @param height the height of level 0
+	 * @return the number of levels, including level 0
+	 */
+	public static int levels(int width, int height) {
+		return 32 - Integer.numberOfLeadingZeros(Math.max(1, Math.max(width, height)));
+	}
+
+	public int getLevels() {
+		return levels.length;
+	}
+
+	public int getComponents() {
+		return components;
+	}
+
+	public int getWidth(int level) {
+		return widths[level];
+	}
+
+	public int getHeight(int level) {
+		return heights[level];
+	}
+
+	/**
+	 * Gets the texels of the given level. The returned buffer is a view; its
+	 * position and limit may be changed freely.
+	 *
+	 * @param level the level
+	 * @return the texels of the level
+	 */
+	public ByteBuffer getLevel(int level) {
+		return levels[level].duplicate();
+	}
+
+	@Override
+	public void free() {
+		for (int i = 1; i < levels.length; i++) {
+			if (levels[i] != null) memFree(levels[i]);
+			levels[i] = null;
+		}
+	}
+
+}
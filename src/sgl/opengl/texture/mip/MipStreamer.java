@@ -0,0 +1,175 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.opengl.texture.mip;
+
+import sgl.opengl.texture.GLTexture2D;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Streams the levels of a {@link GLTexture2D} in from coarsest to finest.
+ * <p>
+ * Levels may be {@link #offer(int, ByteBuffer) offered} from any Thread, in
+ * any order, as they are loaded or decoded. Each {@link #update()} on the GL
+ * Thread uploads the levels that are ready and lowers
+ * {@code GL_TEXTURE_BASE_LEVEL} to the finest level for which every coarser
+ * level has arrived, so the texture is always complete and sharpens as data
+ * comes in.
+ * </p>
+ * <p>
+ * Offered buffers are only read during {@link #update()} and stay owned by
+ * the caller, who may free them once {@link #getBaseLevel()} has passed
+ * their level.
+ * </p>
+ *
+ * @author link
+ */
+public final class MipStreamer {
+
+	private final GLTexture2D texture;
+	private final int levels;
+	private final int[] widths, heights;
+	private final AtomicReferenceArray<ByteBuffer> pending;
+
+	private long budget;
+	private int base;
+
+	/**
+	 * Creates a streamer with no per-update upload budget.
+	 *
+	 * @param texture the texture, which must already be generated
+	 */
+	public MipStreamer(GLTexture2D texture) {
+		this(texture, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Creates a streamer and allocates storage for every level of the
+	 * texture. Must be called on the GL Thread.
+	 *
+	 * @param texture the texture, which must already be generated
+	 * @param budget  the number of bytes to upload per {@link #update()}; at
+	 *                least one ready level is uploaded regardless
+	 */
+	public MipStreamer(GLTexture2D texture, long budget) {
+		this.texture = texture;
+		this.budget = budget;
+		this.levels = MipChain.levels(texture.getWidth(), texture.getHeight());
+		this.widths = new int[levels];
+		this.heights = new int[levels];
+		this.pending = new AtomicReferenceArray<>(levels);
+		this.base = levels;
+
+		texture.bind();
+		for (int i = 0; i < levels; i++) {
+			widths[i] = Math.max(1, texture.getWidth() >> i);
+			heights[i] = Math.max(1, texture.getHeight() >> i);
+			GLMipmaps.upload(texture, i, widths[i], heights[i], null);
+		}
+		texture.setMaxLevel(levels - 1);
+		texture.setBaseLevel(levels - 1);
+		texture.setLevels(levels);
+	}
+
+	/**
+	 * Hands over the texels of a level. Safe to call from any Thread.
+	 *
+	 * @param level the level
+	 * @param data  the texels, tightly packed in the texture's format and type
+	 */
+	public void offer(int level, ByteBuffer data) {
+		if (level < 0 || level >= levels)
+			throw new IndexOutOfBoundsException("level " + level + " of " + levels);
+		pending.set(level, data);
+	}
+
+	/**
+	 * Hands over every level of a chain, coarsest first.
+	 *
+	 * @param chain the chain, which must match the texture's size
+	 */
+	public void offer(MipChain chain) {
+		for (int i = Math.min(levels, chain.getLevels()) - 1; i >= 0; i--)
+			offer(i, chain.getLevel(i));
+	}
+
+	/**
+	 * Uploads ready levels, coarsest first, until the budget is spent or the
+	 * next level has not arrived. Must be called on the GL Thread.
+	 *
+	 * @return whether every level has been uploaded
+	 */
+	public boolean update() {
+		if (base == 0) return true;
+
+		long spent = 0;
+		int next = base;
+		texture.bind();
+		while (next > 0 && (next == base || spent < budget)) {
+			final ByteBuffer data = pending.getAndSet(next - 1, null);
+			if (data == null) break;
+			next--;
+			GLMipmaps.upload(texture, next, widths[next], heights[next], data);
+			spent += data.remaining();
+		}
+
+		if (next != base) {
+			base = next;
+			texture.setBaseLevel(base);
+		}
+		return base == 0;
+	}
+
+	/**
+	 * Gets the finest level uploaded so far, or the level count when none
+	 * has been.
+	 *
+	 * @return the current base level
+	 */
+	public int getBaseLevel() {
+		return base;
+	}
+
+	public int getLevels() {
+		return levels;
+	}
+
+	public boolean isComplete() {
+		return base == 0;
+	}
+
+	public long getBudget() {
+		return budget;
+	}
+
+	public void setBudget(long budget) {
+		this.budget = budget;
+	}
+
+}
@@ -0,0 +1,131 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.opengl.texture.virtual;
+
+import java.util.Arrays;
+
+/**
+ * Maps every tile of a {@link TileFile} to the cache slot holding it.
+ * <p>
+ * Tiles are numbered as pages: the tiles of level 0 in row-major order,
+ * then those of level 1, and so on. The table is a flat int array indexed
+ * by page, holding the slot or {@link #ABSENT}.
+ * </p>
+ *
+ * @author link
+ */
+public final class PageTable {
+
+	public static final int ABSENT = -1;
+
+	private final int levels;
+	private final int[] tilesX, tilesY, offsets;
+	private final int[] slots;
+
+	PageTable(TileFile file) {
+		this.levels = file.getLevels();
+		this.tilesX = new int[levels];
+		this.tilesY = new int[levels];
+		this.offsets = new int[levels + 1];
+		for (int i = 0; i < levels; i++) {
+			tilesX[i] = file.getTilesX(i);
+			tilesY[i] = file.getTilesY(i);
+			offsets[i] = file.getOffset(i);
+		}
+		offsets[levels] = file.getTileCount();
+		this.slots = new int[offsets[levels]];
+		Arrays.fill(slots, ABSENT);
+	}
+
+	public int page(int level, int tx, int ty) {
+		return offsets[level] + ty * tilesX[level] + tx;
+	}
+
+	public int getLevel(int page) {
+		int level = 0;
+		while (page >= offsets[level + 1]) level++;
+		return level;
+	}
+
+	public int getTileX(int page) {
+		final int level = getLevel(page);
+		return (page - offsets[level]) % tilesX[level];
+	}
+
+	public int getTileY(int page) {
+		final int level = getLevel(page);
+		return (page - offsets[level]) / tilesX[level];
+	}
+
+	public int getSlot(int page) {
+		return slots[page];
+	}
+
+	public boolean isResident(int page) {
+		return slots[page] != ABSENT;
+	}
+
+	void setSlot(int page, int slot) {
+		slots[page] = slot;
+	}
+
+	/**
+	 * Finds the finest resident tile covering the given tile, which is the
+	 * tile itself when it is resident and otherwise its nearest resident
+	 * ancestor in a coarser level.
+	 *
+	 * @param level the level
+	 * @param tx    the tile column
+	 * @param ty    the tile row
+	 * @return the page of the resident tile, or {@link #ABSENT} if none is
+	 */
+	public int resolve(int level, int tx, int ty) {
+		for (; level < levels; level++, tx >>= 1, ty >>= 1) {
+			final int page = page(level, Math.min(tx, tilesX[level] - 1), Math.min(ty, tilesY[level] - 1));
+			if (slots[page] != ABSENT) return page;
+		}
+		return ABSENT;
+	}
+
+	public int getLevels() {
+		return levels;
+	}
+
+	public int getTilesX(int level) {
+		return tilesX[level];
+	}
+
+	public int getTilesY(int level) {
+		return tilesY[level];
+	}
+
+	public int getPageCount() {
+		return slots.length;
+	}
+
+}
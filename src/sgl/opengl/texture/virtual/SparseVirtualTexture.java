@@ -0,0 +1,173 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.opengl.texture.virtual;
+
+import sgl.opengl.OpenGL;
+import sgl.opengl.OpenGL.Feature;
+import sgl.opengl.error.UnsupportedFeatureException;
+import sgl.opengl.texture.GLTexture.Target;
+import sgl.opengl.texture.GLTexture2D;
+
+import java.nio.ByteBuffer;
+
+import static org.lwjgl.opengl.ARBSparseTexture.*;
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.GL_CLAMP_TO_EDGE;
+import static org.lwjgl.opengl.GL42.glGetInternalformativ;
+import static org.lwjgl.opengl.GL42.glTexStorage2D;
+
+/**
+ * A {@link VirtualTexture} backed by a single ARB_sparse_texture, whose
+ * pages are committed as tiles become resident and decommitted as they are
+ * evicted.
+ * <p>
+ * The texture covers the whole image, so sampling needs no indirection;
+ * shaders should clamp their level of detail to the level that
+ * {@link PageTable#resolve(int, int, int)} reports for the sampled tile,
+ * since uncommitted pages read as undefined. The mip tail, which the driver
+ * can only commit as a whole, is committed and uploaded up front.
+ * </p>
+ *
+ * @author link
+ */
+public class SparseVirtualTexture extends VirtualTexture {
+
+	private final GLTexture2D texture;
+	private final int format, sparseLevels;
+
+	/**
+	 * Creates a sparse virtual texture. Must be called on the GL Thread.
+	 *
+	 * @param file     the tiles to stream from, whose tile size must be a
+	 *                 multiple of the virtual page size of its format
+	 * @param capacity the number of tiles that may be committed at once
+	 */
+	public SparseVirtualTexture(TileFile file, int capacity) {
+		super(file, capacity);
+		if (!supports(file))
+			throw new UnsupportedFeatureException(SparseVirtualTexture.class, Feature.ARB_SPARSE_TEXTURE);
+
+		final int internalFormat = internalFormat(file.getComponents());
+		this.format = format(file.getComponents());
+		this.texture = new GLTexture2D(Target.TEXTURE_2D, internalFormat, file.getWidth(), file.getHeight(), format, GL_UNSIGNED_BYTE);
+
+		texture.bind();
+		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_SPARSE_ARB, GL_TRUE);
+		glTexParameteri(GL_TEXTURE_2D, GL_VIRTUAL_PAGE_SIZE_INDEX_ARB, 0);
+		glTexStorage2D(GL_TEXTURE_2D, file.getLevels(), internalFormat, file.getWidth(), file.getHeight());
+		texture.setMinFilter(GL_LINEAR_MIPMAP_LINEAR);
+		texture.setMagFilter(GL_LINEAR);
+		texture.setWrapS(GL_CLAMP_TO_EDGE);
+		texture.setWrapT(GL_CLAMP_TO_EDGE);
+		this.sparseLevels = Math.min(file.getLevels(), glGetTexParameteri(GL_TEXTURE_2D, GL_NUM_SPARSE_LEVELS_ARB));
+
+		for (int level = sparseLevels; level < file.getLevels(); level++) {
+			glTexPageCommitmentARB(GL_TEXTURE_2D, level, 0, 0, 0, file.getWidth(level), file.getHeight(level), 1, true);
+			for (int ty = 0; ty < table.getTilesY(level); ty++)
+				for (int tx = 0; tx < table.getTilesX(level); tx++)
+					pin(table.page(level, tx, ty));
+		}
+		initialize();
+		OpenGL.checkError(SparseVirtualTexture.class);
+	}
+
+	/**
+	 * Checks whether a sparse texture can hold the given file on this
+	 * platform. Must be called on the GL Thread.
+	 *
+	 * @param file the tile file
+	 * @return true if a {@link SparseVirtualTexture} can be created for it
+	 */
+	public static boolean supports(TileFile file) {
+		if (!OpenGL.supports(Feature.ARB_SPARSE_TEXTURE) || !OpenGL.supports(Feature.ARB_TEXTURE_STORAGE))
+			return false;
+		if (file.getComponents() < 3 && !OpenGL.supports(30))
+			return false;
+
+		final int max = glGetInteger(GL_MAX_SPARSE_TEXTURE_SIZE_ARB);
+		if (file.getWidth() > max || file.getHeight() > max)
+			return false;
+
+		final int internalFormat = internalFormat(file.getComponents());
+		final int[] value = new int[1];
+		glGetInternalformativ(GL_TEXTURE_2D, internalFormat, GL_NUM_VIRTUAL_PAGE_SIZES_ARB, value);
+		if (value[0] == 0) return false;
+		glGetInternalformativ(GL_TEXTURE_2D, internalFormat, GL_VIRTUAL_PAGE_SIZE_X_ARB, value);
+		final int pageX = value[0];
+		glGetInternalformativ(GL_TEXTURE_2D, internalFormat, GL_VIRTUAL_PAGE_SIZE_Y_ARB, value);
+		final int pageY = value[0];
+		return pageX > 0 && pageY > 0 && file.getTileSize() % pageX == 0 && file.getTileSize() % pageY == 0;
+	}
+
+	@Override
+	protected void upload(int slot, int level, int tx, int ty, ByteBuffer data) {
+		final int size = file.getTileSize();
+		final int x = tx * size, y = ty * size;
+		final int w = Math.min(size, file.getWidth(level) - x), h = Math.min(size, file.getHeight(level) - y);
+
+		// the texture holds the whole image, so the gutter is skipped
+		final int padded = file.getPaddedSize(), gutter = file.getGutter();
+		data.position((gutter * padded + gutter) * file.getComponents());
+
+		texture.bind();
+		if (level < sparseLevels)
+			glTexPageCommitmentARB(GL_TEXTURE_2D, level, x, y, 0, w, h, 1, true);
+		subImage(GL_TEXTURE_2D, level, x, y, w, h, padded, format, data);
+	}
+
+	@Override
+	protected void evict(int slot, int level, int tx, int ty) {
+		if (level >= sparseLevels) return;
+		final int size = file.getTileSize();
+		final int x = tx * size, y = ty * size;
+		final int w = Math.min(size, file.getWidth(level) - x), h = Math.min(size, file.getHeight(level) - y);
+
+		texture.bind();
+		glTexPageCommitmentARB(GL_TEXTURE_2D, level, x, y, 0, w, h, 1, false);
+	}
+
+	@Override
+	public void discard() {
+		texture.discard();
+	}
+
+	public GLTexture2D getTexture() {
+		return texture;
+	}
+
+	/**
+	 * Gets the number of levels that are committed page by page; coarser
+	 * levels form the mip tail and are always resident.
+	 *
+	 * @return the number of sparse levels
+	 */
+	public int getSparseLevels() {
+		return sparseLevels;
+	}
+
+}
@@ -0,0 +1,465 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.opengl.texture.virtual;
+
+import sgl.opengl.texture.mip.MipChain;
+import sgl.opengl.texture.mip.MipFilter;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.lwjgl.system.MemoryUtil.memAlloc;
+import static org.lwjgl.system.MemoryUtil.memFree;
+
+/**
+ * A memory-mapped file of fixed-size image tiles for every mipmap level of
+ * an image, read by a {@link VirtualTexture}.
+ * <p>
+ * The file is a 32 byte big-endian header ({@code 'SGLT'}, version, width,
+ * height, tile size, components, levels, gutter) followed by the tiles of
+ * each level, finest first, in row-major order. Every tile is stored with a
+ * gutter of neighbouring texels on each side, so it is
+ * {@code (tileSize + 2 * gutter)^2 * components} bytes; the gutter lets a
+ * tile be filtered on its own without bleeding in texels from whatever is
+ * resident next to it. Texels past the edges of a level repeat its last
+ * column and row. Version 1 files have no gutter.
+ * </p>
+ * <p>
+ * Writing never holds a whole level in memory: level 0 is read from a
+ * {@link RowSource} one row of tiles at a time, and each further level is
+ * filtered from the tiles of the previous level already in the file.
+ * </p>
+ *
+ * @author link
+ */
+public final class TileFile implements AutoCloseable {
+
+	public static final int MAGIC = 0x53474C54;
+	public static final int VERSION = 2;
+
+	private static final int HEADER = 32;
+
+	// mapped segments are kept under 1 GiB and hold a whole number of tiles
+	private static final long SEGMENT = 1L << 30;
+
+	private final FileChannel channel;
+	private final int width, height, tileSize, gutter, components, levels, tileBytes, tilesPerSegment;
+	private final int[] tilesX, tilesY, offsets;
+	private final ByteBuffer[] segments;
+
+	private TileFile(FileChannel channel) throws IOException {
+		this.channel = channel;
+
+		final ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+		if (header.getInt(0) != MAGIC)
+			throw new IOException("Not a tile file");
+		final int version = header.getInt(4);
+		if (version != 1 && version != VERSION)
+			throw new IOException("Unsupported tile file version: " + version);
+
+		width = header.getInt(8);
+		height = header.getInt(12);
+		tileSize = header.getInt(16);
+		components = header.getInt(20);
+		levels = header.getInt(24);
+		gutter = version == 1 ? 0 : header.getInt(28);
+		tileBytes = tileBytes(tileSize, gutter, components);
+		tilesPerSegment = (int) Math.max(1, SEGMENT / tileBytes);
+
+		tilesX = new int[levels];
+		tilesY = new int[levels];
+		offsets = new int[levels + 1];
+		layout(width, height, tileSize, tilesX, tilesY, offsets);
+
+		final int count = offsets[levels];
+		if (channel.size() < HEADER + (long) count * tileBytes)
+			throw new IOException("Tile file is truncated");
+
+		segments = new ByteBuffer[(count + tilesPerSegment - 1) / tilesPerSegment];
+		for (int i = 0; i < segments.length; i++) {
+			final int first = i * tilesPerSegment;
+			final int n = Math.min(tilesPerSegment, count - first);
+			segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER + (long) first * tileBytes, (long) n * tileBytes);
+		}
+	}
+
+	/**
+	 * Maps the given tile file.
+	 *
+	 * @param path the file
+	 * @return the mapped file
+	 * @throws IOException if the file can't be read or isn't a tile file
+	 */
+	public static TileFile open(Path path) throws IOException {
+		final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			return new TileFile(channel);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Writes every level of an image held in a single buffer to a new tile
+	 * file.
+	 *
+	 * @param path       the file
+	 * @param image      the level 0 texels, tightly packed rows of 8-bit
+	 *                   components
+	 * @param width      the width of level 0
+	 * @param height     the height of level 0
+	 * @param components the number of components per texel (1 to 4)
+	 * @param tileSize   the width and height of a tile in texels
+	 * @param gutter     the number of texels kept around each tile
+	 * @param filter     the filter used to halve each level
+	 * @throws IOException if the file can't be written
+	 */
+	public static void write(Path path, ByteBuffer image, int width, int height, int components, int tileSize, int gutter, MipFilter filter) throws IOException {
+		final long rowBytes = (long) width * components;
+		if (image.remaining() < rowBytes * height)
+			throw new IllegalArgumentException("image is smaller than " + width + "x" + height + "x" + components);
+		write(path, width, height, components, tileSize, gutter, filter, (y, rows, dst) -> {
+			final ByteBuffer band = image.duplicate();
+			band.position((int) (image.position() + rowBytes * y)).limit((int) (image.position() + rowBytes * (y + rows)));
+			dst.put(band);
+		});
+	}
+
+	/**
+	 * Writes every level of an image to a new tile file, reading level 0 one
+	 * row of tiles at a time. Apart from the file itself, memory use is
+	 * bounded by a few rows of tiles of level 0.
+	 *
+	 * @param path       the file
+	 * @param width      the width of level 0
+	 * @param height     the height of level 0
+	 * @param components the number of components per texel (1 to 4)
+	 * @param tileSize   the width and height of a tile in texels
+	 * @param gutter     the number of texels kept around each tile, at most
+	 *                   the tile size
+	 * @param filter     the filter used to halve each level
+	 * @param source     reads the rows of level 0
+	 * @throws IOException if the file can't be written or the source fails
+	 */
+	public static void write(Path path, int width, int height, int components, int tileSize, int gutter, MipFilter filter, RowSource source) throws IOException {
+		if (width < 1 || height < 1)
+			throw new IllegalArgumentException("Invalid size: " + width + "x" + height);
+		if (components < 1 || components > 4)
+			throw new IllegalArgumentException("components must be between 1 and 4: " + components);
+		if (tileSize < 1 || gutter < 0 || gutter > tileSize)
+			throw new IllegalArgumentException("Invalid tile size " + tileSize + " or gutter " + gutter);
+
+		final int levels = MipChain.levels(width, height);
+		final int[] tilesX = new int[levels], tilesY = new int[levels], offsets = new int[levels + 1];
+		layout(width, height, tileSize, tilesX, tilesY, offsets);
+
+		// a destination band is a row of tiles with its gutter, a source band the rows filtered into it
+		final int bandRows = tileSize + 2 * gutter;
+		final int sourceRows = 2 * bandRows + 4;
+		final ByteBuffer tile = memAlloc(tileBytes(tileSize, gutter, components));
+		ByteBuffer band = null, sourceBand = null;
+		try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			final ByteBuffer header = ByteBuffer.allocate(HEADER);
+			header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).putInt(tileSize).putInt(components).putInt(levels).putInt(gutter);
+			header.flip();
+			writeFully(out, header, 0);
+
+			band = memAlloc(bandBytes(width, bandRows, components));
+			sourceBand = levels > 1 ? memAlloc(bandBytes(width, Math.min(height, sourceRows), components)) : null;
+			final Tiles tiles = new Tiles(out, tile, tileSize, gutter, components, offsets, tilesX);
+
+			for (int ty = 0; ty < tilesY[0]; ty++) {
+				final int y0 = Math.max(0, ty * tileSize - gutter), y1 = Math.min(height, (ty + 1) * tileSize + gutter);
+				band.clear().limit(bandBytes(width, y1 - y0, components));
+				source.read(y0, y1 - y0, band);
+				tiles.write(0, ty, band, y0, width, height);
+			}
+
+			for (int level = 1; level < levels; level++) {
+				final int sw = Math.max(1, width >> (level - 1)), sh = Math.max(1, height >> (level - 1));
+				final int dw = Math.max(1, sw >> 1), dh = Math.max(1, sh >> 1);
+				for (int ty = 0; ty < tilesY[level]; ty++) {
+					final int d0 = Math.max(0, ty * tileSize - gutter), d1 = Math.min(dh, (ty + 1) * tileSize + gutter);
+					final int s0 = MipFilter.firstSourceRow(d0, sh, dh), s1 = MipFilter.endSourceRow(d1, sh, dh);
+					tiles.read(level - 1, s0, s1, sourceBand, sw, sh);
+					band.clear();
+					filter.downsampleRows(sourceBand, sw, sh, s0, s1 - s0, band, dw, dh, d0, d1 - d0, components);
+					tiles.write(level, ty, band, d0, dw, dh);
+				}
+			}
+		} finally {
+			memFree(tile);
+			if (band != null) memFree(band);
+			if (sourceBand != null) memFree(sourceBand);
+		}
+	}
+
+	/**
+	 * Reads the rows of the level 0 image written to a tile file.
+	 */
+	@FunctionalInterface
+	public interface RowSource {
+
+		/**
+		 * Reads rows of level 0, tightly packed, into the given buffer.
+		 *
+		 * @param y    the first row
+		 * @param rows the number of rows
+		 * @param dst  receives {@code rows * width * components} bytes,
+		 *             starting at index 0
+		 * @throws IOException if the rows can't be read
+		 */
+		void read(int y, int rows, ByteBuffer dst) throws IOException;
+	}
+
+	// copies tiles between bands of tightly packed rows and the file being written
+	private static final class Tiles {
+
+		private final FileChannel channel;
+		private final ByteBuffer tile;
+		private final int tileSize, gutter, padded, components, tileBytes;
+		private final int[] offsets, tilesX;
+
+		private Tiles(FileChannel channel, ByteBuffer tile, int tileSize, int gutter, int components, int[] offsets, int[] tilesX) {
+			this.channel = channel;
+			this.tile = tile;
+			this.tileSize = tileSize;
+			this.gutter = gutter;
+			this.padded = tileSize + 2 * gutter;
+			this.components = components;
+			this.tileBytes = tileBytes(tileSize, gutter, components);
+			this.offsets = offsets;
+			this.tilesX = tilesX;
+		}
+
+		private long position(int level, int tx, int ty) {
+			return HEADER + (offsets[level] + (long) ty * tilesX[level] + tx) * tileBytes;
+		}
+
+		// writes a row of tiles from a band holding rows [bandY, ...) of a w x h level
+		private void write(int level, int ty, ByteBuffer band, int bandY, int w, int h) throws IOException {
+			final ByteBuffer row = band.duplicate();
+			for (int tx = 0; tx < tilesX[level]; tx++) {
+				final int x0 = tx * tileSize - gutter, from = Math.max(0, x0), to = Math.min(w, x0 + padded);
+				tile.clear();
+				for (int y = 0; y < padded; y++) {
+					final long line = (long) (clamp(ty * tileSize - gutter + y, h) - bandY) * w;
+					for (int x = x0; x < from; x++) texel(band, line);
+					row.limit((int) ((line + to) * components)).position((int) ((line + from) * components));
+					tile.put(row);
+					for (int x = to; x < x0 + padded; x++) texel(band, line + w - 1);
+				}
+				tile.flip();
+				writeFully(channel, tile, position(level, tx, ty));
+			}
+		}
+
+		private void texel(ByteBuffer band, long at) {
+			final int index = (int) (at * components);
+			for (int c = 0; c < components; c++)
+				tile.put(band.get(index + c));
+		}
+
+		// reads rows [y0, y1) of a w x h level, without gutters, into a band
+		private void read(int level, int y0, int y1, ByteBuffer band, int w, int h) throws IOException {
+			for (int ty = y0 / tileSize; ty <= (y1 - 1) / tileSize; ty++) {
+				for (int tx = 0; tx < tilesX[level]; tx++) {
+					tile.clear();
+					readFully(channel, tile, position(level, tx, ty));
+					final int x = tx * tileSize, n = Math.min(tileSize, w - x);
+					for (int y = Math.max(y0, ty * tileSize); y < Math.min(y1, Math.min(h, (ty + 1) * tileSize)); y++) {
+						final int at = ((y - ty * tileSize + gutter) * padded + gutter) * components;
+						tile.limit(at + n * components).position(at);
+						band.position((int) (((long) (y - y0) * w + x) * components));
+						band.put(tile);
+					}
+				}
+			}
+			band.clear();
+		}
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining())
+			position += channel.write(buffer, position);
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			final int read = channel.read(buffer, position);
+			if (read < 0) throw new EOFException("Tile file ended at " + position);
+			position += read;
+		}
+	}
+
+	private static void layout(int width, int height, int tileSize, int[] tilesX, int[] tilesY, int[] offsets) {
+		for (int i = 0; i < tilesX.length; i++) {
+			tilesX[i] = tiles(Math.max(1, width >> i), tileSize);
+			tilesY[i] = tiles(Math.max(1, height >> i), tileSize);
+			offsets[i + 1] = offsets[i] + tilesX[i] * tilesY[i];
+		}
+	}
+
+	private static int tileBytes(int tileSize, int gutter, int components) {
+		final long padded = tileSize + 2L * gutter;
+		if (padded * padded * components > SEGMENT)
+			throw new IllegalArgumentException("Tiles are too large: " + padded + "x" + padded + "x" + components);
+		return (int) (padded * padded * components);
+	}
+
+	private static int bandBytes(int width, int rows, int components) {
+		final long bytes = (long) width * rows * components;
+		if (bytes > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("A row of tiles is too large: " + width + "x" + rows + "x" + components);
+		return (int) bytes;
+	}
+
+	private static int clamp(int value, int size) {
+		return value < 0 ? 0 : value >= size ? size - 1 : value;
+	}
+
+	static int tiles(int size, int tileSize) {
+		return (size + tileSize - 1) / tileSize;
+	}
+
+	/**
+	 * Gets the texels of a tile, including its gutter. The returned buffer is
+	 * a read-only view of the mapped file; reading it may fault the tile in
+	 * from disk.
+	 *
+	 * @param level the level
+	 * @param tx    the tile column
+	 * @param ty    the tile row
+	 * @return the tile's texels
+	 */
+	public ByteBuffer getTile(int level, int tx, int ty) {
+		return getTile(offsets[level] + ty * tilesX[level] + tx);
+	}
+
+	/**
+	 * Gets the texels of a tile by its page index, as numbered by the
+	 * {@link PageTable} of this file.
+	 *
+	 * @param page the page index
+	 * @return the tile's texels
+	 */
+	public ByteBuffer getTile(int page) {
+		final ByteBuffer segment = segments[page / tilesPerSegment].duplicate();
+		final int at = (page % tilesPerSegment) * tileBytes;
+		segment.position(at).limit(at + tileBytes);
+		return segment.slice();
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getWidth(int level) {
+		return Math.max(1, width >> level);
+	}
+
+	public int getHeight(int level) {
+		return Math.max(1, height >> level);
+	}
+
+	public int getTileSize() {
+		return tileSize;
+	}
+
+	/**
+	 * Gets the number of texels stored around each side of a tile.
+	 *
+	 * @return the gutter width in texels
+	 */
+	public int getGutter() {
+		return gutter;
+	}
+
+	/**
+	 * Gets the width and height of a stored tile, including its gutter.
+	 *
+	 * @return {@code tileSize + 2 * gutter}
+	 */
+	public int getPaddedSize() {
+		return tileSize + 2 * gutter;
+	}
+
+	public int getTileBytes() {
+		return tileBytes;
+	}
+
+	public int getComponents() {
+		return components;
+	}
+
+	public int getLevels() {
+		return levels;
+	}
+
+	public int getTilesX(int level) {
+		return tilesX[level];
+	}
+
+	public int getTilesY(int level) {
+		return tilesY[level];
+	}
+
+	/**
+	 * Gets the total number of tiles across every level.
+	 *
+	 * @return the number of tiles
+	 */
+	public int getTileCount() {
+		return offsets[levels];
+	}
+
+	int getOffset(int level) {
+		return offsets[level];
+	}
+
+	/**
+	 * Closes the underlying file. Mapped tiles stay readable until they are
+	 * garbage collected.
+	 *
+	 * @throws IOException if the file can't be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+}
@@ -0,0 +1,120 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.opengl.texture.virtual;
+
+import sgl.opengl.texture.GLTexture.Target;
+import sgl.opengl.texture.GLTexture2D;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.GL_CLAMP_TO_EDGE;
+
+/**
+ * A {@link VirtualTexture} that keeps every resident tile in its own
+ * {@link GLTexture2D}, for platforms without sparse textures or images
+ * larger than the sparse texture limit.
+ * <p>
+ * Each tile is drawn separately: resolve the tile with the
+ * {@link PageTable}, then sample {@link #getTexture(int)} over the part of
+ * the resolved tile that covers the wanted one. Slot textures hold the
+ * tile's gutter too, so sample the {@link TileFile#getTileSize() tile size}
+ * texels starting {@link TileFile#getGutter() gutter} texels in: bilinear
+ * filtering at the edges then reads the neighbouring tile's texels instead
+ * of clamping. Slot textures are created on first use and reused after
+ * eviction.
+ * </p>
+ *
+ * @author link
+ */
+public class TiledVirtualTexture extends VirtualTexture {
+
+	private final List<GLTexture2D> textures = new ArrayList<>();
+	private final int format, internalFormat;
+
+	/**
+	 * Creates a tiled virtual texture. Must be called on the GL Thread.
+	 *
+	 * @param file     the tiles to stream from
+	 * @param capacity the number of tiles that may be resident at once
+	 */
+	public TiledVirtualTexture(TileFile file, int capacity) {
+		super(file, capacity);
+		requireFormat(TiledVirtualTexture.class, file.getComponents());
+		this.format = format(file.getComponents());
+		this.internalFormat = internalFormat(file.getComponents());
+		initialize();
+	}
+
+	@Override
+	protected void upload(int slot, int level, int tx, int ty, ByteBuffer data) {
+		final int size = file.getPaddedSize();
+		while (textures.size() <= slot) textures.add(null);
+
+		GLTexture2D texture = textures.get(slot);
+		if (texture == null) {
+			texture = new GLTexture2D(Target.TEXTURE_2D, internalFormat, size, size, format, GL_UNSIGNED_BYTE);
+			texture.bind();
+			texture.allocate(null);
+			texture.setMinFilter(GL_LINEAR);
+			texture.setMagFilter(GL_LINEAR);
+			texture.setWrapS(GL_CLAMP_TO_EDGE);
+			texture.setWrapT(GL_CLAMP_TO_EDGE);
+			textures.set(slot, texture);
+		} else {
+			texture.bind();
+		}
+		subImage(GL_TEXTURE_2D, 0, 0, 0, size, size, size, format, data);
+	}
+
+	@Override
+	protected void evict(int slot, int level, int tx, int ty) {
+		// the slot's texture is overwritten by the next upload
+	}
+
+	@Override
+	public void discard() {
+		for (GLTexture2D texture : textures)
+			if (texture != null) texture.discard();
+		textures.clear();
+	}
+
+	/**
+	 * Gets the texture holding a resident page.
+	 *
+	 * @param page the page
+	 * @return the texture, or null if the page isn't resident
+	 */
+	public GLTexture2D getTexture(int page) {
+		final int slot = table.getSlot(page);
+		return slot == PageTable.ABSENT ? null : textures.get(slot);
+	}
+
+}
@@ -0,0 +1,375 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.opengl.texture.virtual;
+
+import sgl.opengl.OpenGL;
+import sgl.opengl.OpenGL.Feature;
+import sgl.opengl.error.UnsupportedFeatureException;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL30.*;
+
+/**
+ * An image larger than a single texture can hold, of which only the tiles
+ * that are visible at the resolution they are needed at are resident in
+ * video memory.
+ * <p>
+ * Each frame, the renderer requests the tiles it needs, either directly,
+ * by {@link #requestRegion(double, double, double, double, double) visible
+ * region}, or from a {@link #requestFeedback(IntBuffer) feedback} pass.
+ * {@link #update()} then streams missing tiles in from the {@link TileFile},
+ * coarsest first, evicting the least recently requested tiles once every
+ * slot is in use. The single tile of the coarsest level is always resident,
+ * so {@link PageTable#resolve(int, int, int)} always finds a fallback.
+ * </p>
+ * <p>
+ * All methods must be called on the GL Thread.
+ * </p>
+ *
+ * @author link
+ */
+public abstract class VirtualTexture {
+
+	private static final int FEEDBACK_BITS = 13;
+	private static final int FEEDBACK_MASK = (1 << FEEDBACK_BITS) - 1;
+
+	protected final TileFile file;
+	protected final PageTable table;
+
+	private final int capacity;
+	// page -> slot of evictable resident pages, least recently requested first
+	private final LinkedHashMap<Integer, Integer> cache = new LinkedHashMap<>(16, 0.75f, true);
+	private final ArrayDeque<Integer> free = new ArrayDeque<>();
+	private final int[] requestedFrame;
+	private int[] queue = new int[64];
+	private int queued, pinned, frame;
+
+	private int uploadsPerUpdate = 16;
+	private long uploads, evictions;
+
+	/**
+	 * @param file     the tiles to stream from
+	 * @param capacity the number of tiles that may be resident at once, not
+	 *                 counting pinned tiles
+	 */
+	protected VirtualTexture(TileFile file, int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		this.file = file;
+		this.table = new PageTable(file);
+		this.capacity = capacity;
+		this.requestedFrame = new int[table.getPageCount()];
+		Arrays.fill(requestedFrame, -1);
+		for (int i = 0; i < capacity; i++) free.add(i);
+	}
+
+	/**
+	 * Creates a virtual texture backed by a sparse texture where the platform
+	 * supports one large enough for the file, or by tiles otherwise.
+	 *
+	 * @param file     the tiles to stream from
+	 * @param capacity the number of tiles that may be resident at once
+	 * @return the virtual texture
+	 */
+	public static VirtualTexture create(TileFile file, int capacity) {
+		if (SparseVirtualTexture.supports(file))
+			return new SparseVirtualTexture(file, capacity);
+		return new TiledVirtualTexture(file, capacity);
+	}
+
+	/**
+	 * Uploads the coarsest level and any pages the implementation pins.
+	 * Implementations call this once at the end of their constructor.
+	 */
+	protected final void initialize() {
+		final int coarsest = file.getLevels() - 1;
+		pin(table.page(coarsest, 0, 0));
+	}
+
+	/**
+	 * Makes the given page resident for the lifetime of this texture, in a
+	 * slot numbered from {@link #getCapacity()} upwards.
+	 *
+	 * @param page the page
+	 */
+	protected final void pin(int page) {
+		if (table.isResident(page)) return;
+		final int slot = capacity + pinned++;
+		load(page, slot);
+	}
+
+	/**
+	 * Requests a tile for the current frame, along with every coarser tile
+	 * covering it.
+	 *
+	 * @param level the level
+	 * @param tx    the tile column
+	 * @param ty    the tile row
+	 */
+	public void request(int level, int tx, int ty) {
+		for (; level < file.getLevels(); level++, tx >>= 1, ty >>= 1) {
+			final int page = table.page(level, Math.min(tx, table.getTilesX(level) - 1), Math.min(ty, table.getTilesY(level) - 1));
+			if (requestedFrame[page] == frame) return;
+			requestedFrame[page] = frame;
+			if (queued == queue.length) queue = Arrays.copyOf(queue, queued * 2);
+			queue[queued++] = page;
+		}
+	}
+
+	/**
+	 * Requests every tile of the visible part of the image at the level
+	 * matching how large it is drawn.
+	 *
+	 * @param x     the left edge of the visible region, in level 0 texels
+	 * @param y     the top edge of the visible region, in level 0 texels
+	 * @param w     the width of the visible region, in level 0 texels
+	 * @param h     the height of the visible region, in level 0 texels
+	 * @param scale the number of screen pixels per level 0 texel
+	 */
+	public void requestRegion(double x, double y, double w, double h, double scale) {
+		final int level = getLevel(scale);
+		final double size = (double) file.getTileSize() * (1 << level);
+		final int x0 = (int) Math.max(0, Math.floor(x / size)), y0 = (int) Math.max(0, Math.floor(y / size));
+		final int x1 = (int) Math.min(table.getTilesX(level) - 1, Math.floor((x + w) / size));
+		final int y1 = (int) Math.min(table.getTilesY(level) - 1, Math.floor((y + h) / size));
+		for (int ty = y0; ty <= y1; ty++)
+			for (int tx = x0; tx <= x1; tx++)
+				request(level, tx, ty);
+	}
+
+	/**
+	 * Requests every tile named in a feedback buffer, typically read back
+	 * from a reduced-resolution pass that writes {@link #encode(int, int, int)}
+	 * for each fragment. Zero entries are skipped.
+	 *
+	 * @param feedback the feedback entries
+	 */
+	public void requestFeedback(IntBuffer feedback) {
+		int last = 0;
+		for (int i = feedback.position(); i < feedback.limit(); i++) {
+			final int entry = feedback.get(i);
+			// neighbouring fragments mostly sample the same tile
+			if (entry == 0 || entry == last) continue;
+			last = entry;
+			final int level = (entry >>> (2 * FEEDBACK_BITS)) - 1;
+			if (level >= file.getLevels()) continue;
+			request(level, entry & FEEDBACK_MASK, (entry >>> FEEDBACK_BITS) & FEEDBACK_MASK);
+		}
+	}
+
+	/**
+	 * Packs a tile into a feedback entry, as read by
+	 * {@link #requestFeedback(IntBuffer)}: the tile column in bits 0-12, the
+	 * row in bits 13-25 and the level plus one in bits 26-31.
+	 *
+	 * @param level the level
+	 * @param tx    the tile column
+	 * @param ty    the tile row
+	 * @return the feedback entry
+	 */
+	public static int encode(int level, int tx, int ty) {
+		return (level + 1) << (2 * FEEDBACK_BITS) | (ty & FEEDBACK_MASK) << FEEDBACK_BITS | tx & FEEDBACK_MASK;
+	}
+
+	/**
+	 * Gets the level whose texels are closest to one screen pixel.
+	 *
+	 * @param scale the number of screen pixels per level 0 texel
+	 * @return the level
+	 */
+	public int getLevel(double scale) {
+		if (scale >= 1) return 0;
+		final int level = (int) Math.floor(Math.log(1 / scale) / Math.log(2));
+		return Math.min(level, file.getLevels() - 1);
+	}
+
+	/**
+	 * Streams in the tiles requested since the last update, coarsest first,
+	 * and starts a new frame of requests.
+	 *
+	 * @return the number of tiles uploaded
+	 */
+	public int update() {
+		// coarser pages are numbered higher; upload them first so fallbacks arrive early
+		Arrays.sort(queue, 0, queued);
+
+		// touch resident pages first so none of them is the eldest when evicting
+		for (int i = 0; i < queued; i++)
+			if (table.isResident(queue[i])) cache.get(queue[i]);
+
+		int loaded = 0;
+		for (int i = queued - 1; i >= 0 && loaded < uploadsPerUpdate; i--) {
+			final int page = queue[i];
+			if (table.isResident(page)) continue;
+
+			final Integer slot = acquire();
+			if (slot == null) break;
+			load(page, slot);
+			cache.put(page, slot);
+			loaded++;
+		}
+
+		queued = 0;
+		frame++;
+		return loaded;
+	}
+
+	// takes a free slot or evicts the least recently requested page not requested this frame
+	private Integer acquire() {
+		if (!free.isEmpty()) return free.poll();
+
+		final Iterator<Map.Entry<Integer, Integer>> it = cache.entrySet().iterator();
+		if (!it.hasNext()) return null;
+		final Map.Entry<Integer, Integer> eldest = it.next();
+		final int page = eldest.getKey();
+		if (requestedFrame[page] == frame) return null;
+
+		it.remove();
+		table.setSlot(page, PageTable.ABSENT);
+		evict(eldest.getValue(), table.getLevel(page), table.getTileX(page), table.getTileY(page));
+		evictions++;
+		return eldest.getValue();
+	}
+
+	private void load(int page, int slot) {
+		final int level = table.getLevel(page);
+		final int tx = table.getTileX(page), ty = table.getTileY(page);
+		upload(slot, level, tx, ty, file.getTile(page));
+		table.setSlot(page, slot);
+		uploads++;
+	}
+
+	/**
+	 * Uploads a tile into a slot.
+	 *
+	 * @param slot  the slot
+	 * @param level the level of the tile
+	 * @param tx    the tile column
+	 * @param ty    the tile row
+	 * @param data  the padded tile texels
+	 */
+	protected abstract void upload(int slot, int level, int tx, int ty, ByteBuffer data);
+
+	/**
+	 * Releases the tile held in a slot.
+	 *
+	 * @param slot  the slot
+	 * @param level the level of the tile
+	 * @param tx    the tile column
+	 * @param ty    the tile row
+	 */
+	protected abstract void evict(int slot, int level, int tx, int ty);
+
+	/**
+	 * Destroys every texture backing this virtual texture. The tile file is
+	 * left open.
+	 */
+	public abstract void discard();
+
+	static int format(int components) {
+		switch (components) {
+			case 1:
+				return GL_RED;
+			case 2:
+				return GL_RG;
+			case 3:
+				return GL_RGB;
+			default:
+				return GL_RGBA;
+		}
+	}
+
+	static int internalFormat(int components) {
+		switch (components) {
+			case 1:
+				return GL_R8;
+			case 2:
+				return GL_RG8;
+			case 3:
+				return GL_RGB8;
+			default:
+				return GL_RGBA8;
+		}
+	}
+
+	static void requireFormat(Class<?> caller, int components) {
+		if (components < 3 && !OpenGL.supports(30))
+			throw new UnsupportedFeatureException(caller, Feature.ARB_TEXTURE_RG);
+	}
+
+	// uploads part of a padded tile into the bound texture
+	static void subImage(int target, int level, int x, int y, int width, int height, int rowLength, int format, ByteBuffer data) {
+		final int alignment = glGetInteger(GL_UNPACK_ALIGNMENT);
+		glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
+		glPixelStorei(GL_UNPACK_ROW_LENGTH, rowLength);
+		glTexSubImage2D(target, level, x, y, width, height, format, GL_UNSIGNED_BYTE, data);
+		glPixelStorei(GL_UNPACK_ROW_LENGTH, 0);
+		glPixelStorei(GL_UNPACK_ALIGNMENT, alignment);
+	}
+
+	public TileFile getFile() {
+		return file;
+	}
+
+	public PageTable getPageTable() {
+		return table;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public int getResidentCount() {
+		return cache.size() + pinned;
+	}
+
+	public int getUploadsPerUpdate() {
+		return uploadsPerUpdate;
+	}
+
+	public void setUploadsPerUpdate(int uploadsPerUpdate) {
+		this.uploadsPerUpdate = uploadsPerUpdate;
+	}
+
+	public long getUploads() {
+		return uploads;
+	}
+
+	public long getEvictions() {
+		return evictions;
+	}
+
+}
@@ -0,0 +1,203 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.pipeline;
+
+import sgl.canvas.Renderable;
+import sgl.util.math.matrix.Mat4f;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Finds which Renderables of a call list can be seen, from the bounds they
+ * {@link Renderable#getBounds(float[]) report}: those overlapping a 2D
+ * viewport, or not entirely outside a plane of a 3D view frustum.
+ * Renderables without bounds are always visible.
+ * <p>
+ * Bounds are gathered into one float array per coordinate, then tested a
+ * plane at a time in straight loops over those arrays, which the JIT
+ * compiles to vector instructions. Lists of {@link #getParallelThreshold()}
+ * calls or more are culled in chunks on the common ForkJoinPool.
+ * </p>
+ *
+ * @author link
+ */
+public final class Culler {
+
+	private static final int CHUNK = 1 << 12;
+
+	private static volatile int parallelThreshold = 1 << 14;
+
+	private final int dimensions;
+
+	// the gathered bounds, one array per minimum and maximum coordinate
+	private final float[][] bounds;
+	private byte[] visible = new byte[0];
+	private int[] counts = new int[0];
+
+	private final float[] viewport = {Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY};
+	private float[] planes = new float[0];
+	private int planeCount;
+
+	/**
+	 * @param dimensions 2 to cull by a viewport, 3 by a frustum
+	 */
+	public Culler(int dimensions) {
+		if (dimensions != 2 && dimensions != 3) throw new IllegalArgumentException("dimensions must be 2 or 3: " + dimensions);
+		this.dimensions = dimensions;
+		this.bounds = new float[dimensions << 1][0];
+	}
+
+	/**
+	 * Sets the rectangle a 2D Renderable must overlap to be visible.
+	 */
+	public void setViewport(float x, float y, float width, float height) {
+		if (dimensions != 2) throw new IllegalStateException("3D culling takes a frustum");
+		viewport[0] = x;
+		viewport[1] = y;
+		viewport[2] = x + width;
+		viewport[3] = y + height;
+	}
+
+	/**
+	 * Sets the frustum a 3D Renderable must be in to be visible.
+	 *
+	 * @param viewProjection the projection times the view transform
+	 */
+	public void setFrustum(Mat4f viewProjection) {
+		setPlanes(viewProjection.planes(new float[24]), 6);
+	}
+
+	/**
+	 * Sets the planes a 3D Renderable must not be entirely outside of to be
+	 * visible, as in {@link Mat4f#planes(float[])}.
+	 *
+	 * @param planes the (a, b, c, d) of each plane
+	 * @param count  the number of planes, 0 for none
+	 */
+	public void setPlanes(float[] planes, int count) {
+		if (dimensions != 3) throw new IllegalStateException("2D culling takes a viewport");
+		this.planes = Arrays.copyOf(planes, count << 2);
+		this.planeCount = count;
+	}
+
+	/**
+	 * Culls a call list.
+	 *
+	 * @param calls the call list
+	 * @param size  the number of calls
+	 * @param dest  an array of at least size ints to store the indices of
+	 *              the visible calls in, in order
+	 * @return the number of visible calls
+	 */
+	public int cull(Renderable<?>[] calls, int size, int[] dest) {
+		if (visible.length < size) {
+			final int capacity = Math.max(size, visible.length + (visible.length >> 1));
+			for (int i = 0; i < bounds.length; i++) bounds[i] = new float[capacity];
+			visible = new byte[capacity];
+		}
+		final int chunks = (size + CHUNK - 1) / CHUNK;
+		if (counts.length < chunks + 1) counts = new int[chunks + 1];
+		final int[] counts = this.counts;
+
+		IntStream range = IntStream.range(0, chunks);
+		if (size >= parallelThreshold) range = range.parallel();
+		range.forEach(chunk -> counts[chunk + 1] = test(calls, chunk * CHUNK, Math.min(size, (chunk + 1) * CHUNK)));
+		for (int chunk = 0; chunk < chunks; chunk++) counts[chunk + 1] += counts[chunk];
+
+		range = IntStream.range(0, chunks);
+		if (size >= parallelThreshold) range = range.parallel();
+		range.forEach(chunk -> compact(chunk * CHUNK, Math.min(size, (chunk + 1) * CHUNK), counts[chunk], dest));
+		return counts[chunks];
+	}
+
+	/**
+	 * Gathers and tests the bounds of a chunk of calls.
+	 *
+	 * @return the number visible
+	 */
+	private int test(Renderable<?>[] calls, int from, int to) {
+		final int d = dimensions;
+		final float[][] bounds = this.bounds;
+		final byte[] visible = this.visible;
+		final float[] box = new float[d << 1];
+		for (int i = from; i < to; i++) {
+			if (!calls[i].getBounds(box)) {
+				// infinite bounds overlap every viewport and cross every plane
+				Arrays.fill(box, 0, d, Float.NEGATIVE_INFINITY);
+				Arrays.fill(box, d, d << 1, Float.POSITIVE_INFINITY);
+			}
+			for (int k = 0; k < box.length; k++) bounds[k][i] = box[k];
+		}
+
+		if (d == 2) {
+			final float[] minX = bounds[0], minY = bounds[1], maxX = bounds[2], maxY = bounds[3];
+			final float x0 = viewport[0], y0 = viewport[1], x1 = viewport[2], y1 = viewport[3];
+			for (int i = from; i < to; i++)
+				visible[i] = (byte) (maxX[i] >= x0 & minX[i] <= x1 & maxY[i] >= y0 & minY[i] <= y1 ? 1 : 0);
+		} else {
+			final float[] minX = bounds[0], minY = bounds[1], minZ = bounds[2], maxX = bounds[3], maxY = bounds[4], maxZ = bounds[5];
+			Arrays.fill(visible, from, to, (byte) 1);
+			for (int p = 0; p < planeCount << 2; p += 4) {
+				final float a = planes[p], b = planes[p + 1], c = planes[p + 2], w = planes[p + 3];
+				for (int i = from; i < to; i++) {
+					// the corner farthest along the normal; NaN from 0 * infinity counts as inside
+					final float far = Math.max(a * minX[i], a * maxX[i]) + Math.max(b * minY[i], b * maxY[i])
+						+ Math.max(c * minZ[i], c * maxZ[i]) + w;
+					visible[i] &= far < 0 ? 0 : 1;
+				}
+			}
+		}
+
+		int count = 0;
+		for (int i = from; i < to; i++) count += visible[i];
+		return count;
+	}
+
+	private void compact(int from, int to, int offset, int[] dest) {
+		final byte[] visible = this.visible;
+		for (int i = from; i < to; i++)
+			if (visible[i] != 0) dest[offset++] = i;
+	}
+
+	public int getDimensions() {
+		return dimensions;
+	}
+
+	/**
+	 * @return the number of calls from which culling runs in parallel
+	 */
+	public static int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	public static void setParallelThreshold(int parallelThreshold) {
+		Culler.parallelThreshold = parallelThreshold;
+	}
+
+}
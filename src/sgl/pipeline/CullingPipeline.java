@@ -0,0 +1,269 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.pipeline;
+
+import sgl.canvas.Canvas;
+import sgl.canvas.Renderable;
+import sgl.util.math.matrix.Mat4f;
+import sgl.util.math.spatial.AABBTree;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A FIFOPipeline that skips the Renderables a {@link Culler} finds can't be
+ * seen, keeping the order of the rest.
+ * <p>
+ * A 2D pipeline culls by a viewport, the whole canvas until {@link
+ * #setViewport(float, float, float, float)} narrows it. A 3D pipeline culls
+ * by the frustum last given to {@link #setFrustum(Mat4f)}, and dispatches
+ * every call until one is.
+ * </p>
+ * <p>
+ * By default every pass gathers and tests the bounds of every call. Once
+ * {@link #index(float)} is called, the bounds are kept in an
+ * {@link AABBTree} instead, and a pass only visits the parts of the tree
+ * near the viewport or frustum, which pays off for large, mostly
+ * off-screen call lists. Bounds are then read when a Renderable is added,
+ * so Renderables whose bounds change must be passed to
+ * {@link #move(Renderable)}.
+ * </p>
+ *
+ * @author link
+ */
+public class CullingPipeline<C extends Canvas> extends FIFOPipeline<C> {
+
+	private final Culler culler;
+	// whether the 2D viewport follows the canvas size
+	private boolean fitCanvas = true;
+	private boolean frustum;
+	private int visible;
+
+	// the viewport or frustum last culled by, for tree queries
+	private final float[] viewport = new float[4];
+	private float[] planes;
+
+	// the indexed calls: a tree of call indices, the calls without bounds and each call's proxy
+	private AABBTree<Integer> tree;
+	private float margin;
+	private int[] proxies = new int[0], unbounded = new int[0];
+	private int unboundedCount;
+	// the first call of each Renderable, and for each call the next call of the same Renderable
+	private final Map<Renderable<?>, Integer> firstCalls = new IdentityHashMap<>();
+	private int[] repeats = new int[0];
+	private final float[] box;
+
+	/**
+	 * @param dimensions 2 to cull by a viewport, 3 by a frustum
+	 */
+	public CullingPipeline(int dimensions) {
+		this(dimensions, 16);
+	}
+
+	public CullingPipeline(int dimensions, int capacity) {
+		super(capacity);
+		this.culler = new Culler(dimensions);
+		this.box = new float[dimensions << 1];
+	}
+
+	/**
+	 * Sets the viewport of a 2D pipeline, in canvas coordinates.
+	 */
+	public void setViewport(float x, float y, float width, float height) {
+		culler.setViewport(x, y, width, height);
+		viewport(x, y, width, height);
+		fitCanvas = false;
+	}
+
+	private void viewport(float x, float y, float width, float height) {
+		viewport[0] = x;
+		viewport[1] = y;
+		viewport[2] = x + width;
+		viewport[3] = y + height;
+	}
+
+	/**
+	 * Makes the viewport of a 2D pipeline the whole canvas again.
+	 */
+	public void fitViewport() {
+		fitCanvas = true;
+	}
+
+	/**
+	 * Sets the frustum of a 3D pipeline.
+	 *
+	 * @param viewProjection the projection times the view transform
+	 */
+	public void setFrustum(Mat4f viewProjection) {
+		planes = viewProjection.planes(new float[24]);
+		culler.setPlanes(planes, 6);
+		frustum = true;
+	}
+
+	/**
+	 * Keeps the bounds of every call in an {@link AABBTree} from now on, so
+	 * passes query the tree rather than test every call. Does nothing if
+	 * the calls are already indexed.
+	 *
+	 * @param margin how far past its bounds a Renderable may
+	 *               {@link #move(Renderable) move} before the tree is
+	 *               restructured
+	 */
+	public void index(float margin) {
+		if (tree != null) return;
+		this.margin = margin;
+		tree = new AABBTree<>(culler.getDimensions(), margin);
+		int call = 0;
+		for (Renderable<C> renderable : this) index(renderable, call++);
+	}
+
+	/**
+	 * @return whether the calls are kept in an {@link AABBTree}
+	 * @see #index(float)
+	 */
+	public boolean isIndexed() {
+		return tree != null;
+	}
+
+	/**
+	 * Reads the bounds of an indexed Renderable again, after they changed.
+	 * Does nothing if the calls aren't indexed or the Renderable was never
+	 * added.
+	 *
+	 * @param renderable the Renderable that moved
+	 */
+	public void move(Renderable<? extends C> renderable) {
+		if (tree == null) return;
+		final Integer first = firstCalls.get(renderable);
+		if (first == null) return;
+		final boolean bounded = renderable.getBounds(box);
+		for (int call = first; call >= 0; call = repeats[call]) {
+			if (!bounded) {
+				if (proxies[call] < 0) continue;
+				tree.remove(proxies[call]);
+				proxies[call] = -1;
+				addUnbounded(call);
+			} else if (proxies[call] >= 0) {
+				tree.move(proxies[call], box);
+			} else {
+				removeUnbounded(call);
+				proxies[call] = tree.insert(call, box);
+			}
+		}
+	}
+
+	@Override
+	public void add(Renderable<? extends C> renderable) {
+		final int call = calls();
+		super.add(renderable);
+		if (tree != null) index(renderable, call);
+	}
+
+	@Override
+	public void clear() {
+		super.clear();
+		if (tree != null) tree = new AABBTree<>(culler.getDimensions(), margin);
+		firstCalls.clear();
+		unboundedCount = 0;
+	}
+
+	private void index(Renderable<? extends C> renderable, int call) {
+		if (proxies.length <= call) {
+			final int capacity = Math.max(16, call + (call >> 1) + 1);
+			proxies = Arrays.copyOf(proxies, capacity);
+			repeats = Arrays.copyOf(repeats, capacity);
+		}
+		if (renderable.getBounds(box)) {
+			proxies[call] = tree.insert(call, box);
+		} else {
+			proxies[call] = -1;
+			addUnbounded(call);
+		}
+		// calls are added in order, so a Renderable's calls chain from its first to its last
+		repeats[call] = -1;
+		final Integer first = firstCalls.putIfAbsent(renderable, call);
+		if (first != null) {
+			int last = first;
+			while (repeats[last] >= 0) last = repeats[last];
+			repeats[last] = call;
+		}
+	}
+
+	private void addUnbounded(int call) {
+		if (unboundedCount == unbounded.length) unbounded = Arrays.copyOf(unbounded, Math.max(16, unboundedCount << 1));
+		unbounded[unboundedCount++] = call;
+	}
+
+	private void removeUnbounded(int call) {
+		for (int i = 0; i < unboundedCount; i++) {
+			if (unbounded[i] == call) {
+				System.arraycopy(unbounded, i + 1, unbounded, i, --unboundedCount - i);
+				return;
+			}
+		}
+	}
+
+	@Override
+	protected int select(C canvas, Renderable<C>[] calls, int size, int[] dest) {
+		if (culler.getDimensions() == 2) {
+			if (fitCanvas) {
+				culler.setViewport(0, 0, canvas.getWidth(), canvas.getHeight());
+				viewport(0, 0, canvas.getWidth(), canvas.getHeight());
+			}
+		} else if (!frustum) {
+			visible = size;
+			return -1;
+		}
+		if (tree == null) return visible = culler.cull(calls, size, dest);
+
+		final int[] count = {unboundedCount};
+		System.arraycopy(unbounded, 0, dest, 0, unboundedCount);
+		final AABBTree.Visitor<Integer> collect = (proxy, call) -> {
+			dest[count[0]++] = call;
+			return true;
+		};
+		if (culler.getDimensions() == 2) tree.query(viewport, collect);
+		else tree.query(planes, 6, collect);
+		// the tree visits calls in no particular order
+		Arrays.sort(dest, 0, count[0]);
+		return visible = count[0];
+	}
+
+	/**
+	 * @return the number of calls the last pass found visible
+	 */
+	public int getVisibleCount() {
+		return visible;
+	}
+
+	public Culler getCuller() {
+		return culler;
+	}
+
+}
@@ -0,0 +1,182 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.pipeline;
+
+import sgl.canvas.Canvas;
+import sgl.canvas.Renderable;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The default Pipeline implementation, which invokes its call list in the
+ * order that Renderables were added.
+ * <p>
+ * The call list is a plain array so that dispatching a frame is a single
+ * indexed loop. {@link #interrupt()} and {@link #exit()} may be called from
+ * any Thread; the current Renderable always finishes before the Pipeline
+ * stops.
+ * </p>
+ *
+ * @author link
+ */
+public class FIFOPipeline<C extends Canvas> implements Pipeline<C> {
+
+	private Renderable<C>[] calls;
+	private int size;
+
+	// the indices of the calls selected for this pass, or null for every call
+	private int[] order, selection = new int[0];
+	private int selected;
+
+	// the next call list index to invoke
+	private int next;
+	// the canvas of the last enter, used by resume
+	private C canvas;
+
+	private volatile boolean interrupted, exited;
+
+	public FIFOPipeline() {
+		this(16);
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public FIFOPipeline(int capacity) {
+		calls = new Renderable[Math.max(capacity, 1)];
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void add(Renderable<? extends C> renderable) {
+		if (size == calls.length)
+			calls = Arrays.copyOf(calls, size << 1);
+		calls[size++] = (Renderable<C>) renderable;
+	}
+
+	@Override
+	public void add(List<Renderable<? extends C>> renderables) {
+		renderables.forEach(this::add);
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(calls, 0, size, null);
+		size = next = 0;
+		canvas = null;
+		order = null;
+	}
+
+	@Override
+	public void enter(C canvas) {
+		this.canvas = canvas;
+		next = 0;
+		interrupted = exited = false;
+		if (selection.length < size) selection = new int[calls.length];
+		selected = select(canvas, calls, size, selection);
+		order = selected < 0 ? null : selection;
+		dispatch(canvas);
+	}
+
+	private void dispatch(C canvas) {
+		final Renderable<C>[] calls = this.calls;
+		final int[] order = this.order;
+		final int count = order == null ? size : selected;
+		int i = next;
+		if (order == null) {
+			while (i < count && !interrupted && !exited)
+				calls[i++].render(canvas);
+		} else {
+			while (i < count && !interrupted && !exited)
+				calls[order[i++]].render(canvas);
+		}
+		next = exited || i >= count ? 0 : i;
+	}
+
+	/**
+	 * Chooses the calls to dispatch when this is entered, such as by culling
+	 * those that can't be seen. Calls are invoked in the order given.
+	 *
+	 * @param canvas the canvas being entered
+	 * @param calls  the call list
+	 * @param size   the number of calls
+	 * @param dest   an array of at least size ints to store the indices of
+	 *               the chosen calls in
+	 * @return the number of calls chosen, or -1 to dispatch every call
+	 */
+	protected int select(C canvas, Renderable<C>[] calls, int size, int[] dest) {
+		return -1;
+	}
+
+	@Override
+	public int calls() {
+		return size;
+	}
+
+	@Override
+	public void interrupt() {
+		interrupted = true;
+	}
+
+	@Override
+	public void resume() {
+		if (!interrupted || canvas == null) return;
+		interrupted = false;
+		dispatch(canvas);
+	}
+
+	@Override
+	public void exit() {
+		exited = true;
+	}
+
+	@Override
+	public void render(C canvas) {
+		enter(canvas);
+	}
+
+	@Override
+	public Iterator<Renderable<C>> iterator() {
+		return new Iterator<Renderable<C>>() {
+			private int index;
+
+			@Override
+			public boolean hasNext() {
+				return index < size;
+			}
+
+			@Override
+			public Renderable<C> next() {
+				if (index >= size) throw new NoSuchElementException();
+				return calls[index++];
+			}
+		};
+	}
+
+}
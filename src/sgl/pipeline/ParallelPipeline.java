@@ -0,0 +1,211 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.pipeline;
+
+import org.lwjgl.system.NativeResource;
+import sgl.canvas.Canvas;
+import sgl.canvas.RecordingCanvas;
+import sgl.canvas.Renderable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * A CullingPipeline that runs its Renderables on the common ForkJoinPool,
+ * leaving the Thread that enters it, usually the one owning the GL
+ * context, to only submit what they drew.
+ * <p>
+ * The visible calls are split into consecutive chunks. Each chunk draws
+ * into a {@link RecordingCanvas} from an arena belonging to the worker
+ * Thread that runs it, so workers never share memory; the chunks are then
+ * replayed on the entered canvas in call order. They're recorded
+ * losslessly, so the result is the same as drawing the calls one by one
+ * whichever worker ran which chunk, on either side of the threshold.
+ * Culling is left to the CullingPipeline, whose Culler splits long lists
+ * across the pool by itself. Encoders are
+ * kept for reuse between frames, and those of a Thread that recorded
+ * nothing in a frame are freed.
+ * </p>
+ * <p>
+ * Renderables must only draw through the Canvas they're given, which
+ * reports the size of the entered canvas, and must be safe to run on any
+ * Thread. Fewer than {@link #getParallelThreshold()} visible calls are
+ * drawn directly on the entering Thread. A pass recorded in parallel
+ * replays as a whole, so {@link #interrupt()} only stops the calls drawn
+ * directly.
+ * </p>
+ *
+ * @author link
+ */
+public class ParallelPipeline extends CullingPipeline<Canvas> implements NativeResource {
+
+	private static final int MIN_CHUNK = 32;
+
+	private static volatile int parallelThreshold = 256;
+
+	private final ThreadLocal<Arena> arena = ThreadLocal.withInitial(Arena::new);
+	// the arenas that recorded since the last pass
+	private final List<Arena> arenas = new ArrayList<>();
+	private RecordingCanvas[] chunks = new RecordingCanvas[0];
+	private int chunkCount;
+
+	/**
+	 * @param dimensions 2 to cull by a viewport, 3 by a frustum
+	 */
+	public ParallelPipeline(int dimensions) {
+		super(dimensions);
+	}
+
+	public ParallelPipeline(int dimensions, int capacity) {
+		super(dimensions, capacity);
+	}
+
+	@Override
+	public void enter(Canvas canvas) {
+		chunkCount = 0;
+		super.enter(canvas);
+		// recorded by select, in call order
+		for (int i = 0; i < chunkCount; i++) {
+			chunks[i].replay(canvas);
+			chunks[i] = null;
+		}
+	}
+
+	@Override
+	protected int select(Canvas canvas, Renderable<Canvas>[] calls, int size, int[] dest) {
+		final int selected = super.select(canvas, calls, size, dest);
+		final int count = selected < 0 ? size : selected;
+		if (count < parallelThreshold) return selected;
+
+		recycle();
+		final int[] order = selected < 0 ? null : dest;
+		final int chunkSize = Math.max(MIN_CHUNK, count / (ForkJoinPool.getCommonPoolParallelism() * 4) + 1);
+		chunkCount = (count + chunkSize - 1) / chunkSize;
+		if (chunks.length < chunkCount) chunks = new RecordingCanvas[chunkCount];
+		final RecordingCanvas[] chunks = this.chunks;
+		// read once here, since the canvas may only be safe to use on this Thread
+		final int[] dimensions = {canvas.getSize(), canvas.getWidth(), canvas.getHeight(), canvas.getDepth()};
+
+		IntStream.range(0, chunkCount).parallel().forEach(chunk -> {
+			final RecordingCanvas encoder = arena.get().next(dimensions);
+			for (int i = chunk * chunkSize, end = Math.min(count, i + chunkSize); i < end; i++)
+				calls[order == null ? i : order[i]].render(encoder);
+			chunks[chunk] = encoder;
+		});
+		// every call was drawn into the chunks
+		return 0;
+	}
+
+	/**
+	 * Makes every encoder available again, freeing those of the arenas that
+	 * recorded nothing in the last pass. Only called between passes, while no
+	 * worker is recording.
+	 */
+	private void recycle() {
+		synchronized (arenas) {
+			for (int i = arenas.size() - 1; i >= 0; i--) {
+				final Arena arena = arenas.get(i);
+				if (arena.used > 0) {
+					arena.used = 0;
+				} else {
+					arena.free();
+					arenas.remove(i);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the number of chunks the last pass recorded in parallel, 0 if
+	 * it drew directly
+	 */
+	public int getChunkCount() {
+		return chunkCount;
+	}
+
+	/**
+	 * Frees every encoder. The pipeline may still be entered afterwards.
+	 */
+	@Override
+	public void free() {
+		synchronized (arenas) {
+			for (Arena arena : arenas) arena.free();
+			arenas.clear();
+		}
+	}
+
+	/**
+	 * @return the number of visible calls from which a pass records in
+	 * parallel
+	 */
+	public static int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	public static void setParallelThreshold(int parallelThreshold) {
+		ParallelPipeline.parallelThreshold = parallelThreshold;
+	}
+
+	/**
+	 * The encoders of one worker Thread, handed out in turn during a pass.
+	 */
+	private final class Arena {
+
+		private final List<RecordingCanvas> encoders = new ArrayList<>(4);
+		private int used;
+		private boolean registered;
+
+		RecordingCanvas next(int[] dimensions) {
+			if (!registered) {
+				synchronized (arenas) {
+					arenas.add(this);
+				}
+				registered = true;
+			}
+			if (used == encoders.size()) encoders.add(new RecordingCanvas(0, 0, true));
+			final RecordingCanvas encoder = encoders.get(used++);
+			encoder.clear();
+			encoder.setSize(dimensions[0]);
+			encoder.setWidth(dimensions[1]);
+			encoder.setHeight(dimensions[2]);
+			encoder.setDepth(dimensions[3]);
+			return encoder;
+		}
+
+		void free() {
+			for (RecordingCanvas encoder : encoders) encoder.free();
+			encoders.clear();
+			used = 0;
+			registered = false;
+		}
+
+	}
+
+}
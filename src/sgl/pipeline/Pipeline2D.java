@@ -32,4 +32,11 @@ package sgl.pipeline;
  */
 public interface Pipeline2D<C extends Canvas2D> extends Pipeline<C> {
 
+	/**
+	 * Sets the rectangle, in canvas coordinates, outside of which
+	 * Renderables with {@link sgl.canvas.Renderable#getBounds(float[])
+	 * bounds} are skipped.
+	 */
+	void setViewport(float x, float y, float width, float height);
+
 }
@@ -27,9 +27,19 @@
  */
 package sgl.pipeline;
 
+import sgl.util.math.matrix.Mat4f;
+
 /**
  * @author link
  */
 public interface Pipeline3D<C extends Canvas2D> extends Pipeline2D<C> {
 
+	/**
+	 * Sets the view frustum outside of which Renderables with {@link
+	 * sgl.canvas.Renderable#getBounds(float[]) bounds} are skipped.
+	 *
+	 * @param viewProjection the projection times the view transform
+	 */
+	void setFrustum(Mat4f viewProjection);
+
 }
@@ -27,8 +27,60 @@
  */
 package sgl.shape;
 
+import sgl.shape.tessellation.Tessellable;
+import sgl.shape.tessellation.TessellationCache;
+import sgl.shape.tessellation.TriangleMesh;
+import sgl.util.math.point.Point;
+
 /**
+ * A base for shapes that can be tessellated into triangles and cached by a
+ * {@link TessellationCache}.
+ * <p>
+ * Subclasses call {@link #invalidate()} whenever their geometry changes;
+ * caches compare {@link #getVersion()} to tell when their triangles are
+ * stale. Shapes are cached by identity.
+ * </p>
+ *
  * @author link
  */
-public class AbstractShape {
+public abstract class AbstractShape<P extends Point> implements Shape<P>, Tessellable {
+
+	private int version;
+
+	/**
+	 * @return a number that changes whenever the geometry of this shape does
+	 */
+	@Override
+	public final int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Marks the geometry of this shape as changed, so cached triangles are
+	 * rebuilt.
+	 */
+	protected final void invalidate() {
+		version++;
+	}
+
+	/**
+	 * Adds the triangles covering this shape to the given mesh.
+	 *
+	 * @param scale the scale the shape will be drawn at; curves are divided
+	 *              finely enough to look smooth at it
+	 * @param mesh  the mesh to add the triangles to
+	 */
+	@Override
+	public abstract void tessellate(float scale, TriangleMesh mesh);
+
+	@Override
+	public final boolean equals(Object o) {
+		return this == o;
+	}
+
+	@Override
+	public final int hashCode() {
+		return System.identityHashCode(this);
+	}
+
 }
@@ -0,0 +1,145 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.shape.path;
+
+import org.lwjgl.system.NativeResource;
+import sgl.shape.tessellation.Stroke;
+import sgl.shape.tessellation.Tessellator;
+import sgl.shape.tessellation.TriangleMesh;
+import sgl.util.math.point.PointArray2D;
+
+import java.util.Arrays;
+
+/**
+ * The points of a {@link Path} after {@link Flattener flattening}: one
+ * polyline per subpath, stored back to back in a single
+ * {@link PointArray2D}.
+ *
+ * @author link
+ */
+public final class FlattenedPath implements NativeResource {
+
+	final PointArray2D points = new PointArray2D(64);
+	int[] starts = new int[4];
+	boolean[] closed = new boolean[4];
+	int contours;
+
+	/**
+	 * @return every point of every contour
+	 */
+	public PointArray2D getPoints() {
+		return points;
+	}
+
+	public int getContourCount() {
+		return contours;
+	}
+
+	/**
+	 * @return the index in {@link #getPoints()} of the contour's first point
+	 */
+	public int getStart(int contour) {
+		return starts[contour];
+	}
+
+	/**
+	 * @return the index in {@link #getPoints()} after the contour's last
+	 * point
+	 */
+	public int getEnd(int contour) {
+		return contour + 1 < contours ? starts[contour + 1] : points.size();
+	}
+
+	public boolean isClosed(int contour) {
+		return closed[contour];
+	}
+
+	/**
+	 * Copies the points of one contour.
+	 *
+	 * @param contour the contour
+	 * @param dest    the array to copy to, cleared first
+	 * @return dest
+	 */
+	public PointArray2D getContour(int contour, PointArray2D dest) {
+		dest.clear();
+		for (int i = getStart(contour); i < getEnd(contour); i++) dest.add(points.getX(i), points.getY(i));
+		return dest;
+	}
+
+	/**
+	 * Fills every contour, each on its own; holes aren't cut out.
+	 *
+	 * @param mesh the mesh to add the triangles to
+	 */
+	public void fill(TriangleMesh mesh) {
+		final PointArray2D contour = new PointArray2D(64);
+		try {
+			for (int c = 0; c < contours; c++) Tessellator.fill(getContour(c, contour), mesh);
+		} finally {
+			contour.free();
+		}
+	}
+
+	/**
+	 * Strokes every contour.
+	 *
+	 * @param stroke the width, joins and caps
+	 * @param scale  the scale the path will be drawn at
+	 * @param mesh   the mesh to add the triangles to
+	 */
+	public void stroke(Stroke stroke, float scale, TriangleMesh mesh) {
+		final PointArray2D contour = new PointArray2D(64);
+		try {
+			for (int c = 0; c < contours; c++) Tessellator.stroke(getContour(c, contour), closed[c], stroke, scale, mesh);
+		} finally {
+			contour.free();
+		}
+	}
+
+	void clear() {
+		points.clear();
+		contours = 0;
+	}
+
+	void addContour(int start, boolean closed) {
+		if (contours == starts.length) {
+			starts = Arrays.copyOf(starts, 2 * contours);
+			this.closed = Arrays.copyOf(this.closed, 2 * contours);
+		}
+		starts[contours] = start;
+		this.closed[contours++] = closed;
+	}
+
+	@Override
+	public void free() {
+		points.free();
+		contours = 0;
+	}
+
+}
@@ -0,0 +1,267 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.shape.path;
+
+import sgl.util.math.matrix.Mat3f;
+import sgl.util.math.point.PointArray2D;
+
+import java.util.stream.IntStream;
+
+import static sgl.shape.path.Path.*;
+
+/**
+ * Turns the curves of a {@link Path} into polylines, with as few points as
+ * keep them within a tolerance of the true curve at the scale they're drawn
+ * at.
+ * <p>
+ * Beziers are divided evenly into the number of segments given by Wang's
+ * formula, an upper bound from the control polygon's second differences,
+ * and arcs into chords whose sagitta is within the tolerance. Halving the
+ * scale roughly divides a curve's points by 1.4, so zoomed out paths cost
+ * little while zoomed in ones stay smooth.
+ * </p>
+ * <p>
+ * Flattening runs in two passes over the verbs: one counting each verb's
+ * points, then, after a prefix sum gives each its place in the output, one
+ * writing them. Paths of {@link #getParallelThreshold()} verbs or more run
+ * both passes on the common ForkJoinPool.
+ * </p>
+ *
+ * @author link
+ */
+public enum Flattener {
+	;
+
+	/**
+	 * The default largest distance, in pixels, between a curve and its
+	 * polyline.
+	 */
+	public static final float TOLERANCE = 0.25f;
+
+	/**
+	 * Bounds the points of one curve, so a huge scale can't exhaust memory.
+	 */
+	private static final int MAX_SEGMENTS = 1 << 12;
+
+	private static volatile int parallelThreshold = 1 << 12;
+
+	/**
+	 * Flattens a path within {@link #TOLERANCE}.
+	 *
+	 * @param path  the path
+	 * @param scale the scale the path is drawn at, in pixels per unit
+	 * @return the flattened path
+	 */
+	public static FlattenedPath flatten(Path path, float scale) {
+		return flatten(path, scale, TOLERANCE, new FlattenedPath());
+	}
+
+	/**
+	 * Flattens a path.
+	 *
+	 * @param path      the path
+	 * @param scale     the scale the path is drawn at, in pixels per unit
+	 * @param tolerance the largest distance, in pixels, between a curve and
+	 *                  its polyline
+	 * @param dest      the flattened path to reuse
+	 * @return dest
+	 */
+	public static FlattenedPath flatten(Path path, float scale, float tolerance, FlattenedPath dest) {
+		final int n = path.verbCount;
+		final byte[] verbs = path.verbs;
+		final float[] coords = path.coords;
+		final float epsilon = tolerance / scale;
+		dest.clear();
+
+		// where each verb's coordinates start, and the point it continues from
+		final int[] coord = new int[n];
+		final float[] fromX = new float[n], fromY = new float[n];
+		float x = 0, y = 0, startX = 0, startY = 0;
+		for (int v = 0, c = 0; v < n; v++) {
+			coord[v] = c;
+			fromX[v] = x;
+			fromY[v] = y;
+			final byte verb = verbs[v];
+			if (verb == CLOSE) {
+				x = startX;
+				y = startY;
+			} else if (verb == ARC) {
+				final float r = coords[c + 2], end = coords[c + 3] + coords[c + 4];
+				x = coords[c] + r * (float) Math.cos(end);
+				y = coords[c + 1] + r * (float) Math.sin(end);
+			} else if (verb != CLOSE) {
+				c += size(verb);
+				x = coords[c - 2];
+				y = coords[c - 1];
+				if (verb == MOVE) {
+					startX = x;
+					startY = y;
+				}
+				continue;
+			}
+			c += size(verb);
+		}
+
+		final int[] offsets = new int[n + 1];
+		verbs(n).forEach(v -> offsets[v + 1] = count(verbs[v], coords, coord[v], fromX[v], fromY[v], epsilon));
+		for (int v = 0; v < n; v++) {
+			offsets[v + 1] += offsets[v];
+			if (verbs[v] == MOVE) dest.addContour(offsets[v], false);
+			else if (verbs[v] == CLOSE) dest.closed[dest.contours - 1] = true;
+		}
+
+		final PointArray2D points = dest.points;
+		points.setSize(offsets[n]);
+		verbs(n).forEach(v -> emit(verbs[v], coords, coord[v], fromX[v], fromY[v], offsets[v], offsets[v + 1] - offsets[v], points));
+		return dest;
+	}
+
+	private static IntStream verbs(int n) {
+		final IntStream range = IntStream.range(0, n);
+		return n >= parallelThreshold ? range.parallel() : range;
+	}
+
+	/**
+	 * @return the number of points the verb adds
+	 */
+	private static int count(byte verb, float[] coords, int c, float x0, float y0, float epsilon) {
+		switch (verb) {
+			case MOVE:
+			case LINE:
+				return 1;
+			case QUAD:
+				return quadSegments(x0, y0, coords[c], coords[c + 1], coords[c + 2], coords[c + 3], epsilon);
+			case CUBIC:
+				return cubicSegments(x0, y0, coords[c], coords[c + 1], coords[c + 2], coords[c + 3], coords[c + 4], coords[c + 5], epsilon);
+			case ARC:
+				return 1 + arcSegments(coords[c + 2], coords[c + 4], epsilon);
+			default:
+				return 0;
+		}
+	}
+
+	private static void emit(byte verb, float[] coords, int c, float x0, float y0, int offset, int count, PointArray2D points) {
+		switch (verb) {
+			case MOVE:
+			case LINE:
+				points.set(offset, coords[c], coords[c + 1]);
+				break;
+			case QUAD: {
+				final float x1 = coords[c], y1 = coords[c + 1], x2 = coords[c + 2], y2 = coords[c + 3];
+				// B(t) = (a t + b) t + p0
+				final float ax = x0 - 2 * x1 + x2, ay = y0 - 2 * y1 + y2, bx = 2 * (x1 - x0), by = 2 * (y1 - y0);
+				for (int i = 1; i < count; i++) {
+					final float t = (float) i / count;
+					points.set(offset + i - 1, (ax * t + bx) * t + x0, (ay * t + by) * t + y0);
+				}
+				points.set(offset + count - 1, x2, y2);
+				break;
+			}
+			case CUBIC: {
+				final float x1 = coords[c], y1 = coords[c + 1], x2 = coords[c + 2], y2 = coords[c + 3], x3 = coords[c + 4], y3 = coords[c + 5];
+				// B(t) = ((a t + b) t + c) t + p0
+				final float ax = x3 - x0 + 3 * (x1 - x2), ay = y3 - y0 + 3 * (y1 - y2);
+				final float bx = 3 * (x0 - 2 * x1 + x2), by = 3 * (y0 - 2 * y1 + y2);
+				final float cx = 3 * (x1 - x0), cy = 3 * (y1 - y0);
+				for (int i = 1; i < count; i++) {
+					final float t = (float) i / count;
+					points.set(offset + i - 1, ((ax * t + bx) * t + cx) * t + x0, ((ay * t + by) * t + cy) * t + y0);
+				}
+				points.set(offset + count - 1, x3, y3);
+				break;
+			}
+			case ARC: {
+				final float cx = coords[c], cy = coords[c + 1], r = coords[c + 2], start = coords[c + 3], sweep = coords[c + 4];
+				final int segments = count - 1;
+				for (int i = 0; i <= segments; i++) {
+					final double angle = start + (double) sweep * i / segments;
+					points.set(offset + i, cx + r * (float) Math.cos(angle), cy + r * (float) Math.sin(angle));
+				}
+				break;
+			}
+			default:
+		}
+	}
+
+	/**
+	 * Wang's formula for a quadratic: sqrt(|p0 - 2 p1 + p2| / (4 epsilon)).
+	 */
+	static int quadSegments(float x0, float y0, float x1, float y1, float x2, float y2, float epsilon) {
+		final float dx = x0 - 2 * x1 + x2, dy = y0 - 2 * y1 + y2;
+		return clamp(Math.sqrt(Math.sqrt(dx * dx + dy * dy) / (4 * epsilon)));
+	}
+
+	/**
+	 * Wang's formula for a cubic: sqrt(3 max |p(i) - 2 p(i+1) + p(i+2)| / (4
+	 * epsilon)).
+	 */
+	static int cubicSegments(float x0, float y0, float x1, float y1, float x2, float y2, float x3, float y3, float epsilon) {
+		final float d0x = x0 - 2 * x1 + x2, d0y = y0 - 2 * y1 + y2, d1x = x1 - 2 * x2 + x3, d1y = y1 - 2 * y2 + y3;
+		final double dd = Math.sqrt(Math.max(d0x * d0x + d0y * d0y, d1x * d1x + d1y * d1y));
+		return clamp(Math.sqrt(3 * dd / (4 * epsilon)));
+	}
+
+	/**
+	 * The chords needed for their sagitta, r (1 - cos(step / 2)), to stay
+	 * within epsilon.
+	 */
+	static int arcSegments(float radius, float sweep, float epsilon) {
+		final float r = Math.abs(radius);
+		if (r <= epsilon) return 1;
+		return clamp(Math.abs(sweep) / (2 * Math.acos(1 - epsilon / r)));
+	}
+
+	private static int clamp(double segments) {
+		return segments >= MAX_SEGMENTS ? MAX_SEGMENTS : Math.max(1, (int) Math.ceil(segments));
+	}
+
+	/**
+	 * Gets the largest factor the given transform stretches any direction
+	 * by, the scale to flatten at for content drawn through it.
+	 *
+	 * @param m an affine 2D transform
+	 * @return the largest singular value of its linear part
+	 */
+	public static float getScale(Mat3f m) {
+		final double a = m.m00, b = m.m01, c = m.m10, d = m.m11;
+		final double e = a * a + b * b + c * c + d * d, det = a * d - b * c;
+		return (float) Math.sqrt((e + Math.sqrt(Math.max(0, e * e - 4 * det * det))) / 2);
+	}
+
+	/**
+	 * @return the number of verbs from which paths are flattened in parallel
+	 */
+	public static int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	public static void setParallelThreshold(int parallelThreshold) {
+		Flattener.parallelThreshold = parallelThreshold;
+	}
+
+}
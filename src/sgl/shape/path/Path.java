@@ -0,0 +1,263 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.shape.path;
+
+import sgl.shape.tessellation.Tessellable;
+import sgl.shape.tessellation.TriangleMesh;
+
+import java.util.Arrays;
+
+/**
+ * A 2D outline of lines, quadratic and cubic Beziers and circular arcs,
+ * stored as a compact verb and coordinate stream and turned into points by
+ * {@link Flattener}.
+ * <p>
+ * Building follows the HTML canvas: a segment without a current point
+ * starts a subpath where it begins, and after {@link #close()} the next
+ * segment starts a new subpath at the closed one's start.
+ * </p>
+ * <p>
+ * As a {@link Tessellable}, a path tessellates to its fill, so a
+ * {@link sgl.shape.tessellation.TessellationCache} keeps its triangles
+ * until it changes.
+ * </p>
+ *
+ * @author link
+ */
+public final class Path implements Tessellable {
+
+	static final byte MOVE = 0, LINE = 1, QUAD = 2, CUBIC = 3, ARC = 4, CLOSE = 5;
+
+	byte[] verbs = new byte[16];
+	float[] coords = new float[32];
+	int verbCount, coordCount;
+
+	private float startX, startY;
+	private boolean current, closed;
+	private int version;
+
+	public Path moveTo(float x, float y) {
+		verb(MOVE);
+		coords(x, y);
+		startX = x;
+		startY = y;
+		current = true;
+		closed = false;
+		return this;
+	}
+
+	public Path lineTo(float x, float y) {
+		if (begin(x, y)) return this;
+		verb(LINE);
+		coords(x, y);
+		return this;
+	}
+
+	/**
+	 * Adds a quadratic Bezier from the current point.
+	 */
+	public Path quadTo(float cx, float cy, float x, float y) {
+		begin(cx, cy);
+		verb(QUAD);
+		coords(cx, cy);
+		coords(x, y);
+		return this;
+	}
+
+	/**
+	 * Adds a cubic Bezier from the current point.
+	 */
+	public Path cubicTo(float c1x, float c1y, float c2x, float c2y, float x, float y) {
+		begin(c1x, c1y);
+		verb(CUBIC);
+		coords(c1x, c1y);
+		coords(c2x, c2y);
+		coords(x, y);
+		return this;
+	}
+
+	/**
+	 * Adds a circular arc, joined to the current point by a line.
+	 *
+	 * @param cx     the x of the center
+	 * @param cy     the y of the center
+	 * @param radius the radius
+	 * @param start  the angle of the arc's start, in radians
+	 * @param sweep  the angle to sweep, in radians, towards positive angles
+	 *               if positive
+	 */
+	public Path arc(float cx, float cy, float radius, float start, float sweep) {
+		begin(cx + radius * (float) Math.cos(start), cy + radius * (float) Math.sin(start));
+		verb(ARC);
+		coords(cx, cy);
+		coords(radius, start);
+		coord(sweep);
+		return this;
+	}
+
+	/**
+	 * Closes the current subpath with a line back to its start.
+	 */
+	public Path close() {
+		if (current && !closed) {
+			verb(CLOSE);
+			closed = true;
+		}
+		return this;
+	}
+
+	public void clear() {
+		verbCount = coordCount = 0;
+		current = closed = false;
+		version++;
+	}
+
+	/**
+	 * Starts a subpath if there is no current point or the last one was
+	 * closed.
+	 *
+	 * @return whether a subpath was started at the given point
+	 */
+	private boolean begin(float x, float y) {
+		if (!current) {
+			moveTo(x, y);
+			return true;
+		}
+		if (closed) moveTo(startX, startY);
+		return false;
+	}
+
+	private void verb(byte verb) {
+		if (verbCount == verbs.length) verbs = Arrays.copyOf(verbs, 2 * verbCount);
+		verbs[verbCount++] = verb;
+		version++;
+	}
+
+	private void coords(float x, float y) {
+		coord(x);
+		coord(y);
+	}
+
+	private void coord(float c) {
+		if (coordCount == coords.length) coords = Arrays.copyOf(coords, 2 * coordCount);
+		coords[coordCount++] = c;
+	}
+
+	/**
+	 * @return the number of segments, moves and closes in this path
+	 */
+	public int getVerbCount() {
+		return verbCount;
+	}
+
+	/**
+	 * @return a number that changes whenever this path does
+	 */
+	@Override
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Adds the fill of this path, {@link Flattener flattened} at the given
+	 * scale, to the given mesh. Each subpath is filled on its own, as in
+	 * {@link FlattenedPath#fill(TriangleMesh)}.
+	 *
+	 * @param scale the scale the path will be drawn at
+	 * @param mesh  the mesh to add the triangles to
+	 */
+	@Override
+	public void tessellate(float scale, TriangleMesh mesh) {
+		final FlattenedPath flattened = Flattener.flatten(this, scale);
+		try {
+			flattened.fill(mesh);
+		} finally {
+			flattened.free();
+		}
+	}
+
+	public boolean isEmpty() {
+		return verbCount == 0;
+	}
+
+	/**
+	 * Computes bounds containing this path: those of its end and control
+	 * points, and of the full circle of each arc. They may be larger than
+	 * the outline, never smaller.
+	 *
+	 * @param dest the array to store the minimum x, minimum y, maximum x and
+	 *             maximum y in
+	 * @return dest
+	 */
+	public float[] getBounds(float[] dest) {
+		float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+		float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+		for (int v = 0, c = 0; v < verbCount; v++) {
+			if (verbs[v] == ARC) {
+				final float r = Math.abs(coords[c + 2]);
+				minX = Math.min(minX, coords[c] - r);
+				minY = Math.min(minY, coords[c + 1] - r);
+				maxX = Math.max(maxX, coords[c] + r);
+				maxY = Math.max(maxY, coords[c + 1] + r);
+			} else {
+				for (int i = c; i < c + size(verbs[v]); i += 2) {
+					minX = Math.min(minX, coords[i]);
+					minY = Math.min(minY, coords[i + 1]);
+					maxX = Math.max(maxX, coords[i]);
+					maxY = Math.max(maxY, coords[i + 1]);
+				}
+			}
+			c += size(verbs[v]);
+		}
+		dest[0] = minX;
+		dest[1] = minY;
+		dest[2] = maxX;
+		dest[3] = maxY;
+		return dest;
+	}
+
+	/**
+	 * @return the number of coordinates the given verb takes
+	 */
+	static int size(byte verb) {
+		switch (verb) {
+			case MOVE:
+			case LINE:
+				return 2;
+			case QUAD:
+				return 4;
+			case CUBIC:
+				return 6;
+			case ARC:
+				return 5;
+			default:
+				return 0;
+		}
+	}
+
+}
@@ -0,0 +1,118 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.shape.tessellation;
+
+import sgl.util.math.point.PointArray2D;
+
+/**
+ * A polygon prepared for triangulation: repeated points dropped, wound
+ * counter-clockwise (for a y axis pointing up) and its vertices added to
+ * the mesh being built.
+ *
+ * @author link
+ */
+final class Contour {
+
+	final double[] x, y;
+	final int[] index;
+	final int n;
+
+	private Contour(double[] x, double[] y, int n, TriangleMesh mesh) {
+		this.x = x;
+		this.y = y;
+		this.n = n;
+		this.index = new int[n];
+		for (int i = 0; i < n; i++) index[i] = mesh.addVertex((float) x[i], (float) y[i]);
+	}
+
+	static Contour of(PointArray2D points, TriangleMesh mesh) {
+		final int size = points.size();
+		final double[] x = new double[size], y = new double[size];
+		int n = 0;
+		for (int i = 0; i < size; i++) {
+			final double px = points.getX(i), py = points.getY(i);
+			if (n > 0 && px == x[n - 1] && py == y[n - 1]) continue;
+			x[n] = px;
+			y[n] = py;
+			n++;
+		}
+		while (n > 1 && x[n - 1] == x[0] && y[n - 1] == y[0]) n--;
+
+		double area = 0;
+		for (int i = 0, j = n - 1; i < n; j = i++) area += x[j] * y[i] - x[i] * y[j];
+		if (area < 0) {
+			for (int i = 0, j = n - 1; i < j; i++, j--) {
+				final double tx = x[i], ty = y[i];
+				x[i] = x[j];
+				y[i] = y[j];
+				x[j] = tx;
+				y[j] = ty;
+			}
+		}
+		return new Contour(x, y, n, mesh);
+	}
+
+	int prev(int i) {
+		return i == 0 ? n - 1 : i - 1;
+	}
+
+	int next(int i) {
+		return i == n - 1 ? 0 : i + 1;
+	}
+
+	/**
+	 * @return twice the signed area of the triangle abc, positive when it
+	 * turns left
+	 */
+	double cross(int a, int b, int c) {
+		return (x[b] - x[a]) * (y[c] - y[a]) - (y[b] - y[a]) * (x[c] - x[a]);
+	}
+
+	/**
+	 * The sweep order: higher y first, then lower x, so no two vertices are
+	 * level.
+	 */
+	boolean above(int a, int b) {
+		return y[a] > y[b] || (y[a] == y[b] && x[a] < x[b]);
+	}
+
+	boolean isConvex() {
+		for (int i = 0; i < n; i++)
+			if (cross(prev(i), i, next(i)) < 0) return false;
+		return true;
+	}
+
+	/**
+	 * Adds the triangle abc to the mesh, counter-clockwise.
+	 */
+	void triangle(TriangleMesh mesh, int a, int b, int c) {
+		if (cross(a, b, c) < 0) mesh.addTriangle(index[a], index[c], index[b]);
+		else mesh.addTriangle(index[a], index[b], index[c]);
+	}
+
+}
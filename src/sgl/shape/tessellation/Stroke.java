@@ -0,0 +1,128 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.shape.tessellation;
+
+/**
+ * How a line is expanded into triangles by
+ * {@link Tessellator#stroke(sgl.util.math.point.PointArray2D, boolean, Stroke, float, TriangleMesh)}.
+ *
+ * @author link
+ */
+public final class Stroke {
+
+	/**
+	 * The shape drawn where two segments meet.
+	 */
+	public enum Join {
+		/**
+		 * The outer edges extended until they meet, or {@link #BEVEL} past
+		 * the miter limit.
+		 */
+		MITER,
+		ROUND,
+		/**
+		 * The outer corners connected by a straight edge.
+		 */
+		BEVEL
+	}
+
+	/**
+	 * The shape drawn at the ends of an open line.
+	 */
+	public enum Cap {
+		/**
+		 * No cap; the line ends flat at its end points.
+		 */
+		BUTT,
+		ROUND,
+		/**
+		 * The line extended by half its width.
+		 */
+		SQUARE
+	}
+
+	private final float width, miterLimit;
+	private final Join join;
+	private final Cap cap;
+
+	/**
+	 * Creates a stroke with mitered joins and butt caps.
+	 */
+	public Stroke(float width) {
+		this(width, Join.MITER, Cap.BUTT, 4);
+	}
+
+	public Stroke(float width, Join join, Cap cap) {
+		this(width, join, cap, 4);
+	}
+
+	/**
+	 * @param width      the width of the line
+	 * @param join       the join
+	 * @param cap        the cap
+	 * @param miterLimit the longest a miter may be, as a multiple of the
+	 *                   width, before it's beveled
+	 */
+	public Stroke(float width, Join join, Cap cap, float miterLimit) {
+		if (width <= 0) throw new IllegalArgumentException("Stroke width must be positive: " + width);
+		this.width = width;
+		this.join = join;
+		this.cap = cap;
+		this.miterLimit = miterLimit;
+	}
+
+	public float getWidth() {
+		return width;
+	}
+
+	public Join getJoin() {
+		return join;
+	}
+
+	public Cap getCap() {
+		return cap;
+	}
+
+	public float getMiterLimit() {
+		return miterLimit;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (!(o instanceof Stroke)) return false;
+		final Stroke s = (Stroke) o;
+		return width == s.width && miterLimit == s.miterLimit && join == s.join && cap == s.cap;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * (31 * (31 * Float.floatToIntBits(width) + Float.floatToIntBits(miterLimit)) + join.hashCode()) + cap.hashCode();
+	}
+
+}
@@ -0,0 +1,59 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.shape.tessellation;
+
+/**
+ * Geometry that can be tessellated into triangles and cached by a
+ * {@link TessellationCache}.
+ * <p>
+ * Implementations change {@link #getVersion()} whenever their geometry
+ * changes, so caches can tell when their triangles are stale. Caches hold
+ * implementations by identity.
+ * </p>
+ *
+ * @author link
+ * @see sgl.shape.AbstractShape
+ * @see sgl.shape.path.Path
+ */
+public interface Tessellable {
+
+	/**
+	 * @return a number that changes whenever the geometry does
+	 */
+	int getVersion();
+
+	/**
+	 * Adds the triangles covering this geometry to the given mesh.
+	 *
+	 * @param scale the scale the geometry will be drawn at; curves are
+	 *              divided finely enough to look smooth at it
+	 * @param mesh  the mesh to add the triangles to
+	 */
+	void tessellate(float scale, TriangleMesh mesh);
+
+}
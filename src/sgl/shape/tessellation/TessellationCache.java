@@ -0,0 +1,258 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.shape.tessellation;
+
+import org.lwjgl.system.NativeResource;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the triangles of shapes between frames, so unchanged shapes are
+ * never tessellated twice.
+ * <p>
+ * Meshes are kept per shape and per scale bucket: scales are rounded to
+ * half octaves, and each bucket is tessellated at its largest scale so
+ * curves never look coarser than they would tessellated exactly. A shape's
+ * meshes are rebuilt once its {@link Tessellable#getVersion() version}
+ * changes. Past the memory budget the least recently drawn shapes are
+ * freed.
+ * </p>
+ * <p>
+ * A mesh returned by {@link #get(Tessellable, float)} belongs to the
+ * cache and may be freed by any later call, so it should be drawn or
+ * uploaded straight away. The cache is not thread-safe.
+ * </p>
+ *
+ * @author link
+ */
+public final class TessellationCache implements NativeResource {
+
+	/**
+	 * Scale buckets per doubling of the scale.
+	 */
+	private static final int BUCKETS_PER_OCTAVE = 2;
+
+	private final Map<Tessellable, Entry> entries = new IdentityHashMap<>();
+	/**
+	 * Sentinel of the circular recency list; its next entry is the least
+	 * recently used.
+	 */
+	private final Entry lru = new Entry(null);
+
+	private long budget, bytes;
+	private long hits, misses;
+
+	/**
+	 * @param budget the most off-heap memory cached meshes may hold, in bytes
+	 */
+	public TessellationCache(long budget) {
+		this.budget = budget;
+		lru.previous = lru.next = lru;
+	}
+
+	/**
+	 * Gets the triangles of the given shape drawn at the given scale,
+	 * tessellating it if they aren't cached or the shape has changed.
+	 *
+	 * @param shape the shape
+	 * @param scale the scale the shape is drawn at, in pixels per unit
+	 * @return the triangles, valid until the next call
+	 */
+	public TriangleMesh get(Tessellable shape, float scale) {
+		if (!(scale > 0)) throw new IllegalArgumentException("Scale must be positive: " + scale);
+		final int bucket = bucket(scale);
+
+		Entry entry = entries.get(shape);
+		if (entry == null) {
+			entries.put(shape, entry = new Entry(shape));
+			entry.version = shape.getVersion();
+		} else {
+			entry.unlink();
+			if (entry.version != shape.getVersion()) {
+				bytes -= entry.free();
+				entry.version = shape.getVersion();
+			}
+		}
+		entry.linkBefore(lru);
+
+		TriangleMesh mesh = entry.get(bucket);
+		if (mesh != null) {
+			hits++;
+			return mesh;
+		}
+
+		misses++;
+		mesh = new TriangleMesh();
+		shape.tessellate(getScale(bucket), mesh);
+		mesh.trim();
+		entry.put(bucket, mesh);
+		bytes += mesh.getBytes();
+		evict(entry);
+		return mesh;
+	}
+
+	private void evict(Entry keep) {
+		while (bytes > budget && lru.next != keep) {
+			final Entry eldest = lru.next;
+			eldest.unlink();
+			entries.remove(eldest.shape);
+			bytes -= eldest.free();
+		}
+	}
+
+	/**
+	 * Frees the cached triangles of the given shape, for shapes that are no
+	 * longer drawn.
+	 */
+	public void invalidate(Tessellable shape) {
+		final Entry entry = entries.remove(shape);
+		if (entry != null) {
+			entry.unlink();
+			bytes -= entry.free();
+		}
+	}
+
+	/**
+	 * Frees every cached mesh.
+	 */
+	public void clear() {
+		for (Entry entry : entries.values()) entry.free();
+		entries.clear();
+		lru.previous = lru.next = lru;
+		bytes = 0;
+	}
+
+	@Override
+	public void free() {
+		clear();
+	}
+
+	/**
+	 * @return the scale bucket the given scale falls in
+	 */
+	static int bucket(float scale) {
+		return (int) Math.round(Math.log(scale) / Math.log(2) * BUCKETS_PER_OCTAVE);
+	}
+
+	/**
+	 * @return the largest scale of the given bucket
+	 */
+	static float getScale(int bucket) {
+		return (float) Math.pow(2, (bucket + 0.5) / BUCKETS_PER_OCTAVE);
+	}
+
+	public long getBudget() {
+		return budget;
+	}
+
+	public void setBudget(long budget) {
+		this.budget = budget;
+		if (lru.previous != lru) evict(lru.previous);
+	}
+
+	/**
+	 * @return the off-heap memory held by cached meshes, in bytes
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	public int getShapeCount() {
+		return entries.size();
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	private static final class Entry {
+
+		final Tessellable shape;
+		int version;
+		Entry previous, next;
+
+		int[] buckets = new int[2];
+		TriangleMesh[] meshes = new TriangleMesh[2];
+		int count;
+
+		Entry(Tessellable shape) {
+			this.shape = shape;
+		}
+
+		TriangleMesh get(int bucket) {
+			for (int i = 0; i < count; i++)
+				if (buckets[i] == bucket) return meshes[i];
+			return null;
+		}
+
+		void put(int bucket, TriangleMesh mesh) {
+			if (count == buckets.length) {
+				buckets = Arrays.copyOf(buckets, 2 * count);
+				meshes = Arrays.copyOf(meshes, 2 * count);
+			}
+			buckets[count] = bucket;
+			meshes[count++] = mesh;
+		}
+
+		/**
+		 * Frees every mesh of this entry.
+		 *
+		 * @return the bytes freed
+		 */
+		long free() {
+			long freed = 0;
+			for (int i = 0; i < count; i++) {
+				freed += meshes[i].getBytes();
+				meshes[i].free();
+				meshes[i] = null;
+			}
+			count = 0;
+			return freed;
+		}
+
+		void unlink() {
+			previous.next = next;
+			next.previous = previous;
+		}
+
+		void linkBefore(Entry entry) {
+			previous = entry.previous;
+			next = entry;
+			previous.next = this;
+			entry.previous = this;
+		}
+
+	}
+
+}
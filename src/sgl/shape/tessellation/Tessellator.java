@@ -0,0 +1,551 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.shape.tessellation;
+
+import sgl.util.math.point.PointArray2D;
+
+import java.util.Arrays;
+
+/**
+ * Turns polygons and lines into indexed triangles.
+ * <p>
+ * Polygons must be simple, in either winding. {@link #fill(PointArray2D,
+ * TriangleMesh)} picks the cheapest method that handles the polygon: a fan
+ * for convex polygons, ear clipping for small ones, and monotone partition
+ * for everything else.
+ * </p>
+ *
+ * @author link
+ */
+public enum Tessellator {
+	;
+
+	/**
+	 * The largest distance, in pixels, between a round join or cap and the
+	 * polygon approximating it.
+	 */
+	public static final float TOLERANCE = 0.25f;
+
+	/**
+	 * Ear clipping is quadratic; past this many vertices monotone partition
+	 * is faster.
+	 */
+	private static final int EAR_CLIP_LIMIT = 64;
+
+	/**
+	 * Fills a polygon with the cheapest method that handles it.
+	 *
+	 * @param polygon the polygon
+	 * @param mesh    the mesh to add the triangles to
+	 */
+	public static void fill(PointArray2D polygon, TriangleMesh mesh) {
+		final Contour contour = Contour.of(polygon, mesh);
+		if (contour.n < 3) return;
+		if (contour.isConvex()) fan(contour, mesh);
+		else if (contour.n <= EAR_CLIP_LIMIT) earClip(contour, mesh);
+		else monotone(contour, mesh);
+	}
+
+	/**
+	 * Fills a convex polygon with a triangle fan.
+	 */
+	public static void fan(PointArray2D polygon, TriangleMesh mesh) {
+		final Contour contour = Contour.of(polygon, mesh);
+		if (contour.n >= 3) fan(contour, mesh);
+	}
+
+	/**
+	 * Fills a polygon by clipping ears, in O(n^2).
+	 */
+	public static void earClip(PointArray2D polygon, TriangleMesh mesh) {
+		final Contour contour = Contour.of(polygon, mesh);
+		if (contour.n >= 3) earClip(contour, mesh);
+	}
+
+	/**
+	 * Fills a polygon by splitting it into y-monotone pieces and
+	 * triangulating those.
+	 */
+	public static void monotone(PointArray2D polygon, TriangleMesh mesh) {
+		final Contour contour = Contour.of(polygon, mesh);
+		if (contour.n >= 3) monotone(contour, mesh);
+	}
+
+	private static void fan(Contour c, TriangleMesh mesh) {
+		for (int i = 1; i < c.n - 1; i++) c.triangle(mesh, 0, i, i + 1);
+	}
+
+	private static void earClip(Contour c, TriangleMesh mesh) {
+		final int[] prev = new int[c.n], next = new int[c.n];
+		for (int i = 0; i < c.n; i++) {
+			prev[i] = c.prev(i);
+			next[i] = c.next(i);
+		}
+
+		int remaining = c.n, v = 0, misses = 0;
+		while (remaining > 3) {
+			final int p = prev[v], q = next[v];
+			// a polygon that isn't quite simple can run out of ears; clip anyway rather than loop
+			if (isEar(c, prev, next, p, v, q) || misses > remaining) {
+				c.triangle(mesh, p, v, q);
+				next[p] = q;
+				prev[q] = p;
+				remaining--;
+				misses = 0;
+				v = p;
+			} else {
+				v = q;
+				misses++;
+			}
+		}
+		c.triangle(mesh, prev[v], v, next[v]);
+	}
+
+	private static boolean isEar(Contour c, int[] prev, int[] next, int p, int v, int q) {
+		if (c.cross(p, v, q) <= 0) return false;
+		for (int r = next[q]; r != p; r = next[r]) {
+			// only reflex vertices can lie inside an ear
+			if (c.cross(prev[r], r, next[r]) > 0) continue;
+			if (c.cross(p, v, r) >= 0 && c.cross(v, q, r) >= 0 && c.cross(q, p, r) >= 0) return false;
+		}
+		return true;
+	}
+
+	private static void monotone(Contour c, TriangleMesh mesh) {
+		final int first = mesh.getIndexCount();
+		final int[][] diagonals = partition(c);
+
+		final int[][] out = new int[c.n][];
+		for (int v = 0; v < c.n; v++) {
+			out[v] = new int[1 + diagonals[v].length];
+			out[v][0] = c.next(v);
+			System.arraycopy(diagonals[v], 0, out[v], 1, diagonals[v].length);
+		}
+		final double[][] angles = new double[c.n][];
+		for (int v = 0; v < c.n; v++) {
+			final int[] targets = out[v];
+			final double[] a = angles[v] = new double[targets.length];
+			for (int k = 0; k < targets.length; k++) a[k] = Math.atan2(c.y[targets[k]] - c.y[v], c.x[targets[k]] - c.x[v]);
+		}
+
+		// walk the faces left of every half edge; each is a monotone piece
+		final boolean[][] used = new boolean[c.n][];
+		for (int v = 0; v < c.n; v++) used[v] = new boolean[out[v].length];
+		final int[] face = new int[c.n];
+		final boolean[] leftChain = new boolean[c.n];
+		for (int v = 0; v < c.n; v++) {
+			for (int k = 0; k < out[v].length; k++) {
+				if (used[v][k]) continue;
+				int size = 0, from = v, edge = k;
+				while (!used[from][edge] && size < c.n) {
+					used[from][edge] = true;
+					face[size++] = from;
+					final int to = out[from][edge];
+					edge = turn(angles[to], Math.atan2(c.y[from] - c.y[to], c.x[from] - c.x[to]));
+					from = to;
+				}
+				triangulateMonotone(c, Arrays.copyOf(face, size), leftChain, mesh);
+			}
+		}
+
+		// partitioning relies on exact comparisons; fall back if it didn't cover the polygon
+		if ((mesh.getIndexCount() - first) / 3 != c.n - 2) {
+			mesh.truncate(mesh.getVertexCount(), first);
+			earClip(c, mesh);
+		}
+	}
+
+	/**
+	 * Picks the outgoing edge first clockwise from the incoming direction,
+	 * which keeps the face on the left.
+	 */
+	private static int turn(double[] angles, double reverse) {
+		int best = -1, largest = 0;
+		for (int k = 0; k < angles.length; k++) {
+			if (angles[k] < reverse && (best < 0 || angles[k] > angles[best])) best = k;
+			if (angles[k] > angles[largest]) largest = k;
+		}
+		return best >= 0 ? best : largest;
+	}
+
+	private static final int START = 0, END = 1, SPLIT = 2, MERGE = 3, REGULAR = 4;
+
+	/**
+	 * Finds the diagonals that split the polygon into y-monotone pieces, with
+	 * the sweep line algorithm of de Berg et al., Computational Geometry,
+	 * chapter 3. The edges crossing the sweep line are kept in a plain array
+	 * rather than a search tree; there are few of them in ordinary outlines,
+	 * and even a 200 tooth comb partitions faster than it ear clips.
+	 *
+	 * @return the diagonals at every vertex
+	 */
+	private static int[][] partition(Contour c) {
+		final int n = c.n;
+		final Integer[] order = new Integer[n];
+		for (int i = 0; i < n; i++) order[i] = i;
+		Arrays.sort(order, (a, b) -> a.equals(b) ? 0 : c.above(a, b) ? -1 : 1);
+
+		final int[] type = new int[n];
+		for (int v = 0; v < n; v++) {
+			final int p = c.prev(v), q = c.next(v);
+			final boolean convex = c.cross(p, v, q) > 0;
+			if (c.above(v, p) && c.above(v, q)) type[v] = convex ? START : SPLIT;
+			else if (c.above(p, v) && c.above(q, v)) type[v] = convex ? END : MERGE;
+			else type[v] = REGULAR;
+		}
+
+		// edge i runs from vertex i to vertex i + 1; active edges have the interior on their right
+		final int[] helper = new int[n], active = new int[n], slot = new int[n];
+		Arrays.fill(slot, -1);
+		int activeCount = 0;
+		final int[] degree = new int[n];
+		int[] diagonalA = new int[8], diagonalB = new int[8];
+		int diagonalCount = 0;
+
+		for (Integer boxed : order) {
+			final int v = boxed, p = c.prev(v);
+			int diagonal = -1, left;
+			switch (type[v]) {
+				case START:
+					slot[v] = activeCount;
+					active[activeCount++] = v;
+					helper[v] = v;
+					break;
+				case END:
+					if (type[helper[p]] == MERGE) diagonal = helper[p];
+					activeCount = remove(active, slot, activeCount, p);
+					break;
+				case SPLIT:
+					left = leftOf(c, active, activeCount, v);
+					if (left >= 0) {
+						diagonal = helper[left];
+						helper[left] = v;
+					}
+					slot[v] = activeCount;
+					active[activeCount++] = v;
+					helper[v] = v;
+					break;
+				case MERGE:
+					if (type[helper[p]] == MERGE) {
+						diagonalA = grow(diagonalA, diagonalCount);
+						diagonalB = grow(diagonalB, diagonalCount);
+						diagonalA[diagonalCount] = v;
+						diagonalB[diagonalCount++] = helper[p];
+					}
+					activeCount = remove(active, slot, activeCount, p);
+					left = leftOf(c, active, activeCount, v);
+					if (left >= 0) {
+						if (type[helper[left]] == MERGE) diagonal = helper[left];
+						helper[left] = v;
+					}
+					break;
+				default:
+					if (c.above(p, v)) {
+						// the boundary runs down through v, with the interior to its right
+						if (type[helper[p]] == MERGE) diagonal = helper[p];
+						activeCount = remove(active, slot, activeCount, p);
+						slot[v] = activeCount;
+						active[activeCount++] = v;
+						helper[v] = v;
+					} else {
+						left = leftOf(c, active, activeCount, v);
+						if (left >= 0) {
+							if (type[helper[left]] == MERGE) diagonal = helper[left];
+							helper[left] = v;
+						}
+					}
+			}
+			if (diagonal >= 0 && diagonal != v) {
+				diagonalA = grow(diagonalA, diagonalCount);
+				diagonalB = grow(diagonalB, diagonalCount);
+				diagonalA[diagonalCount] = v;
+				diagonalB[diagonalCount++] = diagonal;
+			}
+		}
+
+		for (int i = 0; i < diagonalCount; i++) {
+			degree[diagonalA[i]]++;
+			degree[diagonalB[i]]++;
+		}
+		final int[][] diagonals = new int[n][];
+		for (int v = 0; v < n; v++) diagonals[v] = new int[degree[v]];
+		Arrays.fill(degree, 0);
+		for (int i = 0; i < diagonalCount; i++) {
+			final int a = diagonalA[i], b = diagonalB[i];
+			diagonals[a][degree[a]++] = b;
+			diagonals[b][degree[b]++] = a;
+		}
+		return diagonals;
+	}
+
+	private static int[] grow(int[] array, int count) {
+		return count < array.length ? array : Arrays.copyOf(array, 2 * array.length);
+	}
+
+	private static int remove(int[] active, int[] slot, int count, int edge) {
+		// an edge missing here means the polygon wasn't simple; the triangle count check catches it
+		if (slot[edge] < 0) return count;
+		final int last = active[--count];
+		active[slot[edge]] = last;
+		slot[last] = slot[edge];
+		slot[edge] = -1;
+		return count;
+	}
+
+	/**
+	 * @return the active edge directly left of v, or -1
+	 */
+	private static int leftOf(Contour c, int[] active, int count, int v) {
+		int best = -1;
+		double bestX = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < count; i++) {
+			final int e = active[i], f = c.next(e);
+			final double x;
+			if (c.y[e] == c.y[f]) x = Math.min(c.x[e], c.x[f]);
+			else x = c.x[e] + (c.y[v] - c.y[e]) / (c.y[f] - c.y[e]) * (c.x[f] - c.x[e]);
+			if (x <= c.x[v] && x > bestX) {
+				bestX = x;
+				best = e;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Triangulates a y-monotone polygon, given counter-clockwise, in linear
+	 * time.
+	 *
+	 * @param leftChain scratch space for every vertex of the contour, left
+	 *                  cleared
+	 */
+	private static void triangulateMonotone(Contour c, int[] face, boolean[] leftChain, TriangleMesh mesh) {
+		final int m = face.length;
+		if (m < 3) return;
+		if (m == 3) {
+			c.triangle(mesh, face[0], face[1], face[2]);
+			return;
+		}
+
+		int top = 0, bottom = 0;
+		for (int i = 1; i < m; i++) {
+			if (c.above(face[i], face[top])) top = i;
+			if (c.above(face[bottom], face[i])) bottom = i;
+		}
+		// counter-clockwise from the top runs down the left chain
+		for (int i = top; i != bottom; i = (i + 1) % m) leftChain[face[i]] = true;
+
+		final int[] sorted = new int[m];
+		int l = top, r = (top + m - 1) % m;
+		sorted[0] = face[top];
+		for (int k = 1; k < m; k++) {
+			// merge the two chains, both already sorted top to bottom
+			if (l != bottom && (r == bottom || c.above(face[(l + 1) % m], face[r]))) {
+				l = (l + 1) % m;
+				sorted[k] = face[l];
+			} else {
+				sorted[k] = face[r];
+				r = (r + m - 1) % m;
+			}
+		}
+
+		final int[] stack = new int[m];
+		int size = 0;
+		stack[size++] = sorted[0];
+		stack[size++] = sorted[1];
+		for (int j = 2; j < m - 1; j++) {
+			final int u = sorted[j];
+			if (leftChain[u] != leftChain[stack[size - 1]]) {
+				while (size > 1) {
+					final int a = stack[--size];
+					c.triangle(mesh, u, a, stack[size - 1]);
+				}
+				size = 0;
+				stack[size++] = sorted[j - 1];
+				stack[size++] = u;
+			} else {
+				int a = stack[--size];
+				while (size > 0) {
+					final int b = stack[size - 1];
+					final double turn = c.cross(u, b, a);
+					if (leftChain[u] ? turn <= 0 : turn >= 0) break;
+					c.triangle(mesh, u, a, b);
+					a = stack[--size];
+				}
+				stack[size++] = a;
+				stack[size++] = u;
+			}
+		}
+		final int u = sorted[m - 1];
+		while (size > 1) {
+			final int a = stack[--size];
+			c.triangle(mesh, u, a, stack[size - 1]);
+		}
+		for (int v : face) leftChain[v] = false;
+	}
+
+	/**
+	 * Expands a line into triangles.
+	 *
+	 * @param points the points of the line
+	 * @param closed whether the last point connects back to the first, in
+	 *               which case there are joins all around and no caps
+	 * @param stroke the width, joins and caps
+	 * @param scale  the scale the line will be drawn at, which decides how
+	 *               finely round joins and caps are divided
+	 * @param mesh   the mesh to add the triangles to
+	 */
+	public static void stroke(PointArray2D points, boolean closed, Stroke stroke, float scale, TriangleMesh mesh) {
+		final int size = points.size();
+		final float[] x = new float[size], y = new float[size];
+		int n = 0;
+		for (int i = 0; i < size; i++) {
+			final float px = points.getX(i), py = points.getY(i);
+			if (n > 0 && px == x[n - 1] && py == y[n - 1]) continue;
+			x[n] = px;
+			y[n] = py;
+			n++;
+		}
+		if (closed) while (n > 1 && x[n - 1] == x[0] && y[n - 1] == y[0]) n--;
+		if (n < 2) return;
+
+		final float half = stroke.getWidth() * 0.5f;
+		final int segments = closed ? n : n - 1;
+		// unit directions of every segment
+		final float[] dx = new float[segments], dy = new float[segments];
+		for (int s = 0; s < segments; s++) {
+			final int b = (s + 1) % n;
+			final float ex = x[b] - x[s], ey = y[b] - y[s];
+			final float length = (float) Math.sqrt(ex * ex + ey * ey);
+			dx[s] = ex / length;
+			dy[s] = ey / length;
+		}
+
+		final boolean square = !closed && stroke.getCap() == Stroke.Cap.SQUARE;
+		for (int s = 0; s < segments; s++) {
+			final int b = (s + 1) % n;
+			final float nx = -dy[s] * half, ny = dx[s] * half;
+			float ax = x[s], ay = y[s], bx = x[b], by = y[b];
+			if (square && s == 0) {
+				ax -= dx[s] * half;
+				ay -= dy[s] * half;
+			}
+			if (square && s == segments - 1) {
+				bx += dx[s] * half;
+				by += dy[s] * half;
+			}
+			final int v = mesh.addVertex(ax + nx, ay + ny);
+			mesh.addVertex(ax - nx, ay - ny);
+			mesh.addVertex(bx - nx, by - ny);
+			mesh.addVertex(bx + nx, by + ny);
+			mesh.addTriangle(v, v + 1, v + 2);
+			mesh.addTriangle(v, v + 2, v + 3);
+		}
+
+		for (int i = closed ? 0 : 1; i < (closed ? n : n - 1); i++) {
+			final int in = i == 0 ? segments - 1 : i - 1;
+			join(x[i], y[i], dx[in], dy[in], dx[i], dy[i], half, stroke, scale, mesh);
+		}
+
+		if (!closed && stroke.getCap() == Stroke.Cap.ROUND) {
+			// semicircles swept counter-clockwise from the left normal round the back, and from the right normal round the front
+			arc(x[0], y[0], (float) Math.atan2(dx[0], -dy[0]), (float) Math.PI, half, scale, mesh);
+			final int last = segments - 1;
+			arc(x[n - 1], y[n - 1], (float) Math.atan2(-dx[last], dy[last]), (float) Math.PI, half, scale, mesh);
+		}
+	}
+
+	private static void join(float px, float py, float d0x, float d0y, float d1x, float d1y, float half, Stroke stroke, float scale, TriangleMesh mesh) {
+		final float cross = d0x * d1y - d0y * d1x, dot = d0x * d1x + d0y * d1y;
+		if (Math.abs(cross) < 1e-6f && dot > 0) return;
+
+		// the gap opens on the outside of the turn: the right of a left turn
+		final float side = cross > 0 ? -1 : 1;
+		final float o0x = -d0y * half * side, o0y = d0x * half * side;
+		final float o1x = -d1y * half * side, o1y = d1x * half * side;
+
+		switch (stroke.getJoin()) {
+			case ROUND:
+				final float sweep = (float) Math.atan2(o0x * o1y - o0y * o1x, o0x * o1x + o0y * o1y);
+				arc(px, py, (float) Math.atan2(o0y, o0x), sweep, half, scale, mesh);
+				return;
+			case MITER:
+				final float bx = o0x + o1x, by = o0y + o1y;
+				final float length = (float) Math.sqrt(bx * bx + by * by);
+				// the miter is half / cos(theta / 2) long, where cos(theta / 2) = length / (2 half)
+				if (length > 0 && 2 * half * half / length <= stroke.getMiterLimit() * half) {
+					final float tip = 2 * half * half / (length * length);
+					final int center = mesh.addVertex(px, py);
+					mesh.addVertex(px + o0x, py + o0y);
+					mesh.addVertex(px + bx * tip, py + by * tip);
+					mesh.addVertex(px + o1x, py + o1y);
+					mesh.addTriangle(center, center + 1, center + 2);
+					mesh.addTriangle(center, center + 2, center + 3);
+					return;
+				}
+				// past the miter limit
+				bevel(px, py, o0x, o0y, o1x, o1y, mesh);
+				return;
+			default:
+				bevel(px, py, o0x, o0y, o1x, o1y, mesh);
+		}
+	}
+
+	private static void bevel(float px, float py, float o0x, float o0y, float o1x, float o1y, TriangleMesh mesh) {
+		final int center = mesh.addVertex(px, py);
+		mesh.addVertex(px + o0x, py + o0y);
+		mesh.addVertex(px + o1x, py + o1y);
+		mesh.addTriangle(center, center + 1, center + 2);
+	}
+
+	/**
+	 * Adds a fan approximating an arc of a circle.
+	 *
+	 * @param start the angle to start at
+	 * @param sweep the angle to sweep, counter-clockwise if positive
+	 */
+	private static void arc(float cx, float cy, float start, float sweep, float radius, float scale, TriangleMesh mesh) {
+		final int steps = segments(radius * scale, Math.abs(sweep));
+		final int center = mesh.addVertex(cx, cy);
+		for (int k = 0; k <= steps; k++) {
+			final double angle = start + sweep * k / steps;
+			mesh.addVertex(cx + radius * (float) Math.cos(angle), cy + radius * (float) Math.sin(angle));
+			if (k > 0) mesh.addTriangle(center, center + k, center + k + 1);
+		}
+	}
+
+	/**
+	 * @return how many chords an arc of the given radius, in pixels, needs
+	 * to stay within {@link #TOLERANCE} of it
+	 */
+	static int segments(float radius, float sweep) {
+		if (radius <= TOLERANCE) return 1;
+		final double step = 2 * Math.acos(1 - TOLERANCE / radius);
+		return Math.max(1, (int) Math.ceil(sweep / step));
+	}
+
+}
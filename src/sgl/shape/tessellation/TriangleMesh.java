@@ -0,0 +1,203 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.shape.tessellation;
+
+import org.lwjgl.system.NativeResource;
+import sgl.opengl.buffer.GLVertexBuffer;
+import sgl.util.math.point.PointArray2D;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import static org.lwjgl.opengl.GL15.glBufferData;
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * Indexed triangles in off-heap memory: 2D vertex positions as interleaved
+ * x, y floats and three int indices per triangle, ready for
+ * {@code glDrawElements(GL_TRIANGLES, ..., GL_UNSIGNED_INT, ...)}.
+ *
+ * @author link
+ */
+public final class TriangleMesh implements NativeResource {
+
+	private FloatBuffer vertices;
+	private IntBuffer indices;
+	private int vertexCount, indexCount;
+
+	public TriangleMesh() {
+		this(64, 96);
+	}
+
+	/**
+	 * @param vertexCapacity the number of vertices to allocate room for
+	 * @param indexCapacity  the number of indices to allocate room for
+	 */
+	public TriangleMesh(int vertexCapacity, int indexCapacity) {
+		this.vertices = memAllocFloat(2 * Math.max(vertexCapacity, 4));
+		this.indices = memAllocInt(Math.max(indexCapacity, 6));
+	}
+
+	/**
+	 * Adds a vertex.
+	 *
+	 * @return the index of the vertex
+	 */
+	public int addVertex(float x, float y) {
+		if (2 * vertexCount == vertices.capacity())
+			vertices = memRealloc(vertices, vertices.capacity() + (vertices.capacity() >> 1));
+		vertices.put(2 * vertexCount, x).put(2 * vertexCount + 1, y);
+		return vertexCount++;
+	}
+
+	/**
+	 * Adds every point of the given array as a vertex.
+	 *
+	 * @return the index of the first vertex
+	 */
+	public int addVertices(PointArray2D points) {
+		final int first = vertexCount;
+		for (int i = 0; i < points.size(); i++) addVertex(points.getX(i), points.getY(i));
+		return first;
+	}
+
+	public void addTriangle(int a, int b, int c) {
+		if (indexCount + 3 > indices.capacity())
+			indices = memRealloc(indices, Math.max(indexCount + 3, indices.capacity() + (indices.capacity() >> 1)));
+		indices.put(indexCount, a).put(indexCount + 1, b).put(indexCount + 2, c);
+		indexCount += 3;
+	}
+
+	public int getVertexCount() {
+		return vertexCount;
+	}
+
+	public int getIndexCount() {
+		return indexCount;
+	}
+
+	public int getTriangleCount() {
+		return indexCount / 3;
+	}
+
+	public float getX(int vertex) {
+		return vertices.get(2 * vertex);
+	}
+
+	public float getY(int vertex) {
+		return vertices.get(2 * vertex + 1);
+	}
+
+	public int getIndex(int index) {
+		return indices.get(index);
+	}
+
+	/**
+	 * @return a view of the vertices, invalidated when the mesh grows
+	 */
+	public FloatBuffer getVertices() {
+		return memSlice(vertices, 0, 2 * vertexCount);
+	}
+
+	/**
+	 * @return a view of the indices, invalidated when the mesh grows
+	 */
+	public IntBuffer getIndices() {
+		return memSlice(indices, 0, indexCount);
+	}
+
+	/**
+	 * Drops every vertex and index from the given counts on, undoing the
+	 * additions made since the counts were read.
+	 */
+	public void truncate(int vertexCount, int indexCount) {
+		this.vertexCount = Math.min(this.vertexCount, vertexCount);
+		this.indexCount = Math.min(this.indexCount, indexCount);
+	}
+
+	public void clear() {
+		vertexCount = indexCount = 0;
+	}
+
+	/**
+	 * Shrinks the buffers to their contents, for meshes kept around.
+	 */
+	public void trim() {
+		vertices = memRealloc(vertices, Math.max(2 * vertexCount, 4));
+		indices = memRealloc(indices, Math.max(indexCount, 6));
+	}
+
+	/**
+	 * @return the off-heap memory held by this mesh, in bytes
+	 */
+	public long getBytes() {
+		return 4L * (vertices.capacity() + indices.capacity());
+	}
+
+	/**
+	 * Writes the vertices and indices at the positions of the given buffers,
+	 * advancing them, with the indices offset so several meshes can be
+	 * batched into one draw.
+	 *
+	 * @param vertices   the buffer to write x, y pairs to
+	 * @param indices    the buffer to write indices to
+	 * @param baseVertex the number of vertices already in the vertex buffer
+	 */
+	public void store(FloatBuffer vertices, IntBuffer indices, int baseVertex) {
+		vertices.put(getVertices());
+		if (baseVertex == 0) {
+			indices.put(getIndices());
+		} else {
+			for (int i = 0; i < indexCount; i++) indices.put(this.indices.get(i) + baseVertex);
+		}
+	}
+
+	/**
+	 * Replaces the contents of the given buffers with this mesh, using their
+	 * targets and usage hints. The buffers' sizes are set in bytes.
+	 *
+	 * @param vertices the vertex buffer, usually a GL_ARRAY_BUFFER
+	 * @param indices  the index buffer, usually a GL_ELEMENT_ARRAY_BUFFER
+	 */
+	public void upload(GLVertexBuffer vertices, GLVertexBuffer indices) {
+		vertices.bind();
+		glBufferData(vertices.getTarget(), getVertices(), vertices.getUsage());
+		vertices.setSize(8 * vertexCount);
+		indices.bind();
+		glBufferData(indices.getTarget(), getIndices(), indices.getUsage());
+		indices.setSize(4 * indexCount);
+	}
+
+	@Override
+	public void free() {
+		memFree(vertices);
+		memFree(indices);
+		vertexCount = indexCount = 0;
+	}
+
+}
@@ -0,0 +1,235 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.text;
+
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+
+/**
+ * Rasterizes glyphs into 8 bit bitmaps, either as coverage or as signed
+ * distance fields.
+ * <p>
+ * A distance field stores how far each texel is from the glyph's outline,
+ * so one rasterization scales to any size and stays sharp: 0.5 lies on the
+ * outline, rising inside the glyph and falling outside, reaching 0 and 1 at
+ * the spread. Fields are computed exactly from the outline rendered at
+ * {@value #SUPERSAMPLE} times the resolution, with Felzenszwalb and
+ * Huttenlocher's distance transform.
+ * </p>
+ *
+ * @author link
+ */
+public enum GlyphRasterizer {
+	;
+
+	private static final int SUPERSAMPLE = 4;
+	private static final float INFINITY = 1e20f;
+
+	/**
+	 * An 8 bit bitmap of one glyph, placed relative to the pen position on
+	 * the baseline.
+	 */
+	public static final class Bitmap {
+
+		/**
+		 * An empty bitmap, for glyphs such as spaces.
+		 */
+		public static final Bitmap EMPTY = new Bitmap(0, 0, 0, 0, new byte[0]);
+
+		public final int width, height;
+		/**
+		 * The offset from the pen position to the top left of the bitmap, y
+		 * pointing down.
+		 */
+		public final int left, top;
+		public final byte[] pixels;
+
+		Bitmap(int width, int height, int left, int top, byte[] pixels) {
+			this.width = width;
+			this.height = height;
+			this.left = left;
+			this.top = top;
+			this.pixels = pixels;
+		}
+
+		public boolean isEmpty() {
+			return width == 0 || height == 0;
+		}
+
+	}
+
+	/**
+	 * Rasterizes the coverage of a glyph, with a border of blank texels.
+	 *
+	 * @param font    the font, at the size to rasterize at
+	 * @param glyph   the font's code of the glyph
+	 * @param padding the blank texels around the glyph
+	 * @return the bitmap
+	 */
+	public static Bitmap rasterize(Font font, int glyph, int padding) {
+		final Shape outline = outline(font, glyph);
+		final Rectangle2D bounds = outline.getBounds2D();
+		if (bounds.isEmpty()) return Bitmap.EMPTY;
+
+		final int left = (int) Math.floor(bounds.getMinX()) - padding, top = (int) Math.floor(bounds.getMinY()) - padding;
+		final int width = (int) Math.ceil(bounds.getMaxX()) + padding - left, height = (int) Math.ceil(bounds.getMaxY()) + padding - top;
+		final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+		final Graphics2D g = image.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+		g.translate(-left, -top);
+		g.fill(outline);
+		g.dispose();
+		return new Bitmap(width, height, left, top, ((DataBufferByte) image.getRaster().getDataBuffer()).getData());
+	}
+
+	/**
+	 * Rasterizes the signed distance field of a glyph.
+	 *
+	 * @param font   the font, at the size of the field's texels
+	 * @param glyph  the font's code of the glyph
+	 * @param spread the distance in texels at which the field saturates, also
+	 *               the border around the glyph
+	 * @return the bitmap
+	 */
+	public static Bitmap distanceField(Font font, int glyph, int spread) {
+		final Shape outline = outline(font, glyph);
+		final Rectangle2D bounds = outline.getBounds2D();
+		if (bounds.isEmpty()) return Bitmap.EMPTY;
+
+		final int left = (int) Math.floor(bounds.getMinX()) - spread, top = (int) Math.floor(bounds.getMinY()) - spread;
+		final int width = (int) Math.ceil(bounds.getMaxX()) + spread - left, height = (int) Math.ceil(bounds.getMaxY()) + spread - top;
+
+		// the outline at a higher resolution, without antialiasing, as the inside mask
+		final int w = width * SUPERSAMPLE, h = height * SUPERSAMPLE;
+		final BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_BYTE_GRAY);
+		final Graphics2D g = image.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+		g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+		g.scale(SUPERSAMPLE, SUPERSAMPLE);
+		g.translate(-left, -top);
+		g.fill(outline);
+		g.dispose();
+		final byte[] mask = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+
+		// squared distances to the nearest inside texel and to the nearest outside texel
+		final float[] outside = new float[w * h], inside = new float[w * h];
+		for (int i = 0; i < mask.length; i++) {
+			final boolean in = mask[i] != 0;
+			outside[i] = in ? 0 : INFINITY;
+			inside[i] = in ? INFINITY : 0;
+		}
+		final Transform transform = new Transform(Math.max(w, h));
+		transform.apply(outside, w, h);
+		transform.apply(inside, w, h);
+
+		final byte[] pixels = new byte[width * height];
+		final float scale = 127f / (spread * SUPERSAMPLE);
+		for (int y = 0; y < height; y++)
+			for (int x = 0; x < width; x++) {
+				final int i = (y * SUPERSAMPLE + SUPERSAMPLE / 2) * w + x * SUPERSAMPLE + SUPERSAMPLE / 2;
+				// positive inside; half a texel puts the outline between the texels either side
+				final float distance = inside[i] > 0 ? (float) Math.sqrt(inside[i]) - 0.5f : 0.5f - (float) Math.sqrt(outside[i]);
+				pixels[y * width + x] = (byte) Math.max(0, Math.min(255, Math.round(128 + distance * scale)));
+			}
+		return new Bitmap(width, height, left, top, pixels);
+	}
+
+	private static Shape outline(Font font, int glyph) {
+		final Shape outline = font.createGlyphVector(RunCache.CONTEXT, new int[]{glyph}).getGlyphOutline(0);
+		final AffineTransform transform = font.getTransform();
+		return transform.isIdentity() ? outline : transform.createTransformedShape(outline);
+	}
+
+	/**
+	 * Felzenszwalb and Huttenlocher's exact squared Euclidean distance
+	 * transform, as a pass over columns then a pass over rows.
+	 */
+	private static final class Transform {
+
+		final float[] f, d, z;
+		final int[] v;
+
+		Transform(int length) {
+			f = new float[length];
+			d = new float[length];
+			z = new float[length + 1];
+			v = new int[length];
+		}
+
+		void apply(float[] grid, int width, int height) {
+			for (int x = 0; x < width; x++) {
+				for (int y = 0; y < height; y++) f[y] = grid[y * width + x];
+				transform(height);
+				for (int y = 0; y < height; y++) grid[y * width + x] = d[y];
+			}
+			for (int y = 0; y < height; y++) {
+				System.arraycopy(grid, y * width, f, 0, width);
+				transform(width);
+				System.arraycopy(d, 0, grid, y * width, width);
+			}
+		}
+
+		// the lower envelope of the parabolas rooted at each sample
+		private void transform(int n) {
+			int k = 0;
+			v[0] = 0;
+			z[0] = -INFINITY;
+			z[1] = INFINITY;
+			for (int q = 1; q < n; q++) {
+				float s = intersect(q, v[k]);
+				while (s <= z[k]) {
+					k--;
+					s = intersect(q, v[k]);
+				}
+				k++;
+				v[k] = q;
+				z[k] = s;
+				z[k + 1] = INFINITY;
+			}
+			k = 0;
+			for (int q = 0; q < n; q++) {
+				while (z[k + 1] < q) k++;
+				final int r = q - v[k];
+				d[q] = r * r + f[v[k]];
+			}
+		}
+
+		private float intersect(int q, int p) {
+			return ((f[q] + q * q) - (f[p] + p * p)) / (2f * (q - p));
+		}
+
+	}
+
+}
@@ -0,0 +1,179 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.text;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Shapes strings into {@link ShapedRun}s with the JDK's font stack and keeps
+ * the most recently used runs, keyed by string, font and size, so text
+ * drawn every frame is shaped once.
+ * <p>
+ * Shaping applies kerning, ligatures and the shaping of complex scripts the
+ * font supports, left to right. Safe to use from several Threads.
+ * </p>
+ *
+ * @author link
+ */
+public final class RunCache {
+
+	public static final int DEFAULT_CAPACITY = 4096;
+
+	// antialiased with fractional metrics, so positions don't snap to pixels
+	static final FontRenderContext CONTEXT = new FontRenderContext(null, true, true);
+
+	private final int capacity;
+	private final LinkedHashMap<Key, ShapedRun> runs = new LinkedHashMap<>(16, 0.75f, true);
+	private long hits, misses;
+
+	public RunCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param capacity the number of runs to keep
+	 */
+	public RunCache(int capacity) {
+		if (capacity < 1) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Gets the run of a string, shaping it if it isn't cached.
+	 *
+	 * @param text the string
+	 * @param font the font, at any size
+	 * @param size the size in pixels
+	 * @return the run
+	 */
+	public ShapedRun get(String text, Font font, float size) {
+		final Key key = new Key(text, font, size);
+		synchronized (this) {
+			final ShapedRun run = runs.get(key);
+			if (run != null) {
+				hits++;
+				return run;
+			}
+		}
+
+		final ShapedRun run = shape(text, font.getSize2D() == size ? font : font.deriveFont(size));
+		synchronized (this) {
+			misses++;
+			runs.put(key, run);
+			if (runs.size() > capacity) {
+				final Iterator<ShapedRun> it = runs.values().iterator();
+				it.next();
+				it.remove();
+			}
+		}
+		return run;
+	}
+
+	/**
+	 * Shapes a string without caching it.
+	 *
+	 * @param text the string
+	 * @param font the font, at the size to shape at
+	 * @return the run
+	 */
+	public static ShapedRun shape(String text, Font font) {
+		final char[] chars = text.toCharArray();
+		final GlyphVector vector = font.layoutGlyphVector(CONTEXT, chars, 0, chars.length, Font.LAYOUT_LEFT_TO_RIGHT);
+		final int count = vector.getNumGlyphs();
+		final int[] codes = vector.getGlyphCodes(0, count, null);
+		final float[] positions = vector.getGlyphPositions(0, count + 1, null);
+
+		// drop the invisible glyphs layout inserts for joiners and such
+		int visible = 0;
+		for (int i = 0; i < count; i++)
+			if ((codes[i] & 0xFFFF) < 0xFFFE) {
+				codes[visible] = codes[i];
+				positions[visible << 1] = positions[i << 1];
+				positions[(visible << 1) + 1] = positions[(i << 1) + 1];
+				visible++;
+			}
+		final float advance = positions[count << 1];
+		final int[] glyphs = visible == count ? codes : Arrays.copyOf(codes, visible);
+		return new ShapedRun(text, font, glyphs, Arrays.copyOf(positions, visible << 1), advance, font.getLineMetrics(text, CONTEXT));
+	}
+
+	public synchronized void clear() {
+		runs.clear();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public synchronized int size() {
+		return runs.size();
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	private static final class Key {
+
+		final String text;
+		final Font font;
+		final float size;
+		final int hash;
+
+		Key(String text, Font font, float size) {
+			this.text = text;
+			this.font = font;
+			this.size = size;
+			this.hash = (text.hashCode() * 31 + font.hashCode()) * 31 + Float.floatToIntBits(size);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (!(o instanceof Key)) return false;
+			final Key key = (Key) o;
+			return size == key.size && text.equals(key.text) && font.equals(key.font);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+	}
+
+}
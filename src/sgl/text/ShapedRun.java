@@ -0,0 +1,130 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.text;
+
+import java.awt.Font;
+import java.awt.font.LineMetrics;
+
+/**
+ * A string laid out in one font at one size: the glyphs to draw and where
+ * to draw them, relative to the start of the baseline.
+ * <p>
+ * Runs are immutable, so a {@link RunCache} shares them between every label
+ * showing the same text.
+ * </p>
+ *
+ * @author link
+ */
+public final class ShapedRun {
+
+	private final String text;
+	private final Font font;
+	private final int[] glyphs;
+	private final float[] positions;
+	private final float advance, ascent, descent, leading;
+
+	ShapedRun(String text, Font font, int[] glyphs, float[] positions, float advance, LineMetrics metrics) {
+		this.text = text;
+		this.font = font;
+		this.glyphs = glyphs;
+		this.positions = positions;
+		this.advance = advance;
+		this.ascent = metrics.getAscent();
+		this.descent = metrics.getDescent();
+		this.leading = metrics.getLeading();
+	}
+
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * @return the font, at the size this run was shaped at
+	 */
+	public Font getFont() {
+		return font;
+	}
+
+	public float getSize() {
+		return font.getSize2D();
+	}
+
+	/**
+	 * @return the number of glyphs
+	 */
+	public int size() {
+		return glyphs.length;
+	}
+
+	/**
+	 * @return the font's code of the glyph at the given index
+	 */
+	public int getGlyph(int index) {
+		return glyphs[index];
+	}
+
+	/**
+	 * @return the x position of the glyph at the given index
+	 */
+	public float getX(int index) {
+		return positions[index << 1];
+	}
+
+	/**
+	 * @return the y position of the glyph at the given index, down from the
+	 * baseline
+	 */
+	public float getY(int index) {
+		return positions[(index << 1) + 1];
+	}
+
+	/**
+	 * @return the distance to the pen position after the last glyph
+	 */
+	public float getAdvance() {
+		return advance;
+	}
+
+	public float getAscent() {
+		return ascent;
+	}
+
+	public float getDescent() {
+		return descent;
+	}
+
+	public float getLeading() {
+		return leading;
+	}
+
+	@Override
+	public String toString() {
+		return "ShapedRun[" + text + ", " + font.getFontName() + ' ' + font.getSize2D() + ", " + glyphs.length + " glyphs]";
+	}
+
+}
@@ -0,0 +1,153 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.ui;
+
+import sgl.canvas.Canvas;
+import sgl.image.Image;
+import sgl.image.color.Color;
+import sgl.shape.Shape;
+
+import java.util.Arrays;
+
+/**
+ * A recorded sequence of Canvas drawing operations, replayed at any offset.
+ * A widget records its painting once and replays it every frame until it
+ * changes.
+ *
+ * @author link
+ */
+public final class DisplayList {
+
+	private static final byte FILL = 0, COLOR = 1, SHAPE = 2, IMAGE = 3;
+
+	private byte[] ops = new byte[8];
+	private double[] coordinates = new double[32];
+	private Object[] references = new Object[8];
+	private int size, coordinateCount;
+
+	/**
+	 * Records {@link Canvas#fill(double, double, double, double, Color)}.
+	 */
+	public void fill(double x, double y, double width, double height, Color color) {
+		add(FILL, color, 4);
+		coordinates[coordinateCount++] = x;
+		coordinates[coordinateCount++] = y;
+		coordinates[coordinateCount++] = width;
+		coordinates[coordinateCount++] = height;
+	}
+
+	/**
+	 * Records {@link Canvas#draw(double, double, Color)}.
+	 */
+	public void draw(double x, double y, Color color) {
+		add(COLOR, color, 2);
+		coordinates[coordinateCount++] = x;
+		coordinates[coordinateCount++] = y;
+	}
+
+	/**
+	 * Records {@link Canvas#draw(double, double, Shape)}.
+	 */
+	public void draw(double x, double y, Shape shape) {
+		add(SHAPE, shape, 2);
+		coordinates[coordinateCount++] = x;
+		coordinates[coordinateCount++] = y;
+	}
+
+	/**
+	 * Records {@link Canvas#draw(double, double, Image)}.
+	 */
+	public void draw(double x, double y, Image image) {
+		add(IMAGE, image, 2);
+		coordinates[coordinateCount++] = x;
+		coordinates[coordinateCount++] = y;
+	}
+
+	private void add(byte op, Object reference, int count) {
+		if (size == ops.length) {
+			ops = Arrays.copyOf(ops, size * 2);
+			references = Arrays.copyOf(references, size * 2);
+		}
+		if (coordinateCount + count > coordinates.length)
+			coordinates = Arrays.copyOf(coordinates, Math.max(coordinates.length * 2, coordinateCount + count));
+		ops[size] = op;
+		references[size++] = reference;
+	}
+
+	/**
+	 * Draws every recorded operation, offset by the given amount.
+	 *
+	 * @param canvas the canvas to draw to
+	 * @param dx     the offset along x
+	 * @param dy     the offset along y
+	 */
+	public void replay(Canvas canvas, double dx, double dy) {
+		for (int i = 0, c = 0; i < size; i++) {
+			final double x = coordinates[c] + dx, y = coordinates[c + 1] + dy;
+			switch (ops[i]) {
+				case FILL:
+					canvas.fill(x, y, coordinates[c + 2], coordinates[c + 3], (Color) references[i]);
+					c += 4;
+					break;
+				case COLOR:
+					canvas.draw(x, y, (Color) references[i]);
+					c += 2;
+					break;
+				case SHAPE:
+					canvas.draw(x, y, (Shape) references[i]);
+					c += 2;
+					break;
+				case IMAGE:
+					canvas.draw(x, y, (Image) references[i]);
+					c += 2;
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Forgets every recorded operation, keeping the storage.
+	 */
+	public void clear() {
+		Arrays.fill(references, 0, size, null);
+		size = 0;
+		coordinateCount = 0;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return the number of recorded operations
+	 */
+	public int size() {
+		return size;
+	}
+
+}
@@ -0,0 +1,314 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.ui;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A parsed XML layout in a compact, immutable form: the elements in
+ * document order, each with its tag, attributes and trimmed text, and every
+ * string stored once.
+ * <p>
+ * Elements are numbered from 0, the root, in document order, so an
+ * element's descendants directly follow it. Walk the children with
+ * {@link #getFirstChild(int)} and {@link #getNextSibling(int)}.
+ * </p>
+ *
+ * @author link
+ */
+public final class Layout {
+
+	private static final int MAGIC = 0x53474C58, VERSION = 1;
+
+	private final String[] strings;
+	// per element: tag string, end of its subtree, text string or -1, first attribute
+	private final int[] tags, ends, texts, attributes;
+	// name and value strings of every attribute, in element order
+	private final int[] pairs;
+	private final int[] parents;
+
+	private Layout(String[] strings, int[] tags, int[] ends, int[] texts, int[] attributes, int[] pairs) {
+		this.strings = strings;
+		this.tags = tags;
+		this.ends = ends;
+		this.texts = texts;
+		this.attributes = attributes;
+		this.pairs = pairs;
+
+		this.parents = new int[tags.length];
+		final int[] stack = new int[tags.length];
+		int depth = 0;
+		for (int i = 0; i < tags.length; i++) {
+			while (depth > 0 && ends[stack[depth - 1]] <= i) depth--;
+			parents[i] = depth > 0 ? stack[depth - 1] : -1;
+			stack[depth++] = i;
+		}
+	}
+
+	/**
+	 * Parses an XML layout, streaming it without building a DOM. DTDs and
+	 * external entities are ignored.
+	 *
+	 * @param in the XML
+	 * @return the layout
+	 * @throws IOException if the XML is malformed or has no root element
+	 */
+	public static Layout parse(InputStream in) throws IOException {
+		final XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+
+		final Map<String, Integer> table = new HashMap<>();
+		String[] strings = new String[64];
+		int[] tags = new int[64], ends = new int[64], texts = new int[64], attributes = new int[65], pairs = new int[64];
+		int[] stack = new int[16];
+		int count = 0, pairCount = 0, depth = 0;
+		final StringBuilder text = new StringBuilder();
+
+		try {
+			final XMLStreamReader reader = factory.createXMLStreamReader(in);
+			try {
+				while (reader.hasNext()) {
+					switch (reader.next()) {
+						case XMLStreamConstants.START_ELEMENT: {
+							if (depth == 0 && count > 0) throw new IOException("more than one root element");
+							if (count == tags.length) {
+								tags = Arrays.copyOf(tags, count * 2);
+								ends = Arrays.copyOf(ends, count * 2);
+								texts = Arrays.copyOf(texts, count * 2);
+								attributes = Arrays.copyOf(attributes, count * 2 + 1);
+							}
+							final int n = reader.getAttributeCount();
+							if (pairCount + n * 2 > pairs.length)
+								pairs = Arrays.copyOf(pairs, Math.max(pairs.length * 2, pairCount + n * 2));
+							tags[count] = intern(table, reader.getLocalName());
+							attributes[count] = pairCount >> 1;
+							texts[count] = -1;
+							for (int i = 0; i < n; i++) {
+								pairs[pairCount++] = intern(table, reader.getAttributeLocalName(i));
+								pairs[pairCount++] = intern(table, reader.getAttributeValue(i));
+							}
+							if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+							stack[depth++] = count++;
+							text.setLength(0);
+							break;
+						}
+						case XMLStreamConstants.CHARACTERS:
+						case XMLStreamConstants.CDATA:
+							// text directly inside the innermost open element
+							if (depth > 0 && stack[depth - 1] == count - 1) text.append(reader.getText());
+							break;
+						case XMLStreamConstants.END_ELEMENT: {
+							final int element = stack[--depth];
+							ends[element] = count;
+							if (element == count - 1) {
+								final String trimmed = text.toString().trim();
+								if (!trimmed.isEmpty()) texts[element] = intern(table, trimmed);
+							}
+							text.setLength(0);
+							break;
+						}
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+		if (count == 0) throw new IOException("no root element");
+
+		attributes[count] = pairCount >> 1;
+		final String[] dictionary = new String[table.size()];
+		for (Map.Entry<String, Integer> entry : table.entrySet()) dictionary[entry.getValue()] = entry.getKey();
+		return new Layout(dictionary, Arrays.copyOf(tags, count), Arrays.copyOf(ends, count), Arrays.copyOf(texts, count),
+				Arrays.copyOf(attributes, count + 1), Arrays.copyOf(pairs, pairCount));
+	}
+
+	private static int intern(Map<String, Integer> table, String string) {
+		final Integer index = table.putIfAbsent(string, table.size());
+		return index != null ? index : table.size() - 1;
+	}
+
+	/**
+	 * Reads a layout written by {@link #write(OutputStream)}.
+	 *
+	 * @param in the stream
+	 * @return the layout
+	 * @throws IOException if the stream isn't a layout of this version
+	 */
+	public static Layout read(InputStream in) throws IOException {
+		byte[] bytes = new byte[1 << 16];
+		int length = 0;
+		for (int n; (n = in.read(bytes, length, bytes.length - length)) >= 0; ) {
+			length += n;
+			if (length == bytes.length) bytes = Arrays.copyOf(bytes, length * 2);
+		}
+		try {
+			return read(ByteBuffer.wrap(bytes, 0, length));
+		} catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+			throw new IOException("corrupt binary layout", e);
+		}
+	}
+
+	private static Layout read(ByteBuffer buffer) throws IOException {
+		if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) throw new IOException("not a binary layout");
+
+		final String[] strings = new String[buffer.getInt()];
+		for (int i = 0; i < strings.length; i++) {
+			final int length = buffer.getInt();
+			strings[i] = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+			buffer.position(buffer.position() + length);
+		}
+		final int count = buffer.getInt();
+		final int[] tags = readInts(buffer, count), ends = readInts(buffer, count), texts = readInts(buffer, count);
+		final int[] attributes = readInts(buffer, count + 1), pairs = readInts(buffer, attributes[count] * 2);
+
+		for (int i = 0; i < count; i++)
+			if (tags[i] < 0 || tags[i] >= strings.length || ends[i] <= i || ends[i] > count || texts[i] < -1 || texts[i] >= strings.length || attributes[i] > attributes[i + 1])
+				throw new IOException("corrupt binary layout");
+		for (int pair : pairs)
+			if (pair < 0 || pair >= strings.length) throw new IOException("corrupt binary layout");
+		return new Layout(strings, tags, ends, texts, attributes, pairs);
+	}
+
+	private static int[] readInts(ByteBuffer buffer, int count) {
+		final int[] values = new int[count];
+		buffer.asIntBuffer().get(values);
+		buffer.position(buffer.position() + count * 4);
+		return values;
+	}
+
+	/**
+	 * Writes this in a binary form that {@link #read(InputStream)} loads
+	 * without parsing XML.
+	 *
+	 * @param out the stream, which should be buffered
+	 */
+	public void write(OutputStream out) throws IOException {
+		final DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeInt(strings.length);
+		for (String string : strings) {
+			final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			data.writeInt(bytes.length);
+			data.write(bytes);
+		}
+		data.writeInt(tags.length);
+		for (int[] values : new int[][]{tags, ends, texts, attributes, pairs})
+			for (int value : values) data.writeInt(value);
+		data.flush();
+	}
+
+	/**
+	 * @return the number of elements
+	 */
+	public int size() {
+		return tags.length;
+	}
+
+	public String getTag(int element) {
+		return strings[tags[element]];
+	}
+
+	/**
+	 * @return the text inside the element, trimmed, or null if there is none
+	 * or the element has child elements
+	 */
+	public String getText(int element) {
+		return texts[element] < 0 ? null : strings[texts[element]];
+	}
+
+	/**
+	 * @return the first child of the element, or -1 if it has none
+	 */
+	public int getFirstChild(int element) {
+		return ends[element] > element + 1 ? element + 1 : -1;
+	}
+
+	/**
+	 * @return the next sibling of the element, or -1 if it's the last child
+	 */
+	public int getNextSibling(int element) {
+		final int parent = parents[element];
+		return parent >= 0 && ends[element] < ends[parent] ? ends[element] : -1;
+	}
+
+	/**
+	 * @return the parent of the element, or -1 for the root
+	 */
+	public int getParent(int element) {
+		return parents[element];
+	}
+
+	/**
+	 * @return the number of elements in the subtree under the element,
+	 * excluding it
+	 */
+	public int getDescendantCount(int element) {
+		return ends[element] - element - 1;
+	}
+
+	public int getAttributeCount(int element) {
+		return attributes[element + 1] - attributes[element];
+	}
+
+	public String getAttributeName(int element, int index) {
+		return strings[pairs[(attributes[element] + index) << 1]];
+	}
+
+	public String getAttributeValue(int element, int index) {
+		return strings[pairs[((attributes[element] + index) << 1) + 1]];
+	}
+
+	/**
+	 * @return the value of the named attribute, or null if the element
+	 * doesn't have it
+	 */
+	public String getAttribute(int element, String name) {
+		for (int i = attributes[element] << 1, end = attributes[element + 1] << 1; i < end; i += 2)
+			if (strings[pairs[i]].equals(name)) return strings[pairs[i + 1]];
+		return null;
+	}
+
+}
@@ -0,0 +1,297 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.ui;
+
+import sgl.image.color.RGBAColor;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Loads XML layouts and builds widget trees from them.
+ * <p>
+ * Each element becomes the widget its tag's {@link Factory} creates, with
+ * the common attributes applied: width, height, min-width, min-height,
+ * max-width, max-height, grow, shrink, basis, padding (one or four
+ * numbers), gap, direction, justify, align, background ({@code #rrggbb} or
+ * {@code #rrggbbaa}) and visible. Tags and keywords are lowercase, with
+ * {@code space-between} for {@link Widget.Justify#SPACE_BETWEEN}. The tags
+ * {@code box} and {@code row} create a plain row and {@code column} a
+ * column.
+ * </p>
+ * <p>
+ * The children of an element with {@code visible="false"} aren't built
+ * until the widget is first shown, so hidden parts of a large screen cost
+ * one widget each. Parsed layouts are cached on disk in binary form, keyed
+ * by the SHA-256 of the XML, and later loads of the same XML skip parsing.
+ * </p>
+ *
+ * @author link
+ */
+public final class LayoutLoader {
+
+	/**
+	 * Creates the widget of an element; its common attributes are applied
+	 * afterwards and its children added by the loader.
+	 */
+	@FunctionalInterface
+	public interface Factory {
+
+		Widget create(Layout layout, int element);
+
+	}
+
+	private final Map<String, Factory> factories = new HashMap<>();
+	private final Path directory;
+
+	/**
+	 * Creates a loader.
+	 *
+	 * @param cacheDirectory the directory to cache parsed layouts in, or null
+	 *                       to always parse
+	 */
+	public LayoutLoader(Path cacheDirectory) {
+		this.directory = cacheDirectory;
+		register("box", (layout, element) -> new Widget());
+		register("row", (layout, element) -> new Widget());
+		register("column", (layout, element) -> {
+			final Widget widget = new Widget();
+			widget.setDirection(Widget.Direction.COLUMN);
+			return widget;
+		});
+	}
+
+	/**
+	 * Sets the factory of a tag, replacing any earlier one.
+	 */
+	public void register(String tag, Factory factory) {
+		factories.put(tag, factory);
+	}
+
+	/**
+	 * Loads the layout in a file, from the cache if the same XML was loaded
+	 * before. Failing to write the cache isn't an error.
+	 *
+	 * @param file the XML file
+	 * @return the layout
+	 * @throws IOException if the file can't be read or isn't a valid layout
+	 */
+	public Layout load(Path file) throws IOException {
+		final byte[] xml = Files.readAllBytes(file);
+		if (directory == null) return Layout.parse(new ByteArrayInputStream(xml));
+
+		final String key = sha256(xml);
+		final Path cached = directory.resolve(key + ".sglx");
+		if (Files.isRegularFile(cached)) {
+			try (InputStream in = Files.newInputStream(cached)) {
+				return Layout.read(in);
+			} catch (IOException ignored) {
+				// stale or damaged, parse it again
+			}
+		}
+
+		final Layout layout = Layout.parse(new ByteArrayInputStream(xml));
+		try {
+			Files.createDirectories(directory);
+			final Path temp = Files.createTempFile(directory, key, ".tmp");
+			try {
+				try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+					layout.write(out);
+				}
+				Files.move(temp, cached, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				// only left behind if writing or moving failed
+				Files.deleteIfExists(temp);
+			}
+		} catch (IOException ignored) {
+			// the cache only saves time
+		}
+		return layout;
+	}
+
+	private static String sha256(byte[] bytes) {
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform is required to provide SHA-256
+			throw new IllegalStateException(e);
+		}
+		final StringBuilder hex = new StringBuilder(64);
+		for (byte b : digest.digest(bytes))
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		return hex.toString();
+	}
+
+	/**
+	 * Builds the widget of the root element, and below it every element
+	 * that isn't hidden.
+	 *
+	 * @param layout the layout
+	 * @return the root widget
+	 * @throws IllegalArgumentException if an element has no factory or a
+	 *                                  malformed attribute, possibly later
+	 *                                  when a hidden widget is shown
+	 */
+	public Widget build(Layout layout) {
+		return build(layout, 0);
+	}
+
+	/**
+	 * Builds the widget of an element and its visible descendants.
+	 */
+	public Widget build(Layout layout, int element) {
+		final Factory factory = factories.get(layout.getTag(element));
+		if (factory == null) throw new IllegalArgumentException("no factory for element: " + layout.getTag(element));
+		final Widget widget = factory.create(layout, element);
+		apply(layout, element, widget);
+
+		if (layout.getFirstChild(element) >= 0) {
+			if (widget.isVisible()) addChildren(layout, element, widget);
+			else widget.defer(() -> addChildren(layout, element, widget));
+		}
+		return widget;
+	}
+
+	private void addChildren(Layout layout, int element, Widget widget) {
+		for (int child = layout.getFirstChild(element); child >= 0; child = layout.getNextSibling(child))
+			widget.add(build(layout, child));
+	}
+
+	private static void apply(Layout layout, int element, Widget widget) {
+		float minWidth = 0, minHeight = 0, maxWidth = Float.POSITIVE_INFINITY, maxHeight = Float.POSITIVE_INFINITY;
+		boolean min = false, max = false;
+		for (int i = 0, n = layout.getAttributeCount(element); i < n; i++) {
+			final String value = layout.getAttributeValue(element, i);
+			switch (layout.getAttributeName(element, i)) {
+				case "width":
+					widget.setWidth(number(value));
+					break;
+				case "height":
+					widget.setHeight(number(value));
+					break;
+				case "min-width":
+					minWidth = number(value);
+					min = true;
+					break;
+				case "min-height":
+					minHeight = number(value);
+					min = true;
+					break;
+				case "max-width":
+					maxWidth = number(value);
+					max = true;
+					break;
+				case "max-height":
+					maxHeight = number(value);
+					max = true;
+					break;
+				case "grow":
+					widget.setGrow(number(value));
+					break;
+				case "shrink":
+					widget.setShrink(number(value));
+					break;
+				case "basis":
+					widget.setBasis(number(value));
+					break;
+				case "gap":
+					widget.setGap(number(value));
+					break;
+				case "padding": {
+					final String[] parts = value.trim().split("\\s+");
+					if (parts.length == 1) widget.setPadding(number(parts[0]));
+					else if (parts.length == 4)
+						widget.setPadding(number(parts[0]), number(parts[1]), number(parts[2]), number(parts[3]));
+					else throw new IllegalArgumentException("padding needs 1 or 4 numbers: " + value);
+					break;
+				}
+				case "direction":
+					widget.setDirection(keyword(Widget.Direction.class, value));
+					break;
+				case "justify":
+					widget.setJustify(keyword(Widget.Justify.class, value));
+					break;
+				case "align":
+					widget.setAlign(keyword(Widget.Align.class, value));
+					break;
+				case "background":
+					widget.setBackground(color(value));
+					break;
+				case "visible":
+					widget.setVisible(Boolean.parseBoolean(value));
+					break;
+			}
+		}
+		if (min) widget.setMinSize(minWidth, minHeight);
+		if (max) widget.setMaxSize(maxWidth, maxHeight);
+	}
+
+	// "auto" is NaN, the automatic size
+	private static float number(String value) {
+		if (value.equals("auto")) return Float.NaN;
+		try {
+			return Float.parseFloat(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("not a number: " + value);
+		}
+	}
+
+	private static <E extends Enum<E>> E keyword(Class<E> type, String value) {
+		try {
+			return Enum.valueOf(type, value.replace('-', '_').toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("not a " + type.getSimpleName().toLowerCase(Locale.ROOT) + ": " + value);
+		}
+	}
+
+	private static RGBAColor color(String value) {
+		if (value.length() != 7 && value.length() != 9 || value.charAt(0) != '#')
+			throw new IllegalArgumentException("not a color: " + value);
+		try {
+			final long rgba = Long.parseLong(value.substring(1), 16);
+			final int shift = value.length() == 9 ? 8 : 0;
+			return new RGBAColor((rgba >> 16 + shift & 0xFF) / 255f, (rgba >> 8 + shift & 0xFF) / 255f,
+					(rgba >> shift & 0xFF) / 255f, shift == 8 ? (rgba & 0xFF) / 255f : 1);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("not a color: " + value);
+		}
+	}
+
+}
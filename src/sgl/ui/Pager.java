@@ -0,0 +1,252 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.ui;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Fetches the items of a large data set a page at a time, asynchronously,
+ * and keeps the most recently used pages.
+ * <p>
+ * The view reading the items sets the window it shows each frame; the
+ * pages covering it, plus a prefetch margin on either side, are requested
+ * and requests for pages that left the window are cancelled, so scrolling
+ * quickly doesn't queue up every page passed by. Pages arrive on whatever
+ * Thread the source completes them on, but only become readable in
+ * {@link #update()}, on the Thread reading them.
+ * </p>
+ *
+ * @param <T> the item type
+ * @author link
+ */
+public final class Pager<T> {
+
+	/**
+	 * The data set.
+	 */
+	public interface Source<T> {
+
+		/**
+		 * @return the number of items, which may change between frames
+		 */
+		int size();
+
+		/**
+		 * Fetches a range of items, usually on another Thread.
+		 *
+		 * @param offset the index of the first item
+		 * @param count  the number of items, less at the end of the data set
+		 * @return the items, in order
+		 */
+		CompletableFuture<List<T>> fetch(int offset, int count);
+
+	}
+
+	public static final int DEFAULT_PAGE_SIZE = 256, DEFAULT_CAPACITY = 64;
+
+	private final Source<T> source;
+	private final int pageSize, capacity;
+	private final Map<Integer, List<T>> pages;
+	private final Map<Integer, CompletableFuture<List<T>>> requests = new HashMap<>();
+	private final ConcurrentLinkedQueue<Arrival<T>> arrived = new ConcurrentLinkedQueue<>();
+	private final Map<Integer, Throwable> failed = new HashMap<>();
+	private int prefetch;
+
+	public Pager(Source<T> source) {
+		this(source, DEFAULT_PAGE_SIZE, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a pager.
+	 *
+	 * @param source   the data set
+	 * @param pageSize the number of items fetched at once
+	 * @param capacity the most pages kept, which should cover the window and
+	 *                 its prefetch margins
+	 */
+	public Pager(Source<T> source, int pageSize, int capacity) {
+		if (pageSize < 1 || capacity < 1) throw new IllegalArgumentException("page size and capacity must be positive");
+		this.source = source;
+		this.pageSize = pageSize;
+		this.capacity = capacity;
+		this.prefetch = pageSize;
+		this.pages = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	public int size() {
+		return source.size();
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * @return the number of items requested beyond either end of the window
+	 */
+	public int getPrefetch() {
+		return prefetch;
+	}
+
+	public void setPrefetch(int prefetch) {
+		this.prefetch = prefetch;
+	}
+
+	/**
+	 * Gets an item if its page has arrived.
+	 *
+	 * @param index the index of the item
+	 * @return the item, or null if it's still loading
+	 */
+	public T get(int index) {
+		final List<T> page = pages.get(index / pageSize);
+		if (page == null) return null;
+		final int offset = index % pageSize;
+		return offset < page.size() ? page.get(offset) : null;
+	}
+
+	/**
+	 * Sets the items being shown, requesting the pages they and the prefetch
+	 * margins need and cancelling requests for any others.
+	 *
+	 * @param from the first item shown
+	 * @param to   the item after the last one shown
+	 */
+	public void setWindow(int from, int to) {
+		final int size = source.size();
+		final int first = Math.max(0, from - prefetch) / pageSize;
+		final int end = Math.min(size, to + prefetch), last = end > 0 ? (end - 1) / pageSize : -1;
+
+		for (Iterator<Map.Entry<Integer, CompletableFuture<List<T>>>> it = requests.entrySet().iterator(); it.hasNext(); ) {
+			final Map.Entry<Integer, CompletableFuture<List<T>>> entry = it.next();
+			if (entry.getKey() < first || entry.getKey() > last) {
+				entry.getValue().cancel(false);
+				it.remove();
+			}
+		}
+
+		for (int page = first; page <= last; page++) {
+			// touching resident pages keeps the window out of eviction
+			if (pages.get(page) != null || requests.containsKey(page) || failed.containsKey(page)) continue;
+			final int offset = page * pageSize, key = page;
+			final CompletableFuture<List<T>> request = source.fetch(offset, Math.min(pageSize, size - offset));
+			requests.put(key, request);
+			request.whenComplete((items, error) -> arrived.add(new Arrival<>(key, request, items, error)));
+		}
+	}
+
+	/**
+	 * Makes the pages that arrived since the last update readable, on the
+	 * Thread reading them.
+	 *
+	 * @return true if any page arrived
+	 */
+	public boolean update() {
+		boolean any = false;
+		for (Arrival<T> arrival; (arrival = arrived.poll()) != null; ) {
+			// cancelled, or dropped by invalidate()
+			if (requests.get(arrival.page) != arrival.request) continue;
+			requests.remove(arrival.page);
+			if (arrival.error != null) {
+				failed.put(arrival.page, arrival.error);
+				continue;
+			}
+			pages.put(arrival.page, arrival.items);
+			any = true;
+		}
+
+		if (pages.size() > capacity) {
+			final Iterator<Integer> it = pages.keySet().iterator();
+			for (int excess = pages.size() - capacity; excess > 0; excess--) {
+				it.next();
+				it.remove();
+			}
+		}
+		return any;
+	}
+
+	/**
+	 * @return the number of pages requested and not arrived yet
+	 */
+	public int getPending() {
+		return requests.size();
+	}
+
+	/**
+	 * @return the number of pages kept
+	 */
+	public int getResident() {
+		return pages.size();
+	}
+
+	/**
+	 * Gets why the page holding an item failed to load. Failed pages aren't
+	 * requested again until {@link #invalidate()}.
+	 *
+	 * @param index the index of the item
+	 * @return the error, or null if it didn't fail
+	 */
+	public Throwable getError(int index) {
+		return failed.get(index / pageSize);
+	}
+
+	/**
+	 * Forgets every page and failure and cancels every request, for when the
+	 * data set changed.
+	 */
+	public void invalidate() {
+		for (CompletableFuture<List<T>> request : requests.values()) request.cancel(false);
+		requests.clear();
+		pages.clear();
+		failed.clear();
+		arrived.clear();
+	}
+
+	private static final class Arrival<T> {
+
+		final int page;
+		final CompletableFuture<List<T>> request;
+		final List<T> items;
+		final Throwable error;
+
+		Arrival(int page, CompletableFuture<List<T>> request, List<T> items, Throwable error) {
+			this.page = page;
+			this.request = request;
+			this.items = items;
+			this.error = error;
+		}
+
+	}
+
+}
@@ -0,0 +1,268 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.ui;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A scrolling grid of equally sized cells over a data set too large to
+ * build a widget for every item.
+ * <p>
+ * Only the cells in view, plus {@link #getOverscan()} rows above and below,
+ * are materialized as children; cells scrolled out are recycled through a
+ * pool and bound to the items scrolled in, so scrolling costs the same
+ * however large the data set is. Items come from a {@link Pager}, and cells
+ * are bound with a null item while their page loads, then again when it
+ * arrives in {@link #update()}.
+ * </p>
+ * <p>
+ * The grid takes the size its parent gives it, usually through grow or a
+ * fixed size, and its children don't affect its layout, so changes inside
+ * it never reach its ancestors. Cells entirely outside it aren't drawn, but
+ * Canvas can't clip, so cells straddling an edge draw past it.
+ * </p>
+ *
+ * @param <T> the item type
+ * @author link
+ */
+public class VirtualGrid<T> extends Widget {
+
+	/**
+	 * Creates and fills in the cell widgets.
+	 */
+	public interface Binder<T> {
+
+		Widget create();
+
+		/**
+		 * Shows an item in a cell, recycled from another item or fresh from
+		 * {@link #create()}.
+		 *
+		 * @param cell  the cell
+		 * @param index the index of the item
+		 * @param item  the item, or null while it's loading
+		 */
+		void bind(Widget cell, int index, T item);
+
+	}
+
+	private final Pager<T> pager;
+	private final Binder<T> binder;
+	private final Map<Integer, Widget> cells = new HashMap<>();
+	private final Set<Integer> loading = new HashSet<>();
+	private final ArrayDeque<Widget> pool = new ArrayDeque<>();
+	private final float cellWidth, cellHeight;
+	private int columns, overscan = 2, size;
+	// doubles, since a float can't place rows precisely millions of rows down
+	private double scroll, contentHeight;
+
+	/**
+	 * Creates a grid.
+	 *
+	 * @param pager      the items
+	 * @param binder     the cells
+	 * @param cellWidth  the width of a cell, or NaN to share the width
+	 *                   between {@link #getColumns()} columns
+	 * @param cellHeight the height of a cell
+	 */
+	public VirtualGrid(Pager<T> pager, Binder<T> binder, float cellWidth, float cellHeight) {
+		if (!(cellHeight > 0) || cellWidth <= 0) throw new IllegalArgumentException("cell size must be positive");
+		this.pager = pager;
+		this.binder = binder;
+		this.cellWidth = cellWidth;
+		this.cellHeight = cellHeight;
+	}
+
+	public Pager<T> getPager() {
+		return pager;
+	}
+
+	/**
+	 * @return the number of columns, or 0 for as many cells as fit across
+	 */
+	public int getColumns() {
+		return columns;
+	}
+
+	public void setColumns(int columns) {
+		this.columns = columns;
+		invalidateLayout();
+	}
+
+	/**
+	 * @return the number of rows materialized beyond either edge of the view
+	 */
+	public int getOverscan() {
+		return overscan;
+	}
+
+	public void setOverscan(int overscan) {
+		this.overscan = overscan;
+		invalidateLayout();
+	}
+
+	/**
+	 * @return the distance scrolled from the top
+	 */
+	public double getScroll() {
+		return scroll;
+	}
+
+	/**
+	 * Scrolls to a distance from the top, clamped to the content when laid
+	 * out.
+	 */
+	public void setScroll(double scroll) {
+		if (this.scroll == scroll) return;
+		this.scroll = scroll;
+		invalidateLayout();
+	}
+
+	public void scrollBy(double distance) {
+		setScroll(scroll + distance);
+	}
+
+	/**
+	 * Scrolls the row holding an item to the top.
+	 */
+	public void scrollTo(int index) {
+		setScroll((double) (index / getColumnCount(getLayoutWidth())) * cellHeight);
+	}
+
+	/**
+	 * @return the height of every row together, as of the last layout
+	 */
+	public double getContentHeight() {
+		return contentHeight;
+	}
+
+	/**
+	 * Binds the items of the pages that arrived since the last update to the
+	 * cells waiting for them, and lays the grid out again if the data set
+	 * changed size. Call it every frame, before validating the tree.
+	 *
+	 * @return true if anything changed
+	 */
+	public boolean update() {
+		boolean changed = false;
+		if (pager.update()) {
+			for (Iterator<Integer> it = loading.iterator(); it.hasNext(); ) {
+				final int index = it.next();
+				final T item = pager.get(index);
+				if (item == null) continue;
+				binder.bind(cells.get(index), index, item);
+				it.remove();
+				changed = true;
+			}
+		}
+		if (pager.size() != size) {
+			invalidateLayout();
+			changed = true;
+		}
+		return changed;
+	}
+
+	/**
+	 * Drops every loaded page and binds every cell again, for when the items
+	 * changed.
+	 */
+	public void refresh() {
+		pager.invalidate();
+		for (Map.Entry<Integer, Widget> entry : cells.entrySet()) bind(entry.getValue(), entry.getKey());
+		invalidateLayout();
+	}
+
+	private void bind(Widget cell, int index) {
+		final T item = pager.get(index);
+		binder.bind(cell, index, item);
+		if (item == null) loading.add(index);
+		else loading.remove(index);
+	}
+
+	private int getColumnCount(float width) {
+		if (columns > 0) return columns;
+		return Float.isNaN(cellWidth) ? 1 : Math.max(1, (int) (width / cellWidth));
+	}
+
+	@Override
+	boolean isBoundary() {
+		return isLaidOut();
+	}
+
+	@Override
+	boolean clips() {
+		return true;
+	}
+
+	@Override
+	void measureChildren(float innerWidth, float innerHeight, float[] dest) {
+		measureContent(innerWidth, innerHeight, dest);
+	}
+
+	@Override
+	void layoutChildren(float left, float top, float innerWidth, float innerHeight, float originX, float originY) {
+		size = pager.size();
+		final int columns = getColumnCount(innerWidth), rows = (int) ((size + (long) columns - 1) / columns);
+		final float width = Float.isNaN(cellWidth) ? innerWidth / columns : cellWidth;
+		contentHeight = (double) rows * cellHeight;
+		scroll = Math.max(0, Math.min(scroll, contentHeight - innerHeight));
+
+		final int firstShown = (int) (scroll / cellHeight), lastShown = Math.min(rows, (int) Math.ceil((scroll + innerHeight) / cellHeight));
+		final int from = Math.max(0, firstShown - overscan) * columns;
+		final int to = (int) Math.min(size, (long) Math.min(rows, lastShown + overscan) * columns);
+
+		for (Iterator<Map.Entry<Integer, Widget>> it = cells.entrySet().iterator(); it.hasNext(); ) {
+			final Map.Entry<Integer, Widget> entry = it.next();
+			if (entry.getKey() >= from && entry.getKey() < to) continue;
+			release(entry.getValue());
+			pool.push(entry.getValue());
+			loading.remove(entry.getKey());
+			it.remove();
+		}
+
+		for (int index = from; index < to; index++) {
+			Widget cell = cells.get(index);
+			if (cell == null) {
+				cell = pool.isEmpty() ? binder.create() : pool.pop();
+				adopt(cell);
+				cells.put(index, cell);
+				bind(cell, index);
+			}
+			final int row = index / columns, column = index - row * columns;
+			cell.layout(left + column * width, (float) (top + (double) row * cellHeight - scroll), width, cellHeight, originX, originY);
+		}
+
+		pager.setWindow(firstShown * columns, (int) Math.min(size, (long) lastShown * columns));
+	}
+
+}
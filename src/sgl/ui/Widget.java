@@ -0,0 +1,679 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.ui;
+
+import sgl.image.color.Color;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A node of a {@link WidgetTree}, laid out by a single-line flexbox: its
+ * children are placed along a row or column, share out the free space by
+ * their grow and shrink factors and are aligned across it.
+ * <p>
+ * Layout is incremental. A change marks the widget and its ancestors dirty
+ * up to the nearest layout boundary, a widget with a fixed width and height
+ * whose size can't depend on its children; only dirty widgets re-run the
+ * flex pass, and clean ones the pass reaches are just moved. Measurements
+ * are cached per widget against the constraints they were taken under.
+ * </p>
+ * <p>
+ * Each widget records its painting into a {@link DisplayList} in its own
+ * coordinates, replayed every frame until it's resized or
+ * {@link #invalidatePaint()} is called. Widgets aren't thread safe and
+ * belong to the thread rendering their tree.
+ * </p>
+ *
+ * @author link
+ */
+public class Widget {
+
+	public enum Direction {
+		ROW, COLUMN
+	}
+
+	/**
+	 * How children are placed along the main axis when they don't fill it.
+	 */
+	public enum Justify {
+		START, CENTER, END, SPACE_BETWEEN
+	}
+
+	/**
+	 * How children are placed across the main axis.
+	 */
+	public enum Align {
+		START, CENTER, END, STRETCH
+	}
+
+	private final List<Widget> children = new ArrayList<>(0);
+	private final List<Widget> view = Collections.unmodifiableList(children);
+	private Widget parent;
+	WidgetTree tree;
+
+	private Direction direction = Direction.ROW;
+	private Justify justify = Justify.START;
+	private Align align = Align.STRETCH;
+	// NaN sizes are automatic
+	private float width = Float.NaN, height = Float.NaN, basis = Float.NaN;
+	private float minWidth, minHeight, maxWidth = Float.POSITIVE_INFINITY, maxHeight = Float.POSITIVE_INFINITY;
+	private float grow, shrink = 1;
+	private float paddingLeft, paddingTop, paddingRight, paddingBottom, gap;
+	private Color background;
+	private boolean visible = true;
+	private Runnable deferred;
+
+	// the last layout, relative to the parent
+	private float layoutX, layoutY, layoutWidth, layoutHeight;
+	private float measureMaxWidth, measureMaxHeight, measuredWidth, measuredHeight;
+	private boolean laidOut, measureDirty = true, layoutDirty = true, paintDirty = true;
+	boolean queued;
+	private final DisplayList displayList = new DisplayList();
+
+	public Widget getParent() {
+		return parent;
+	}
+
+	/**
+	 * @return the tree this belongs to, or null if it's detached
+	 */
+	public WidgetTree getTree() {
+		return tree;
+	}
+
+	/**
+	 * @return an unmodifiable view of the children
+	 */
+	public List<Widget> getChildren() {
+		return view;
+	}
+
+	public void add(Widget child) {
+		add(children.size(), child);
+	}
+
+	/**
+	 * Adds a child at the given position.
+	 *
+	 * @param index the position among the children
+	 * @param child the widget to add
+	 * @throws IllegalArgumentException if the child already has a parent or
+	 *                                  is the root of a tree
+	 */
+	public void add(int index, Widget child) {
+		if (child.parent != null || child.tree != null && child.tree.getRoot() == child)
+			throw new IllegalArgumentException("widget is already in a tree");
+		for (Widget ancestor = this; ancestor != null; ancestor = ancestor.parent)
+			if (ancestor == child) throw new IllegalArgumentException("widget can't contain itself");
+		children.add(index, child);
+		child.parent = this;
+		child.attach(tree);
+		child.measureDirty = child.layoutDirty = true;
+		invalidateLayout();
+	}
+
+	/**
+	 * Removes a child, damaging the area it covered.
+	 *
+	 * @param child the widget to remove
+	 * @return false if it isn't a child of this
+	 */
+	public boolean remove(Widget child) {
+		if (child.parent != this) return false;
+		release(child);
+		child.layoutDirty = true;
+		invalidateLayout();
+		return true;
+	}
+
+	/**
+	 * Holds off adding this widget's children until it's first shown.
+	 *
+	 * @param builder adds the children
+	 */
+	void defer(Runnable builder) {
+		deferred = builder;
+	}
+
+	void attach(WidgetTree tree) {
+		if (this.tree == tree) return;
+		this.tree = tree;
+		queued = false;
+		for (Widget child : children) child.attach(tree);
+	}
+
+	/**
+	 * Marks this as needing to be measured and laid out again, for instance
+	 * when its content changes size. Content that also looks different should
+	 * call {@link #invalidatePaint()} as well.
+	 */
+	public void invalidateLayout() {
+		Widget widget = this;
+		while (true) {
+			final boolean propagated = widget != this && widget.layoutDirty;
+			widget.measureDirty = widget.layoutDirty = true;
+			if (propagated || widget.parent == null) return;
+			if (widget.isBoundary()) {
+				if (widget.tree != null && !widget.queued) {
+					widget.queued = true;
+					widget.tree.queue(widget);
+				}
+				return;
+			}
+			widget = widget.parent;
+		}
+	}
+
+	// a change to this widget's own style may change its size, so it reaches the parent even from a boundary
+	private void invalidateStyle() {
+		measureDirty = layoutDirty = true;
+		if (parent != null) parent.invalidateLayout();
+	}
+
+	/**
+	 * Marks this as needing to be painted again and damages the area it
+	 * covers.
+	 */
+	public void invalidatePaint() {
+		paintDirty = true;
+		damage();
+	}
+
+	private void damage() {
+		if (tree == null || !laidOut) return;
+		float x = 0, y = 0;
+		for (Widget widget = this; widget != null; widget = widget.parent) {
+			x += widget.layoutX;
+			y += widget.layoutY;
+		}
+		tree.damage(x, y, layoutWidth, layoutHeight);
+	}
+
+	/**
+	 * @return true if this has been laid out and its size doesn't depend on
+	 * its children, so changes below it needn't reach its ancestors
+	 */
+	boolean isBoundary() {
+		return laidOut && !Float.isNaN(width) && !Float.isNaN(height);
+	}
+
+	/**
+	 * @return true if nothing of the children is drawn outside this, so
+	 * children outside it can be culled
+	 */
+	boolean clips() {
+		return false;
+	}
+
+	/**
+	 * Adds a child while this is being laid out, without invalidating
+	 * anything.
+	 */
+	final void adopt(Widget child) {
+		children.add(child);
+		child.parent = this;
+		child.attach(tree);
+	}
+
+	/**
+	 * Removes a child while this is being laid out, damaging the area it
+	 * covered but invalidating nothing else.
+	 */
+	final void release(Widget child) {
+		child.damage();
+		children.remove(child);
+		child.parent = null;
+		child.attach(null);
+		child.laidOut = false;
+	}
+
+	/**
+	 * Measures the content of a widget without children. Subclasses with
+	 * content override this; the default measures nothing.
+	 *
+	 * @param maxWidth  the most width available inside the padding, possibly
+	 *                  infinite
+	 * @param maxHeight the most height available inside the padding, possibly
+	 *                  infinite
+	 * @param dest      the array to store the width and height in
+	 */
+	protected void measureContent(float maxWidth, float maxHeight, float[] dest) {
+		dest[0] = 0;
+		dest[1] = 0;
+	}
+
+	/**
+	 * Records how this looks, in its own coordinates with the origin at its
+	 * top left corner, after the background has been recorded. The default
+	 * records nothing.
+	 *
+	 * @param list   the list to record into
+	 * @param width  the laid out width
+	 * @param height the laid out height
+	 */
+	protected void paint(DisplayList list, float width, float height) {
+	}
+
+	/**
+	 * Measures this within the given space, reusing the last measurement if
+	 * nothing changed since and the space is the same.
+	 */
+	final void measure(float maxWidth, float maxHeight) {
+		if (!measureDirty && maxWidth == measureMaxWidth && maxHeight == measureMaxHeight) return;
+		float w = width, h = height;
+		if (Float.isNaN(w) || Float.isNaN(h)) {
+			final float innerWidth = Math.max(0, (Float.isNaN(w) ? Math.min(maxWidth, this.maxWidth) : w) - paddingLeft - paddingRight);
+			final float innerHeight = Math.max(0, (Float.isNaN(h) ? Math.min(maxHeight, this.maxHeight) : h) - paddingTop - paddingBottom);
+			final float[] content = new float[2];
+			measureChildren(innerWidth, innerHeight, content);
+			if (Float.isNaN(w)) w = content[0] + paddingLeft + paddingRight;
+			if (Float.isNaN(h)) h = content[1] + paddingTop + paddingBottom;
+		}
+		measuredWidth = clamp(w, minWidth, this.maxWidth);
+		measuredHeight = clamp(h, minHeight, this.maxHeight);
+		measureMaxWidth = maxWidth;
+		measureMaxHeight = maxHeight;
+		measureDirty = false;
+	}
+
+	/**
+	 * Places this in its parent, rearranging the children only if this is
+	 * dirty or changed size.
+	 *
+	 * @param originX the x of the parent in the tree
+	 * @param originY the y of the parent in the tree
+	 */
+	final void layout(float x, float y, float width, float height, float originX, float originY) {
+		final boolean resized = !laidOut || width != layoutWidth || height != layoutHeight;
+		if (resized || x != layoutX || y != layoutY) {
+			if (tree != null) {
+				if (laidOut) tree.damage(originX + layoutX, originY + layoutY, layoutWidth, layoutHeight);
+				tree.damage(originX + x, originY + y, width, height);
+			}
+			layoutX = x;
+			layoutY = y;
+			layoutWidth = width;
+			layoutHeight = height;
+			if (resized) paintDirty = true;
+		}
+		if (layoutDirty || resized) {
+			layoutChildren(paddingLeft, paddingTop, Math.max(0, width - paddingLeft - paddingRight), Math.max(0, height - paddingTop - paddingBottom), originX + x, originY + y);
+			if (tree != null) tree.laidOut++;
+		}
+		laidOut = true;
+		layoutDirty = false;
+	}
+
+	/**
+	 * Measures the content inside the padding: the children's flex layout,
+	 * or {@link #measureContent(float, float, float[])} without children.
+	 */
+	void measureChildren(float innerWidth, float innerHeight, float[] dest) {
+		if (children.isEmpty()) measureContent(innerWidth, innerHeight, dest);
+		else flex(innerWidth, innerHeight, false, 0, 0, dest);
+	}
+
+	/**
+	 * Lays the children out inside the padding.
+	 *
+	 * @param left    the left padding
+	 * @param top     the top padding
+	 * @param originX the x of this in the tree
+	 * @param originY the y of this in the tree
+	 */
+	void layoutChildren(float left, float top, float innerWidth, float innerHeight, float originX, float originY) {
+		if (!children.isEmpty()) flex(innerWidth, innerHeight, true, originX, originY, null);
+	}
+
+	/**
+	 * Runs the flex pass over the children within the space inside the
+	 * padding, either measuring the content into dest or laying the children
+	 * out.
+	 */
+	private void flex(float innerWidth, float innerHeight, boolean place, float originX, float originY, float[] dest) {
+		final boolean row = direction == Direction.ROW;
+		final float innerMain = row ? innerWidth : innerHeight, innerCross = row ? innerHeight : innerWidth;
+		final int n = children.size();
+		final float[] sizes = new float[n];
+
+		// hypothetical main sizes
+		int count = 0;
+		float used = 0, grows = 0, shrinks = 0;
+		for (int i = 0; i < n; i++) {
+			final Widget child = children.get(i);
+			if (!child.visible) continue;
+			float main = !Float.isNaN(child.basis) ? child.basis : row ? child.width : child.height;
+			if (Float.isNaN(main)) {
+				child.measure(innerWidth, innerHeight);
+				main = row ? child.measuredWidth : child.measuredHeight;
+			}
+			main = row ? clamp(main, child.minWidth, child.maxWidth) : clamp(main, child.minHeight, child.maxHeight);
+			sizes[i] = main;
+			used += main;
+			grows += child.grow;
+			shrinks += child.shrink * main;
+			count++;
+		}
+		if (count > 1) used += gap * (count - 1);
+
+		// share out the free space once, without re-running clamped children
+		final float free = Float.isInfinite(innerMain) ? 0 : innerMain - used;
+		if (free > 0 && grows > 0 || free < 0 && shrinks > 0) {
+			used = count > 1 ? gap * (count - 1) : 0;
+			for (int i = 0; i < n; i++) {
+				final Widget child = children.get(i);
+				if (!child.visible) continue;
+				final float main = free > 0 ? sizes[i] + free * child.grow / grows : sizes[i] + free * child.shrink * sizes[i] / shrinks;
+				sizes[i] = row ? clamp(main, child.minWidth, child.maxWidth) : clamp(main, child.minHeight, child.maxHeight);
+				used += sizes[i];
+			}
+		}
+
+		float position = 0, spacing = gap, cross = 0;
+		if (place) {
+			final float remaining = innerMain - used;
+			switch (justify) {
+				case CENTER:
+					position = remaining / 2;
+					break;
+				case END:
+					position = remaining;
+					break;
+				case SPACE_BETWEEN:
+					if (count > 1 && remaining > 0) spacing += remaining / (count - 1);
+					break;
+			}
+		}
+
+		// cross sizes, then placement
+		for (int i = 0; i < n; i++) {
+			final Widget child = children.get(i);
+			if (!child.visible) continue;
+			final float main = sizes[i];
+			float size = row ? child.height : child.width;
+			if (Float.isNaN(size)) {
+				if (place && align == Align.STRETCH && !Float.isInfinite(innerCross)) {
+					size = innerCross;
+				} else if (!child.measureDirty && main == (row ? child.measuredWidth : child.measuredHeight)) {
+					// measured at this main size already, which didn't grow or shrink
+					size = row ? child.measuredHeight : child.measuredWidth;
+				} else {
+					child.measure(row ? main : innerWidth, row ? innerHeight : main);
+					size = row ? child.measuredHeight : child.measuredWidth;
+				}
+			}
+			size = row ? clamp(size, child.minHeight, child.maxHeight) : clamp(size, child.minWidth, child.maxWidth);
+			cross = Math.max(cross, size);
+			if (!place) continue;
+
+			float offset = 0;
+			if (align == Align.CENTER) offset = (innerCross - size) / 2;
+			else if (align == Align.END) offset = innerCross - size;
+			if (row) child.layout(paddingLeft + position, paddingTop + offset, main, size, originX, originY);
+			else child.layout(paddingLeft + offset, paddingTop + position, size, main, originX, originY);
+			position += main + spacing;
+		}
+
+		if (dest != null) {
+			dest[0] = row ? used : cross;
+			dest[1] = row ? cross : used;
+		}
+	}
+
+	private static float clamp(float value, float min, float max) {
+		return Math.max(min, Math.min(max, value));
+	}
+
+	/**
+	 * Gets the display list, recording it first if this needs painting.
+	 */
+	final DisplayList getDisplayList() {
+		if (paintDirty) {
+			displayList.clear();
+			if (background != null) displayList.fill(0, 0, layoutWidth, layoutHeight, background);
+			paint(displayList, layoutWidth, layoutHeight);
+			paintDirty = false;
+		}
+		return displayList;
+	}
+
+	final boolean isLayoutDirty() {
+		return layoutDirty;
+	}
+
+	final boolean isLaidOut() {
+		return laidOut;
+	}
+
+	/**
+	 * @return the x of the last layout, relative to the parent
+	 */
+	public float getLayoutX() {
+		return layoutX;
+	}
+
+	/**
+	 * @return the y of the last layout, relative to the parent
+	 */
+	public float getLayoutY() {
+		return layoutY;
+	}
+
+	public float getLayoutWidth() {
+		return layoutWidth;
+	}
+
+	public float getLayoutHeight() {
+		return layoutHeight;
+	}
+
+	public Direction getDirection() {
+		return direction;
+	}
+
+	public void setDirection(Direction direction) {
+		if (this.direction == direction) return;
+		this.direction = direction;
+		invalidateLayout();
+	}
+
+	public Justify getJustify() {
+		return justify;
+	}
+
+	public void setJustify(Justify justify) {
+		if (this.justify == justify) return;
+		this.justify = justify;
+		invalidateLayout();
+	}
+
+	public Align getAlign() {
+		return align;
+	}
+
+	public void setAlign(Align align) {
+		if (this.align == align) return;
+		this.align = align;
+		invalidateLayout();
+	}
+
+	/**
+	 * @return the fixed width, or NaN if it's sized by its content and parent
+	 */
+	public float getWidth() {
+		return width;
+	}
+
+	/**
+	 * @param width the fixed width, or NaN to size it by its content and
+	 *              parent
+	 */
+	public void setWidth(float width) {
+		if (Float.compare(this.width, width) == 0) return;
+		this.width = width;
+		invalidateStyle();
+	}
+
+	/**
+	 * @return the fixed height, or NaN if it's sized by its content and parent
+	 */
+	public float getHeight() {
+		return height;
+	}
+
+	/**
+	 * @param height the fixed height, or NaN to size it by its content and
+	 *               parent
+	 */
+	public void setHeight(float height) {
+		if (Float.compare(this.height, height) == 0) return;
+		this.height = height;
+		invalidateStyle();
+	}
+
+	public void setSize(float width, float height) {
+		setWidth(width);
+		setHeight(height);
+	}
+
+	public void setMinSize(float minWidth, float minHeight) {
+		this.minWidth = minWidth;
+		this.minHeight = minHeight;
+		invalidateStyle();
+	}
+
+	public void setMaxSize(float maxWidth, float maxHeight) {
+		this.maxWidth = maxWidth;
+		this.maxHeight = maxHeight;
+		invalidateStyle();
+	}
+
+	public float getGrow() {
+		return grow;
+	}
+
+	/**
+	 * @param grow this share of the free space along the parent's main axis,
+	 *             relative to its siblings; 0 by default
+	 */
+	public void setGrow(float grow) {
+		if (this.grow == grow) return;
+		this.grow = grow;
+		invalidateStyle();
+	}
+
+	public float getShrink() {
+		return shrink;
+	}
+
+	/**
+	 * @param shrink how much this gives up, relative to its siblings and
+	 *               weighted by its size, when they overflow the parent; 1 by
+	 *               default
+	 */
+	public void setShrink(float shrink) {
+		if (this.shrink == shrink) return;
+		this.shrink = shrink;
+		invalidateStyle();
+	}
+
+	public float getBasis() {
+		return basis;
+	}
+
+	/**
+	 * @param basis the size along the parent's main axis before growing and
+	 *              shrinking, or NaN to use the width or height
+	 */
+	public void setBasis(float basis) {
+		if (Float.compare(this.basis, basis) == 0) return;
+		this.basis = basis;
+		invalidateStyle();
+	}
+
+	public void setPadding(float padding) {
+		setPadding(padding, padding, padding, padding);
+	}
+
+	public void setPadding(float left, float top, float right, float bottom) {
+		paddingLeft = left;
+		paddingTop = top;
+		paddingRight = right;
+		paddingBottom = bottom;
+		invalidateStyle();
+	}
+
+	public float getGap() {
+		return gap;
+	}
+
+	/**
+	 * @param gap the space between consecutive children
+	 */
+	public void setGap(float gap) {
+		if (this.gap == gap) return;
+		this.gap = gap;
+		invalidateLayout();
+	}
+
+	public Color getBackground() {
+		return background;
+	}
+
+	/**
+	 * @param background the color filling this, or null for none
+	 */
+	public void setBackground(Color background) {
+		this.background = background;
+		invalidatePaint();
+	}
+
+	public boolean isVisible() {
+		return visible;
+	}
+
+	/**
+	 * @param visible false to hide this and take it out of its parent's
+	 *                layout
+	 */
+	public void setVisible(boolean visible) {
+		if (this.visible == visible) return;
+		if (visible && deferred != null) {
+			final Runnable builder = deferred;
+			deferred = null;
+			builder.run();
+		}
+		if (!visible) damage();
+		this.visible = visible;
+		laidOut = laidOut && visible;
+		invalidateStyle();
+	}
+
+}
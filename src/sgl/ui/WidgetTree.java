@@ -0,0 +1,209 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.ui;
+
+import sgl.canvas.Canvas;
+import sgl.canvas.Renderable;
+import sgl.display.DamageRegion;
+import sgl.display.Display;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A retained tree of {@link Widget}s filling a fixed-size area.
+ * <p>
+ * Changes made to the widgets are only marked, and {@link #validate()}
+ * lays out the dirty parts once per frame. The areas that moved, resized
+ * or were repainted since are collected in {@link #getDamage()}, to be
+ * handed to the Display through {@link #submitDamage(Display)} before the
+ * frame is redrawn. Rendering replays each widget's cached display list,
+ * and can skip the widgets outside a damaged rectangle.
+ * </p>
+ *
+ * @author link
+ */
+public final class WidgetTree implements Renderable<Canvas> {
+
+	private final Widget root;
+	private final List<Widget> boundaries = new ArrayList<>();
+	private final DamageRegion damage = new DamageRegion();
+	private int width, height;
+	int laidOut;
+
+	/**
+	 * Creates a tree.
+	 *
+	 * @param root   the widget filling the tree
+	 * @param width  the width of the tree
+	 * @param height the height of the tree
+	 * @throws IllegalArgumentException if the root already belongs to a tree
+	 */
+	public WidgetTree(Widget root, int width, int height) {
+		if (root.getParent() != null || root.tree != null)
+			throw new IllegalArgumentException("widget is already in a tree");
+		this.root = root;
+		this.width = width;
+		this.height = height;
+		root.attach(this);
+	}
+
+	public Widget getRoot() {
+		return root;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public void setSize(int width, int height) {
+		this.width = width;
+		this.height = height;
+	}
+
+	void queue(Widget boundary) {
+		boundaries.add(boundary);
+	}
+
+	void damage(float x, float y, float width, float height) {
+		final int x0 = (int) Math.floor(x), y0 = (int) Math.floor(y);
+		damage.add(x0, y0, (int) Math.ceil(x + width) - x0, (int) Math.ceil(y + height) - y0);
+	}
+
+	/**
+	 * Lays out every widget that changed since the last validation.
+	 *
+	 * @return the number of widgets whose children were rearranged
+	 */
+	public int validate() {
+		laidOut = 0;
+		if (root.isLayoutDirty() || !root.isLaidOut() || root.getLayoutWidth() != width || root.getLayoutHeight() != height) {
+			root.measure(width, height);
+			root.layout(0, 0, width, height, 0, 0);
+		}
+
+		// boundaries whose ancestors were clean; those the root pass reached are clean by now
+		for (int i = 0; i < boundaries.size(); i++) {
+			final Widget boundary = boundaries.get(i);
+			if (boundary.tree != this || !boundary.queued) continue;
+			boundary.queued = false;
+			if (!boundary.isLayoutDirty() || !attached(boundary)) continue;
+
+			float x = 0, y = 0;
+			for (Widget ancestor = boundary.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+				x += ancestor.getLayoutX();
+				y += ancestor.getLayoutY();
+			}
+			boundary.measure(boundary.getWidth(), boundary.getHeight());
+			boundary.layout(boundary.getLayoutX(), boundary.getLayoutY(), boundary.getLayoutWidth(), boundary.getLayoutHeight(), x, y);
+		}
+		boundaries.clear();
+		return laidOut;
+	}
+
+	// false if the widget or one of its ancestors is hidden or hasn't been laid out
+	private static boolean attached(Widget widget) {
+		for (; widget != null; widget = widget.getParent())
+			if (!widget.isVisible() || !widget.isLaidOut()) return false;
+		return true;
+	}
+
+	/**
+	 * @return the areas changed since the damage was last cleared, in tree
+	 * coordinates
+	 */
+	public DamageRegion getDamage() {
+		return damage;
+	}
+
+	/**
+	 * Passes the damage on to a Display showing this tree at its origin,
+	 * then clears it.
+	 *
+	 * @param display the display
+	 */
+	public void submitDamage(Display display) {
+		final int[] rect = new int[4];
+		for (int i = 0; i < damage.size(); i++) {
+			damage.get(i, rect);
+			display.damage(rect[0], rect[1], rect[2], rect[3]);
+		}
+		damage.clear();
+	}
+
+	/**
+	 * Validates the tree and draws every widget.
+	 */
+	@Override
+	public void render(Canvas canvas) {
+		validate();
+		render(root, canvas, 0, 0, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Validates the tree and draws the widgets overlapping a rectangle.
+	 * Widgets are culled with their ancestors, so children laid out outside
+	 * their parent's bounds may be skipped.
+	 */
+	public void render(Canvas canvas, float x, float y, float width, float height) {
+		validate();
+		render(root, canvas, 0, 0, x, y, x + width, y + height);
+	}
+
+	private static void render(Widget widget, Canvas canvas, float originX, float originY, float x0, float y0, float x1, float y1) {
+		if (!widget.isVisible() || !widget.isLaidOut()) return;
+		final float x = originX + widget.getLayoutX(), y = originY + widget.getLayoutY();
+		if (x >= x1 || y >= y1 || x + widget.getLayoutWidth() <= x0 || y + widget.getLayoutHeight() <= y0) return;
+
+		widget.getDisplayList().replay(canvas, x, y);
+		final List<Widget> children = widget.getChildren();
+		if (children.isEmpty()) return;
+		if (widget.clips()) {
+			x0 = Math.max(x0, x);
+			y0 = Math.max(y0, y);
+			x1 = Math.min(x1, x + widget.getLayoutWidth());
+			y1 = Math.min(y1, y + widget.getLayoutHeight());
+		}
+		for (int i = 0, n = children.size(); i < n; i++)
+			render(children.get(i), canvas, x, y, x0, y0, x1, y1);
+	}
+
+	@Override
+	public boolean getBounds(float[] dest) {
+		dest[0] = 0;
+		dest[1] = 0;
+		dest[2] = width;
+		dest[3] = height;
+		return true;
+	}
+
+}
@@ -0,0 +1,456 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.util.math.matrix;
+
+import sgl.util.math.vector.Vec4f;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * A 3x3 matrix of floats stored in fields; either a 2D transform in
+ * homogeneous coordinates or the rotation and scale part of a {@link Mat4f},
+ * such as a normal matrix.
+ * <p>
+ * The layout and conventions are those of {@link Mat4f}: field {@code mCR}
+ * holds column C, row R, arrays and buffers are column-major, and a 2D
+ * transform is affine when its last row is (0, 0, 1).
+ * </p>
+ *
+ * @author link
+ */
+public final class Mat3f implements Matrix<Float> {
+
+	public float m00, m01, m02;
+	public float m10, m11, m12;
+	public float m20, m21, m22;
+
+	/**
+	 * Creates an identity matrix.
+	 */
+	public Mat3f() {
+		m00 = m11 = m22 = 1;
+	}
+
+	public Mat3f(Mat3f matrix) {
+		set(matrix);
+	}
+
+	/**
+	 * Sets every element, column by column.
+	 *
+	 * @return this
+	 */
+	public Mat3f set(float m00, float m01, float m02,
+	                 float m10, float m11, float m12,
+	                 float m20, float m21, float m22) {
+		this.m00 = m00;
+		this.m01 = m01;
+		this.m02 = m02;
+		this.m10 = m10;
+		this.m11 = m11;
+		this.m12 = m12;
+		this.m20 = m20;
+		this.m21 = m21;
+		this.m22 = m22;
+		return this;
+	}
+
+	public Mat3f set(Mat3f m) {
+		return set(m.m00, m.m01, m.m02, m.m10, m.m11, m.m12, m.m20, m.m21, m.m22);
+	}
+
+	/**
+	 * Sets this to the upper left 3x3 of the given matrix.
+	 *
+	 * @return this
+	 */
+	public Mat3f set(Mat4f m) {
+		return set(m.m00, m.m01, m.m02, m.m10, m.m11, m.m12, m.m20, m.m21, m.m22);
+	}
+
+	/**
+	 * Sets every element from 9 column-major floats.
+	 *
+	 * @param array  the array
+	 * @param offset the index of m00
+	 * @return this
+	 */
+	public Mat3f set(float[] array, int offset) {
+		return set(array[offset], array[offset + 1], array[offset + 2],
+			array[offset + 3], array[offset + 4], array[offset + 5],
+			array[offset + 6], array[offset + 7], array[offset + 8]);
+	}
+
+	/**
+	 * Sets this to the normal matrix of the given transform: the inverse
+	 * transpose of its upper left 3x3, which keeps normals perpendicular
+	 * under non-uniform scaling.
+	 *
+	 * @return this
+	 * @throws ArithmeticException if the transform is singular
+	 */
+	public Mat3f normal(Mat4f m) {
+		return set(m).invert().transpose();
+	}
+
+	public Mat3f identity() {
+		return set(1, 0, 0, 0, 1, 0, 0, 0, 1);
+	}
+
+	/**
+	 * @return whether the last row is (0, 0, 1)
+	 */
+	public boolean isAffine() {
+		return m02 == 0 && m12 == 0 && m22 == 1;
+	}
+
+	/**
+	 * Multiplies this by the given matrix, on the right.
+	 *
+	 * @return this
+	 */
+	public Mat3f mul(Mat3f right) {
+		return mul(right, this);
+	}
+
+	/**
+	 * Stores this times the given matrix in dest, which may be either
+	 * operand.
+	 *
+	 * @return dest
+	 */
+	public Mat3f mul(Mat3f right, Mat3f dest) {
+		if (isAffine() && right.isAffine()) return mulAffine(right, dest);
+		final float n00 = m00 * right.m00 + m10 * right.m01 + m20 * right.m02;
+		final float n01 = m01 * right.m00 + m11 * right.m01 + m21 * right.m02;
+		final float n02 = m02 * right.m00 + m12 * right.m01 + m22 * right.m02;
+		final float n10 = m00 * right.m10 + m10 * right.m11 + m20 * right.m12;
+		final float n11 = m01 * right.m10 + m11 * right.m11 + m21 * right.m12;
+		final float n12 = m02 * right.m10 + m12 * right.m11 + m22 * right.m12;
+		final float n20 = m00 * right.m20 + m10 * right.m21 + m20 * right.m22;
+		final float n21 = m01 * right.m20 + m11 * right.m21 + m21 * right.m22;
+		final float n22 = m02 * right.m20 + m12 * right.m21 + m22 * right.m22;
+		return dest.set(n00, n01, n02, n10, n11, n12, n20, n21, n22);
+	}
+
+	/**
+	 * Stores this times the given matrix in dest, assuming both are affine
+	 * 2D transforms.
+	 *
+	 * @return dest
+	 */
+	public Mat3f mulAffine(Mat3f right, Mat3f dest) {
+		final float n00 = m00 * right.m00 + m10 * right.m01;
+		final float n01 = m01 * right.m00 + m11 * right.m01;
+		final float n10 = m00 * right.m10 + m10 * right.m11;
+		final float n11 = m01 * right.m10 + m11 * right.m11;
+		final float n20 = m00 * right.m20 + m10 * right.m21 + m20;
+		final float n21 = m01 * right.m20 + m11 * right.m21 + m21;
+		return dest.set(n00, n01, 0, n10, n11, 0, n20, n21, 1);
+	}
+
+	/**
+	 * Multiplies the given matrix by this, storing the result in this.
+	 *
+	 * @return this
+	 */
+	public Mat3f mulLeft(Mat3f left) {
+		return left.mul(this, this);
+	}
+
+	public float determinant() {
+		return m00 * (m11 * m22 - m21 * m12) - m10 * (m01 * m22 - m21 * m02) + m20 * (m01 * m12 - m11 * m02);
+	}
+
+	/**
+	 * Inverts this.
+	 *
+	 * @return this
+	 * @throws ArithmeticException if this is singular
+	 */
+	@Override
+	public Mat3f invert() {
+		return invert(this);
+	}
+
+	/**
+	 * Stores the inverse of this in dest, which may be this.
+	 *
+	 * @return dest
+	 * @throws ArithmeticException if this is singular
+	 */
+	public Mat3f invert(Mat3f dest) {
+		if (isAffine()) return invertAffine(dest);
+		final float c00 = m11 * m22 - m21 * m12, c01 = m21 * m02 - m01 * m22, c02 = m01 * m12 - m11 * m02;
+		final float det = m00 * c00 + m10 * c01 + m20 * c02;
+		if (det == 0) throw new ArithmeticException("Matrix is singular");
+		final float s = 1 / det;
+		return dest.set(c00 * s, c01 * s, c02 * s,
+			(m20 * m12 - m10 * m22) * s, (m00 * m22 - m20 * m02) * s, (m10 * m02 - m00 * m12) * s,
+			(m10 * m21 - m20 * m11) * s, (m20 * m01 - m00 * m21) * s, (m00 * m11 - m10 * m01) * s);
+	}
+
+	/**
+	 * Stores the inverse of this in dest, assuming this is an affine 2D
+	 * transform.
+	 *
+	 * @return dest
+	 * @throws ArithmeticException if this is singular
+	 */
+	public Mat3f invertAffine(Mat3f dest) {
+		final float det = m00 * m11 - m10 * m01;
+		if (det == 0) throw new ArithmeticException("Matrix is singular");
+		final float s = 1 / det;
+		final float n00 = m11 * s, n01 = -m01 * s, n10 = -m10 * s, n11 = m00 * s;
+		return dest.set(n00, n01, 0, n10, n11, 0, -(n00 * m20 + n10 * m21), -(n01 * m20 + n11 * m21), 1);
+	}
+
+	public Mat3f transpose() {
+		return transpose(this);
+	}
+
+	public Mat3f transpose(Mat3f dest) {
+		return dest.set(m00, m10, m20, m01, m11, m21, m02, m12, m22);
+	}
+
+	/**
+	 * Sets this to a 2D translation.
+	 *
+	 * @return this
+	 */
+	public Mat3f translation(float x, float y) {
+		return set(1, 0, 0, 0, 1, 0, x, y, 1);
+	}
+
+	/**
+	 * Applies a 2D translation before this transform.
+	 *
+	 * @return this
+	 */
+	public Mat3f translate(float x, float y) {
+		m20 += m00 * x + m10 * y;
+		m21 += m01 * x + m11 * y;
+		m22 += m02 * x + m12 * y;
+		return this;
+	}
+
+	/**
+	 * Applies a 2D scale before this transform.
+	 *
+	 * @return this
+	 */
+	public Mat3f scale(float x, float y) {
+		m00 *= x;
+		m01 *= x;
+		m02 *= x;
+		m10 *= y;
+		m11 *= y;
+		m12 *= y;
+		return this;
+	}
+
+	/**
+	 * Applies a counter-clockwise 2D rotation before this transform.
+	 *
+	 * @param angle the angle in radians
+	 * @return this
+	 */
+	public Mat3f rotate(float angle) {
+		final float sin = (float) Math.sin(angle), cos = (float) Math.cos(angle);
+		return set(m00 * cos + m10 * sin, m01 * cos + m11 * sin, m02 * cos + m12 * sin,
+			m10 * cos - m00 * sin, m11 * cos - m01 * sin, m12 * cos - m02 * sin,
+			m20, m21, m22);
+	}
+
+	/**
+	 * Transforms the x, y and z of the given vector in place; w is kept.
+	 *
+	 * @return v
+	 */
+	public Vec4f transform(Vec4f v) {
+		final float x = v.x, y = v.y, z = v.z;
+		return v.set(m00 * x + m10 * y + m20 * z, m01 * x + m11 * y + m21 * z, m02 * x + m12 * y + m22 * z, v.w);
+	}
+
+	/**
+	 * Writes the 9 elements column-major at the buffer's position, without
+	 * moving it, as {@code glUniformMatrix3fv} takes them.
+	 *
+	 * @return buffer
+	 */
+	public FloatBuffer store(FloatBuffer buffer) {
+		return store(buffer.position(), buffer);
+	}
+
+	/**
+	 * Writes the 9 elements column-major starting at the given index.
+	 *
+	 * @return buffer
+	 */
+	public FloatBuffer store(int index, FloatBuffer buffer) {
+		buffer.put(index, m00).put(index + 1, m01).put(index + 2, m02)
+			.put(index + 3, m10).put(index + 4, m11).put(index + 5, m12)
+			.put(index + 6, m20).put(index + 7, m21).put(index + 8, m22);
+		return buffer;
+	}
+
+	/**
+	 * Writes the columns, in the buffer's byte order, starting at the given
+	 * byte index and 16 bytes apart: the std140 layout of a mat3 in a
+	 * uniform buffer. The padding is left untouched.
+	 *
+	 * @return buffer
+	 */
+	public ByteBuffer store(int index, ByteBuffer buffer) {
+		buffer.putFloat(index, m00).putFloat(index + 4, m01).putFloat(index + 8, m02)
+			.putFloat(index + 16, m10).putFloat(index + 20, m11).putFloat(index + 24, m12)
+			.putFloat(index + 32, m20).putFloat(index + 36, m21).putFloat(index + 40, m22);
+		return buffer;
+	}
+
+	/**
+	 * Writes the 9 elements column-major into the given array.
+	 *
+	 * @return array
+	 */
+	public float[] store(float[] array, int offset) {
+		array[offset] = m00;
+		array[offset + 1] = m01;
+		array[offset + 2] = m02;
+		array[offset + 3] = m10;
+		array[offset + 4] = m11;
+		array[offset + 5] = m12;
+		array[offset + 6] = m20;
+		array[offset + 7] = m21;
+		array[offset + 8] = m22;
+		return array;
+	}
+
+	/*
+	 * Matrix, for code written against the generic interface. These copy, so
+	 * nothing per-vertex should go through them.
+	 */
+
+	@Override
+	public Float[] toArray() {
+		return Matrices.boxed(toArrayf());
+	}
+
+	@Override
+	public boolean[] toArrayB() {
+		return Matrices.toBooleans(toArrayf());
+	}
+
+	@Override
+	public byte[] toArrayb() {
+		return Matrices.toBytes(toArrayf());
+	}
+
+	@Override
+	public short[] toArrays() {
+		return Matrices.toShorts(toArrayf());
+	}
+
+	@Override
+	public int[] toArrayi() {
+		return Matrices.toInts(toArrayf());
+	}
+
+	@Override
+	public long[] toArrayl() {
+		return Matrices.toLongs(toArrayf());
+	}
+
+	@Override
+	public float[] toArrayf() {
+		return store(new float[9], 0);
+	}
+
+	@Override
+	public double[] toArrayd() {
+		return Matrices.toDoubles(toArrayf());
+	}
+
+	@Override
+	public Mat3f add(Matrix<Float> matrix) {
+		return set(Matrices.add(toArrayf(), Matrices.elements(matrix, 3), 1), 0);
+	}
+
+	@Override
+	public Mat3f sub(Matrix<Float> matrix) {
+		return set(Matrices.add(toArrayf(), Matrices.elements(matrix, 3), -1), 0);
+	}
+
+	/**
+	 * Multiplies this by the given matrix, on the right.
+	 *
+	 * @return this
+	 */
+	@Override
+	public Mat3f mul(Matrix<Float> matrix) {
+		return mul(matrix instanceof Mat3f ? (Mat3f) matrix : new Mat3f().set(Matrices.elements(matrix, 3), 0));
+	}
+
+	/**
+	 * Multiplies this by the inverse of the given matrix, on the right.
+	 *
+	 * @return this
+	 */
+	@Override
+	public Mat3f div(Matrix<Float> matrix) {
+		return mul(new Mat3f().set(Matrices.elements(matrix, 3), 0).invert());
+	}
+
+	/**
+	 * Orders matrices by their elements, column-major.
+	 */
+	@Override
+	public int compareTo(Matrix<Float> matrix) {
+		return Matrices.compare(toArrayf(), matrix.toArrayf());
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (!(o instanceof Mat3f)) return false;
+		return Arrays.equals(toArrayf(), ((Mat3f) o).toArrayf());
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(toArrayf());
+	}
+
+	@Override
+	public String toString() {
+		return String.format("[%s %s %s]%n[%s %s %s]%n[%s %s %s]", m00, m10, m20, m01, m11, m21, m02, m12, m22);
+	}
+
+}
@@ -0,0 +1,621 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.util.math.matrix;
+
+import sgl.util.math.vector.Vec4f;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * A 4x4 matrix of floats stored in fields, for transforming vertices and
+ * composing scene node transforms without allocating.
+ * <p>
+ * Field {@code mCR} holds column C, row R, and every array or buffer is read
+ * and written column-major, the layout {@code glUniformMatrix4fv} expects
+ * without transposing. Vectors are columns, so {@code a.mul(b)} applies b
+ * first. Methods returning a Mat4f return their destination to chain calls.
+ * </p>
+ * <p>
+ * Multiplying and inverting take a cheaper path when the matrices are
+ * affine, that is when their last row is (0, 0, 0, 1), as every transform
+ * but a projection is.
+ * </p>
+ *
+ * @author link
+ */
+public final class Mat4f implements Matrix<Float> {
+
+	public float m00, m01, m02, m03;
+	public float m10, m11, m12, m13;
+	public float m20, m21, m22, m23;
+	public float m30, m31, m32, m33;
+
+	/**
+	 * Creates an identity matrix.
+	 */
+	public Mat4f() {
+		m00 = m11 = m22 = m33 = 1;
+	}
+
+	public Mat4f(Mat4f matrix) {
+		set(matrix);
+	}
+
+	/**
+	 * Sets every element, column by column.
+	 *
+	 * @return this
+	 */
+	public Mat4f set(float m00, float m01, float m02, float m03,
+	                 float m10, float m11, float m12, float m13,
+	                 float m20, float m21, float m22, float m23,
+	                 float m30, float m31, float m32, float m33) {
+		this.m00 = m00;
+		this.m01 = m01;
+		this.m02 = m02;
+		this.m03 = m03;
+		this.m10 = m10;
+		this.m11 = m11;
+		this.m12 = m12;
+		this.m13 = m13;
+		this.m20 = m20;
+		this.m21 = m21;
+		this.m22 = m22;
+		this.m23 = m23;
+		this.m30 = m30;
+		this.m31 = m31;
+		this.m32 = m32;
+		this.m33 = m33;
+		return this;
+	}
+
+	public Mat4f set(Mat4f m) {
+		return set(m.m00, m.m01, m.m02, m.m03, m.m10, m.m11, m.m12, m.m13, m.m20, m.m21, m.m22, m.m23, m.m30, m.m31, m.m32, m.m33);
+	}
+
+	/**
+	 * Sets this to the given 3x3 matrix, as an affine matrix without a
+	 * translation.
+	 *
+	 * @return this
+	 */
+	public Mat4f set(Mat3f m) {
+		return set(m.m00, m.m01, m.m02, 0, m.m10, m.m11, m.m12, 0, m.m20, m.m21, m.m22, 0, 0, 0, 0, 1);
+	}
+
+	/**
+	 * Sets every element from 16 column-major floats.
+	 *
+	 * @param array  the array
+	 * @param offset the index of m00
+	 * @return this
+	 */
+	public Mat4f set(float[] array, int offset) {
+		return set(array[offset], array[offset + 1], array[offset + 2], array[offset + 3],
+			array[offset + 4], array[offset + 5], array[offset + 6], array[offset + 7],
+			array[offset + 8], array[offset + 9], array[offset + 10], array[offset + 11],
+			array[offset + 12], array[offset + 13], array[offset + 14], array[offset + 15]);
+	}
+
+	/**
+	 * Sets every element from 16 column-major floats at the buffer's
+	 * position, without moving it.
+	 *
+	 * @return this
+	 */
+	public Mat4f load(FloatBuffer buffer) {
+		final int i = buffer.position();
+		return set(buffer.get(i), buffer.get(i + 1), buffer.get(i + 2), buffer.get(i + 3),
+			buffer.get(i + 4), buffer.get(i + 5), buffer.get(i + 6), buffer.get(i + 7),
+			buffer.get(i + 8), buffer.get(i + 9), buffer.get(i + 10), buffer.get(i + 11),
+			buffer.get(i + 12), buffer.get(i + 13), buffer.get(i + 14), buffer.get(i + 15));
+	}
+
+	public Mat4f identity() {
+		return set(1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1);
+	}
+
+	/**
+	 * @return whether the last row is (0, 0, 0, 1)
+	 */
+	public boolean isAffine() {
+		return m03 == 0 && m13 == 0 && m23 == 0 && m33 == 1;
+	}
+
+	/**
+	 * Multiplies this by the given matrix, on the right.
+	 *
+	 * @return this
+	 */
+	public Mat4f mul(Mat4f right) {
+		return mul(right, this);
+	}
+
+	/**
+	 * Stores this times the given matrix in dest, which may be either
+	 * operand.
+	 *
+	 * @return dest
+	 */
+	public Mat4f mul(Mat4f right, Mat4f dest) {
+		if (isAffine() && right.isAffine()) return mulAffine(right, dest);
+		final float n00 = m00 * right.m00 + m10 * right.m01 + m20 * right.m02 + m30 * right.m03;
+		final float n01 = m01 * right.m00 + m11 * right.m01 + m21 * right.m02 + m31 * right.m03;
+		final float n02 = m02 * right.m00 + m12 * right.m01 + m22 * right.m02 + m32 * right.m03;
+		final float n03 = m03 * right.m00 + m13 * right.m01 + m23 * right.m02 + m33 * right.m03;
+		final float n10 = m00 * right.m10 + m10 * right.m11 + m20 * right.m12 + m30 * right.m13;
+		final float n11 = m01 * right.m10 + m11 * right.m11 + m21 * right.m12 + m31 * right.m13;
+		final float n12 = m02 * right.m10 + m12 * right.m11 + m22 * right.m12 + m32 * right.m13;
+		final float n13 = m03 * right.m10 + m13 * right.m11 + m23 * right.m12 + m33 * right.m13;
+		final float n20 = m00 * right.m20 + m10 * right.m21 + m20 * right.m22 + m30 * right.m23;
+		final float n21 = m01 * right.m20 + m11 * right.m21 + m21 * right.m22 + m31 * right.m23;
+		final float n22 = m02 * right.m20 + m12 * right.m21 + m22 * right.m22 + m32 * right.m23;
+		final float n23 = m03 * right.m20 + m13 * right.m21 + m23 * right.m22 + m33 * right.m23;
+		final float n30 = m00 * right.m30 + m10 * right.m31 + m20 * right.m32 + m30 * right.m33;
+		final float n31 = m01 * right.m30 + m11 * right.m31 + m21 * right.m32 + m31 * right.m33;
+		final float n32 = m02 * right.m30 + m12 * right.m31 + m22 * right.m32 + m32 * right.m33;
+		final float n33 = m03 * right.m30 + m13 * right.m31 + m23 * right.m32 + m33 * right.m33;
+		return dest.set(n00, n01, n02, n03, n10, n11, n12, n13, n20, n21, n22, n23, n30, n31, n32, n33);
+	}
+
+	/**
+	 * Stores this times the given matrix in dest, assuming both are affine.
+	 *
+	 * @return dest
+	 */
+	public Mat4f mulAffine(Mat4f right, Mat4f dest) {
+		final float n00 = m00 * right.m00 + m10 * right.m01 + m20 * right.m02;
+		final float n01 = m01 * right.m00 + m11 * right.m01 + m21 * right.m02;
+		final float n02 = m02 * right.m00 + m12 * right.m01 + m22 * right.m02;
+		final float n10 = m00 * right.m10 + m10 * right.m11 + m20 * right.m12;
+		final float n11 = m01 * right.m10 + m11 * right.m11 + m21 * right.m12;
+		final float n12 = m02 * right.m10 + m12 * right.m11 + m22 * right.m12;
+		final float n20 = m00 * right.m20 + m10 * right.m21 + m20 * right.m22;
+		final float n21 = m01 * right.m20 + m11 * right.m21 + m21 * right.m22;
+		final float n22 = m02 * right.m20 + m12 * right.m21 + m22 * right.m22;
+		final float n30 = m00 * right.m30 + m10 * right.m31 + m20 * right.m32 + m30;
+		final float n31 = m01 * right.m30 + m11 * right.m31 + m21 * right.m32 + m31;
+		final float n32 = m02 * right.m30 + m12 * right.m31 + m22 * right.m32 + m32;
+		return dest.set(n00, n01, n02, 0, n10, n11, n12, 0, n20, n21, n22, 0, n30, n31, n32, 1);
+	}
+
+	/**
+	 * Multiplies the given matrix by this, storing the result in this.
+	 *
+	 * @return this
+	 */
+	public Mat4f mulLeft(Mat4f left) {
+		return left.mul(this, this);
+	}
+
+	public float determinant() {
+		if (isAffine())
+			return m00 * (m11 * m22 - m21 * m12) - m10 * (m01 * m22 - m21 * m02) + m20 * (m01 * m12 - m11 * m02);
+		final float a = m00 * m11 - m01 * m10, b = m00 * m12 - m02 * m10, c = m00 * m13 - m03 * m10;
+		final float d = m01 * m12 - m02 * m11, e = m01 * m13 - m03 * m11, f = m02 * m13 - m03 * m12;
+		final float g = m20 * m31 - m21 * m30, h = m20 * m32 - m22 * m30, i = m20 * m33 - m23 * m30;
+		final float j = m21 * m32 - m22 * m31, k = m21 * m33 - m23 * m31, l = m22 * m33 - m23 * m32;
+		return a * l - b * k + c * j + d * i - e * h + f * g;
+	}
+
+	/**
+	 * Inverts this.
+	 *
+	 * @return this
+	 * @throws ArithmeticException if this is singular
+	 */
+	@Override
+	public Mat4f invert() {
+		return invert(this);
+	}
+
+	/**
+	 * Stores the inverse of this in dest, which may be this.
+	 *
+	 * @return dest
+	 * @throws ArithmeticException if this is singular
+	 */
+	public Mat4f invert(Mat4f dest) {
+		if (isAffine()) return invertAffine(dest);
+		final float a = m00 * m11 - m01 * m10, b = m00 * m12 - m02 * m10, c = m00 * m13 - m03 * m10;
+		final float d = m01 * m12 - m02 * m11, e = m01 * m13 - m03 * m11, f = m02 * m13 - m03 * m12;
+		final float g = m20 * m31 - m21 * m30, h = m20 * m32 - m22 * m30, i = m20 * m33 - m23 * m30;
+		final float j = m21 * m32 - m22 * m31, k = m21 * m33 - m23 * m31, l = m22 * m33 - m23 * m32;
+		final float det = a * l - b * k + c * j + d * i - e * h + f * g;
+		if (det == 0) throw new ArithmeticException("Matrix is singular");
+		final float s = 1 / det;
+		return dest.set(
+			(m11 * l - m12 * k + m13 * j) * s, (-m01 * l + m02 * k - m03 * j) * s, (m31 * f - m32 * e + m33 * d) * s, (-m21 * f + m22 * e - m23 * d) * s,
+			(-m10 * l + m12 * i - m13 * h) * s, (m00 * l - m02 * i + m03 * h) * s, (-m30 * f + m32 * c - m33 * b) * s, (m20 * f - m22 * c + m23 * b) * s,
+			(m10 * k - m11 * i + m13 * g) * s, (-m00 * k + m01 * i - m03 * g) * s, (m30 * e - m31 * c + m33 * a) * s, (-m20 * e + m21 * c - m23 * a) * s,
+			(-m10 * j + m11 * h - m12 * g) * s, (m00 * j - m01 * h + m02 * g) * s, (-m30 * d + m31 * b - m32 * a) * s, (m20 * d - m21 * b + m22 * a) * s);
+	}
+
+	/**
+	 * Stores the inverse of this in dest, assuming this is affine.
+	 *
+	 * @return dest
+	 * @throws ArithmeticException if this is singular
+	 */
+	public Mat4f invertAffine(Mat4f dest) {
+		final float c00 = m11 * m22 - m21 * m12, c01 = m21 * m02 - m01 * m22, c02 = m01 * m12 - m11 * m02;
+		final float det = m00 * c00 + m10 * c01 + m20 * c02;
+		if (det == 0) throw new ArithmeticException("Matrix is singular");
+		final float s = 1 / det;
+		final float n00 = c00 * s, n01 = c01 * s, n02 = c02 * s;
+		final float n10 = (m20 * m12 - m10 * m22) * s, n11 = (m00 * m22 - m20 * m02) * s, n12 = (m10 * m02 - m00 * m12) * s;
+		final float n20 = (m10 * m21 - m20 * m11) * s, n21 = (m20 * m01 - m00 * m21) * s, n22 = (m00 * m11 - m10 * m01) * s;
+		return dest.set(n00, n01, n02, 0, n10, n11, n12, 0, n20, n21, n22, 0,
+			-(n00 * m30 + n10 * m31 + n20 * m32), -(n01 * m30 + n11 * m31 + n21 * m32), -(n02 * m30 + n12 * m31 + n22 * m32), 1);
+	}
+
+	public Mat4f transpose() {
+		return transpose(this);
+	}
+
+	public Mat4f transpose(Mat4f dest) {
+		return dest.set(m00, m10, m20, m30, m01, m11, m21, m31, m02, m12, m22, m32, m03, m13, m23, m33);
+	}
+
+	/**
+	 * Sets this to a translation.
+	 *
+	 * @return this
+	 */
+	public Mat4f translation(float x, float y, float z) {
+		return set(1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, x, y, z, 1);
+	}
+
+	/**
+	 * Applies a translation before this transform.
+	 *
+	 * @return this
+	 */
+	public Mat4f translate(float x, float y, float z) {
+		m30 += m00 * x + m10 * y + m20 * z;
+		m31 += m01 * x + m11 * y + m21 * z;
+		m32 += m02 * x + m12 * y + m22 * z;
+		m33 += m03 * x + m13 * y + m23 * z;
+		return this;
+	}
+
+	/**
+	 * Applies a scale before this transform.
+	 *
+	 * @return this
+	 */
+	public Mat4f scale(float x, float y, float z) {
+		m00 *= x;
+		m01 *= x;
+		m02 *= x;
+		m03 *= x;
+		m10 *= y;
+		m11 *= y;
+		m12 *= y;
+		m13 *= y;
+		m20 *= z;
+		m21 *= z;
+		m22 *= z;
+		m23 *= z;
+		return this;
+	}
+
+	/**
+	 * Sets this to a rotation about the given unit axis.
+	 *
+	 * @param angle the angle in radians, counter-clockwise looking down the
+	 *              axis
+	 * @return this
+	 */
+	public Mat4f rotation(float angle, float x, float y, float z) {
+		final float sin = (float) Math.sin(angle), cos = (float) Math.cos(angle), c = 1 - cos;
+		return set(cos + x * x * c, y * x * c + z * sin, z * x * c - y * sin, 0,
+			x * y * c - z * sin, cos + y * y * c, z * y * c + x * sin, 0,
+			x * z * c + y * sin, y * z * c - x * sin, cos + z * z * c, 0,
+			0, 0, 0, 1);
+	}
+
+	/**
+	 * Applies a rotation about the given unit axis before this transform.
+	 *
+	 * @return this
+	 */
+	public Mat4f rotate(float angle, float x, float y, float z) {
+		final float sin = (float) Math.sin(angle), cos = (float) Math.cos(angle), c = 1 - cos;
+		final float r00 = cos + x * x * c, r01 = y * x * c + z * sin, r02 = z * x * c - y * sin;
+		final float r10 = x * y * c - z * sin, r11 = cos + y * y * c, r12 = z * y * c + x * sin;
+		final float r20 = x * z * c + y * sin, r21 = y * z * c - x * sin, r22 = cos + z * z * c;
+		return set(m00 * r00 + m10 * r01 + m20 * r02, m01 * r00 + m11 * r01 + m21 * r02, m02 * r00 + m12 * r01 + m22 * r02, m03 * r00 + m13 * r01 + m23 * r02,
+			m00 * r10 + m10 * r11 + m20 * r12, m01 * r10 + m11 * r11 + m21 * r12, m02 * r10 + m12 * r11 + m22 * r12, m03 * r10 + m13 * r11 + m23 * r12,
+			m00 * r20 + m10 * r21 + m20 * r22, m01 * r20 + m11 * r21 + m21 * r22, m02 * r20 + m12 * r21 + m22 * r22, m03 * r20 + m13 * r21 + m23 * r22,
+			m30, m31, m32, m33);
+	}
+
+	/**
+	 * Applies a rotation about the z axis before this transform, the one
+	 * rotation 2D content needs.
+	 *
+	 * @return this
+	 */
+	public Mat4f rotateZ(float angle) {
+		final float sin = (float) Math.sin(angle), cos = (float) Math.cos(angle);
+		return set(m00 * cos + m10 * sin, m01 * cos + m11 * sin, m02 * cos + m12 * sin, m03 * cos + m13 * sin,
+			m10 * cos - m00 * sin, m11 * cos - m01 * sin, m12 * cos - m02 * sin, m13 * cos - m03 * sin,
+			m20, m21, m22, m23, m30, m31, m32, m33);
+	}
+
+	/**
+	 * Sets this to an orthographic projection, as {@code glOrtho}.
+	 *
+	 * @return this
+	 */
+	public Mat4f ortho(float left, float right, float bottom, float top, float near, float far) {
+		return set(2 / (right - left), 0, 0, 0,
+			0, 2 / (top - bottom), 0, 0,
+			0, 0, -2 / (far - near), 0,
+			-(right + left) / (right - left), -(top + bottom) / (top - bottom), -(far + near) / (far - near), 1);
+	}
+
+	/**
+	 * Sets this to a perspective projection, as {@code gluPerspective}.
+	 *
+	 * @param fovy the vertical field of view in radians
+	 * @return this
+	 */
+	public Mat4f perspective(float fovy, float aspect, float near, float far) {
+		final float f = 1 / (float) Math.tan(fovy * 0.5);
+		return set(f / aspect, 0, 0, 0,
+			0, f, 0, 0,
+			0, 0, (far + near) / (near - far), -1,
+			0, 0, 2 * far * near / (near - far), 0);
+	}
+
+	/**
+	 * Stores the clip planes of this view-projection: left, right, bottom,
+	 * top, near and far, as four (a, b, c, d) each. A point is inside a plane
+	 * when {@code a x + b y + c z + d >= 0}. The planes aren't normalized.
+	 *
+	 * @param dest an array of at least 24 floats
+	 * @return dest
+	 */
+	public float[] planes(float[] dest) {
+		for (int i = 0; i < 6; i++) {
+			final float sign = (i & 1) == 0 ? 1 : -1;
+			final int o = i << 2;
+			switch (i >> 1) {
+				case 0:
+					dest[o] = m03 + sign * m00;
+					dest[o + 1] = m13 + sign * m10;
+					dest[o + 2] = m23 + sign * m20;
+					dest[o + 3] = m33 + sign * m30;
+					break;
+				case 1:
+					dest[o] = m03 + sign * m01;
+					dest[o + 1] = m13 + sign * m11;
+					dest[o + 2] = m23 + sign * m21;
+					dest[o + 3] = m33 + sign * m31;
+					break;
+				default:
+					dest[o] = m03 + sign * m02;
+					dest[o + 1] = m13 + sign * m12;
+					dest[o + 2] = m23 + sign * m22;
+					dest[o + 3] = m33 + sign * m32;
+			}
+		}
+		return dest;
+	}
+
+	/**
+	 * Transforms the given vector in place.
+	 *
+	 * @return v
+	 */
+	public Vec4f transform(Vec4f v) {
+		return transform(v, v);
+	}
+
+	/**
+	 * Stores this times the given vector in dest, which may be v.
+	 *
+	 * @return dest
+	 */
+	public Vec4f transform(Vec4f v, Vec4f dest) {
+		final float x = v.x, y = v.y, z = v.z, w = v.w;
+		return dest.set(m00 * x + m10 * y + m20 * z + m30 * w,
+			m01 * x + m11 * y + m21 * z + m31 * w,
+			m02 * x + m12 * y + m22 * z + m32 * w,
+			m03 * x + m13 * y + m23 * z + m33 * w);
+	}
+
+	/**
+	 * Writes the 16 elements column-major at the buffer's position, without
+	 * moving it.
+	 *
+	 * @return buffer
+	 */
+	public FloatBuffer store(FloatBuffer buffer) {
+		return store(buffer.position(), buffer);
+	}
+
+	/**
+	 * Writes the 16 elements column-major starting at the given index.
+	 *
+	 * @return buffer
+	 */
+	public FloatBuffer store(int index, FloatBuffer buffer) {
+		buffer.put(index, m00).put(index + 1, m01).put(index + 2, m02).put(index + 3, m03)
+			.put(index + 4, m10).put(index + 5, m11).put(index + 6, m12).put(index + 7, m13)
+			.put(index + 8, m20).put(index + 9, m21).put(index + 10, m22).put(index + 11, m23)
+			.put(index + 12, m30).put(index + 13, m31).put(index + 14, m32).put(index + 15, m33);
+		return buffer;
+	}
+
+	/**
+	 * Writes the 16 elements column-major, in the buffer's byte order,
+	 * starting at the given byte index. Uniform buffers laid out with std140
+	 * take a mat4 this way.
+	 *
+	 * @return buffer
+	 */
+	public ByteBuffer store(int index, ByteBuffer buffer) {
+		buffer.putFloat(index, m00).putFloat(index + 4, m01).putFloat(index + 8, m02).putFloat(index + 12, m03)
+			.putFloat(index + 16, m10).putFloat(index + 20, m11).putFloat(index + 24, m12).putFloat(index + 28, m13)
+			.putFloat(index + 32, m20).putFloat(index + 36, m21).putFloat(index + 40, m22).putFloat(index + 44, m23)
+			.putFloat(index + 48, m30).putFloat(index + 52, m31).putFloat(index + 56, m32).putFloat(index + 60, m33);
+		return buffer;
+	}
+
+	/**
+	 * Writes the 16 elements column-major into the given array.
+	 *
+	 * @return array
+	 */
+	public float[] store(float[] array, int offset) {
+		array[offset] = m00;
+		array[offset + 1] = m01;
+		array[offset + 2] = m02;
+		array[offset + 3] = m03;
+		array[offset + 4] = m10;
+		array[offset + 5] = m11;
+		array[offset + 6] = m12;
+		array[offset + 7] = m13;
+		array[offset + 8] = m20;
+		array[offset + 9] = m21;
+		array[offset + 10] = m22;
+		array[offset + 11] = m23;
+		array[offset + 12] = m30;
+		array[offset + 13] = m31;
+		array[offset + 14] = m32;
+		array[offset + 15] = m33;
+		return array;
+	}
+
+	/*
+	 * Matrix, for code written against the generic interface. These copy, so
+	 * nothing per-vertex should go through them.
+	 */
+
+	@Override
+	public Float[] toArray() {
+		return Matrices.boxed(toArrayf());
+	}
+
+	@Override
+	public boolean[] toArrayB() {
+		return Matrices.toBooleans(toArrayf());
+	}
+
+	@Override
+	public byte[] toArrayb() {
+		return Matrices.toBytes(toArrayf());
+	}
+
+	@Override
+	public short[] toArrays() {
+		return Matrices.toShorts(toArrayf());
+	}
+
+	@Override
+	public int[] toArrayi() {
+		return Matrices.toInts(toArrayf());
+	}
+
+	@Override
+	public long[] toArrayl() {
+		return Matrices.toLongs(toArrayf());
+	}
+
+	@Override
+	public float[] toArrayf() {
+		return store(new float[16], 0);
+	}
+
+	@Override
+	public double[] toArrayd() {
+		return Matrices.toDoubles(toArrayf());
+	}
+
+	@Override
+	public Mat4f add(Matrix<Float> matrix) {
+		return set(Matrices.add(toArrayf(), Matrices.elements(matrix, 4), 1), 0);
+	}
+
+	@Override
+	public Mat4f sub(Matrix<Float> matrix) {
+		return set(Matrices.add(toArrayf(), Matrices.elements(matrix, 4), -1), 0);
+	}
+
+	/**
+	 * Multiplies this by the given matrix, on the right.
+	 *
+	 * @return this
+	 */
+	@Override
+	public Mat4f mul(Matrix<Float> matrix) {
+		return mul(matrix instanceof Mat4f ? (Mat4f) matrix : new Mat4f().set(Matrices.elements(matrix, 4), 0));
+	}
+
+	/**
+	 * Multiplies this by the inverse of the given matrix, on the right.
+	 *
+	 * @return this
+	 */
+	@Override
+	public Mat4f div(Matrix<Float> matrix) {
+		return mul(new Mat4f().set(Matrices.elements(matrix, 4), 0).invert());
+	}
+
+	/**
+	 * Orders matrices by their elements, column-major.
+	 */
+	@Override
+	public int compareTo(Matrix<Float> matrix) {
+		return Matrices.compare(toArrayf(), matrix.toArrayf());
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (!(o instanceof Mat4f)) return false;
+		return Arrays.equals(toArrayf(), ((Mat4f) o).toArrayf());
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(toArrayf());
+	}
+
+	@Override
+	public String toString() {
+		return String.format("[%s %s %s %s]%n[%s %s %s %s]%n[%s %s %s %s]%n[%s %s %s %s]",
+			m00, m10, m20, m30, m01, m11, m21, m31, m02, m12, m22, m32, m03, m13, m23, m33);
+	}
+
+}
@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.util.math.matrix;
+
+/**
+ * Conversions shared by the float matrices' {@link Matrix} methods.
+ *
+ * @author link
+ */
+enum Matrices {
+	;
+
+	static Float[] boxed(float[] f) {
+		final Float[] array = new Float[f.length];
+		for (int i = 0; i < f.length; i++) array[i] = f[i];
+		return array;
+	}
+
+	static boolean[] toBooleans(float[] f) {
+		final boolean[] array = new boolean[f.length];
+		for (int i = 0; i < f.length; i++) array[i] = f[i] != 0;
+		return array;
+	}
+
+	static byte[] toBytes(float[] f) {
+		final byte[] array = new byte[f.length];
+		for (int i = 0; i < f.length; i++) array[i] = (byte) f[i];
+		return array;
+	}
+
+	static short[] toShorts(float[] f) {
+		final short[] array = new short[f.length];
+		for (int i = 0; i < f.length; i++) array[i] = (short) f[i];
+		return array;
+	}
+
+	static int[] toInts(float[] f) {
+		final int[] array = new int[f.length];
+		for (int i = 0; i < f.length; i++) array[i] = (int) f[i];
+		return array;
+	}
+
+	static long[] toLongs(float[] f) {
+		final long[] array = new long[f.length];
+		for (int i = 0; i < f.length; i++) array[i] = (long) f[i];
+		return array;
+	}
+
+	static double[] toDoubles(float[] f) {
+		final double[] array = new double[f.length];
+		for (int i = 0; i < f.length; i++) array[i] = f[i];
+		return array;
+	}
+
+	/**
+	 * Gets the column-major elements of a matrix of the given size.
+	 */
+	static float[] elements(Matrix<Float> matrix, int size) {
+		final float[] array = matrix.toArrayf();
+		if (array.length != size * size)
+			throw new IllegalArgumentException("Not a " + size + "x" + size + " matrix: " + array.length + " elements");
+		return array;
+	}
+
+	static float[] add(float[] f, float[] g, float sign) {
+		for (int i = 0; i < f.length; i++) f[i] += sign * g[i];
+		return f;
+	}
+
+	static int compare(float[] f, float[] g) {
+		for (int i = 0; i < Math.min(f.length, g.length); i++) {
+			final int c = Float.compare(f[i], g[i]);
+			if (c != 0) return c;
+		}
+		return Integer.compare(f.length, g.length);
+	}
+
+}
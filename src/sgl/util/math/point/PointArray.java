@@ -0,0 +1,238 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.util.math.point;
+
+import org.lwjgl.system.NativeResource;
+
+import java.nio.FloatBuffer;
+import java.util.stream.IntStream;
+
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * A growable structure-of-arrays point store: one off-heap float column per
+ * coordinate, so batch transforms stream through memory and a column can be
+ * handed to OpenGL as is.
+ * <p>
+ * Batch operations run on the calling Thread below
+ * {@link #getParallelThreshold()} points and in chunks on the common
+ * ForkJoinPool above it. Points aren't objects, so nothing here allocates
+ * per point the way {@link Point#getCoords()} does.
+ * </p>
+ *
+ * @author link
+ */
+public abstract class PointArray implements NativeResource {
+
+	static final int CHUNK = 1 << 15;
+
+	private static volatile int parallelThreshold = 1 << 17;
+
+	protected final FloatBuffer[] columns;
+	protected int size;
+
+	protected PointArray(int dimensions, int capacity) {
+		this.columns = new FloatBuffer[dimensions];
+		for (int i = 0; i < dimensions; i++)
+			columns[i] = memAllocFloat(Math.max(capacity, 16));
+	}
+
+	/**
+	 * @return the number of points
+	 */
+	public int size() {
+		return size;
+	}
+
+	public int capacity() {
+		return columns[0].capacity();
+	}
+
+	/**
+	 * @return the number of coordinates per point
+	 */
+	public int getDimensions() {
+		return columns.length;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Grows the columns to hold at least the given number of points, keeping
+	 * the points already stored.
+	 *
+	 * @param capacity the number of points
+	 */
+	public void ensureCapacity(int capacity) {
+		if (capacity <= capacity()) return;
+		final int grown = Math.max(capacity, capacity() + (capacity() >> 1));
+		for (int i = 0; i < columns.length; i++)
+			columns[i] = memRealloc(columns[i], grown);
+	}
+
+	/**
+	 * Sets the number of points, growing the columns if needed. Points added
+	 * this way are undefined until written, for instance through
+	 * {@link #getColumn(int)}.
+	 *
+	 * @param size the number of points
+	 */
+	public void setSize(int size) {
+		ensureCapacity(size);
+		this.size = size;
+	}
+
+	/**
+	 * Gets a view of one coordinate of every point, from position 0 to
+	 * {@link #size()}. The view shares the column's memory and is invalidated
+	 * when the array grows.
+	 *
+	 * @param dimension the coordinate, 0 for x
+	 * @return the column
+	 */
+	public FloatBuffer getColumn(int dimension) {
+		return memSlice(columns[dimension], 0, size);
+	}
+
+	/**
+	 * Writes the points interleaved, all coordinates of a point together, at
+	 * the buffer's position without moving it; the layout of a vertex
+	 * attribute.
+	 *
+	 * @param buffer the buffer, with room for {@code size() * getDimensions()}
+	 *               floats
+	 * @return buffer
+	 */
+	public FloatBuffer store(FloatBuffer buffer) {
+		final int base = buffer.position(), dimensions = columns.length;
+		run(size, (from, to) -> {
+			for (int d = 0; d < dimensions; d++) {
+				final FloatBuffer column = columns[d];
+				for (int i = from, j = base + from * dimensions + d; i < to; i++, j += dimensions)
+					buffer.put(j, column.get(i));
+			}
+		});
+		return buffer;
+	}
+
+	/**
+	 * Computes the axis-aligned bounds of the points.
+	 *
+	 * @param dest the array to store the minimum of every coordinate in,
+	 *             followed by the maximum of every coordinate
+	 * @return dest; positive infinity followed by negative infinity if there
+	 * are no points
+	 */
+	public float[] bounds(float[] dest) {
+		final int dimensions = columns.length, chunks = (size + CHUNK - 1) / CHUNK;
+		if (chunks <= 1) {
+			bounds(0, size, dest, 0);
+			return dest;
+		}
+
+		final float[] partial = new float[chunks * 2 * dimensions];
+		IntStream range = IntStream.range(0, chunks);
+		if (size >= parallelThreshold) range = range.parallel();
+		range.forEach(chunk -> bounds(chunk * CHUNK, Math.min(size, (chunk + 1) * CHUNK), partial, chunk * 2 * dimensions));
+
+		for (int d = 0; d < dimensions; d++) {
+			float min = Float.POSITIVE_INFINITY, max = Float.NEGATIVE_INFINITY;
+			for (int chunk = 0; chunk < chunks; chunk++) {
+				min = Math.min(min, partial[chunk * 2 * dimensions + d]);
+				max = Math.max(max, partial[chunk * 2 * dimensions + dimensions + d]);
+			}
+			dest[d] = min;
+			dest[dimensions + d] = max;
+		}
+		return dest;
+	}
+
+	private void bounds(int from, int to, float[] dest, int offset) {
+		for (int d = 0; d < columns.length; d++) {
+			final FloatBuffer column = columns[d];
+			float min = Float.POSITIVE_INFINITY, max = Float.NEGATIVE_INFINITY;
+			for (int i = from; i < to; i++) {
+				final float v = column.get(i);
+				// plain comparisons rather than Math.min, which has to order NaN and -0
+				if (v < min) min = v;
+				if (v > max) max = v;
+			}
+			dest[offset + d] = min;
+			dest[offset + columns.length + d] = max;
+		}
+	}
+
+	/**
+	 * Frees the columns.
+	 */
+	@Override
+	public void free() {
+		for (FloatBuffer column : columns) memFree(column);
+		size = 0;
+	}
+
+	/**
+	 * Runs a kernel over the given number of points, in parallel chunks if
+	 * there are enough of them.
+	 */
+	static void run(int length, Kernel kernel) {
+		if (length < parallelThreshold) {
+			kernel.run(0, length);
+		} else {
+			IntStream.range(0, (length + CHUNK - 1) / CHUNK).parallel().forEach(chunk -> {
+				final int from = chunk * CHUNK;
+				kernel.run(from, Math.min(length, from + CHUNK));
+			});
+		}
+	}
+
+	/**
+	 * @return the number of points from which batch operations run in
+	 * parallel
+	 */
+	public static int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	public static void setParallelThreshold(int parallelThreshold) {
+		PointArray.parallelThreshold = parallelThreshold;
+	}
+
+	/**
+	 * A batch operation over the points in [from, to).
+	 */
+	@FunctionalInterface
+	interface Kernel {
+
+		void run(int from, int to);
+
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.util.math.point;
+
+import sgl.util.math.matrix.Mat3f;
+
+import java.nio.FloatBuffer;
+
+/**
+ * A {@link PointArray} of 2D points, transformed by {@link Mat3f}s.
+ *
+ * @author link
+ */
+public final class PointArray2D extends PointArray {
+
+	public PointArray2D(int capacity) {
+		super(2, capacity);
+	}
+
+	public void add(float x, float y) {
+		if (size == capacity()) ensureCapacity(size + 1);
+		columns[0].put(size, x);
+		columns[1].put(size, y);
+		size++;
+	}
+
+	public void set(int index, float x, float y) {
+		columns[0].put(index, x);
+		columns[1].put(index, y);
+	}
+
+	public float getX(int index) {
+		return columns[0].get(index);
+	}
+
+	public float getY(int index) {
+		return columns[1].get(index);
+	}
+
+	/**
+	 * Transforms every point in place.
+	 *
+	 * @see #transform(Mat3f, PointArray2D)
+	 */
+	public void transform(Mat3f m) {
+		transform(m, this);
+	}
+
+	/**
+	 * Stores every point transformed by the given matrix in dest, which may
+	 * be this. A matrix that isn't affine is a projection, and its results
+	 * are divided by w.
+	 *
+	 * @param m    the matrix
+	 * @param dest the array to store the points in, resized to match
+	 */
+	public void transform(Mat3f m, PointArray2D dest) {
+		dest.setSize(size);
+		final FloatBuffer xs = columns[0], ys = columns[1], ox = dest.columns[0], oy = dest.columns[1];
+		final float m00 = m.m00, m01 = m.m01, m02 = m.m02, m10 = m.m10, m11 = m.m11, m12 = m.m12, m20 = m.m20, m21 = m.m21, m22 = m.m22;
+
+		if (m.isAffine()) {
+			run(size, (from, to) -> {
+				for (int i = from; i < to; i++) {
+					final float x = xs.get(i), y = ys.get(i);
+					ox.put(i, m00 * x + m10 * y + m20);
+					oy.put(i, m01 * x + m11 * y + m21);
+				}
+			});
+		} else {
+			run(size, (from, to) -> {
+				for (int i = from; i < to; i++) {
+					final float x = xs.get(i), y = ys.get(i);
+					final float w = 1 / (m02 * x + m12 * y + m22);
+					ox.put(i, (m00 * x + m10 * y + m20) * w);
+					oy.put(i, (m01 * x + m11 * y + m21) * w);
+				}
+			});
+		}
+	}
+
+}
@@ -0,0 +1,152 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.util.math.point;
+
+import sgl.util.math.matrix.Mat4f;
+
+import java.nio.FloatBuffer;
+
+/**
+ * A {@link PointArray} of 3D points, transformed by {@link Mat4f}s.
+ *
+ * @author link
+ */
+public final class PointArray3D extends PointArray {
+
+	public PointArray3D(int capacity) {
+		super(3, capacity);
+	}
+
+	public void add(float x, float y, float z) {
+		if (size == capacity()) ensureCapacity(size + 1);
+		columns[0].put(size, x);
+		columns[1].put(size, y);
+		columns[2].put(size, z);
+		size++;
+	}
+
+	public void set(int index, float x, float y, float z) {
+		columns[0].put(index, x);
+		columns[1].put(index, y);
+		columns[2].put(index, z);
+	}
+
+	public float getX(int index) {
+		return columns[0].get(index);
+	}
+
+	public float getY(int index) {
+		return columns[1].get(index);
+	}
+
+	public float getZ(int index) {
+		return columns[2].get(index);
+	}
+
+	/**
+	 * Transforms every point in place.
+	 *
+	 * @see #transform(Mat4f, PointArray3D)
+	 */
+	public void transform(Mat4f m) {
+		transform(m, this);
+	}
+
+	/**
+	 * Stores every point transformed by the given matrix in dest, which may
+	 * be this. A matrix that isn't affine is a projection, and its results
+	 * are divided by w.
+	 *
+	 * @param m    the matrix
+	 * @param dest the array to store the points in, resized to match
+	 */
+	public void transform(Mat4f m, PointArray3D dest) {
+		dest.setSize(size);
+		final FloatBuffer xs = columns[0], ys = columns[1], zs = columns[2];
+		final FloatBuffer ox = dest.columns[0], oy = dest.columns[1], oz = dest.columns[2];
+		final float m00 = m.m00, m01 = m.m01, m02 = m.m02, m03 = m.m03;
+		final float m10 = m.m10, m11 = m.m11, m12 = m.m12, m13 = m.m13;
+		final float m20 = m.m20, m21 = m.m21, m22 = m.m22, m23 = m.m23;
+		final float m30 = m.m30, m31 = m.m31, m32 = m.m32, m33 = m.m33;
+
+		if (m.isAffine()) {
+			run(size, (from, to) -> {
+				for (int i = from; i < to; i++) {
+					final float x = xs.get(i), y = ys.get(i), z = zs.get(i);
+					ox.put(i, m00 * x + m10 * y + m20 * z + m30);
+					oy.put(i, m01 * x + m11 * y + m21 * z + m31);
+					oz.put(i, m02 * x + m12 * y + m22 * z + m32);
+				}
+			});
+		} else {
+			run(size, (from, to) -> {
+				for (int i = from; i < to; i++) {
+					final float x = xs.get(i), y = ys.get(i), z = zs.get(i);
+					final float w = 1 / (m03 * x + m13 * y + m23 * z + m33);
+					ox.put(i, (m00 * x + m10 * y + m20 * z + m30) * w);
+					oy.put(i, (m01 * x + m11 * y + m21 * z + m31) * w);
+					oz.put(i, (m02 * x + m12 * y + m22 * z + m32) * w);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Projects every point to window coordinates: transformed by the given
+	 * view projection matrix, divided by w, and mapped from normalized device
+	 * coordinates to a viewport with its origin at the top left, as a
+	 * {@link sgl.canvas.Canvas} draws.
+	 *
+	 * @param viewProjection the view projection matrix
+	 * @param width          the width of the viewport
+	 * @param height         the height of the viewport
+	 * @param dest           the array to store the points in, resized to
+	 *                       match
+	 */
+	public void project(Mat4f viewProjection, float width, float height, PointArray2D dest) {
+		dest.setSize(size);
+		final FloatBuffer xs = columns[0], ys = columns[1], zs = columns[2];
+		final FloatBuffer ox = dest.columns[0], oy = dest.columns[1];
+		final Mat4f m = viewProjection;
+		final float sx = width * 0.5f, sy = -height * 0.5f, cy = height * 0.5f;
+		final float m00 = m.m00 * sx, m10 = m.m10 * sx, m20 = m.m20 * sx, m30 = m.m30 * sx;
+		final float m01 = m.m01 * sy, m11 = m.m11 * sy, m21 = m.m21 * sy, m31 = m.m31 * sy;
+		final float m03 = m.m03, m13 = m.m13, m23 = m.m23, m33 = m.m33;
+
+		// the viewport scale is folded into the matrix; only its offset is left per point
+		run(size, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				final float x = xs.get(i), y = ys.get(i), z = zs.get(i);
+				final float w = 1 / (m03 * x + m13 * y + m23 * z + m33);
+				ox.put(i, (m00 * x + m10 * y + m20 * z + m30) * w + sx);
+				oy.put(i, (m01 * x + m11 * y + m21 * z + m31) * w + cy);
+			}
+		});
+	}
+
+}
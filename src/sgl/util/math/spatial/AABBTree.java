@@ -0,0 +1,536 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.util.math.spatial;
+
+import java.util.Arrays;
+
+/**
+ * A dynamic bounding volume hierarchy of axis-aligned boxes in 2 or 3
+ * dimensions, for finding what lies in a viewport, a view frustum or under
+ * the mouse without visiting everything.
+ * <p>
+ * Items are inserted with their bounds and get back a proxy, an int that
+ * stays theirs until they're removed. Each leaf keeps its bounds grown by a
+ * margin, so moving an item within it only updates its tight bounds; moving
+ * out reinserts the leaf. Leaves are inserted next to the sibling that
+ * grows the tree's surface area least, and nodes on the way back up swap
+ * children with grandchildren whenever that shrinks them, so queries and
+ * updates stay about O(log n) whatever order items arrive in.
+ * </p>
+ * <p>
+ * Nodes live in flat primitive arrays indexed by node, so a million items
+ * are a handful of arrays rather than a million objects. Bounds are laid out
+ * as in {@link sgl.util.math.point.PointArray#bounds(float[])}: every
+ * minimum, then every maximum.
+ * </p>
+ * <p>
+ * Trees aren't synchronized. Queries may run concurrently with each other,
+ * and visitors may query the tree again, but not modify it.
+ * </p>
+ *
+ * @param <T> the type of the items
+ * @author link
+ */
+public final class AABBTree<T> {
+
+	private static final int NULL = -1;
+
+	private final int dimensions, stride;
+	private final float margin;
+
+	// fattened bounds of every node, and the exact bounds of leaves
+	private float[] bounds = new float[0], tight = new float[0];
+	// a free node's parent is the next free node, and its height is -1
+	private int[] parent = new int[0], child1 = new int[0], child2 = new int[0], height = new int[0];
+	private Object[] items = new Object[0];
+
+	private int root = NULL, free = NULL;
+	private int capacity, nodes, leaves;
+
+	/**
+	 * @param dimensions 2 or 3
+	 * @param margin     how far past their bounds items may move before
+	 *                   their leaf is reinserted
+	 */
+	public AABBTree(int dimensions, float margin) {
+		if (dimensions != 2 && dimensions != 3) throw new IllegalArgumentException("dimensions must be 2 or 3: " + dimensions);
+		if (!(margin >= 0)) throw new IllegalArgumentException("margin must be non-negative: " + margin);
+		this.dimensions = dimensions;
+		this.stride = dimensions << 1;
+		this.margin = margin;
+	}
+
+	/**
+	 * Inserts an item.
+	 *
+	 * @param item   the item
+	 * @param bounds its minimum then maximum coordinates
+	 * @return the item's proxy
+	 */
+	public int insert(T item, float... bounds) {
+		check(bounds);
+		final int leaf = allocate();
+		items[leaf] = item;
+		System.arraycopy(bounds, 0, tight, leaf * stride, stride);
+		fatten(leaf);
+		insertLeaf(leaf);
+		leaves++;
+		return leaf;
+	}
+
+	/**
+	 * Updates the bounds of an item.
+	 *
+	 * @param proxy  the item's proxy
+	 * @param bounds its new minimum then maximum coordinates
+	 * @return whether its leaf moved in the tree
+	 */
+	public boolean move(int proxy, float... bounds) {
+		check(bounds);
+		checkLeaf(proxy);
+		System.arraycopy(bounds, 0, tight, proxy * stride, stride);
+		if (contains(this.bounds, proxy * stride, bounds)) return false;
+		removeLeaf(proxy);
+		fatten(proxy);
+		insertLeaf(proxy);
+		return true;
+	}
+
+	/**
+	 * Removes an item. Its proxy may be given to the next item inserted.
+	 *
+	 * @param proxy the item's proxy
+	 */
+	public void remove(int proxy) {
+		checkLeaf(proxy);
+		removeLeaf(proxy);
+		release(proxy);
+		leaves--;
+	}
+
+	@SuppressWarnings("unchecked")
+	public T getItem(int proxy) {
+		checkLeaf(proxy);
+		return (T) items[proxy];
+	}
+
+	/**
+	 * Stores the bounds an item was last inserted or moved with.
+	 *
+	 * @return dest
+	 */
+	public float[] getBounds(int proxy, float[] dest) {
+		checkLeaf(proxy);
+		System.arraycopy(tight, proxy * stride, dest, 0, stride);
+		return dest;
+	}
+
+	/**
+	 * Visits every item whose bounds overlap the given box, including along
+	 * an edge.
+	 *
+	 * @param box     the minimum then maximum coordinates
+	 * @param visitor the visitor
+	 */
+	public void query(float[] box, Visitor<? super T> visitor) {
+		check(box);
+		if (root == NULL) return;
+		final int[] stack = stack();
+		int top = 0;
+		stack[top++] = root;
+		while (top > 0) {
+			final int node = stack[--top];
+			if (!overlaps(bounds, node * stride, box)) continue;
+			if (child1[node] == NULL) {
+				if (overlaps(tight, node * stride, box) && !visit(visitor, node)) return;
+			} else {
+				stack[top++] = child1[node];
+				stack[top++] = child2[node];
+			}
+		}
+	}
+
+	/**
+	 * Visits every item whose bounds contain the given point.
+	 */
+	public void pick(float x, float y, Visitor<? super T> visitor) {
+		if (dimensions != 2) throw new IllegalStateException("Picking a 3D tree needs a z coordinate");
+		query(new float[]{x, y, x, y}, visitor);
+	}
+
+	/**
+	 * Visits every item whose bounds contain the given point.
+	 */
+	public void pick(float x, float y, float z, Visitor<? super T> visitor) {
+		if (dimensions != 3) throw new IllegalStateException("Picking a 2D tree takes no z coordinate");
+		query(new float[]{x, y, z, x, y, z}, visitor);
+	}
+
+	/**
+	 * Visits every item whose bounds aren't entirely outside one of the given
+	 * planes, such as a view frustum from {@link
+	 * sgl.util.math.matrix.Mat4f#planes(float[])}. A point p is inside plane
+	 * (n, d) when {@code n . p + d >= 0}; 2D planes are lines of three floats
+	 * and 3D planes take four.
+	 * <p>
+	 * Like every test of boxes against planes, a box outside the volume near
+	 * one of its corners may still be visited. Subtrees found entirely inside
+	 * every plane are visited without further tests.
+	 * </p>
+	 *
+	 * @param planes  up to 32 planes
+	 * @param visitor the visitor
+	 */
+	public void query(float[] planes, int count, Visitor<? super T> visitor) {
+		final int size = dimensions + 1;
+		if (count < 0 || count > 32 || planes.length < count * size)
+			throw new IllegalArgumentException("Expected up to 32 planes of " + size + " floats: " + count);
+		if (root == NULL) return;
+		final int[] stack = stack(), masks = new int[stack.length];
+		int top = 0;
+		stack[top] = root;
+		masks[top++] = count == 32 ? -1 : (1 << count) - 1;
+		while (top > 0) {
+			final int node = stack[--top];
+			int mask = masks[top];
+			if (mask != 0) {
+				final float[] box = child1[node] == NULL ? tight : bounds;
+				mask = classify(box, node * stride, planes, size, mask);
+				if (mask == -1) continue;
+			}
+			if (child1[node] == NULL) {
+				if (!visit(visitor, node)) return;
+			} else {
+				stack[top] = child1[node];
+				masks[top++] = mask;
+				stack[top] = child2[node];
+				masks[top++] = mask;
+			}
+		}
+	}
+
+	/**
+	 * Tests a box against the planes in the mask.
+	 *
+	 * @return -1 if the box is outside a plane, else the mask of the planes
+	 * it crosses
+	 */
+	private int classify(float[] box, int offset, float[] planes, int size, int mask) {
+		final int d = dimensions;
+		int crossing = mask;
+		for (int i = 0; mask != 0; i++, mask >>>= 1) {
+			if ((mask & 1) == 0) continue;
+			final int p = i * size;
+			// the corners farthest along and against the normal
+			float far = planes[p + d], near = far;
+			for (int k = 0; k < d; k++) {
+				final float n = planes[p + k], min = box[offset + k], max = box[offset + d + k];
+				far += n * (n >= 0 ? max : min);
+				near += n * (n >= 0 ? min : max);
+			}
+			if (far < 0) return -1;
+			if (near >= 0) crossing &= ~(1 << i);
+		}
+		return crossing;
+	}
+
+	@SuppressWarnings("unchecked")
+	private boolean visit(Visitor<? super T> visitor, int leaf) {
+		return visitor.visit(leaf, (T) items[leaf]);
+	}
+
+	private int[] stack() {
+		// a depth first walk keeps at most one pending sibling per level
+		return new int[height[root] + 2];
+	}
+
+	/**
+	 * Removes every item.
+	 */
+	public void clear() {
+		bounds = tight = new float[0];
+		parent = child1 = child2 = height = new int[0];
+		items = new Object[0];
+		root = free = NULL;
+		capacity = nodes = leaves = 0;
+	}
+
+	/**
+	 * @return the number of items
+	 */
+	public int size() {
+		return leaves;
+	}
+
+	/**
+	 * @return the number of levels below the root, 0 for one item
+	 */
+	public int getHeight() {
+		return root == NULL ? 0 : height[root];
+	}
+
+	public int getDimensions() {
+		return dimensions;
+	}
+
+	public float getMargin() {
+		return margin;
+	}
+
+	//--------------------structure---------------------
+
+	private void insertLeaf(int leaf) {
+		if (root == NULL) {
+			root = leaf;
+			parent[leaf] = NULL;
+			return;
+		}
+
+		// descend to the sibling which grows the total surface area least
+		final int l = leaf * stride;
+		int index = root;
+		while (child1[index] != NULL) {
+			final float area = area(bounds, index * stride, bounds, index * stride);
+			final float combined = area(bounds, index * stride, bounds, l);
+			// a new parent here costs the combined area; going lower grows this node too
+			final float cost = 2 * combined, inherited = 2 * (combined - area);
+			final float cost1 = descendCost(child1[index], l) + inherited;
+			final float cost2 = descendCost(child2[index], l) + inherited;
+			if (cost < cost1 && cost < cost2) break;
+			index = cost1 < cost2 ? child1[index] : child2[index];
+		}
+
+		final int sibling = index, oldParent = parent[sibling];
+		final int newParent = allocate();
+		parent[newParent] = oldParent;
+		replaceChild(oldParent, sibling, newParent);
+		child1[newParent] = sibling;
+		child2[newParent] = leaf;
+		parent[sibling] = parent[leaf] = newParent;
+
+		for (index = newParent; index != NULL; index = parent[index]) {
+			refit(index);
+			rotate(index);
+		}
+	}
+
+	private float descendCost(int child, int leaf) {
+		final float combined = area(bounds, child * stride, bounds, leaf);
+		return child1[child] == NULL ? combined : combined - area(bounds, child * stride, bounds, child * stride);
+	}
+
+	private void removeLeaf(int leaf) {
+		if (leaf == root) {
+			root = NULL;
+			return;
+		}
+		final int p = parent[leaf], grandparent = parent[p];
+		final int sibling = child1[p] == leaf ? child2[p] : child1[p];
+		replaceChild(grandparent, p, sibling);
+		parent[sibling] = grandparent;
+		release(p);
+		for (int index = grandparent; index != NULL; index = parent[index]) {
+			refit(index);
+			rotate(index);
+		}
+	}
+
+	/**
+	 * Swaps a child of a with a grandchild under its other child when that
+	 * shrinks the surface area of the other child most. This keeps the tree
+	 * tight as leaves come and go in any order, which keeps it shallow
+	 * better than balancing heights alone, as that mixes up distant leaves.
+	 */
+	private void rotate(int a) {
+		final int b = child1[a], c = child2[a];
+		float best = 0;
+		int child = NULL, grandchild = NULL;
+		if (child1[c] != NULL) {
+			final float area = area(bounds, c * stride, bounds, c * stride);
+			final int f = child1[c], g = child2[c];
+			final float bf = area(bounds, b * stride, bounds, g * stride) - area;
+			final float bg = area(bounds, b * stride, bounds, f * stride) - area;
+			if (bf < best) {
+				best = bf;
+				child = b;
+				grandchild = f;
+			}
+			if (bg < best) {
+				best = bg;
+				child = b;
+				grandchild = g;
+			}
+		}
+		if (child1[b] != NULL) {
+			final float area = area(bounds, b * stride, bounds, b * stride);
+			final int d = child1[b], e = child2[b];
+			final float cd = area(bounds, c * stride, bounds, e * stride) - area;
+			final float ce = area(bounds, c * stride, bounds, d * stride) - area;
+			if (cd < best) {
+				best = cd;
+				child = c;
+				grandchild = d;
+			}
+			if (ce < best) {
+				child = c;
+				grandchild = e;
+			}
+		}
+		if (child == NULL) return;
+
+		final int other = parent[grandchild];
+		replaceChild(a, child, grandchild);
+		replaceChild(other, grandchild, child);
+		parent[grandchild] = a;
+		parent[child] = other;
+		refit(other);
+		refit(a);
+	}
+
+	private void replaceChild(int node, int old, int child) {
+		if (node == NULL) root = child;
+		else if (child1[node] == old) child1[node] = child;
+		else child2[node] = child;
+	}
+
+	/**
+	 * Recomputes the height and bounds of an inner node from its children.
+	 */
+	private void refit(int node) {
+		final int a = child1[node], b = child2[node];
+		height[node] = 1 + Math.max(height[a], height[b]);
+		final int d = dimensions, o = node * stride, ao = a * stride, bo = b * stride;
+		for (int k = 0; k < d; k++) {
+			bounds[o + k] = Math.min(bounds[ao + k], bounds[bo + k]);
+			bounds[o + d + k] = Math.max(bounds[ao + d + k], bounds[bo + d + k]);
+		}
+	}
+
+	private void fatten(int leaf) {
+		final int d = dimensions, o = leaf * stride;
+		for (int k = 0; k < d; k++) {
+			bounds[o + k] = tight[o + k] - margin;
+			bounds[o + d + k] = tight[o + d + k] + margin;
+		}
+	}
+
+	/**
+	 * The surface area of the union of two boxes, halved, or in 2D their
+	 * half perimeter.
+	 */
+	private float area(float[] a, int ao, float[] b, int bo) {
+		final int d = dimensions;
+		final float x = Math.max(a[ao + d], b[bo + d]) - Math.min(a[ao], b[bo]);
+		final float y = Math.max(a[ao + d + 1], b[bo + d + 1]) - Math.min(a[ao + 1], b[bo + 1]);
+		if (d == 2) return x + y;
+		final float z = Math.max(a[ao + 5], b[bo + 5]) - Math.min(a[ao + 2], b[bo + 2]);
+		return x * y + y * z + z * x;
+	}
+
+	private boolean overlaps(float[] a, int offset, float[] box) {
+		final int d = dimensions;
+		for (int k = 0; k < d; k++)
+			if (a[offset + k] > box[d + k] || a[offset + d + k] < box[k]) return false;
+		return true;
+	}
+
+	private boolean contains(float[] a, int offset, float[] box) {
+		final int d = dimensions;
+		for (int k = 0; k < d; k++)
+			if (a[offset + k] > box[k] || a[offset + d + k] < box[d + k]) return false;
+		return true;
+	}
+
+	//--------------------nodes---------------------
+
+	private int allocate() {
+		if (free == NULL) grow();
+		final int node = free;
+		free = parent[node];
+		parent[node] = child1[node] = child2[node] = NULL;
+		height[node] = 0;
+		nodes++;
+		return node;
+	}
+
+	private void release(int node) {
+		parent[node] = free;
+		height[node] = -1;
+		items[node] = null;
+		free = node;
+		nodes--;
+	}
+
+	private void grow() {
+		final int n = capacity == 0 ? 16 : capacity << 1;
+		bounds = Arrays.copyOf(bounds, n * stride);
+		tight = Arrays.copyOf(tight, n * stride);
+		parent = Arrays.copyOf(parent, n);
+		child1 = Arrays.copyOf(child1, n);
+		child2 = Arrays.copyOf(child2, n);
+		height = Arrays.copyOf(height, n);
+		items = Arrays.copyOf(items, n);
+		for (int i = capacity; i < n; i++) {
+			parent[i] = i + 1 < n ? i + 1 : NULL;
+			height[i] = -1;
+		}
+		free = capacity;
+		capacity = n;
+	}
+
+	private void check(float[] box) {
+		if (box.length != stride)
+			throw new IllegalArgumentException("Expected " + stride + " bounds, got " + box.length);
+		for (int k = 0; k < dimensions; k++)
+			if (!(box[k] <= box[dimensions + k]))
+				throw new IllegalArgumentException("Invalid bounds: " + Arrays.toString(box));
+	}
+
+	private void checkLeaf(int proxy) {
+		if (proxy < 0 || proxy >= capacity || height[proxy] != 0 || child1[proxy] != NULL)
+			throw new IllegalArgumentException("Not a proxy: " + proxy);
+	}
+
+	/**
+	 * Receives the items a query finds.
+	 *
+	 * @param <T> the type of the items
+	 */
+	@FunctionalInterface
+	public interface Visitor<T> {
+
+		/**
+		 * @param proxy the item's proxy
+		 * @param item  the item
+		 * @return false to end the query
+		 */
+		boolean visit(int proxy, T item);
+
+	}
+
+}
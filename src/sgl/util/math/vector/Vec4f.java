@@ -0,0 +1,172 @@
+/*
+ * The MIT License
+ *
+ * Copyright ${year} Andrew Porter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * Created file on ${date} at ${time}.
+ *
+ * This file is part of SGL
+ */
+package sgl.util.math.vector;
+
+import sgl.util.math.matrix.Mat4f;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * A 4 component float vector stored in fields; a homogeneous point when w is
+ * 1, a direction when w is 0. Operations work in place and return this, so
+ * a few scratch vectors serve any number of transforms.
+ *
+ * @author link
+ */
+public final class Vec4f {
+
+	public float x, y, z, w;
+
+	public Vec4f() {
+	}
+
+	public Vec4f(float x, float y, float z, float w) {
+		set(x, y, z, w);
+	}
+
+	public Vec4f(Vec4f v) {
+		set(v);
+	}
+
+	public Vec4f set(float x, float y, float z, float w) {
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		this.w = w;
+		return this;
+	}
+
+	public Vec4f set(Vec4f v) {
+		return set(v.x, v.y, v.z, v.w);
+	}
+
+	public Vec4f add(Vec4f v) {
+		return set(x + v.x, y + v.y, z + v.z, w + v.w);
+	}
+
+	public Vec4f sub(Vec4f v) {
+		return set(x - v.x, y - v.y, z - v.z, w - v.w);
+	}
+
+	public Vec4f mul(float s) {
+		return set(x * s, y * s, z * s, w * s);
+	}
+
+	/**
+	 * Transforms this by the given matrix.
+	 *
+	 * @return this
+	 */
+	public Vec4f mul(Mat4f m) {
+		return m.transform(this);
+	}
+
+	/**
+	 * Divides x, y and z by w, taking a clip space position to normalized
+	 * device coordinates.
+	 *
+	 * @return this
+	 */
+	public Vec4f project() {
+		final float s = 1 / w;
+		return set(x * s, y * s, z * s, 1);
+	}
+
+	/**
+	 * Moves this the given fraction of the way to v.
+	 *
+	 * @return this
+	 */
+	public Vec4f lerp(Vec4f v, float t) {
+		return set(x + (v.x - x) * t, y + (v.y - y) * t, z + (v.z - z) * t, w + (v.w - w) * t);
+	}
+
+	public float dot(Vec4f v) {
+		return x * v.x + y * v.y + z * v.z + w * v.w;
+	}
+
+	public float length() {
+		return (float) Math.sqrt(dot(this));
+	}
+
+	/**
+	 * Scales this to unit length. A zero vector is left as is.
+	 *
+	 * @return this
+	 */
+	public Vec4f normalize() {
+		final float length = length();
+		return length == 0 ? this : mul(1 / length);
+	}
+
+	/**
+	 * Writes x, y, z and w at the buffer's position, without moving it.
+	 *
+	 * @return buffer
+	 */
+	public FloatBuffer store(FloatBuffer buffer) {
+		return store(buffer.position(), buffer);
+	}
+
+	public FloatBuffer store(int index, FloatBuffer buffer) {
+		return buffer.put(index, x).put(index + 1, y).put(index + 2, z).put(index + 3, w);
+	}
+
+	/**
+	 * Writes x, y, z and w, in the buffer's byte order, starting at the given
+	 * byte index.
+	 *
+	 * @return buffer
+	 */
+	public ByteBuffer store(int index, ByteBuffer buffer) {
+		return buffer.putFloat(index, x).putFloat(index + 4, y).putFloat(index + 8, z).putFloat(index + 12, w);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (!(o instanceof Vec4f)) return false;
+		final Vec4f v = (Vec4f) o;
+		return Float.compare(x, v.x) == 0 && Float.compare(y, v.y) == 0 && Float.compare(z, v.z) == 0 && Float.compare(w, v.w) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = Float.floatToIntBits(x);
+		hash = 31 * hash + Float.floatToIntBits(y);
+		hash = 31 * hash + Float.floatToIntBits(z);
+		return 31 * hash + Float.floatToIntBits(w);
+	}
+
+	@Override
+	public String toString() {
+		return "(" + x + ", " + y + ", " + z + ", " + w + ")";
+	}
+
+}